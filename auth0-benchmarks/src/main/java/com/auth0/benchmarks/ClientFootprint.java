@@ -0,0 +1,109 @@
+/*
+ * ClientFootprint.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.benchmarks;
+
+import com.auth0.Auth0;
+import com.auth0.authentication.AuthenticationAPIClient;
+import com.auth0.request.internal.OkHttpTransport;
+import com.squareup.okhttp.OkHttpClient;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Locale;
+
+/**
+ * Measures the heap retained by {@link AuthenticationAPIClient} instances of different tenants, reported per 1,000 clients.
+ * Clients created with {@link Auth0#newAuthenticationAPIClient()} share their HTTP client and JSON mapper,
+ * while 'dedicated' clients each get their own {@link OkHttpClient}, like every client did before sharing them.
+ * The {@link Auth0} account information of each client is included in the retained heap.
+ * <pre><code>
+ * ./gradlew :auth0-benchmarks:footprint -Pfootprint.args="--clients=10000 --rounds=5"
+ * </code></pre>
+ */
+public class ClientFootprint {
+
+    private static final int PER_CLIENTS = 1000;
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final int clients;
+
+    public ClientFootprint(int clients) {
+        this.clients = clients;
+    }
+
+    /**
+     * Creates the clients and measures the heap used before and after, once the garbage has been collected
+     *
+     * @param dedicated whether each client gets its own HTTP client
+     * @return the retained bytes per 1,000 clients
+     */
+    public long measure(boolean dedicated) {
+        final AuthenticationAPIClient[] created = new AuthenticationAPIClient[clients];
+        final long before = usedHeap();
+        for (int i = 0; i < clients; i++) {
+            final Auth0 auth0 = new Auth0("CLIENTID" + i, "tenant" + i + ".auth0.com");
+            created[i] = dedicated
+                    ? new AuthenticationAPIClient(auth0, new OkHttpTransport(new OkHttpClient()))
+                    : auth0.newAuthenticationAPIClient();
+        }
+        final long after = usedHeap();
+        for (AuthenticationAPIClient client : created) {
+            client.close();
+        }
+        return (after - before) * PER_CLIENTS / clients;
+    }
+
+    private long usedHeap() {
+        long used = Long.MAX_VALUE;
+        // a few collections, since a single one isn't guaranteed to free everything unreachable
+        for (int i = 0; i < 5; i++) {
+            memory.gc();
+            used = Math.min(used, memory.getHeapMemoryUsage().getUsed());
+        }
+        return used;
+    }
+
+    public static void main(String[] args) {
+        int clients = 10000;
+        int rounds = 5;
+        for (String arg : args) {
+            if (arg.startsWith("--clients=")) {
+                clients = Integer.parseInt(arg.substring("--clients=".length()));
+            } else if (arg.startsWith("--rounds=")) {
+                rounds = Integer.parseInt(arg.substring("--rounds=".length()));
+            } else {
+                throw new IllegalArgumentException("Invalid argument " + arg + ", expected --clients=<n> or --rounds=<n>");
+            }
+        }
+        final ClientFootprint footprint = new ClientFootprint(clients);
+        // the first round loads the classes and creates the shared resources, which aren't per client
+        footprint.measure(false);
+        footprint.measure(true);
+        for (int round = 1; round <= rounds; round++) {
+            System.out.println(String.format(Locale.US, "Round %d: shared %,d bytes, dedicated %,d bytes retained per %,d clients",
+                    round, footprint.measure(false), footprint.measure(true), PER_CLIENTS));
+        }
+    }
+}
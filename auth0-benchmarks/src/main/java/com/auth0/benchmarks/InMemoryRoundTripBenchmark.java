@@ -0,0 +1,119 @@
+/*
+ * InMemoryRoundTripBenchmark.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.benchmarks;
+
+import com.auth0.Auth0;
+import com.auth0.Auth0Exception;
+import com.auth0.authentication.AuthenticationAPIClient;
+import com.auth0.authentication.result.Credentials;
+import com.auth0.authentication.result.UserProfile;
+import com.auth0.callback.BaseCallback;
+import com.auth0.request.internal.InMemoryTransport;
+import com.auth0.request.transport.TransportRequest;
+import com.auth0.request.transport.TransportResponse;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.Charset;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full calls of {@link AuthenticationAPIClient} answered by an {@link InMemoryTransport}:
+ * measures request building, JSON serialization and parsing and callback dispatch without any network cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InMemoryRoundTripBenchmark {
+
+    private static final String JSON = "application/json";
+
+    private AuthenticationAPIClient client;
+
+    @Setup
+    public void setUp() {
+        final Charset utf8 = Charset.forName("UTF-8");
+        final byte[] credentials = Payloads.CREDENTIALS.getBytes(utf8);
+        final byte[] profile = Payloads.SMALL_PROFILE.getBytes(utf8);
+        final InMemoryTransport transport = new InMemoryTransport(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+        transport.register("/oauth/ro", new InMemoryTransport.Handler() {
+            @Override
+            public TransportResponse handle(TransportRequest request) {
+                return TransportResponse.create(200, JSON, credentials);
+            }
+        });
+        transport.register("/tokeninfo", new InMemoryTransport.Handler() {
+            @Override
+            public TransportResponse handle(TransportRequest request) {
+                return TransportResponse.create(200, JSON, profile);
+            }
+        });
+        client = new AuthenticationAPIClient(new Auth0("CLIENTID", "samples.auth0.com"), transport);
+    }
+
+    @Benchmark
+    public Credentials login() {
+        return client.login("support@auth0.com", "voidpassword").execute();
+    }
+
+    @Benchmark
+    public UserProfile tokenInfo() {
+        return client.tokenInfo("ID_TOKEN").execute();
+    }
+
+    @Benchmark
+    public void loginWithCallback(final Blackhole blackhole) {
+        client.login("support@auth0.com", "voidpassword").start(new BaseCallback<Credentials>() {
+            @Override
+            public void onSuccess(Credentials payload) {
+                blackhole.consume(payload);
+            }
+
+            @Override
+            public void onFailure(Auth0Exception error) {
+                blackhole.consume(error);
+            }
+        });
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Payloads.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.benchmarks;
+
+/**
+ * JSON payloads returned by Auth0 Authentication API used as input of the benchmarks
+ */
+public abstract class Payloads {
+
+    public static final String CREDENTIALS = "{" +
+            "\"refresh_token\":\"REFRESH_TOKEN\"," +
+            "\"id_token\":\"eyJ0eXAiOiJKV1QiLCJhbGciOiJIUzI1NiJ9.eyJpc3MiOiJodHRwczovL3NhbXBsZXMuYXV0aDAuY29tLyIsInN1YiI6ImF1dGgwfDUzYjk5NWY4YmNlNjhkOWZjOTAwMDk5YyIsImF1ZCI6IkNMSUVOVElEIiwiZXhwIjoxNDYxMDI3MTY2LCJpYXQiOjE0NjA5OTExNjZ9.signature\"," +
+            "\"access_token\":\"ACCESS_TOKEN\"," +
+            "\"token_type\":\"bearer\"" +
+            "}";
+
+    public static final String SMALL_PROFILE = profile(1);
+
+    public static final String LARGE_PROFILE = profile(50);
+
+    /**
+     * Builds a '/tokeninfo' response with the given number of identities, each one with its own profile data
+     *
+     * @param identities number of identities linked to the user
+     * @return the JSON payload
+     */
+    public static String profile(int identities) {
+        final StringBuilder json = new StringBuilder(512 + identities * 512)
+                .append("{")
+                .append("\"email\":\"p@p.xom\",")
+                .append("\"email_verified\":false,")
+                .append("\"picture\":\"https://secure.gravatar.com/avatar/cfacbe113a96fdfc85134534771d88b4?s=480&r=pg\",")
+                .append("\"user_id\":\"auth0|53b995f8bce68d9fc900099c\",")
+                .append("\"name\":\"p@p.xom\",")
+                .append("\"nickname\":\"p\",")
+                .append("\"created_at\":\"2014-07-06T18:33:49.005Z\",")
+                .append("\"username\":\"p\",")
+                .append("\"updated_at\":\"2015-09-30T19:43:48.499Z\",")
+                .append("\"app_metadata\":{\"roles\":[\"admin\",\"user\"],\"plan\":\"enterprise\"},")
+                .append("\"identities\":[");
+        for (int i = 0; i < identities; i++) {
+            if (i > 0) {
+                json.append(",");
+            }
+            json.append("{")
+                    .append("\"user_id\":\"").append(1000000 + i).append("\",")
+                    .append("\"provider\":\"provider-").append(i).append("\",")
+                    .append("\"connection\":\"connection-").append(i).append("\",")
+                    .append("\"isSocial\":").append(i > 0).append(",")
+                    .append("\"access_token\":\"ACCESS_TOKEN_").append(i).append("\",")
+                    .append("\"profileData\":{\"name\":\"John Doe\",\"locale\":\"en\",\"followers\":").append(i * 10).append("}")
+                    .append("}");
+        }
+        return json.append("]}").toString();
+    }
+}
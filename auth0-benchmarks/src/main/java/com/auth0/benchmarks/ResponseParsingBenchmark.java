@@ -0,0 +1,89 @@
+/*
+ * ResponseParsingBenchmark.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.benchmarks;
+
+import com.auth0.authentication.result.Credentials;
+import com.auth0.authentication.result.UserProfile;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing Auth0 responses with the same kind of {@link ObjectReader} used by the requests
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseParsingBenchmark {
+
+    private ObjectReader credentialsReader;
+    private ObjectReader profileReader;
+    private byte[] credentials;
+    private byte[] smallProfile;
+    private byte[] largeProfile;
+
+    @Setup
+    public void setUp() {
+        final ObjectMapper mapper = new ObjectMapper();
+        final Charset utf8 = Charset.forName("UTF-8");
+        credentialsReader = mapper.reader(Credentials.class);
+        profileReader = mapper.reader(UserProfile.class);
+        credentials = Payloads.CREDENTIALS.getBytes(utf8);
+        smallProfile = Payloads.SMALL_PROFILE.getBytes(utf8);
+        largeProfile = Payloads.LARGE_PROFILE.getBytes(utf8);
+    }
+
+    @Benchmark
+    public Credentials credentials() throws IOException {
+        return credentialsReader.readValue(credentials);
+    }
+
+    @Benchmark
+    public UserProfile smallProfile() throws IOException {
+        return profileReader.readValue(smallProfile);
+    }
+
+    @Benchmark
+    public UserProfile largeProfile() throws IOException {
+        return profileReader.readValue(largeProfile);
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * LoadGenerator.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.benchmarks.load;
+
+import com.auth0.Auth0;
+import com.auth0.authentication.AuthenticationAPIClient;
+import com.auth0.request.internal.OkHttpTransport;
+import com.auth0.request.transport.Transport;
+import com.auth0.standin.FaultInjector;
+import com.auth0.standin.StandInServer;
+import com.squareup.okhttp.OkHttpClient;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives {@link AuthenticationAPIClient} calls against an Auth0 {@link StandInServer} and records their latency.
+ * <p>
+ * With a target rate the load is open: every call has an intended start time on a fixed schedule and its latency
+ * is measured from that time, not from the moment a worker got to send it. A stalled server therefore shows up as
+ * latency of all the calls that should have been sent meanwhile, instead of silently lowering the rate
+ * (coordinated omission). Without a rate the load is closed: each worker sends its next call as soon as the previous one
+ * finishes, and the reported histograms are corrected afterwards using the mean latency as the expected interval.
+ * <pre><code>
+ * ./gradlew :auth0-benchmarks:loadTest -Pload.args="--rate=2000 --duration=60 --scenarios=login,token_info"
+ * </code></pre>
+ */
+public class LoadGenerator {
+
+    private static final String CLIENT_ID = "CLIENTID";
+    private static final String CLIENT_SECRET = "CLIENTSECRET";
+    private static final long THREAD_SAMPLE_MILLIS = 100;
+
+    private final AuthenticationAPIClient client;
+    private final String idToken;
+    private final List<Scenario> scenarios;
+    private final int threads;
+    private final int rate;
+    private final long warmupNanos;
+    private final long durationNanos;
+    private final Recorder[] recorders;
+    private final AtomicLong[] errors;
+
+    /**
+     * Creates a new load generator
+     *
+     * @param client    used to call the stand-in server
+     * @param idToken   of a user, used by the scenarios that need one
+     * @param scenarios to run, in round robin
+     * @param threads   number of worker threads. With a target rate it must be enough to sustain it.
+     * @param rate      target calls per second, or 0 to let each worker send calls back to back
+     * @param warmup    time spent before recording latencies
+     * @param duration  time spent recording latencies
+     * @param unit      of warmup and duration
+     */
+    public LoadGenerator(AuthenticationAPIClient client, String idToken, List<Scenario> scenarios, int threads, int rate, long warmup, long duration, TimeUnit unit) {
+        this.client = client;
+        this.idToken = idToken;
+        this.scenarios = scenarios;
+        this.threads = threads;
+        this.rate = rate;
+        this.warmupNanos = unit.toNanos(warmup);
+        this.durationNanos = unit.toNanos(duration);
+        this.recorders = new Recorder[scenarios.size()];
+        this.errors = new AtomicLong[scenarios.size()];
+        for (int i = 0; i < recorders.length; i++) {
+            recorders[i] = new Recorder(3);
+            errors[i] = new AtomicLong();
+        }
+    }
+
+    /**
+     * Runs the warmup and measurement phases, blocking until all the workers are done
+     *
+     * @return the recorded latencies
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public LoadReport run() throws InterruptedException {
+        final long start = System.nanoTime();
+        final long measureStart = start + warmupNanos;
+        final long end = measureStart + durationNanos;
+        final AtomicLong nextSlot = new AtomicLong();
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            final long worker = i;
+            final Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        if (rate > 0) {
+                            runScheduled(nextSlot, start, measureStart, end);
+                        } else {
+                            runBackToBack(worker, measureStart, end);
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }, "auth0-load-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        // live threads are sampled while waiting, to see how many threads the SDK needs under the load
+        final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        int peakThreads = 0;
+        while (!done.await(THREAD_SAMPLE_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (System.nanoTime() >= measureStart) {
+                peakThreads = Math.max(peakThreads, threadBean.getThreadCount());
+            }
+        }
+
+        final Map<Scenario, Histogram> histograms = new HashMap<>();
+        final Map<Scenario, Long> callCounts = new HashMap<>();
+        final Map<Scenario, Long> errorCounts = new HashMap<>();
+        for (int i = 0; i < recorders.length; i++) {
+            Histogram histogram = recorders[i].getIntervalHistogram();
+            callCounts.put(scenarios.get(i), histogram.getTotalCount());
+            if (rate <= 0 && histogram.getTotalCount() > 0) {
+                histogram = histogram.copyCorrectedForCoordinatedOmission((long) histogram.getMean());
+            }
+            histograms.put(scenarios.get(i), histogram);
+            errorCounts.put(scenarios.get(i), errors[i].get());
+        }
+        final String mode = rate > 0 ? "rate=" + rate + "/s" : "concurrency=" + threads;
+        return new LoadReport(mode, threads, peakThreads, TimeUnit.NANOSECONDS.toSeconds(durationNanos), scenarios, histograms, callCounts, errorCounts);
+    }
+
+    private void runScheduled(AtomicLong nextSlot, long start, long measureStart, long end) {
+        final long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        while (true) {
+            final long slot = nextSlot.getAndIncrement();
+            final long intended = start + slot * intervalNanos;
+            if (intended >= end) {
+                return;
+            }
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            call(slot, intended, intended >= measureStart);
+        }
+    }
+
+    private void runBackToBack(long worker, long measureStart, long end) {
+        long iteration = worker;
+        long now;
+        while ((now = System.nanoTime()) < end) {
+            call(iteration, now, now >= measureStart);
+            iteration += threads;
+        }
+    }
+
+    private void call(long iteration, long startNanos, boolean record) {
+        final int index = (int) (iteration % scenarios.size());
+        try {
+            scenarios.get(index).run(client, idToken, iteration);
+        } catch (RuntimeException e) {
+            if (record) {
+                errors[index].incrementAndGet();
+            }
+        }
+        if (record) {
+            recorders[index].recordValue(System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * Runs a load test against an embedded {@link StandInServer}. Accepted arguments, all optional:
+     * <ul>
+     * <li>--rate=N target calls per second, 0 (default) runs the workers back to back</li>
+     * <li>--threads=N number of worker threads, by default 16</li>
+     * <li>--warmup=N seconds of warmup, by default 10</li>
+     * <li>--duration=N seconds of measurement, by default 30</li>
+     * <li>--scenarios=a,b comma separated {@link Scenario} names or 'all' (default)</li>
+     * <li>--transport=NAME 'okhttp' (default), 'jdk' for the java.net.http client, or 'h2' for HTTP/2 multiplexing
+     * with --h2.connections=N connections per host (default 2) of --h2.streams=N concurrent streams (default 100).
+     * The last two need the auth0-jdk-http module and a JDK 11 runtime.</li>
+     * <li>--server-threads=N threads of the stand-in server, by default 256</li>
+     * <li>--fault.PATH=SPEC faults injected by the stand-in server, see {@link StandInServer#main(String[])}</li>
+     * <li>--out=DIR directory where reports are written, by default 'build/reports/load'</li>
+     * </ul>
+     *
+     * @param args the arguments
+     * @throws Exception if the stand-in server could not be started or the reports could not be written
+     */
+    public static void main(String[] args) throws Exception {
+        final Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Invalid argument " + arg + ", expected --name=value");
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        final int rate = Integer.parseInt(option(options, "rate", "0"));
+        final int threads = Integer.parseInt(option(options, "threads", "16"));
+        final long warmup = Long.parseLong(option(options, "warmup", "10"));
+        final long duration = Long.parseLong(option(options, "duration", "30"));
+        final List<Scenario> scenarios = Scenario.parse(option(options, "scenarios", "all"));
+        final File out = new File(option(options, "out", "build/reports/load"));
+
+        final StandInServer server = new StandInServer(CLIENT_ID, CLIENT_SECRET);
+        server.setThreads(Integer.parseInt(option(options, "server-threads", "256")));
+        server.getUsers().seed(Scenario.USERS, Scenario.PASSWORD);
+        server.start(0);
+        try {
+            final AuthenticationAPIClient client = new AuthenticationAPIClient(new Auth0(CLIENT_ID, server.getDomain()), newTransport(options));
+            final String idToken = client.login("user0@auth0.com", Scenario.PASSWORD).execute().getIdToken();
+            StandInServer.configureFaults(server.getFaults(), options);
+            final LoadGenerator generator = new LoadGenerator(client, idToken, scenarios, threads, rate, warmup, duration, TimeUnit.SECONDS);
+            final LoadReport report = generator.run();
+            report.print(System.out);
+            final FaultInjector faults = server.getFaults();
+            System.out.println(String.format(Locale.US, "Injected faults: %d delayed, %d errors, %d resets, %d slow bodies, %d blackholes",
+                    faults.getDelayedCount(), faults.getErrorCount(), faults.getResetCount(), faults.getSlowBodyCount(), faults.getBlackholeCount()));
+            System.out.println("Client connections opened: " + server.getClientConnectionCount());
+            System.out.println("Reports written to " + report.write(out));
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static Transport newTransport(Map<String, String> options) throws ReflectiveOperationException {
+        final String name = option(options, "transport", "okhttp");
+        // the JDK transports are loaded by name, since they are built with JDK 11 and this module with JDK 8
+        switch (name) {
+            case "okhttp":
+                return new OkHttpTransport(new OkHttpClient());
+            case "jdk":
+                return (Transport) Class.forName("com.auth0.request.jdk.JdkHttpTransport").newInstance();
+            case "h2":
+                return (Transport) Class.forName("com.auth0.request.jdk.Http2Transport")
+                        .getConstructor(int.class, int.class)
+                        .newInstance(Integer.parseInt(option(options, "h2.connections", "2")), Integer.parseInt(option(options, "h2.streams", "100")));
+            default:
+                throw new IllegalArgumentException("Unknown transport " + name + ", expected okhttp, jdk or h2");
+        }
+    }
+
+    private static String option(Map<String, String> options, String name, String defaultValue) {
+        final String value = options.get(name);
+        return value != null ? value : defaultValue;
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * LoadReport.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.benchmarks.load;
+
+import com.auth0.BuildConfig;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Latencies recorded by a {@link LoadGenerator} run, per {@link Scenario}.
+ * Call counts and throughput only include the calls actually made, even when the histograms were corrected.
+ * Reports are written to a directory named after the SDK version and the run date, so runs of different releases
+ * can be compared side by side:
+ * <ul>
+ * <li>summary.txt with the main percentiles of every scenario</li>
+ * <li>summary.csv with the same values</li>
+ * <li>one {scenario}.hgrm file per scenario with its full percentile distribution, in milliseconds</li>
+ * </ul>
+ */
+public class LoadReport {
+
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    private final String mode;
+    private final int threads;
+    private final int peakThreads;
+    private final long durationSeconds;
+    private final List<Scenario> scenarios;
+    private final Map<Scenario, Histogram> histograms;
+    private final Map<Scenario, Long> calls;
+    private final Map<Scenario, Long> errors;
+    private final Date date;
+
+    LoadReport(String mode, int threads, int peakThreads, long durationSeconds, List<Scenario> scenarios, Map<Scenario, Histogram> histograms, Map<Scenario, Long> calls, Map<Scenario, Long> errors) {
+        this.mode = mode;
+        this.threads = threads;
+        this.peakThreads = peakThreads;
+        this.durationSeconds = durationSeconds;
+        this.scenarios = scenarios;
+        this.histograms = histograms;
+        this.calls = calls;
+        this.errors = errors;
+        this.date = new Date();
+    }
+
+    /**
+     * @param scenario that was run
+     * @return the latencies of the scenario in nanoseconds
+     */
+    public Histogram getHistogram(Scenario scenario) {
+        return histograms.get(scenario);
+    }
+
+    /**
+     * @param scenario that was run
+     * @return the number of calls of the scenario recorded
+     */
+    public long getCalls(Scenario scenario) {
+        return calls.get(scenario);
+    }
+
+    /**
+     * @param scenario that was run
+     * @return the number of calls of the scenario that failed
+     */
+    public long getErrors(Scenario scenario) {
+        return errors.get(scenario);
+    }
+
+    /**
+     * @return the maximum number of live threads of the process sampled during the measurement,
+     * including the ones of the load generator and an embedded stand-in server
+     */
+    public int getPeakThreads() {
+        return peakThreads;
+    }
+
+    /**
+     * Prints the summary table
+     *
+     * @param out where to print it
+     */
+    public void print(PrintStream out) {
+        out.println(String.format(Locale.US, "auth0-java %s, %s, %d threads, %ds, %d peak live threads",
+                BuildConfig.VERSION, mode, threads, durationSeconds, peakThreads));
+        out.println(String.format(Locale.US, "%-14s %10s %8s %10s %10s %10s %10s %10s",
+                "scenario", "calls", "errors", "calls/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms"));
+        for (Scenario scenario : scenarios) {
+            final Histogram histogram = histograms.get(scenario);
+            out.println(String.format(Locale.US, "%-14s %10d %8d %10.1f %10.3f %10.3f %10.3f %10.3f",
+                    scenario.name().toLowerCase(Locale.US),
+                    calls.get(scenario),
+                    errors.get(scenario),
+                    throughput(scenario),
+                    millis(histogram.getValueAtPercentile(50)),
+                    millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue())));
+        }
+    }
+
+    /**
+     * Writes the reports in a new directory inside the given one
+     *
+     * @param parent directory where the reports directory is created
+     * @return the directory with the reports
+     * @throws IOException if the reports could not be written
+     */
+    public File write(File parent) throws IOException {
+        final String name = BuildConfig.VERSION + "-" + new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(date);
+        final File dir = new File(parent, name);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create directory " + dir);
+        }
+        try (PrintStream summary = open(new File(dir, "summary.txt"))) {
+            print(summary);
+        }
+        try (PrintStream csv = open(new File(dir, "summary.csv"))) {
+            csv.println("scenario,calls,errors,calls_per_second,p50_ms,p90_ms,p99_ms,p99_9_ms,max_ms");
+            for (Scenario scenario : scenarios) {
+                final Histogram histogram = histograms.get(scenario);
+                csv.println(String.format(Locale.US, "%s,%d,%d,%.1f,%.3f,%.3f,%.3f,%.3f,%.3f",
+                        scenario.name().toLowerCase(Locale.US),
+                        calls.get(scenario),
+                        errors.get(scenario),
+                        throughput(scenario),
+                        millis(histogram.getValueAtPercentile(50)),
+                        millis(histogram.getValueAtPercentile(90)),
+                        millis(histogram.getValueAtPercentile(99)),
+                        millis(histogram.getValueAtPercentile(99.9)),
+                        millis(histogram.getMaxValue())));
+            }
+        }
+        for (Scenario scenario : scenarios) {
+            try (PrintStream hgrm = open(new File(dir, scenario.name().toLowerCase(Locale.US) + ".hgrm"))) {
+                histograms.get(scenario).outputPercentileDistribution(hgrm, NANOS_PER_MILLI);
+            }
+        }
+        return dir;
+    }
+
+    private double throughput(Scenario scenario) {
+        return durationSeconds > 0 ? calls.get(scenario) / (double) durationSeconds : 0;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / NANOS_PER_MILLI;
+    }
+
+    private static PrintStream open(File file) throws FileNotFoundException {
+        try {
+            return new PrintStream(file, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
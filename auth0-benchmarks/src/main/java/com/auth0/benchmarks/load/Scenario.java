@@ -0,0 +1,102 @@
+/*
+ * Scenario.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.benchmarks.load;
+
+import com.auth0.Auth0Exception;
+import com.auth0.authentication.AuthenticationAPIClient;
+import com.auth0.authentication.PasswordlessType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Calls of {@link AuthenticationAPIClient} driven by the {@link LoadGenerator}.
+ * Each one is executed synchronously in the calling worker thread, using the users seeded in the stand-in server
+ * and an id token obtained before the run.
+ */
+public enum Scenario {
+
+    LOGIN {
+        @Override
+        void run(AuthenticationAPIClient client, String idToken, long iteration) throws Auth0Exception {
+            client.login("user" + (iteration % USERS) + "@auth0.com", PASSWORD)
+                    .setConnection(CONNECTION)
+                    .execute();
+        }
+    },
+    TOKEN_INFO {
+        @Override
+        void run(AuthenticationAPIClient client, String idToken, long iteration) throws Auth0Exception {
+            client.tokenInfo(idToken).execute();
+        }
+    },
+    DELEGATION {
+        @Override
+        void run(AuthenticationAPIClient client, String idToken, long iteration) throws Auth0Exception {
+            client.delegationWithIdToken(idToken).execute();
+        }
+    },
+    SIGN_UP {
+        @Override
+        void run(AuthenticationAPIClient client, String idToken, long iteration) throws Auth0Exception {
+            client.signUp("new" + iteration + "@auth0.com", PASSWORD)
+                    .setConnection(CONNECTION)
+                    .execute();
+        }
+    },
+    PASSWORDLESS {
+        @Override
+        void run(AuthenticationAPIClient client, String idToken, long iteration) throws Auth0Exception {
+            client.passwordlessWithEmail("user" + (iteration % USERS) + "@auth0.com", PasswordlessType.CODE).execute();
+        }
+    };
+
+    static final int USERS = 1000;
+    static final String PASSWORD = "s3cr3t-Passw0rd";
+    static final String CONNECTION = "Username-Password-Authentication";
+
+    abstract void run(AuthenticationAPIClient client, String idToken, long iteration) throws Auth0Exception;
+
+    /**
+     * Parses a comma separated list of scenario names, e.g. 'login,token_info'. The value 'all' selects every scenario.
+     *
+     * @param value list of scenario names
+     * @return the selected scenarios in the given order
+     */
+    public static List<Scenario> parse(String value) {
+        final List<Scenario> scenarios = new ArrayList<>();
+        if ("all".equalsIgnoreCase(value)) {
+            for (Scenario scenario : values()) {
+                scenarios.add(scenario);
+            }
+            return scenarios;
+        }
+        for (String name : value.split(",")) {
+            scenarios.add(valueOf(name.trim().toUpperCase(Locale.US)));
+        }
+        return scenarios;
+    }
+}
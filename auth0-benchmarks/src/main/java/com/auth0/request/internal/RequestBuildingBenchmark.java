@@ -0,0 +1,100 @@
+/*
+ * RequestBuildingBenchmark.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.request.internal;
+
+import com.auth0.authentication.ParameterBuilder;
+import com.auth0.request.AuthenticationRequest;
+import com.auth0.request.transport.Transport;
+import com.auth0.request.transport.TransportRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.squareup.okhttp.HttpUrl;
+import com.squareup.okhttp.OkHttpClient;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building requests without sending them: JSON body creation and full construction through {@link RequestFactory}.
+ * It lives in the same package as the classes it measures since they are not public.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestBuildingBenchmark {
+
+    private Transport transport;
+    private ObjectMapper mapper;
+    private ObjectWriter writer;
+    private RequestFactory factory;
+    private HttpUrl url;
+    private Map<String, Object> parameters;
+
+    @Setup
+    public void setUp() {
+        transport = new OkHttpTransport(new OkHttpClient());
+        mapper = new ObjectMapper();
+        writer = mapper.writer();
+        factory = new RequestFactory();
+        factory.setClientInfo("eyJuYW1lIjoiYXV0aDAtamF2YSIsInZlcnNpb24iOiIwLjMuMCJ9");
+        factory.setUserAgent("auth0-benchmarks");
+        url = HttpUrl.parse("https://samples.auth0.com/oauth/ro");
+        parameters = ParameterBuilder.newAuthenticationBuilder()
+                .setClientId("CLIENTID")
+                .setConnection("Username-Password-Authentication")
+                .setGrantType(ParameterBuilder.GRANT_TYPE_PASSWORD)
+                .set("username", "support@auth0.com")
+                .set("password", "voidpassword")
+                .asDictionary();
+    }
+
+    @Benchmark
+    public byte[] jsonBody() {
+        return JsonRequestBodyBuilder.createBody(parameters, writer);
+    }
+
+    @Benchmark
+    public TransportRequest loginRequest() {
+        final AuthenticationRequest request = factory.authenticationPOST(url, transport, mapper)
+                .addAuthenticationParameters(parameters)
+                .setScope(ParameterBuilder.SCOPE_OPENID);
+        final BaseAuthenticationRequest baseRequest = (BaseAuthenticationRequest) request;
+        return baseRequest.doBuildRequest();
+    }
+}
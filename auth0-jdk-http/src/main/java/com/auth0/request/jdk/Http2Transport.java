@@ -0,0 +1,192 @@
+/*
+ * Http2Transport.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.request.jdk;
+
+import com.auth0.request.transport.Transport;
+import com.auth0.request.transport.TransportCall;
+import com.auth0.request.transport.TransportRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link Transport} for high concurrency that multiplexes the requests over a small, fixed number of HTTP/2
+ * connections per host, instead of opening a connection, and doing a TLS handshake, for each concurrent request.
+ * Requests are assigned to the connections in round robin, and each connection carries at most a given number of
+ * concurrent streams. Requests over that limit wait for a stream to be released: {@link com.auth0.request.Request#execute()}
+ * blocks and {@link com.auth0.request.Request#start(com.auth0.callback.BaseCallback)} queues the request without
+ * holding a thread.
+ * <pre><code>
+ * Http2Transport transport = new Http2Transport(2, 100);
+ * AuthenticationAPIClient client = new AuthenticationAPIClient(auth0, transport);
+ * </code></pre>
+ * If a server doesn't accept HTTP/2 the requests fall back to HTTP/1.1, where the JDK client opens a connection per
+ * concurrent stream. The stream limit still bounds the number of connections in that case.
+ */
+public class Http2Transport implements Transport {
+
+    public static final int DEFAULT_CONNECTIONS = 2;
+    public static final int DEFAULT_MAX_CONCURRENT_STREAMS = 100;
+
+    private final StreamLane[] lanes;
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * Creates a transport with 2 connections per host of up to 100 concurrent streams each,
+     * the limit most HTTP/2 servers advertise.
+     */
+    public Http2Transport() {
+        this(DEFAULT_CONNECTIONS, DEFAULT_MAX_CONCURRENT_STREAMS);
+    }
+
+    /**
+     * Creates a transport with a fixed number of connections per host
+     *
+     * @param connections          per host, each one with its own client
+     * @param maxConcurrentStreams per connection
+     */
+    public Http2Transport(int connections, int maxConcurrentStreams) {
+        this(newTransports(connections), maxConcurrentStreams);
+    }
+
+    /**
+     * Creates a transport that uses each of the given transports as one connection per host.
+     * Each of them must have its own client, since the client is the one that pools the connections.
+     *
+     * @param transports           one per connection
+     * @param maxConcurrentStreams per connection
+     */
+    public Http2Transport(List<JdkHttpTransport> transports, int maxConcurrentStreams) {
+        if (transports.isEmpty()) {
+            throw new IllegalArgumentException("At least one connection is required");
+        }
+        if (maxConcurrentStreams < 1) {
+            throw new IllegalArgumentException("The max concurrent streams must be positive, but was " + maxConcurrentStreams);
+        }
+        this.lanes = new StreamLane[transports.size()];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new StreamLane(transports.get(i), maxConcurrentStreams);
+        }
+    }
+
+    @Override
+    public TransportCall newCall(TransportRequest request) {
+        final int index = (next.getAndIncrement() & Integer.MAX_VALUE) % lanes.length;
+        return lanes[index].newCall(request);
+    }
+
+    /**
+     * Counts the hosts that each configured connection, which has its own client, sent requests to so far. It's the
+     * number of connections expected with HTTP/2, but it doesn't count sockets: with HTTP/1.1 a client opens a
+     * connection per concurrent stream, and it reconnects when the server closes a connection, without changing it.
+     *
+     * @return the number of hosts each client sent requests to, summed over the clients
+     */
+    public int getLaneHostCount() {
+        int count = 0;
+        for (StreamLane lane : lanes) {
+            count += lane.getHostCount();
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of streams currently open, across all connections
+     */
+    public int getActiveStreams() {
+        int count = 0;
+        for (StreamLane lane : lanes) {
+            count += lane.getActiveStreams();
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of requests started in the background that are waiting for a stream
+     */
+    public int getQueuedStreams() {
+        int count = 0;
+        for (StreamLane lane : lanes) {
+            count += lane.getQueuedStreams();
+        }
+        return count;
+    }
+
+    /**
+     * @return the highest number of streams that were open at the same time on a single connection
+     */
+    public int getPeakStreamsPerConnection() {
+        int peak = 0;
+        for (StreamLane lane : lanes) {
+            peak = Math.max(peak, lane.getPeakStreams());
+        }
+        return peak;
+    }
+
+    /**
+     * @return the total number of streams opened
+     */
+    public long getStreamCount() {
+        long count = 0;
+        for (StreamLane lane : lanes) {
+            count += lane.getStreamCount();
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of responses received over HTTP/2
+     */
+    public long getHttp2ResponseCount() {
+        long count = 0;
+        for (StreamLane lane : lanes) {
+            count += lane.getTransport().getHttp2ResponseCount();
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of responses received over HTTP/1.1, because the server didn't accept HTTP/2
+     */
+    public long getHttp1ResponseCount() {
+        long count = 0;
+        for (StreamLane lane : lanes) {
+            count += lane.getTransport().getHttp1ResponseCount();
+        }
+        return count;
+    }
+
+    private static List<JdkHttpTransport> newTransports(int connections) {
+        if (connections < 1) {
+            throw new IllegalArgumentException("At least one connection is required, but was " + connections);
+        }
+        final List<JdkHttpTransport> transports = new ArrayList<>(connections);
+        for (int i = 0; i < connections; i++) {
+            transports.add(new JdkHttpTransport());
+        }
+        return transports;
+    }
+}
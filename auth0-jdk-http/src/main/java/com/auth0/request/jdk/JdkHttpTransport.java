@@ -0,0 +1,219 @@
+/*
+ * JdkHttpTransport.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.request.jdk;
+
+import com.auth0.request.transport.Transport;
+import com.auth0.request.transport.TransportCall;
+import com.auth0.request.transport.TransportCallback;
+import com.auth0.request.transport.TransportRequest;
+import com.auth0.request.transport.TransportResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * {@link Transport} that sends the requests with the JDK {@link HttpClient}, available since Java 11.
+ * By default it negotiates HTTP/2, so concurrent requests to the same host are multiplexed on a single connection,
+ * and requests sent in the background use {@link HttpClient#sendAsync} without blocking a thread per request.
+ * <pre><code>
+ * AuthenticationAPIClient client = new AuthenticationAPIClient(auth0, new JdkHttpTransport());
+ * </code></pre>
+ */
+public class JdkHttpTransport implements Transport {
+
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(10);
+
+    // headers set by HttpClient itself, that it doesn't allow to be set by the user
+    private static final Set<String> RESTRICTED_HEADERS = new HashSet<>(Arrays.asList(
+            "connection", "content-length", "date", "expect", "from", "host", "upgrade", "via", "warning"));
+
+    private final HttpClient client;
+    private final Duration timeout;
+    private final AtomicLong http2Responses = new AtomicLong();
+    private final AtomicLong http1Responses = new AtomicLong();
+
+    /**
+     * Creates a transport preferring HTTP/2, with the same 10 seconds timeouts as the default OkHttp client
+     */
+    public JdkHttpTransport() {
+        this(HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(DEFAULT_TIMEOUT)
+                .build(), DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Creates a transport with a configured client
+     *
+     * @param client  used to send the requests
+     * @param timeout to receive the response headers of each request
+     */
+    public JdkHttpTransport(HttpClient client, Duration timeout) {
+        this.client = client;
+        this.timeout = timeout;
+    }
+
+    public HttpClient getClient() {
+        return client;
+    }
+
+    /**
+     * @return the number of responses received over HTTP/2
+     */
+    public long getHttp2ResponseCount() {
+        return http2Responses.get();
+    }
+
+    /**
+     * @return the number of responses received over HTTP/1.1, because the server didn't accept HTTP/2
+     */
+    public long getHttp1ResponseCount() {
+        return http1Responses.get();
+    }
+
+    @Override
+    public TransportCall newCall(final TransportRequest request) {
+        final HttpRequest httpRequest = toHttpRequest(request);
+        return new TransportCall() {
+            private volatile CompletableFuture<HttpResponse<InputStream>> future;
+            private volatile boolean canceled;
+
+            @Override
+            public TransportResponse execute() throws IOException {
+                if (request.getTrace() != null) {
+                    request.getTrace().dispatched();
+                }
+                // sent like HttpClient#send does it, but keeping the future so the call can be cancelled
+                final CompletableFuture<HttpResponse<InputStream>> future = send();
+                try {
+                    return toTransportResponse(future.get());
+                } catch (InterruptedException e) {
+                    future.cancel(true);
+                    Thread.currentThread().interrupt();
+                    final InterruptedIOException interrupted = new InterruptedIOException("Interrupted while waiting for the response");
+                    interrupted.initCause(e);
+                    throw interrupted;
+                } catch (ExecutionException | CancellationException e) {
+                    throw toIOException(e);
+                }
+            }
+
+            @Override
+            public void enqueue(final TransportCallback callback) {
+                if (request.getTrace() != null) {
+                    request.getTrace().dispatched();
+                }
+                send().whenComplete(new BiConsumer<HttpResponse<InputStream>, Throwable>() {
+                    @Override
+                    public void accept(HttpResponse<InputStream> response, Throwable error) {
+                        if (error != null) {
+                            callback.onFailure(toIOException(error));
+                            return;
+                        }
+                        callback.onResponse(toTransportResponse(response));
+                    }
+                });
+            }
+
+            @Override
+            public void cancel() {
+                canceled = true;
+                final CompletableFuture<HttpResponse<InputStream>> future = this.future;
+                if (future != null) {
+                    // since Java 16 it also aborts the exchange, before it only completes the future right away
+                    future.cancel(true);
+                }
+            }
+
+            private CompletableFuture<HttpResponse<InputStream>> send() {
+                final CompletableFuture<HttpResponse<InputStream>> future = client.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofInputStream());
+                this.future = future;
+                if (canceled) {
+                    future.cancel(true);
+                }
+                return future;
+            }
+        };
+    }
+
+    private HttpRequest toHttpRequest(TransportRequest request) {
+        final HttpRequest.Builder builder = HttpRequest.newBuilder(request.getUrl().uri())
+                .timeout(timeout);
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            if (!RESTRICTED_HEADERS.contains(header.getKey().toLowerCase(Locale.US))) {
+                builder.header(header.getKey(), header.getValue());
+            }
+        }
+        if (request.getBody() == null) {
+            return builder.method(request.getMethod(), HttpRequest.BodyPublishers.noBody()).build();
+        }
+        return builder.header("Content-Type", request.getContentType())
+                .method(request.getMethod(), HttpRequest.BodyPublishers.ofByteArray(request.getBody()))
+                .build();
+    }
+
+    private TransportResponse toTransportResponse(HttpResponse<InputStream> response) {
+        if (response.version() == HttpClient.Version.HTTP_2) {
+            http2Responses.incrementAndGet();
+        } else {
+            http1Responses.incrementAndGet();
+        }
+        final Map<String, List<String>> headers = response.headers().map();
+        final Map<String, String> values = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            if (!header.getValue().isEmpty()) {
+                values.put(header.getKey(), header.getValue().get(0));
+            }
+        }
+        return new TransportResponse(response.statusCode(), values, response.body());
+    }
+
+    private static IOException toIOException(Throwable error) {
+        final boolean wrapped = error instanceof CompletionException || error instanceof ExecutionException;
+        final Throwable cause = wrapped && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof CancellationException) {
+            return new IOException("Canceled", cause);
+        }
+        return cause instanceof IOException ? (IOException) cause : new IOException(cause);
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * StreamLane.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.request.jdk;
+
+import com.auth0.request.internal.AdmissionQueue;
+import com.auth0.request.transport.TransportCall;
+import com.auth0.request.transport.TransportRequest;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One connection per host of a {@link Http2Transport}: a {@link JdkHttpTransport} with its own client, and so its own
+ * connection to each host, each of them carrying at most a fixed number of concurrent streams. The streams are
+ * counted by host, since requests to different hosts don't share a connection. Calls over the limit of their host
+ * wait in order until one of its streams is released, which happens when the body of its response is closed or the
+ * call fails.
+ */
+final class StreamLane extends AdmissionQueue<String> {
+
+    private final JdkHttpTransport transport;
+    private final int maxStreams;
+    private final Map<String, HostStreams> hosts = new HashMap<>();
+    // hosts with waiting calls and a free stream, in the order their streams were released
+    private final ArrayDeque<HostStreams> ready = new ArrayDeque<>();
+    private int activeStreams;
+    private int queuedStreams;
+    private int peakStreams;
+    private long streamCount;
+
+    StreamLane(JdkHttpTransport transport, int maxStreams) {
+        this.transport = transport;
+        this.maxStreams = maxStreams;
+    }
+
+    JdkHttpTransport getTransport() {
+        return transport;
+    }
+
+    synchronized int getHostCount() {
+        return hosts.size();
+    }
+
+    synchronized int getActiveStreams() {
+        return activeStreams;
+    }
+
+    synchronized int getQueuedStreams() {
+        return queuedStreams;
+    }
+
+    /**
+     * @return the highest number of streams that were open at the same time to a single host
+     */
+    synchronized int getPeakStreams() {
+        return peakStreams;
+    }
+
+    synchronized long getStreamCount() {
+        return streamCount;
+    }
+
+    TransportCall newCall(TransportRequest request) {
+        return admit(transport.newCall(request), request.getUrl().host() + ":" + request.getUrl().port());
+    }
+
+    @Override
+    protected boolean tryAdmit(Entry entry) {
+        final HostStreams host = host(entry.getKey());
+        if (host.active >= maxStreams) {
+            return false;
+        }
+        opened(host);
+        return true;
+    }
+
+    @Override
+    protected void add(Entry entry) {
+        hosts.get(entry.getKey()).queued.add(entry);
+        queuedStreams++;
+    }
+
+    @Override
+    protected boolean remove(Entry entry) {
+        if (!hosts.get(entry.getKey()).queued.remove(entry)) {
+            return false;
+        }
+        queuedStreams--;
+        return true;
+    }
+
+    @Override
+    protected Entry poll() {
+        HostStreams host;
+        while ((host = ready.poll()) != null) {
+            if (host.active < maxStreams && !host.queued.isEmpty()) {
+                opened(host);
+                queuedStreams--;
+                return host.queued.poll();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    protected void released(Entry entry) {
+        final HostStreams host = hosts.get(entry.getKey());
+        host.active--;
+        activeStreams--;
+        if (!host.queued.isEmpty()) {
+            ready.add(host);
+        }
+    }
+
+    private HostStreams host(String key) {
+        HostStreams host = hosts.get(key);
+        if (host == null) {
+            host = new HostStreams();
+            hosts.put(key, host);
+        }
+        return host;
+    }
+
+    private void opened(HostStreams host) {
+        host.active++;
+        activeStreams++;
+        streamCount++;
+        peakStreams = Math.max(peakStreams, host.active);
+    }
+
+    private final class HostStreams {
+        final ArrayDeque<Entry> queued = new ArrayDeque<>();
+        int active;
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Http2TransportTest.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.request.jdk;
+
+import com.auth0.Auth0;
+import com.auth0.Auth0Exception;
+import com.auth0.authentication.AuthenticationAPIClient;
+import com.auth0.authentication.result.Credentials;
+import com.auth0.callback.BaseCallback;
+import com.auth0.standin.StandInServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class Http2TransportTest {
+
+    private static final String CLIENT_ID = "CLIENTID";
+    private static final String PASSWORD = "password";
+
+    private StandInServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StandInServer(CLIENT_ID, "CLIENTSECRET");
+        server.setThreads(8);
+        server.getUsers().seed(1, PASSWORD);
+        server.start(0);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop();
+    }
+
+    @Test
+    public void shouldLimitConcurrentStreamsPerConnection() throws Exception {
+        server.getFaults().configure("*", "latency:fixed:50");
+        final Http2Transport transport = new Http2Transport(1, 2);
+        final AuthenticationAPIClient client = newClient(transport);
+        final CountDownLatch latch = new CountDownLatch(6);
+        final AtomicInteger successes = new AtomicInteger();
+        for (int i = 0; i < 6; i++) {
+            client.login("user0@auth0.com", PASSWORD).start(new BaseCallback<Credentials>() {
+                @Override
+                public void onSuccess(Credentials payload) {
+                    successes.incrementAndGet();
+                    latch.countDown();
+                }
+
+                @Override
+                public void onFailure(Auth0Exception error) {
+                    latch.countDown();
+                }
+            });
+        }
+
+        assertThat(latch.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(successes.get(), is(6));
+        assertThat(transport.getPeakStreamsPerConnection(), is(2));
+        assertThat(transport.getStreamCount(), is(6L));
+        assertThat(transport.getActiveStreams(), is(0));
+        assertThat(transport.getQueuedStreams(), is(0));
+    }
+
+    @Test
+    public void shouldLimitConcurrentStreamsPerHost() throws Exception {
+        final StandInServer other = new StandInServer(CLIENT_ID, "CLIENTSECRET");
+        other.getUsers().seed(1, PASSWORD);
+        other.start(0);
+        try {
+            server.getFaults().configure("*", "latency:fixed:200");
+            other.getFaults().configure("*", "latency:fixed:200");
+            final Http2Transport transport = new Http2Transport(1, 1);
+            final AuthenticationAPIClient first = newClient(transport);
+            final AuthenticationAPIClient second = new AuthenticationAPIClient(new Auth0(CLIENT_ID, other.getDomain()), transport);
+            final CountDownLatch latch = new CountDownLatch(4);
+            final BaseCallback<Credentials> callback = new BaseCallback<Credentials>() {
+                @Override
+                public void onSuccess(Credentials payload) {
+                    latch.countDown();
+                }
+
+                @Override
+                public void onFailure(Auth0Exception error) {
+                    latch.countDown();
+                }
+            };
+            for (int i = 0; i < 2; i++) {
+                first.login("user0@auth0.com", PASSWORD).start(callback);
+                second.login("user0@auth0.com", PASSWORD).start(callback);
+            }
+
+            // each host has its own connection, so one stream to each of them is open at the same time
+            int peakActive = 0;
+            while (latch.getCount() > 0 && peakActive < 2) {
+                peakActive = Math.max(peakActive, transport.getActiveStreams());
+                Thread.sleep(5);
+            }
+            assertThat(peakActive, is(2));
+            assertThat(latch.await(10, TimeUnit.SECONDS), is(true));
+            assertThat(transport.getPeakStreamsPerConnection(), is(1));
+            assertThat(transport.getLaneHostCount(), is(2));
+            assertThat(transport.getStreamCount(), is(4L));
+        } finally {
+            other.stop();
+        }
+    }
+
+    @Test
+    public void shouldUseConnectionsInRoundRobin() throws Exception {
+        final Http2Transport transport = new Http2Transport(2, 10);
+        final AuthenticationAPIClient client = newClient(transport);
+        for (int i = 0; i < 4; i++) {
+            client.login("user0@auth0.com", PASSWORD).execute();
+        }
+
+        assertThat(transport.getLaneHostCount(), is(2));
+        assertThat(transport.getStreamCount(), is(4L));
+        assertThat(transport.getActiveStreams(), is(0));
+        // the stand-in only speaks HTTP/1.1
+        assertThat(transport.getHttp1ResponseCount(), is(4L));
+    }
+
+    @Test
+    public void shouldReleaseStreamWhenRequestFails() throws Exception {
+        final Http2Transport transport = new Http2Transport(1, 1);
+        final AuthenticationAPIClient client = newClient(transport);
+        server.stop();
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                client.login("user0@auth0.com", PASSWORD).execute();
+                fail("Expected the request to fail");
+            } catch (Auth0Exception e) {
+                assertThat(transport.getActiveStreams(), is(0));
+            }
+        }
+        assertThat(transport.getStreamCount(), is(greaterThan(1L)));
+    }
+
+    private AuthenticationAPIClient newClient(Http2Transport transport) {
+        return new AuthenticationAPIClient(new Auth0(CLIENT_ID, server.getDomain()), transport);
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * JdkHttpTransportTest.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.request.jdk;
+
+import com.auth0.APIException;
+import com.auth0.Auth0;
+import com.auth0.Auth0Exception;
+import com.auth0.authentication.AuthenticationAPIClient;
+import com.auth0.authentication.result.Credentials;
+import com.auth0.callback.BaseCallback;
+import com.auth0.standin.StandInServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasProperty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.Assert.assertThat;
+
+public class JdkHttpTransportTest {
+
+    private static final String CLIENT_ID = "CLIENTID";
+    private static final String PASSWORD = "password";
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    private StandInServer server;
+    private AuthenticationAPIClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StandInServer(CLIENT_ID, "CLIENTSECRET");
+        server.setThreads(4);
+        server.getUsers().seed(1, PASSWORD);
+        server.start(0);
+        client = new AuthenticationAPIClient(new Auth0(CLIENT_ID, server.getDomain()), new JdkHttpTransport());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop();
+    }
+
+    @Test
+    public void shouldExecuteRequests() throws Exception {
+        final Credentials credentials = client.login("user0@auth0.com", PASSWORD).execute();
+
+        assertThat(client.tokenInfo(credentials.getIdToken()).execute().getEmail(), equalTo("user0@auth0.com"));
+    }
+
+    @Test
+    public void shouldStartRequestsAsynchronously() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<Credentials> result = new AtomicReference<>();
+        client.login("user0@auth0.com", PASSWORD).start(new BaseCallback<Credentials>() {
+            @Override
+            public void onSuccess(Credentials payload) {
+                result.set(payload);
+                latch.countDown();
+            }
+
+            @Override
+            public void onFailure(Auth0Exception error) {
+                latch.countDown();
+            }
+        });
+
+        assertThat(latch.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(result.get().getIdToken(), is(notNullValue()));
+    }
+
+    @Test
+    public void shouldParseErrorResponses() throws Exception {
+        exception.expect(APIException.class);
+        exception.expect(hasProperty("statusCode", equalTo(401)));
+        client.login("user0@auth0.com", "wrong").execute();
+    }
+
+    @Test
+    public void shouldFailWhenServerIsDown() throws Exception {
+        final String domain = server.getDomain();
+        server.stop();
+
+        exception.expect(Auth0Exception.class);
+        new AuthenticationAPIClient(new Auth0(CLIENT_ID, domain), new JdkHttpTransport())
+                .login("user0@auth0.com", PASSWORD)
+                .execute();
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * FlightRecorderListener.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.jfr;
+
+import com.auth0.request.RequestEvent;
+import com.auth0.request.RequestListener;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@link RequestListener} that emits a 'com.auth0.Request' JDK Flight Recorder event per request, with its endpoint,
+ * status, bytes sent and received, queue time and duration. Events are only created while a recording has them
+ * enabled, so it can stay registered in production and correlate Auth0 latency with GC and thread activity.
+ * <pre><code>
+ * client.setRequestListener(new FlightRecorderListener());
+ * </code></pre>
+ * Start a recording with e.g. {@code -XX:StartFlightRecording} and look for the events in the 'Auth0' category.
+ */
+public class FlightRecorderListener implements RequestListener {
+
+    private final RequestListener next;
+    private final ConcurrentMap<Long, InFlight> requests = new ConcurrentHashMap<>();
+
+    public FlightRecorderListener() {
+        this(null);
+    }
+
+    /**
+     * @param next listener that also receives all the events, since a client has a single listener
+     */
+    public FlightRecorderListener(RequestListener next) {
+        this.next = next;
+    }
+
+    @Override
+    public void onEvent(RequestEvent event) {
+        switch (event.getPhase()) {
+            case QUEUED:
+                final RequestFlightEvent flightEvent = new RequestFlightEvent();
+                if (flightEvent.isEnabled()) {
+                    flightEvent.begin();
+                    requests.put(event.getRequestId(), new InFlight(flightEvent, event.getNanoTime()));
+                }
+                break;
+            case DISPATCHED:
+                final InFlight dispatched = requests.get(event.getRequestId());
+                if (dispatched != null && dispatched.dispatchedNanos == 0) {
+                    dispatched.dispatchedNanos = event.getNanoTime();
+                }
+                break;
+            case BODY_PARSED:
+            case FAILED:
+                final InFlight finished = requests.remove(event.getRequestId());
+                if (finished != null) {
+                    commit(finished, event);
+                }
+                break;
+            default:
+                break;
+        }
+        if (next != null) {
+            next.onEvent(event);
+        }
+    }
+
+    private static void commit(InFlight request, RequestEvent event) {
+        final RequestFlightEvent flightEvent = request.event;
+        flightEvent.end();
+        if (!flightEvent.shouldCommit()) {
+            return;
+        }
+        flightEvent.method = event.getMethod();
+        flightEvent.endpoint = event.getEndpoint();
+        flightEvent.status = event.getStatusCode();
+        flightEvent.bytesOut = event.getRequestBytes();
+        flightEvent.bytesIn = event.getResponseBytes();
+        flightEvent.queueTime = (request.dispatchedNanos != 0 ? request.dispatchedNanos : event.getNanoTime()) - request.queuedNanos;
+        flightEvent.error = event.getError() != null ? event.getError().toString() : null;
+        flightEvent.commit();
+    }
+
+    private static class InFlight {
+        final RequestFlightEvent event;
+        final long queuedNanos;
+        volatile long dispatchedNanos;
+
+        InFlight(RequestFlightEvent event, long queuedNanos) {
+            this.event = event;
+            this.queuedNanos = queuedNanos;
+        }
+    }
+}
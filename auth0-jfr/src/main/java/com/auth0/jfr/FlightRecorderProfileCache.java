@@ -0,0 +1,84 @@
+/*
+ * FlightRecorderProfileCache.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.jfr;
+
+import com.auth0.authentication.cache.ProfileCache;
+import com.auth0.authentication.result.UserProfile;
+
+/**
+ * {@link ProfileCache} that emits a 'com.auth0.CacheAccess' JDK Flight Recorder event for each access to the cache
+ * it wraps, with its result and duration.
+ * <pre><code>
+ * client.setProfileCache(new FlightRecorderProfileCache("profiles", new OffHeapProfileCache(100000, 2048, ttl)));
+ * </code></pre>
+ */
+public class FlightRecorderProfileCache implements ProfileCache {
+
+    private final String name;
+    private final ProfileCache cache;
+
+    /**
+     * @param name  of the cache in the events
+     * @param cache that stores the profiles
+     */
+    public FlightRecorderProfileCache(String name, ProfileCache cache) {
+        this.name = name;
+        this.cache = cache;
+    }
+
+    @Override
+    public UserProfile get(String idToken) {
+        final CacheAccessFlightEvent event = new CacheAccessFlightEvent();
+        event.begin();
+        final UserProfile profile = cache.get(idToken);
+        commit(event, profile != null ? CacheAccessFlightEvent.HIT : CacheAccessFlightEvent.MISS);
+        return profile;
+    }
+
+    @Override
+    public void put(String idToken, UserProfile profile) {
+        final CacheAccessFlightEvent event = new CacheAccessFlightEvent();
+        event.begin();
+        cache.put(idToken, profile);
+        commit(event, CacheAccessFlightEvent.PUT);
+    }
+
+    @Override
+    public void remove(String idToken) {
+        final CacheAccessFlightEvent event = new CacheAccessFlightEvent();
+        event.begin();
+        cache.remove(idToken);
+        commit(event, CacheAccessFlightEvent.REMOVE);
+    }
+
+    private void commit(CacheAccessFlightEvent event, String result) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.cache = name;
+            event.result = result;
+            event.commit();
+        }
+    }
+}
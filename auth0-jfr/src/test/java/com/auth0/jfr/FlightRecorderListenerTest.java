@@ -0,0 +1,168 @@
+/*
+ * FlightRecorderListenerTest.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.jfr;
+
+import com.auth0.APIException;
+import com.auth0.Auth0;
+import com.auth0.authentication.AuthenticationAPIClient;
+import com.auth0.authentication.cache.OffHeapProfileCache;
+import com.auth0.authentication.result.UserProfile;
+import com.auth0.request.internal.InMemoryTransport;
+import com.auth0.request.transport.TransportRequest;
+import com.auth0.request.transport.TransportResponse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class FlightRecorderListenerTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Recording recording;
+    private AuthenticationAPIClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        final InMemoryTransport transport = new InMemoryTransport(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+        transport.register("/oauth/ro", new InMemoryTransport.Handler() {
+            @Override
+            public TransportResponse handle(TransportRequest request) {
+                return TransportResponse.create(200, "application/json", "{\"id_token\":\"ID_TOKEN\",\"token_type\":\"bearer\"}".getBytes(UTF_8));
+            }
+        });
+        transport.register("/tokeninfo", new InMemoryTransport.Handler() {
+            @Override
+            public TransportResponse handle(TransportRequest request) {
+                return TransportResponse.create(401, "application/json", "{\"error\":\"invalid_token\"}".getBytes(UTF_8));
+            }
+        });
+        client = new AuthenticationAPIClient(new Auth0("CLIENTID", "https://samples.auth0.com"), transport);
+        client.setRequestListener(new FlightRecorderListener());
+
+        recording = new Recording();
+        recording.enable("com.auth0.Request");
+        recording.enable("com.auth0.CacheAccess");
+        recording.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        recording.close();
+    }
+
+    @Test
+    public void shouldRecordRequests() throws Exception {
+        client.login("support@auth0.com", "password").execute();
+        try {
+            client.tokenInfo("ID_TOKEN").execute();
+            fail("Expected the request to fail");
+        } catch (APIException ignored) {
+        }
+
+        final List<RecordedEvent> events = stop("com.auth0.Request");
+        assertThat(events, hasSize(2));
+        final RecordedEvent login = events.get(0);
+        assertThat(login.getString("endpoint"), equalTo("/oauth/ro"));
+        assertThat(login.getString("method"), equalTo("POST"));
+        assertThat(login.getInt("status"), is(200));
+        assertThat(login.getLong("bytesOut"), is(greaterThan(0L)));
+        assertThat(login.getLong("bytesIn"), is(greaterThan(0L)));
+        assertThat(login.getDuration().toNanos(), is(greaterThan(0L)));
+        final RecordedEvent tokenInfo = events.get(1);
+        assertThat(tokenInfo.getString("endpoint"), equalTo("/tokeninfo"));
+        assertThat(tokenInfo.getInt("status"), is(401));
+        assertThat(tokenInfo.getString("error"), is(notNullValue()));
+    }
+
+    @Test
+    public void shouldRecordCacheAccesses() throws Exception {
+        final FlightRecorderProfileCache cache = new FlightRecorderProfileCache("profiles", new OffHeapProfileCache(16, 2048, 60000));
+        // only tokens with an 'exp' claim are cached
+        final Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        final String token = encoder.encodeToString("{\"alg\":\"HS256\"}".getBytes(UTF_8)) + "."
+                + encoder.encodeToString(("{\"exp\":" + (System.currentTimeMillis() / 1000 + 3600) + "}").getBytes(UTF_8)) + ".signature";
+        cache.get(token);
+        cache.put(token, new UserProfile(Collections.<String, Object>singletonMap("user_id", "auth0|1")));
+        cache.get(token);
+
+        final List<RecordedEvent> events = stop("com.auth0.CacheAccess");
+        assertThat(events, hasSize(3));
+        assertThat(events.get(0).getString("result"), equalTo("miss"));
+        assertThat(events.get(1).getString("result"), equalTo("put"));
+        assertThat(events.get(2).getString("result"), equalTo("hit"));
+        assertThat(events.get(2).getString("cache"), equalTo("profiles"));
+    }
+
+    private List<RecordedEvent> stop(String eventName) throws Exception {
+        recording.stop();
+        final File file = new File(folder.getRoot(), "recording.jfr");
+        recording.dump(file.toPath());
+        final List<RecordedEvent> events = new ArrayList<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(file.toPath())) {
+            if (event.getEventType().getName().equals(eventName)) {
+                events.add(event);
+            }
+        }
+        Collections.sort(events, new Comparator<RecordedEvent>() {
+            @Override
+            public int compare(RecordedEvent left, RecordedEvent right) {
+                return left.getStartTime().compareTo(right.getStartTime());
+            }
+        });
+        return events;
+    }
+}
@@ -0,0 +1,371 @@
+/*
+ * AuthenticationService.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.standin;
+
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Behaviour of the Auth0 Authentication API endpoints implemented by the stand-in server.
+ * Each method receives the JSON body of the request and returns the object to answer as JSON,
+ * a String to answer as text or null to answer with an empty body.
+ */
+class AuthenticationService {
+
+    static final String EMAIL_CONNECTION = "email";
+    static final String SMS_CONNECTION = "sms";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final long ID_TOKEN_TTL_SECONDS = TimeUnit.HOURS.toSeconds(10);
+    private static final long ACCESS_TOKEN_TTL_SECONDS = TimeUnit.DAYS.toSeconds(1);
+    private static final long CODE_TTL_SECONDS = TimeUnit.MINUTES.toSeconds(1);
+    private static final long PASSWORDLESS_WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US)
+            .withZone(ZoneOffset.UTC);
+
+    private static final String GRANT_TYPE_PASSWORD = "password";
+    private static final String GRANT_TYPE_JWT = "urn:ietf:params:oauth:grant-type:jwt-bearer";
+    private static final String GRANT_TYPE_AUTHORIZATION_CODE = "authorization_code";
+
+    private final String issuer;
+    private final String clientId;
+    private final UserStore users;
+    private final TokenSigner signer;
+    private final ConcurrentMap<String, User> passwordlessUsers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, User> passwordlessUsersById = new ConcurrentHashMap<>();
+
+    AuthenticationService(String issuer, String clientId, UserStore users, TokenSigner signer) {
+        this.issuer = issuer;
+        this.clientId = clientId;
+        this.users = users;
+        this.signer = signer;
+    }
+
+    /**
+     * POST /oauth/ro
+     */
+    Object resourceOwner(Map<String, Object> body) throws StandInException {
+        checkClient(body, "client_id");
+        if (!GRANT_TYPE_PASSWORD.equals(body.get("grant_type"))) {
+            throw new StandInException(400, "unsupported_grant_type", "Unsupported grant type");
+        }
+        final String connection = string(body, "connection");
+        final String username = string(body, "username");
+        final String password = string(body, "password");
+        final User user;
+        if (EMAIL_CONNECTION.equals(connection) || SMS_CONNECTION.equals(connection)) {
+            if (username == null || !passwordlessCode(username, 0).equals(password) && !passwordlessCode(username, -1).equals(password)) {
+                throw StandInException.unauthorized("invalid_user_password", "Wrong email or verification code.");
+            }
+            user = passwordlessUser(connection, username);
+        } else {
+            user = users.findByEmail(username);
+            if (user == null || !users.checkPassword(user, password)) {
+                throw StandInException.unauthorized("invalid_user_password", "Wrong email or password.");
+            }
+        }
+        return credentials(user, string(body, "scope"));
+    }
+
+    /**
+     * POST /oauth/token
+     */
+    Object token(Map<String, Object> body) throws StandInException {
+        checkClient(body, "client_id");
+        if (!GRANT_TYPE_AUTHORIZATION_CODE.equals(body.get("grant_type"))) {
+            throw new StandInException(400, "unsupported_grant_type", "Unsupported grant type");
+        }
+        final Map<String, Object> code = signer.verify(string(body, "code"));
+        if (code == null || !"code".equals(code.get("token_use"))) {
+            throw new StandInException(403, "invalid_grant", "Invalid authorization code");
+        }
+        final Object challenge = code.get("code_challenge");
+        if (challenge != null && !challenge.equals(codeChallenge(string(body, "code_verifier")))) {
+            throw new StandInException(403, "invalid_grant", "Failed to verify code verifier");
+        }
+        return credentials(user(code), string(code, "scope"));
+    }
+
+    /**
+     * POST /tokeninfo
+     */
+    Object tokenInfo(Map<String, Object> body) throws StandInException {
+        final Map<String, Object> claims = signer.verify(string(body, "id_token"));
+        if (claims == null || claims.get("token_use") != null) {
+            throw StandInException.unauthorized("invalid_token", "Invalid token");
+        }
+        return profile(user(claims));
+    }
+
+    /**
+     * POST /delegation
+     */
+    Object delegation(Map<String, Object> body) throws StandInException {
+        checkClient(body, "client_id");
+        if (!GRANT_TYPE_JWT.equals(body.get("grant_type"))) {
+            throw new StandInException(400, "unsupported_grant_type", "Unsupported grant type");
+        }
+        final Map<String, Object> claims;
+        if (body.containsKey("refresh_token")) {
+            claims = signer.verify(string(body, "refresh_token"));
+            if (claims == null || !"refresh".equals(claims.get("token_use"))) {
+                throw StandInException.unauthorized("invalid_grant", "Invalid refresh token");
+            }
+        } else {
+            claims = signer.verify(string(body, "id_token"));
+            if (claims == null || claims.get("token_use") != null) {
+                throw StandInException.unauthorized("invalid_grant", "Invalid id token");
+            }
+        }
+        final Map<String, Object> delegation = new LinkedHashMap<>();
+        delegation.put("id_token", idToken(user(claims), string(body, "target")));
+        delegation.put("token_type", "Bearer");
+        delegation.put("expires_in", ID_TOKEN_TTL_SECONDS);
+        return delegation;
+    }
+
+    /**
+     * POST /dbconnections/signup
+     */
+    Object signUp(Map<String, Object> body) throws StandInException {
+        checkClient(body, "client_id");
+        final String email = string(body, "email");
+        final String password = string(body, "password");
+        if (email == null || password == null) {
+            throw StandInException.badRequest("Missing email or password");
+        }
+        final User user;
+        try {
+            user = users.addUser(email, string(body, "username"), password, string(body, "connection"));
+        } catch (IllegalStateException e) {
+            throw new StandInException(400, "user_exists", "The user already exists.");
+        }
+        final Map<String, Object> created = new LinkedHashMap<>();
+        created.put("_id", user.getId().substring(user.getId().indexOf('|') + 1));
+        created.put("email", user.getEmail());
+        created.put("email_verified", false);
+        if (user.getUsername() != null) {
+            created.put("username", user.getUsername());
+        }
+        return created;
+    }
+
+    /**
+     * POST /dbconnections/change_password
+     */
+    Object changePassword(Map<String, Object> body) throws StandInException {
+        checkClient(body, "client_id");
+        final User user = users.findByEmail(string(body, "email"));
+        if (user != null && body.get("password") instanceof String) {
+            users.changePassword(user, string(body, "password"));
+        }
+        return "We've just sent you an email to reset your password.";
+    }
+
+    /**
+     * POST /passwordless/start
+     */
+    Object passwordlessStart(Map<String, Object> body) throws StandInException {
+        checkClient(body, "client_id");
+        final String connection = string(body, "connection");
+        final String key = SMS_CONNECTION.equals(connection) ? "phone_number" : "email";
+        final String identifier = string(body, key);
+        if (identifier == null) {
+            throw StandInException.badRequest("Missing " + key);
+        }
+        final Map<String, Object> started = new LinkedHashMap<>();
+        started.put("_id", UUID.randomUUID().toString().replace("-", ""));
+        started.put(key, identifier);
+        return started;
+    }
+
+    /**
+     * POST /unlink
+     */
+    Object unlink(Map<String, Object> body) throws StandInException {
+        checkClient(body, "clientID");
+        final Map<String, Object> claims = signer.verify(string(body, "access_token"));
+        if (claims == null || !"access".equals(claims.get("token_use"))) {
+            throw StandInException.unauthorized("invalid_token", "Invalid access token");
+        }
+        user(claims);
+        if (string(body, "user_id") == null) {
+            throw StandInException.badRequest("Missing user_id");
+        }
+        return null;
+    }
+
+    /**
+     * Code that a user would receive after calling '/passwordless/start'. Codes are derived from the identifier and
+     * the current time window, so no state is kept per request and they remain valid for 5 to 10 minutes.
+     *
+     * @param identifier email or phone number
+     * @return the verification code
+     */
+    String passwordlessCode(String identifier) {
+        return passwordlessCode(identifier, 0);
+    }
+
+    String authorizationCode(User user, String codeVerifier, String scope) {
+        final Map<String, Object> claims = claims(user);
+        claims.put("token_use", "code");
+        claims.put("scope", scope);
+        claims.put("exp", now() + CODE_TTL_SECONDS);
+        if (codeVerifier != null) {
+            claims.put("code_challenge", codeChallenge(codeVerifier));
+        }
+        return signer.sign(claims);
+    }
+
+    private String passwordlessCode(String identifier, int windowOffset) {
+        final long window = System.currentTimeMillis() / PASSWORDLESS_WINDOW_MILLIS + windowOffset;
+        final byte[] hmac = signer.hmac("passwordless:" + identifier.toLowerCase(Locale.US) + ":" + window);
+        final int value = ((hmac[0] & 0x7f) << 24 | (hmac[1] & 0xff) << 16 | (hmac[2] & 0xff) << 8 | (hmac[3] & 0xff)) % 1000000;
+        return String.format(Locale.US, "%06d", value);
+    }
+
+    private User passwordlessUser(String connection, String identifier) {
+        final String key = connection + ":" + identifier.toLowerCase(Locale.US);
+        User user = passwordlessUsers.get(key);
+        if (user == null) {
+            final String id = connection + "|" + UUID.randomUUID().toString().replace("-", "").substring(0, 24);
+            final String email = EMAIL_CONNECTION.equals(connection) ? identifier.toLowerCase(Locale.US) : null;
+            final User created = new User(id, email, null, connection, new byte[0], new byte[0]);
+            user = passwordlessUsers.putIfAbsent(key, created);
+            if (user == null) {
+                passwordlessUsersById.put(id, created);
+                user = created;
+            }
+        }
+        return user;
+    }
+
+    private User user(Map<String, Object> claims) throws StandInException {
+        final String id = string(claims, "sub");
+        User user = users.findById(id);
+        if (user == null && id != null) {
+            user = passwordlessUsersById.get(id);
+        }
+        if (user == null) {
+            throw StandInException.unauthorized("invalid_token", "The user of the token no longer exists");
+        }
+        return user;
+    }
+
+    private Map<String, Object> credentials(User user, String scope) {
+        final Map<String, Object> credentials = new LinkedHashMap<>();
+        credentials.put("id_token", idToken(user, clientId));
+        final Map<String, Object> access = claims(user);
+        access.put("token_use", "access");
+        access.put("exp", now() + ACCESS_TOKEN_TTL_SECONDS);
+        credentials.put("access_token", signer.sign(access));
+        credentials.put("token_type", "bearer");
+        if (scope != null && scope.contains("offline_access")) {
+            final Map<String, Object> refresh = claims(user);
+            refresh.put("token_use", "refresh");
+            credentials.put("refresh_token", signer.sign(refresh));
+        }
+        return credentials;
+    }
+
+    private String idToken(User user, String audience) {
+        final Map<String, Object> claims = claims(user);
+        if (audience != null) {
+            claims.put("aud", audience);
+        }
+        claims.put("exp", now() + ID_TOKEN_TTL_SECONDS);
+        return signer.sign(claims);
+    }
+
+    private Map<String, Object> claims(User user) {
+        final Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("iss", issuer);
+        claims.put("sub", user.getId());
+        claims.put("aud", clientId);
+        claims.put("iat", now());
+        return claims;
+    }
+
+    private Map<String, Object> profile(User user) {
+        final String provider = user.getId().substring(0, user.getId().indexOf('|'));
+        final Map<String, Object> identity = new LinkedHashMap<>();
+        identity.put("user_id", user.getId().substring(provider.length() + 1));
+        identity.put("provider", provider);
+        identity.put("connection", user.getConnection());
+        identity.put("isSocial", false);
+
+        final String name = user.getEmail() != null ? user.getEmail() : user.getId();
+        final Map<String, Object> profile = new LinkedHashMap<>();
+        profile.put("user_id", user.getId());
+        profile.put("email", user.getEmail());
+        profile.put("email_verified", false);
+        profile.put("name", name);
+        profile.put("nickname", user.getUsername() != null ? user.getUsername() : name.split("@")[0]);
+        profile.put("picture", "https://secure.gravatar.com/avatar/cfacbe113a96fdfc85134534771d88b4?s=480&r=pg");
+        profile.put("created_at", DATE_FORMAT.format(Instant.ofEpochMilli(user.getCreatedAt().getTime())));
+        profile.put("identities", Collections.singletonList(identity));
+        return profile;
+    }
+
+    private void checkClient(Map<String, Object> body, String key) throws StandInException {
+        if (!clientId.equals(body.get(key))) {
+            throw StandInException.unauthorized("invalid_client", "Unknown client " + body.get(key));
+        }
+    }
+
+    private static String codeChallenge(String codeVerifier) {
+        if (codeVerifier == null) {
+            return null;
+        }
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(codeVerifier.getBytes(UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String string(Map<String, Object> values, String key) {
+        final Object value = values.get(key);
+        return value instanceof String ? (String) value : null;
+    }
+
+    private static long now() {
+        return TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Endpoint.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.standin;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Handler of a POST endpoint with a JSON body. Errors are answered with Auth0's error payload.
+ * It applies the faults configured for the endpoint: delayed responses are scheduled instead of blocking
+ * a worker thread, so injected latency doesn't reduce the capacity of the server.
+ */
+class Endpoint implements HttpHandler {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final long SLOW_BODY_TICK_MILLIS = 50;
+
+    private final Operation operation;
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+    private final FaultInjector faults;
+    private final Executor workers;
+    private final ScheduledExecutorService scheduler;
+
+    Endpoint(Operation operation, ObjectMapper mapper, FaultInjector faults, Executor workers, ScheduledExecutorService scheduler) {
+        this.operation = operation;
+        this.reader = mapper.reader(new TypeReference<Map<String, Object>>() {});
+        this.writer = mapper.writer();
+        this.faults = faults;
+        this.workers = workers;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public void handle(final HttpExchange exchange) throws IOException {
+        final byte[] request;
+        try {
+            request = readFully(exchange.getRequestBody());
+        } catch (IOException e) {
+            exchange.close();
+            throw e;
+        }
+
+        final FaultProfile profile = faults.profileFor(exchange.getHttpContext().getPath());
+        final Random random = ThreadLocalRandom.current();
+        final int action = profile.nextAction(random);
+        faults.recordAction(action);
+        if (action == FaultProfile.ACTION_BLACKHOLE) {
+            schedule(new Runnable() {
+                @Override
+                public void run() {
+                    exchange.close();
+                }
+            }, exchange, TimeUnit.MILLISECONDS.toNanos(faults.getBlackholeTimeoutMillis()));
+            return;
+        }
+
+        final int slowBodyBytesPerSecond = profile.nextSlowBodyBytesPerSecond(random);
+        final Runnable respond = new Runnable() {
+            @Override
+            public void run() {
+                respond(exchange, request, action, slowBodyBytesPerSecond);
+            }
+        };
+        final long delay = profile.nextDelayNanos(random);
+        if (delay > 0) {
+            faults.recordDelay();
+            schedule(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        workers.execute(respond);
+                    } catch (RejectedExecutionException e) {
+                        exchange.close();
+                    }
+                }
+            }, exchange, delay);
+        } else {
+            respond.run();
+        }
+    }
+
+    private void respond(HttpExchange exchange, byte[] request, int action, int slowBodyBytesPerSecond) {
+        try {
+            if (action == FaultProfile.ACTION_RESET) {
+                // closing the exchange before sending the headers closes the connection
+                exchange.close();
+                return;
+            }
+            final Response response = action != FaultProfile.ACTION_NONE ? injectedError(exchange, action) : process(exchange, request);
+            if (response.body == null) {
+                exchange.sendResponseHeaders(response.status, -1);
+                exchange.close();
+            } else if (slowBodyBytesPerSecond > 0) {
+                faults.recordSlowBody();
+                respondSlowly(exchange, response, slowBodyBytesPerSecond);
+            } else {
+                respond(exchange, response.status, response.contentType, response.body);
+                exchange.close();
+            }
+        } catch (IOException | RuntimeException e) {
+            exchange.close();
+        }
+    }
+
+    private Response process(HttpExchange exchange, byte[] request) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                throw new StandInException(404, "not_found", "Not found");
+            }
+            final Map<String, Object> body;
+            try {
+                body = request.length == 0 ? new HashMap<String, Object>() : reader.<Map<String, Object>>readValue(request);
+            } catch (IOException e) {
+                throw StandInException.badRequest("Invalid JSON body");
+            }
+            final Object result = operation.handle(body);
+            if (result == null) {
+                return new Response(200, null, null);
+            } else if (result instanceof String) {
+                return new Response(200, "text/plain; charset=utf-8", ((String) result).getBytes(UTF_8));
+            }
+            return new Response(200, "application/json", writer.writeValueAsBytes(result));
+        } catch (StandInException e) {
+            return error(e.getStatus(), e.getError(), e.getMessage());
+        } catch (RuntimeException e) {
+            return error(500, "server_error", String.valueOf(e));
+        }
+    }
+
+    private Response injectedError(HttpExchange exchange, int status) throws IOException {
+        if (status == 429) {
+            final long reset = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) + 1;
+            exchange.getResponseHeaders().set("X-RateLimit-Limit", "10");
+            exchange.getResponseHeaders().set("X-RateLimit-Remaining", "0");
+            exchange.getResponseHeaders().set("X-RateLimit-Reset", String.valueOf(reset));
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            return error(status, "too_many_requests", "Global limit has been reached");
+        }
+        if (status >= 500) {
+            return error(status, "server_error", "Service temporarily unavailable");
+        }
+        return error(status, "invalid_request", "Injected error");
+    }
+
+    private Response error(int status, String error, String description) throws IOException {
+        final Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("error", error);
+        payload.put("error_description", description);
+        return new Response(status, "application/json", writer.writeValueAsBytes(payload));
+    }
+
+    private void respondSlowly(final HttpExchange exchange, final Response response, int bytesPerSecond) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", response.contentType);
+        exchange.sendResponseHeaders(response.status, response.body.length);
+        final OutputStream out = exchange.getResponseBody();
+        final int chunk = (int) Math.max(1, bytesPerSecond * SLOW_BODY_TICK_MILLIS / 1000);
+        schedule(new Runnable() {
+            private int offset;
+
+            @Override
+            public void run() {
+                try {
+                    final int count = Math.min(chunk, response.body.length - offset);
+                    out.write(response.body, offset, count);
+                    out.flush();
+                    offset += count;
+                    if (offset < response.body.length) {
+                        schedule(this, exchange, TimeUnit.MILLISECONDS.toNanos(SLOW_BODY_TICK_MILLIS));
+                    } else {
+                        exchange.close();
+                    }
+                } catch (IOException e) {
+                    exchange.close();
+                }
+            }
+        }, exchange, TimeUnit.MILLISECONDS.toNanos(SLOW_BODY_TICK_MILLIS));
+    }
+
+    private void schedule(Runnable task, HttpExchange exchange, long delayNanos) {
+        try {
+            scheduler.schedule(task, delayNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            exchange.close();
+        }
+    }
+
+    static void respond(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        final byte[] buffer = new byte[1024];
+        int count;
+        while ((count = in.read(buffer)) != -1) {
+            out.write(buffer, 0, count);
+        }
+        return out.toByteArray();
+    }
+
+    private static class Response {
+        final int status;
+        final String contentType;
+        final byte[] body;
+
+        Response(int status, String contentType, byte[] body) {
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+        }
+    }
+}
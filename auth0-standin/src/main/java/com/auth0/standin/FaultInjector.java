@@ -0,0 +1,154 @@
+/*
+ * FaultInjector.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.standin;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Faults injected by the stand-in server, configured per endpoint, to reproduce Auth0 behaving badly.
+ * <pre><code>
+ * server.getFaults().forEndpoint("/tokeninfo")
+ *         .setLatency(LatencyDistribution.logNormal(20, 300))
+ *         .setErrorRate(429, 0.05)
+ *         .setResetRate(0.01);
+ * </code></pre>
+ */
+public class FaultInjector {
+
+    private final FaultProfile allEndpoints = new FaultProfile();
+    private final ConcurrentMap<String, FaultProfile> endpoints = new ConcurrentHashMap<>();
+    private final AtomicLong delayed = new AtomicLong();
+    private final AtomicLong blackholes = new AtomicLong();
+    private final AtomicLong resets = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong slowBodies = new AtomicLong();
+    private volatile long blackholeTimeoutMillis = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * @param path of the endpoint, e.g. '/oauth/ro'
+     * @return the faults of the endpoint, used instead of the ones of {@link #forAllEndpoints()}
+     */
+    public FaultProfile forEndpoint(String path) {
+        FaultProfile profile = endpoints.get(path);
+        if (profile == null) {
+            final FaultProfile created = new FaultProfile();
+            profile = endpoints.putIfAbsent(path, created);
+            if (profile == null) {
+                profile = created;
+            }
+        }
+        return profile;
+    }
+
+    /**
+     * @return the faults of the endpoints without their own profile
+     */
+    public FaultProfile forAllEndpoints() {
+        return allEndpoints;
+    }
+
+    /**
+     * Configures faults from a spec, see {@link FaultProfile#parse(String)}
+     *
+     * @param path of the endpoint or '*' for all the endpoints
+     * @param spec of the faults
+     */
+    public void configure(String path, String spec) {
+        ("*".equals(path) ? allEndpoints : forEndpoint(path)).parse(spec);
+    }
+
+    /**
+     * @param timeout after which the connection of a blackholed request is closed
+     * @param unit    of the timeout
+     */
+    public void setBlackholeTimeout(long timeout, TimeUnit unit) {
+        this.blackholeTimeoutMillis = unit.toMillis(timeout);
+    }
+
+    public long getBlackholeTimeoutMillis() {
+        return blackholeTimeoutMillis;
+    }
+
+    /**
+     * @return the number of responses delayed
+     */
+    public long getDelayedCount() {
+        return delayed.get();
+    }
+
+    /**
+     * @return the number of requests never answered
+     */
+    public long getBlackholeCount() {
+        return blackholes.get();
+    }
+
+    /**
+     * @return the number of connections closed without a response
+     */
+    public long getResetCount() {
+        return resets.get();
+    }
+
+    /**
+     * @return the number of requests answered with an injected error status
+     */
+    public long getErrorCount() {
+        return errors.get();
+    }
+
+    /**
+     * @return the number of response bodies sent slowly
+     */
+    public long getSlowBodyCount() {
+        return slowBodies.get();
+    }
+
+    FaultProfile profileFor(String path) {
+        final FaultProfile profile = endpoints.get(path);
+        return profile != null ? profile : allEndpoints;
+    }
+
+    void recordDelay() {
+        delayed.incrementAndGet();
+    }
+
+    void recordAction(int action) {
+        if (action == FaultProfile.ACTION_BLACKHOLE) {
+            blackholes.incrementAndGet();
+        } else if (action == FaultProfile.ACTION_RESET) {
+            resets.incrementAndGet();
+        } else if (action != FaultProfile.ACTION_NONE) {
+            errors.incrementAndGet();
+        }
+    }
+
+    void recordSlowBody() {
+        slowBodies.incrementAndGet();
+    }
+}
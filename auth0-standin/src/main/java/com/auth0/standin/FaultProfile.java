@@ -0,0 +1,200 @@
+/*
+ * FaultProfile.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.standin;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Faults injected by the stand-in server in the responses of an endpoint.
+ * Every request gets at most one of blackhole, connection reset or error status, picked with the configured rates,
+ * on top of the configured latency. It can be changed while the server is running.
+ */
+public class FaultProfile {
+
+    static final int ACTION_NONE = 0;
+    static final int ACTION_BLACKHOLE = 1;
+    static final int ACTION_RESET = 2;
+
+    private volatile LatencyDistribution latency;
+    private volatile double blackholeRate;
+    private volatile double resetRate;
+    private volatile int[] statuses = new int[0];
+    private volatile double[] statusRates = new double[0];
+    private volatile double slowBodyRate;
+    private volatile int slowBodyBytesPerSecond;
+
+    /**
+     * @param latency added before answering every request, or null for none
+     * @return this profile
+     */
+    public FaultProfile setLatency(LatencyDistribution latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    /**
+     * Requests that are never answered. Their connection is closed after the blackhole timeout of the {@link FaultInjector}.
+     *
+     * @param rate fraction of the requests, between 0 and 1
+     * @return this profile
+     */
+    public FaultProfile setBlackholeRate(double rate) {
+        this.blackholeRate = checkRate(rate);
+        return this;
+    }
+
+    /**
+     * Requests whose connection is closed without sending any response
+     *
+     * @param rate fraction of the requests, between 0 and 1
+     * @return this profile
+     */
+    public FaultProfile setResetRate(double rate) {
+        this.resetRate = checkRate(rate);
+        return this;
+    }
+
+    /**
+     * Requests answered with an error status, like 429 or 503, instead of being processed
+     *
+     * @param status HTTP status code of the error
+     * @param rate   fraction of the requests, between 0 and 1
+     * @return this profile
+     */
+    public synchronized FaultProfile setErrorRate(int status, double rate) {
+        checkRate(rate);
+        int index = 0;
+        while (index < statuses.length && statuses[index] != status) {
+            index++;
+        }
+        final int[] newStatuses = Arrays.copyOf(statuses, Math.max(statuses.length, index + 1));
+        final double[] newRates = Arrays.copyOf(statusRates, newStatuses.length);
+        newStatuses[index] = status;
+        newRates[index] = rate;
+        this.statusRates = newRates;
+        this.statuses = newStatuses;
+        return this;
+    }
+
+    /**
+     * Requests whose response body is sent slowly, in small chunks
+     *
+     * @param rate           fraction of the requests, between 0 and 1
+     * @param bytesPerSecond speed of the body
+     * @return this profile
+     */
+    public FaultProfile setSlowBody(double rate, int bytesPerSecond) {
+        if (bytesPerSecond <= 0) {
+            throw new IllegalArgumentException("The body speed must be positive");
+        }
+        this.slowBodyBytesPerSecond = bytesPerSecond;
+        this.slowBodyRate = checkRate(rate);
+        return this;
+    }
+
+    /**
+     * Parses a comma separated list of faults, e.g. 'latency:lognormal:20:300,429:0.05,503:0.01,reset:0.01,blackhole:0.001,slow:0.1:1024'
+     *
+     * @param spec of the faults
+     * @return this profile
+     */
+    public FaultProfile parse(String spec) {
+        for (String fault : spec.split(",")) {
+            final String[] parts = fault.trim().split(":", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid fault " + fault);
+            }
+            final String name = parts[0].toLowerCase(Locale.US);
+            try {
+                switch (name) {
+                    case "latency":
+                        setLatency(LatencyDistribution.parse(parts[1]));
+                        break;
+                    case "blackhole":
+                        setBlackholeRate(Double.parseDouble(parts[1]));
+                        break;
+                    case "reset":
+                        setResetRate(Double.parseDouble(parts[1]));
+                        break;
+                    case "slow":
+                        final String[] slow = parts[1].split(":");
+                        setSlowBody(Double.parseDouble(slow[0]), Integer.parseInt(slow[1]));
+                        break;
+                    default:
+                        setErrorRate(Integer.parseInt(name), Double.parseDouble(parts[1]));
+                }
+            } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid fault " + fault, e);
+            }
+        }
+        return this;
+    }
+
+    long nextDelayNanos(Random random) {
+        final LatencyDistribution latency = this.latency;
+        return latency == null ? 0 : Math.max(0, latency.nextNanos(random));
+    }
+
+    /**
+     * Picks the action for a request
+     *
+     * @param random source of randomness
+     * @return one of the ACTION constants or the HTTP status code to answer with
+     */
+    int nextAction(Random random) {
+        final double value = random.nextDouble();
+        double limit = blackholeRate;
+        if (value < limit) {
+            return ACTION_BLACKHOLE;
+        }
+        limit += resetRate;
+        if (value < limit) {
+            return ACTION_RESET;
+        }
+        final int[] statuses = this.statuses;
+        final double[] statusRates = this.statusRates;
+        for (int i = 0; i < statuses.length && i < statusRates.length; i++) {
+            limit += statusRates[i];
+            if (value < limit) {
+                return statuses[i];
+            }
+        }
+        return ACTION_NONE;
+    }
+
+    int nextSlowBodyBytesPerSecond(Random random) {
+        final double rate = slowBodyRate;
+        return rate > 0 && random.nextDouble() < rate ? slowBodyBytesPerSecond : 0;
+    }
+
+    private static double checkRate(double rate) {
+        if (rate < 0 || rate > 1) {
+            throw new IllegalArgumentException("The rate must be between 0 and 1 but was " + rate);
+        }
+        return rate;
+    }
+}
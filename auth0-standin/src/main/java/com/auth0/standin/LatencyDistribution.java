@@ -0,0 +1,136 @@
+/*
+ * LatencyDistribution.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.standin;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Distribution of the latency added by the stand-in server to a response
+ */
+public abstract class LatencyDistribution {
+
+    // z-score of the 99th percentile of the standard normal distribution
+    private static final double Z_99 = 2.3263;
+
+    /**
+     * @param random source of randomness
+     * @return the next latency in nanoseconds
+     */
+    public abstract long nextNanos(Random random);
+
+    /**
+     * @param millis latency added to every response
+     * @return a constant distribution
+     */
+    public static LatencyDistribution fixed(double millis) {
+        final long nanos = toNanos(millis);
+        return new LatencyDistribution() {
+            @Override
+            public long nextNanos(Random random) {
+                return nanos;
+            }
+        };
+    }
+
+    /**
+     * @param minMillis minimum latency
+     * @param maxMillis maximum latency
+     * @return a uniform distribution
+     */
+    public static LatencyDistribution uniform(double minMillis, double maxMillis) {
+        final long min = toNanos(minMillis);
+        final long range = toNanos(maxMillis) - min;
+        return new LatencyDistribution() {
+            @Override
+            public long nextNanos(Random random) {
+                return min + (long) (random.nextDouble() * range);
+            }
+        };
+    }
+
+    /**
+     * @param meanMillis mean latency
+     * @return an exponential distribution, as the time between events of a Poisson process
+     */
+    public static LatencyDistribution exponential(double meanMillis) {
+        final double mean = toNanos(meanMillis);
+        return new LatencyDistribution() {
+            @Override
+            public long nextNanos(Random random) {
+                return (long) (-mean * Math.log(1 - random.nextDouble()));
+            }
+        };
+    }
+
+    /**
+     * Long tailed distribution usually seen in real services, defined by two of its percentiles
+     *
+     * @param medianMillis 50th percentile of the latency
+     * @param p99Millis    99th percentile of the latency
+     * @return a log-normal distribution
+     */
+    public static LatencyDistribution logNormal(double medianMillis, double p99Millis) {
+        final double mu = Math.log(toNanos(medianMillis));
+        final double sigma = Math.max(0, (Math.log(toNanos(p99Millis)) - mu) / Z_99);
+        return new LatencyDistribution() {
+            @Override
+            public long nextNanos(Random random) {
+                return (long) Math.exp(mu + sigma * random.nextGaussian());
+            }
+        };
+    }
+
+    /**
+     * Parses a distribution, e.g. 'fixed:20', 'uniform:10:50', 'exponential:20' or 'lognormal:20:300'. Values are in milliseconds.
+     *
+     * @param spec of the distribution
+     * @return the distribution
+     */
+    public static LatencyDistribution parse(String spec) {
+        final String[] parts = spec.split(":");
+        try {
+            switch (parts[0].toLowerCase(Locale.US)) {
+                case "fixed":
+                    return fixed(Double.parseDouble(parts[1]));
+                case "uniform":
+                    return uniform(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+                case "exponential":
+                    return exponential(Double.parseDouble(parts[1]));
+                case "lognormal":
+                    return logNormal(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+                default:
+                    throw new IllegalArgumentException("Unknown latency distribution " + spec);
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid latency distribution " + spec, e);
+        }
+    }
+
+    private static long toNanos(double millis) {
+        return (long) (millis * TimeUnit.MILLISECONDS.toNanos(1));
+    }
+}
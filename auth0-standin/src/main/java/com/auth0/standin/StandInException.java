@@ -0,0 +1,56 @@
+/*
+ * StandInException.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.standin;
+
+/**
+ * Error answered by the stand-in server with the same status and body Auth0 would use
+ */
+class StandInException extends Exception {
+
+    private final int status;
+    private final String error;
+
+    StandInException(int status, String error, String description) {
+        super(description);
+        this.status = status;
+        this.error = error;
+    }
+
+    int getStatus() {
+        return status;
+    }
+
+    String getError() {
+        return error;
+    }
+
+    static StandInException badRequest(String description) {
+        return new StandInException(400, "invalid_request", description);
+    }
+
+    static StandInException unauthorized(String error, String description) {
+        return new StandInException(401, error, description);
+    }
+}
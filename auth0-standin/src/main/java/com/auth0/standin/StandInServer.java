@@ -0,0 +1,366 @@
+/*
+ * StandInServer.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.standin;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stand-in of the Auth0 Authentication API to run benchmarks and soak tests of the SDK without a real tenant.
+ * It implements '/oauth/ro', '/oauth/token', '/tokeninfo', '/delegation', '/dbconnections/signup',
+ * '/dbconnections/change_password', '/passwordless/start' and '/unlink' with in-memory users and HS256 tokens signed
+ * with the client secret. Connections are multiplexed by the JDK HTTP server selector and requests are handled
+ * by a fixed pool of threads, so thousands of concurrent keep-alive connections are supported.
+ * Latency, errors, connection resets, slow bodies and blackholes can be injected per endpoint with {@link #getFaults()}.
+ * <pre><code>
+ * StandInServer server = new StandInServer("CLIENTID", "CLIENTSECRET");
+ * server.getUsers().seed(1000, "password");
+ * server.start(0);
+ * Auth0 auth0 = new Auth0("CLIENTID", server.getDomain());
+ * </code></pre>
+ */
+public class StandInServer {
+
+    private static final int DEFAULT_THREADS = 256;
+    private static final int DEFAULT_BACKLOG = 4096;
+
+    static {
+        // Read once by the JDK HTTP server: avoid Nagle delays and keep thousands of idle keep-alive connections
+        setIfAbsent("sun.net.httpserver.nodelay", "true");
+        setIfAbsent("sun.net.httpserver.maxIdleConnections", "10000");
+    }
+
+    private final String clientId;
+    private final UserStore users;
+    private final ObjectMapper mapper;
+    private final TokenSigner signer;
+    private final FaultInjector faults;
+    private final Set<InetSocketAddress> clientConnections = Collections.newSetFromMap(new ConcurrentHashMap<InetSocketAddress, Boolean>());
+    private int threads = DEFAULT_THREADS;
+    private int backlog = DEFAULT_BACKLOG;
+    private HttpServer server;
+    private ExecutorService executor;
+    private ScheduledExecutorService scheduler;
+    private AuthenticationService service;
+
+    /**
+     * Creates a new stand-in server for a single client
+     *
+     * @param clientId     id of the client allowed to call the server
+     * @param clientSecret secret used to sign the tokens
+     */
+    public StandInServer(String clientId, String clientSecret) {
+        this.clientId = clientId;
+        this.users = new UserStore();
+        this.mapper = new ObjectMapper();
+        this.signer = new TokenSigner(clientSecret, mapper);
+        this.faults = new FaultInjector();
+    }
+
+    /**
+     * @param threads number of threads handling requests. Must be called before {@link #start(int)}
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * @param backlog of connections waiting to be accepted. Must be called before {@link #start(int)}
+     */
+    public void setBacklog(int backlog) {
+        this.backlog = backlog;
+    }
+
+    /**
+     * @return the users of the server, to add them before running a test
+     */
+    public UserStore getUsers() {
+        return users;
+    }
+
+    /**
+     * @return the faults injected in the responses, none by default
+     */
+    public FaultInjector getFaults() {
+        return faults;
+    }
+
+    /**
+     * @return the number of client connections that sent requests to the server since it was started
+     */
+    public int getClientConnectionCount() {
+        return clientConnections.size();
+    }
+
+    /**
+     * Starts listening on the loopback interface
+     *
+     * @param port to listen on, or 0 to pick a free one
+     * @throws IOException if the server could not be started
+     */
+    public synchronized void start(int port) throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("The server is already started");
+        }
+        clientConnections.clear();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), backlog);
+        service = new AuthenticationService("http://127.0.0.1:" + server.getAddress().getPort() + "/", clientId, users, signer);
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), threadFactory("auth0-standin-"));
+        scheduler = Executors.newScheduledThreadPool(2, threadFactory("auth0-standin-scheduler-"));
+        server.setExecutor(executor);
+        createContexts(server, service);
+        server.start();
+    }
+
+    /**
+     * @return the port the server listens on
+     */
+    public synchronized int getPort() {
+        if (server == null) {
+            throw new IllegalStateException("The server is not started");
+        }
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * @return the url to use as the Auth0 domain, e.g. 'http://127.0.0.1:8080'
+     */
+    public String getDomain() {
+        return "http://127.0.0.1:" + getPort();
+    }
+
+    /**
+     * Code that a user would receive after calling '/passwordless/start' to log in with the 'email' or 'sms' connection
+     *
+     * @param emailOrPhoneNumber used to start the passwordless flow
+     * @return the verification code
+     */
+    public synchronized String getPasswordlessCode(String emailOrPhoneNumber) {
+        checkStarted();
+        return service.passwordlessCode(emailOrPhoneNumber);
+    }
+
+    /**
+     * Authorization code that '/authorize' would return to the user, valid for 1 minute
+     *
+     * @param user         that logged in
+     * @param codeVerifier used to generate the PKCE code challenge, or null to not use PKCE
+     * @param scope        requested
+     * @return the authorization code to exchange in '/oauth/token'
+     */
+    public synchronized String newAuthorizationCode(User user, String codeVerifier, String scope) {
+        checkStarted();
+        return service.authorizationCode(user, codeVerifier, scope);
+    }
+
+    /**
+     * Stops the server, closing all its connections
+     */
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            scheduler.shutdownNow();
+            server = null;
+            executor = null;
+            scheduler = null;
+        }
+    }
+
+    private void checkStarted() {
+        if (service == null) {
+            throw new IllegalStateException("The server is not started");
+        }
+    }
+
+    private void createContext(HttpServer server, String path, Operation operation) {
+        server.createContext(path, new Endpoint(operation, mapper, faults, executor, scheduler))
+                .getFilters().add(new Filter() {
+                    @Override
+                    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+                        // each connection has its own client port
+                        clientConnections.add(exchange.getRemoteAddress());
+                        chain.doFilter(exchange);
+                    }
+
+                    @Override
+                    public String description() {
+                        return "Counts the client connections";
+                    }
+                });
+    }
+
+    private void createContexts(HttpServer server, final AuthenticationService service) {
+        createContext(server, "/oauth/ro", new Operation() {
+            @Override
+            public Object handle(Map<String, Object> body) throws StandInException {
+                return service.resourceOwner(body);
+            }
+        });
+        createContext(server, "/oauth/token", new Operation() {
+            @Override
+            public Object handle(Map<String, Object> body) throws StandInException {
+                return service.token(body);
+            }
+        });
+        createContext(server, "/tokeninfo", new Operation() {
+            @Override
+            public Object handle(Map<String, Object> body) throws StandInException {
+                return service.tokenInfo(body);
+            }
+        });
+        createContext(server, "/delegation", new Operation() {
+            @Override
+            public Object handle(Map<String, Object> body) throws StandInException {
+                return service.delegation(body);
+            }
+        });
+        createContext(server, "/dbconnections/signup", new Operation() {
+            @Override
+            public Object handle(Map<String, Object> body) throws StandInException {
+                return service.signUp(body);
+            }
+        });
+        createContext(server, "/dbconnections/change_password", new Operation() {
+            @Override
+            public Object handle(Map<String, Object> body) throws StandInException {
+                return service.changePassword(body);
+            }
+        });
+        createContext(server, "/passwordless/start", new Operation() {
+            @Override
+            public Object handle(Map<String, Object> body) throws StandInException {
+                return service.passwordlessStart(body);
+            }
+        });
+        createContext(server, "/unlink", new Operation() {
+            @Override
+            public Object handle(Map<String, Object> body) throws StandInException {
+                return service.unlink(body);
+            }
+        });
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    Endpoint.respond(exchange, 404, "application/json",
+                            "{\"error\":\"not_found\",\"error_description\":\"Not found\"}".getBytes(Charset.forName("UTF-8")));
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+    }
+
+    private static ThreadFactory threadFactory(final String prefix) {
+        return new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                final Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    private static void setIfAbsent(String property, String value) {
+        if (System.getProperty(property) == null) {
+            System.setProperty(property, value);
+        }
+    }
+
+    /**
+     * Runs a stand-in server until the process is killed. Accepted arguments, all optional:
+     * <ul>
+     * <li>--port=N to listen on, by default 8080</li>
+     * <li>--threads=N handling requests, by default 256</li>
+     * <li>--users=N number of 'user{n}@auth0.com' users to add, by default 1000</li>
+     * <li>--password=P of the added users, by default 'password'</li>
+     * <li>--client-id=ID of the client, by default 'CLIENTID'</li>
+     * <li>--client-secret=SECRET of the client, by default 'CLIENTSECRET'</li>
+     * <li>--fault.PATH=SPEC faults of the endpoint with that path, or of all of them with '*', see {@link FaultProfile#parse(String)}.
+     * For example --fault./tokeninfo=latency:lognormal:20:300,429:0.05</li>
+     * </ul>
+     *
+     * @param args the arguments
+     * @throws IOException if the server could not be started
+     */
+    public static void main(String[] args) throws IOException {
+        final Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Invalid argument " + arg + ", expected --name=value");
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        final StandInServer server = new StandInServer(option(options, "client-id", "CLIENTID"), option(options, "client-secret", "CLIENTSECRET"));
+        server.setThreads(Integer.parseInt(option(options, "threads", String.valueOf(DEFAULT_THREADS))));
+        server.getUsers().seed(Integer.parseInt(option(options, "users", "1000")), option(options, "password", "password"));
+        configureFaults(server.getFaults(), options);
+        server.start(Integer.parseInt(option(options, "port", "8080")));
+        System.out.println("Auth0 stand-in listening on " + server.getDomain());
+    }
+
+    /**
+     * Configures the faults given as '--fault.PATH=SPEC' arguments
+     *
+     * @param faults  to configure
+     * @param options parsed arguments, by name
+     */
+    public static void configureFaults(FaultInjector faults, Map<String, String> options) {
+        for (Map.Entry<String, String> option : options.entrySet()) {
+            if (option.getKey().startsWith("fault.")) {
+                faults.configure(option.getKey().substring("fault.".length()), option.getValue());
+            }
+        }
+    }
+
+    private static String option(Map<String, String> options, String name, String defaultValue) {
+        final String value = options.get(name);
+        return value != null ? value : defaultValue;
+    }
+}
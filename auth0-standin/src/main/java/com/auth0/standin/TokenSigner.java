@@ -0,0 +1,121 @@
+/*
+ * TokenSigner.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.standin;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Creates and verifies HS256 JSON Web Tokens signed with the client secret.
+ * All the tokens issued by the stand-in are JWTs, so it doesn't need to keep any state per session.
+ */
+class TokenSigner {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String HEADER = Base64.getUrlEncoder().withoutPadding()
+            .encodeToString("{\"typ\":\"JWT\",\"alg\":\"HS256\"}".getBytes(UTF_8));
+
+    private final SecretKeySpec key;
+    private final ObjectWriter writer;
+    private final ObjectReader reader;
+    private final ThreadLocal<Mac> macs = new ThreadLocal<Mac>() {
+        @Override
+        protected Mac initialValue() {
+            try {
+                final Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+                throw new IllegalStateException("Failed to initialize " + ALGORITHM, e);
+            }
+        }
+    };
+
+    TokenSigner(String secret, ObjectMapper mapper) {
+        this.key = new SecretKeySpec(secret.getBytes(UTF_8), ALGORITHM);
+        this.writer = mapper.writer();
+        this.reader = mapper.reader(new TypeReference<Map<String, Object>>() {});
+    }
+
+    String sign(Map<String, Object> claims) {
+        try {
+            final String payload = Base64.getUrlEncoder().withoutPadding().encodeToString(writer.writeValueAsBytes(claims));
+            final String content = HEADER + "." + payload;
+            return content + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(hmac(content));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to serialize token claims", e);
+        }
+    }
+
+    /**
+     * Verifies the signature and expiration of a token
+     *
+     * @param token to verify
+     * @return its claims or null if the token is malformed, its signature is wrong or it's expired
+     */
+    Map<String, Object> verify(String token) {
+        if (token == null) {
+            return null;
+        }
+        final int firstDot = token.indexOf('.');
+        final int lastDot = token.lastIndexOf('.');
+        if (firstDot < 0 || firstDot == lastDot) {
+            return null;
+        }
+        try {
+            final byte[] expected = hmac(token.substring(0, lastDot));
+            final byte[] actual = Base64.getUrlDecoder().decode(token.substring(lastDot + 1));
+            if (!MessageDigest.isEqual(expected, actual)) {
+                return null;
+            }
+            final Map<String, Object> claims = reader.readValue(Base64.getUrlDecoder().decode(token.substring(firstDot + 1, lastDot)));
+            final Object exp = claims.get("exp");
+            if (exp instanceof Number && ((Number) exp).longValue() * 1000 < System.currentTimeMillis()) {
+                return null;
+            }
+            return claims;
+        } catch (IllegalArgumentException | IOException e) {
+            return null;
+        }
+    }
+
+    byte[] hmac(String content) {
+        return macs.get().doFinal(content.getBytes(UTF_8));
+    }
+}
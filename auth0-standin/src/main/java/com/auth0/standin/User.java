@@ -0,0 +1,86 @@
+/*
+ * User.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.standin;
+
+import java.util.Date;
+
+/**
+ * User of a database connection of the stand-in server
+ */
+public final class User {
+
+    private final String id;
+    private final String email;
+    private final String username;
+    private final String connection;
+    private final Date createdAt;
+    private final byte[] salt;
+    private volatile byte[] passwordHash;
+
+    User(String id, String email, String username, String connection, byte[] salt, byte[] passwordHash) {
+        this.id = id;
+        this.email = email;
+        this.username = username;
+        this.connection = connection;
+        this.createdAt = new Date();
+        this.salt = salt;
+        this.passwordHash = passwordHash;
+    }
+
+    /**
+     * @return the user id, e.g. 'auth0|56d59a1c5a1ae4c93d3ab20c'
+     */
+    public String getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getConnection() {
+        return connection;
+    }
+
+    public Date getCreatedAt() {
+        return new Date(createdAt.getTime());
+    }
+
+    byte[] getSalt() {
+        return salt;
+    }
+
+    byte[] getPasswordHash() {
+        return passwordHash;
+    }
+
+    void setPasswordHash(byte[] passwordHash) {
+        this.passwordHash = passwordHash;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * UserStore.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.standin;
+
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory users of the stand-in server, indexed by email and id.
+ * Passwords are stored as salted SHA-256 hashes: a real password hash function would make the stand-in
+ * and not the SDK the bottleneck of a benchmark.
+ */
+public class UserStore {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String DEFAULT_CONNECTION = "Username-Password-Authentication";
+
+    private final ConcurrentMap<String, User> byEmail = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, User> byId = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong(0x56d59a1c5a1ae4L);
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Adds a user to the default database connection
+     *
+     * @param email    of the user
+     * @param username of the user, can be null
+     * @param password of the user
+     * @return the new user
+     * @throws IllegalStateException if a user with the same email already exists
+     */
+    public User addUser(String email, String username, String password) {
+        return addUser(email, username, password, DEFAULT_CONNECTION);
+    }
+
+    /**
+     * Adds a number of users named 'user{n}@auth0.com', all of them with the same password
+     *
+     * @param count    of users to add
+     * @param password of the users
+     */
+    public void seed(int count, String password) {
+        for (int i = 0; i < count; i++) {
+            addUser("user" + i + "@auth0.com", "user" + i, password);
+        }
+    }
+
+    /**
+     * @param email of the user
+     * @return the user with that email or null if none
+     */
+    public User findByEmail(String email) {
+        return email == null ? null : byEmail.get(email.toLowerCase(Locale.US));
+    }
+
+    /**
+     * @param id of the user
+     * @return the user with that id or null if none
+     */
+    public User findById(String id) {
+        return id == null ? null : byId.get(id);
+    }
+
+    /**
+     * @return the number of users
+     */
+    public int size() {
+        return byId.size();
+    }
+
+    User addUser(String email, String username, String password, String connection) {
+        final byte[] salt = new byte[16];
+        random.nextBytes(salt);
+        final String id = "auth0|" + Long.toHexString(sequence.incrementAndGet());
+        final User user = new User(id, email.toLowerCase(Locale.US), username, connection != null ? connection : DEFAULT_CONNECTION, salt, hash(salt, password));
+        if (byEmail.putIfAbsent(user.getEmail(), user) != null) {
+            throw new IllegalStateException("The user " + email + " already exists");
+        }
+        byId.put(id, user);
+        return user;
+    }
+
+    boolean checkPassword(User user, String password) {
+        return password != null && MessageDigest.isEqual(user.getPasswordHash(), hash(user.getSalt(), password));
+    }
+
+    void changePassword(User user, String password) {
+        user.setPasswordHash(hash(user.getSalt(), password));
+    }
+
+    private static byte[] hash(byte[] salt, String password) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(salt);
+            return digest.digest(password.getBytes(UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * FaultInjectorTest.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.standin;
+
+import com.auth0.APIException;
+import com.auth0.Auth0;
+import com.auth0.Auth0Exception;
+import com.auth0.authentication.AuthenticationAPIClient;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class FaultInjectorTest {
+
+    private static final String CLIENT_ID = "CLIENTID";
+    private static final String PASSWORD = "password";
+
+    private StandInServer server;
+    private AuthenticationAPIClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StandInServer(CLIENT_ID, "CLIENTSECRET");
+        server.setThreads(4);
+        server.getUsers().seed(1, PASSWORD);
+        server.start(0);
+        client = new Auth0(CLIENT_ID, server.getDomain()).newAuthenticationAPIClient();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop();
+    }
+
+    @Test
+    public void shouldDelayResponses() throws Exception {
+        server.getFaults().forEndpoint("/oauth/ro").setLatency(LatencyDistribution.fixed(200));
+
+        final long start = System.nanoTime();
+        client.login("user0@auth0.com", PASSWORD).execute();
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), is(greaterThanOrEqualTo(200L)));
+        assertThat(server.getFaults().getDelayedCount(), is(1L));
+    }
+
+    @Test
+    public void shouldAnswerWithInjectedStatus() throws Exception {
+        server.getFaults().configure("*", "429:1");
+
+        try {
+            client.login("user0@auth0.com", PASSWORD).execute();
+            fail("The request should have failed");
+        } catch (APIException e) {
+            assertThat(e.getStatusCode(), is(429));
+            assertThat(e.getResponseError().get("error"), equalTo((Object) "too_many_requests"));
+        }
+        assertThat(server.getFaults().getErrorCount(), is(1L));
+    }
+
+    @Test
+    public void shouldOnlyApplyFaultsToConfiguredEndpoint() throws Exception {
+        server.getFaults().configure("/tokeninfo", "503:1");
+
+        assertThat(client.login("user0@auth0.com", PASSWORD).execute(), is(notNullValue()));
+        assertThat(server.getFaults().getErrorCount(), is(0L));
+    }
+
+    @Test
+    public void shouldResetConnection() throws Exception {
+        server.getFaults().forAllEndpoints().setResetRate(1);
+
+        try {
+            client.login("user0@auth0.com", PASSWORD).execute();
+            fail("The request should have failed");
+        } catch (Auth0Exception e) {
+            assertThat(e, is(not(instanceOf(APIException.class))));
+        }
+        assertThat(server.getFaults().getResetCount(), is(1L));
+    }
+
+    @Test
+    public void shouldSendBodySlowly() throws Exception {
+        server.getFaults().forAllEndpoints().setSlowBody(1, 4096);
+
+        final long start = System.nanoTime();
+        assertThat(client.login("user0@auth0.com", PASSWORD).execute().getIdToken(), is(notNullValue()));
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), is(greaterThanOrEqualTo(100L)));
+        assertThat(server.getFaults().getSlowBodyCount(), is(1L));
+    }
+
+    @Test
+    public void shouldCloseBlackholedConnectionAfterTimeout() throws Exception {
+        server.getFaults().setBlackholeTimeout(300, TimeUnit.MILLISECONDS);
+        server.getFaults().forAllEndpoints().setBlackholeRate(1);
+
+        final long start = System.nanoTime();
+        try {
+            client.login("user0@auth0.com", PASSWORD).execute();
+            fail("The request should have failed");
+        } catch (Auth0Exception e) {
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), is(greaterThanOrEqualTo(300L)));
+        }
+        assertThat(server.getFaults().getBlackholeCount(), is(1L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectInvalidSpec() throws Exception {
+        server.getFaults().configure("*", "latency:gaussian:20");
+    }
+}
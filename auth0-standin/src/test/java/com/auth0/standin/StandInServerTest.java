@@ -0,0 +1,187 @@
+/*
+ * StandInServerTest.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.standin;
+
+import com.auth0.APIException;
+import com.auth0.Auth0;
+import com.auth0.authentication.AuthenticationAPIClient;
+import com.auth0.authentication.PasswordlessType;
+import com.auth0.authentication.ParameterBuilder;
+import com.auth0.authentication.result.Credentials;
+import com.auth0.authentication.result.Delegation;
+import com.auth0.authentication.result.UserProfile;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasProperty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class StandInServerTest {
+
+    private static final String CLIENT_ID = "CLIENTID";
+    private static final String PASSWORD = "password";
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    private StandInServer server;
+    private AuthenticationAPIClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StandInServer(CLIENT_ID, "CLIENTSECRET");
+        server.setThreads(8);
+        server.getUsers().seed(10, PASSWORD);
+        server.start(0);
+        client = new Auth0(CLIENT_ID, server.getDomain()).newAuthenticationAPIClient();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop();
+    }
+
+    @Test
+    public void shouldLoginAndFetchTokenInfo() throws Exception {
+        final Credentials credentials = client.login("user1@auth0.com", PASSWORD).execute();
+        assertThat(credentials.getIdToken(), is(notNullValue()));
+        assertThat(credentials.getAccessToken(), is(notNullValue()));
+        assertThat(credentials.getRefreshToken(), is(nullValue()));
+
+        final UserProfile profile = client.tokenInfo(credentials.getIdToken()).execute();
+        assertThat(profile.getId(), equalTo(server.getUsers().findByEmail("user1@auth0.com").getId()));
+        assertThat(profile.getEmail(), equalTo("user1@auth0.com"));
+        assertThat(profile.getNickname(), equalTo("user1"));
+        assertThat(profile.getCreatedAt(), is(notNullValue()));
+        assertThat(profile.getIdentities().get(0).getProvider(), equalTo("auth0"));
+        assertThat(server.getClientConnectionCount(), is(1));
+    }
+
+    @Test
+    public void shouldFailLoginWithWrongPassword() throws Exception {
+        exception.expect(APIException.class);
+        exception.expect(hasProperty("statusCode", equalTo(401)));
+        client.login("user1@auth0.com", "wrong").execute();
+    }
+
+    @Test
+    public void shouldFailTokenInfoWithTamperedToken() throws Exception {
+        final String idToken = client.login("user1@auth0.com", PASSWORD).execute().getIdToken();
+
+        exception.expect(APIException.class);
+        exception.expect(hasProperty("statusCode", equalTo(401)));
+        client.tokenInfo(idToken + "x").execute();
+    }
+
+    @Test
+    public void shouldDelegateWithIdTokenAndRefreshToken() throws Exception {
+        final Credentials credentials = client.login("user1@auth0.com", PASSWORD)
+                .setScope(ParameterBuilder.SCOPE_OFFLINE_ACCESS)
+                .execute();
+        assertThat(credentials.getRefreshToken(), is(notNullValue()));
+
+        final Delegation fromIdToken = client.delegationWithIdToken(credentials.getIdToken()).execute();
+        assertThat(fromIdToken.getIdToken(), is(notNullValue()));
+        assertThat(fromIdToken.getType(), equalTo("Bearer"));
+        final Delegation fromRefreshToken = client.delegationWithRefreshToken(credentials.getRefreshToken()).execute();
+        assertThat(client.tokenInfo(fromRefreshToken.getIdToken()).execute().getEmail(), equalTo("user1@auth0.com"));
+    }
+
+    @Test
+    public void shouldSignUpAndRejectExistingUser() throws Exception {
+        final Credentials credentials = client.signUp("new@auth0.com", "s3cr3t", "newuser").execute();
+        assertThat(client.tokenInfo(credentials.getIdToken()).execute().getNickname(), equalTo("newuser"));
+
+        exception.expect(APIException.class);
+        exception.expect(hasProperty("statusCode", equalTo(400)));
+        client.createUser("new@auth0.com", "s3cr3t").execute();
+    }
+
+    @Test
+    public void shouldLoginWithPasswordlessCode() throws Exception {
+        client.passwordlessWithEmail("someone@auth0.com", PasswordlessType.CODE).execute();
+        final String code = server.getPasswordlessCode("someone@auth0.com");
+
+        final Credentials credentials = client.loginWithEmail("someone@auth0.com", code).execute();
+        assertThat(client.tokenInfo(credentials.getIdToken()).execute().getEmail(), equalTo("someone@auth0.com"));
+    }
+
+    @Test
+    public void shouldExchangeAuthorizationCodeVerifyingCodeVerifier() throws Exception {
+        final User user = server.getUsers().findByEmail("user2@auth0.com");
+        final String code = server.newAuthorizationCode(user, "verifier", ParameterBuilder.SCOPE_OPENID);
+
+        assertThat(client.token(code, "verifier", "http://localhost/callback").execute().getIdToken(), is(notNullValue()));
+
+        exception.expect(APIException.class);
+        exception.expect(hasProperty("statusCode", equalTo(403)));
+        client.token(code, "wrong", "http://localhost/callback").execute();
+    }
+
+    @Test
+    public void shouldChangePasswordAndUnlink() throws Exception {
+        client.requestChangePassword("user3@auth0.com").execute();
+        final Credentials credentials = client.login("user3@auth0.com", PASSWORD).execute();
+
+        client.unlink("auth0|123", credentials.getAccessToken()).execute();
+    }
+
+    @Test
+    public void shouldHandleConcurrentRequests() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(32);
+        try {
+            final List<Future<Credentials>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                final String email = "user" + (i % 10) + "@auth0.com";
+                results.add(executor.submit(new Callable<Credentials>() {
+                    @Override
+                    public Credentials call() throws Exception {
+                        return client.login(email, PASSWORD).execute();
+                    }
+                }));
+            }
+            for (Future<Credentials> result : results) {
+                assertThat(result.get().getIdToken(), is(notNullValue()));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
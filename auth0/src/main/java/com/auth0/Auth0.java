@@ -39,6 +39,7 @@ public class Auth0 {
 
     private static final String AUTH0_US_CDN_URL = "https://cdn.auth0.com";
     private static final String DOT_AUTH0_DOT_COM = ".auth0.com";
+    private static final Telemetry DEFAULT_TELEMETRY = new Telemetry(BuildConfig.NAME, BuildConfig.VERSION);
 
     private final String clientId;
     private final String clientSecret;
@@ -81,7 +82,7 @@ public class Auth0 {
         this.clientSecret = clientSecret;
         this.domainUrl = ensureUrlString(domain);
         this.configurationUrl = resolveConfiguration(configurationDomain, this.domainUrl);
-        this.telemetry = new Telemetry(BuildConfig.NAME, BuildConfig.VERSION);
+        this.telemetry = DEFAULT_TELEMETRY;
     }
 
     /**
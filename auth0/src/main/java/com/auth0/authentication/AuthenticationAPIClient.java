@@ -25,30 +25,44 @@
 package com.auth0.authentication;
 
 import com.auth0.Auth0;
+import com.auth0.authentication.cache.ProfileCache;
 import com.auth0.authentication.result.Credentials;
 import com.auth0.authentication.result.DatabaseUser;
 import com.auth0.authentication.result.Delegation;
 import com.auth0.authentication.result.UserProfile;
+import com.auth0.callback.CallbackExecutors;
+import com.auth0.metrics.EndpointSnapshot;
+import com.auth0.metrics.MetricsRegistry;
 import com.auth0.request.AuthenticationRequest;
+import com.auth0.request.EndpointGroup;
 import com.auth0.request.ParameterizableRequest;
+import com.auth0.request.Priority;
 import com.auth0.request.Request;
+import com.auth0.request.RequestListener;
+import com.auth0.request.internal.ClientResources;
 import com.auth0.request.internal.RequestFactory;
+import com.auth0.request.transport.Bulkhead;
+import com.auth0.request.transport.Transport;
 import com.auth0.util.Telemetry;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.squareup.okhttp.HttpUrl;
-import com.squareup.okhttp.OkHttpClient;
 
+import java.io.Closeable;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import static com.auth0.authentication.ParameterBuilder.GRANT_TYPE_AUTHORIZATION_CODE;
 import static com.auth0.authentication.ParameterBuilder.GRANT_TYPE_PASSWORD;
 
 /**
  * API client for Auth0 Authentication API.
+ * Clients created without a {@link Transport} share the same HTTP client and JSON mapper, so they are cheap to
+ * create and hold only the account information and settings of their tenant. {@link #close()} a client when
+ * it's no longer needed to release them.
  *
  * @see <a href="https://auth0.com/docs/auth-api">Auth API docs</a>
  */
-public class AuthenticationAPIClient {
+public class AuthenticationAPIClient implements Closeable {
 
     private static final String DEFAULT_DB_CONNECTION = "Username-Password-Authentication";
     private static final String SMS_CONNECTION = "sms";
@@ -76,11 +90,14 @@ public class AuthenticationAPIClient {
     private static final String REDIRECT_URI_KEY = "redirect_uri";
 
     private final Auth0 auth0;
-    private final OkHttpClient client;
+    private final HttpUrl baseUrl;
+    private final Transport transport;
     private final ObjectMapper mapper;
     private final RequestFactory factory;
 
     private String defaultDatabaseConnection = DEFAULT_DB_CONNECTION;
+    private ProfileCache profileCache;
+    private ClientResources resources;
 
     /**
      * Creates a new API client instance providing Auth0 account info.
@@ -88,13 +105,29 @@ public class AuthenticationAPIClient {
      * @param auth0 account information
      */
     public AuthenticationAPIClient(Auth0 auth0) {
-        this(auth0, new OkHttpClient(), new ObjectMapper());
+        this(auth0, ClientResources.acquire());
     }
 
-    private AuthenticationAPIClient(Auth0 auth0, OkHttpClient client, ObjectMapper mapper) {
+    /**
+     * Creates a new API client instance providing Auth0 account info and the transport used to send the requests.
+     *
+     * @param auth0     account information
+     * @param transport used to send the requests, e.g. an {@link com.auth0.request.internal.InMemoryTransport} to benchmark the SDK
+     */
+    public AuthenticationAPIClient(Auth0 auth0, Transport transport) {
+        this(auth0, transport, null);
+    }
+
+    private AuthenticationAPIClient(Auth0 auth0, ClientResources resources) {
+        this(auth0, resources.getTransport(), resources);
+    }
+
+    private AuthenticationAPIClient(Auth0 auth0, Transport transport, ClientResources resources) {
         this.auth0 = auth0;
-        this.client = client;
-        this.mapper = mapper;
+        this.baseUrl = auth0.getDomainUrl() == null ? null : HttpUrl.parse(auth0.getDomainUrl());
+        this.transport = transport;
+        this.mapper = ClientResources.mapper();
+        this.resources = resources;
         this.factory = new RequestFactory();
         final Telemetry telemetry = auth0.getTelemetry();
         if (telemetry != null) {
@@ -128,6 +161,112 @@ public class AuthenticationAPIClient {
         this.defaultDatabaseConnection = defaultDatabaseConnection;
     }
 
+    /**
+     * Set the cache used to store the profiles fetched with {@link #tokenInfo(String)} and {@link #getProfileAfter(AuthenticationRequest)}.
+     * By default no cache is used and every request will call Auth0 '/tokeninfo' endpoint.
+     *
+     * @param profileCache to use or null to disable caching
+     * @see com.auth0.authentication.cache.OffHeapProfileCache
+     */
+    public void setProfileCache(ProfileCache profileCache) {
+        this.profileCache = profileCache;
+    }
+
+    /**
+     * Set a listener that receives the lifecycle events of the requests created afterwards by this client,
+     * with the time when each phase was reached. Without a listener no events are created.
+     *
+     * @param listener of the requests, or null to stop listening
+     */
+    public void setRequestListener(RequestListener listener) {
+        factory.setListener(listener);
+    }
+
+    /**
+     * Set a registry where the requests created afterwards by this client record their counts and latencies,
+     * by endpoint and outcome. The same registry can be shared by several clients.
+     *
+     * @param metrics where requests are recorded, or null to stop recording them
+     * @see MetricsRegistry#snapshot()
+     */
+    public void setMetricsRegistry(MetricsRegistry metrics) {
+        factory.setMetrics(metrics);
+    }
+
+    /**
+     * Set the executor that runs the callbacks of the requests created afterwards by this client. By default callbacks
+     * run in the OkHttp thread that completed the request, which can't serve other requests until they return, and
+     * with a {@link MetricsRegistry} the time they take is recorded in {@link EndpointSnapshot#getDirectCallbackTime()}.
+     * <pre><code>
+     * client.setCallbackExecutor(CallbackExecutors.boundedPool("auth0-callbacks", 4, 1000));
+     * </code></pre>
+     * Each request can override it with {@link ParameterizableRequest#setCallbackExecutor(Executor)}.
+     *
+     * @param executor of the callbacks, or null or {@link CallbackExecutors#direct()} to run them in the I/O thread
+     */
+    public void setCallbackExecutor(Executor executor) {
+        factory.setCallbackExecutor(executor);
+    }
+
+    /**
+     * Set a bulkhead that limits the requests created afterwards by this client that are in flight or waiting,
+     * so an overloaded Auth0 tenant makes new requests fail fast, block or shed old ones instead of piling them up.
+     * <pre><code>
+     * Bulkhead bulkhead = new Bulkhead("auth0", 64);
+     * bulkhead.setMaxQueued(256, RejectionPolicy.DROP_OLDEST);
+     * bulkhead.setQueueTimeout(5, TimeUnit.SECONDS);
+     * client.setBulkhead(bulkhead);
+     * </code></pre>
+     * Requests that are not sent fail with a {@link com.auth0.RequestRejectedException}.
+     *
+     * @param bulkhead shared by all the requests, or null to not limit them
+     */
+    public void setBulkhead(Bulkhead bulkhead) {
+        factory.setBulkhead(bulkhead);
+    }
+
+    /**
+     * Set a bulkhead that only limits the requests to a group of endpoints, created afterwards by this client,
+     * so a slow endpoint like '/delegation' can't starve the logins. Each group has its own bulkhead, with its own
+     * limits, queue and counters. A request goes through the bulkhead of its group and then through the one set
+     * with {@link #setBulkhead(Bulkhead)}, if any.
+     * <pre><code>
+     * client.setBulkhead(EndpointGroup.DELEGATION, new Bulkhead("delegation", 8));
+     * client.setBulkhead(EndpointGroup.AUTHENTICATION, new Bulkhead("authentication", 32));
+     * </code></pre>
+     *
+     * @param group    of endpoints to limit
+     * @param bulkhead of the group, or null to not limit it
+     */
+    public void setBulkhead(EndpointGroup group, Bulkhead bulkhead) {
+        factory.setBulkhead(group, bulkhead);
+    }
+
+    /**
+     * @param group of endpoints
+     * @return the bulkhead of the group, or null if it's not limited
+     */
+    public Bulkhead getBulkhead(EndpointGroup group) {
+        return factory.getBulkhead(group);
+    }
+
+    /**
+     * Releases the HTTP client shared with other API clients, stopping its threads if no other client uses it.
+     * Requests can't be started after closing a client created without a {@link Transport}.
+     * Closing a client with its own {@link Transport} does nothing, the transport is owned by the caller.
+     */
+    @Override
+    public void close() {
+        final ClientResources resources;
+        synchronized (this) {
+            resources = this.resources;
+            this.resources = null;
+        }
+        if (resources != null) {
+            resources.release();
+        }
+    }
+
     /**
      * Log in a user with email/username and password using a DB connection.
      * Example usage:
@@ -176,7 +315,7 @@ public class AuthenticationAPIClient {
      * @return a request to configure and start that will yield {@link Credentials}
      */
     public AuthenticationRequest loginWithOAuthAccessToken(String token, String connection) {
-        HttpUrl url = HttpUrl.parse(auth0.getDomainUrl()).newBuilder()
+        HttpUrl url = baseUrl.newBuilder()
                 .addPathSegment(OAUTH_PATH)
                 .addPathSegment(ACCESS_TOKEN_PATH)
                 .build();
@@ -187,7 +326,7 @@ public class AuthenticationAPIClient {
                 .setAccessToken(token)
                 .asDictionary();
 
-        return factory.authenticationPOST(url, client, mapper)
+        return factory.authenticationPOST(url, transport, mapper)
                 .addAuthenticationParameters(parameters);
     }
 
@@ -267,6 +406,9 @@ public class AuthenticationAPIClient {
      * @return a request to start
      */
     public Request<UserProfile> tokenInfo(String idToken) {
+        if (profileCache != null) {
+            return new CachedProfileRequest(profileCache, idToken, profileRequest());
+        }
         return profileRequest()
                 .addParameter(ParameterBuilder.ID_TOKEN_KEY, idToken);
     }
@@ -292,7 +434,7 @@ public class AuthenticationAPIClient {
      * @return a request to start
      */
     public DatabaseConnectionRequest<DatabaseUser> createUser(String email, String password, String username) {
-        HttpUrl url = HttpUrl.parse(auth0.getDomainUrl()).newBuilder()
+        HttpUrl url = baseUrl.newBuilder()
                 .addPathSegment(DB_CONNECTIONS_PATH)
                 .addPathSegment(SIGN_UP_PATH)
                 .build();
@@ -304,7 +446,7 @@ public class AuthenticationAPIClient {
                 .setConnection(defaultDatabaseConnection)
                 .setClientId(getClientId())
                 .asDictionary();
-        final ParameterizableRequest<DatabaseUser> request = factory.POST(url, client, mapper, DatabaseUser.class)
+        final ParameterizableRequest<DatabaseUser> request = factory.POST(url, transport, mapper, DatabaseUser.class)
                 .addParameters(parameters);
         return new DatabaseConnectionRequest<>(request);
     }
@@ -387,6 +529,7 @@ public class AuthenticationAPIClient {
 
     /**
      * Request a change password using <a href="https://auth0.com/docs/auth-api#!#post--dbconnections-change_password">'/dbconnections/change_password'</a>
+     * with {@link Priority#BACKGROUND} priority, since it only sends an email.
      * Example usage:
      * <pre><code>
      * client.requestChangePassword("{email}")
@@ -403,7 +546,7 @@ public class AuthenticationAPIClient {
      * @return a request to configure and start
      */
     public DatabaseConnectionRequest<Void> requestChangePassword(String email) {
-        HttpUrl url = HttpUrl.parse(auth0.getDomainUrl()).newBuilder()
+        HttpUrl url = baseUrl.newBuilder()
                 .addPathSegment(DB_CONNECTIONS_PATH)
                 .addPathSegment(CHANGE_PASSWORD_PATH)
                 .build();
@@ -413,8 +556,9 @@ public class AuthenticationAPIClient {
                 .setClientId(getClientId())
                 .setConnection(defaultDatabaseConnection)
                 .asDictionary();
-        final ParameterizableRequest<Void> request = factory.POST(url, client, mapper)
-                .addParameters(parameters);
+        final ParameterizableRequest<Void> request = factory.POST(url, transport, mapper)
+                .addParameters(parameters)
+                .setPriority(Priority.BACKGROUND);
         return new DatabaseConnectionRequest<>(request);
     }
 
@@ -514,7 +658,7 @@ public class AuthenticationAPIClient {
      * @return a request to start
      */
     public Request<Void> unlink(String userId, String accessToken) {
-        HttpUrl url = HttpUrl.parse(auth0.getDomainUrl()).newBuilder()
+        HttpUrl url = baseUrl.newBuilder()
                 .addPathSegment(UNLINK_PATH)
                 .build();
 
@@ -524,7 +668,7 @@ public class AuthenticationAPIClient {
                 .set(USER_ID_KEY, userId)
                 .asDictionary();
 
-        return factory.POST(url, client, mapper)
+        return factory.POST(url, transport, mapper)
                 .addParameters(parameters);
     }
 
@@ -604,7 +748,7 @@ public class AuthenticationAPIClient {
      * @return a request to configure and start
      */
     public ParameterizableRequest<Map<String, Object>> delegation() {
-        HttpUrl url = HttpUrl.parse(auth0.getDomainUrl()).newBuilder()
+        HttpUrl url = baseUrl.newBuilder()
                 .addPathSegment(DELEGATION_PATH)
                 .build();
 
@@ -612,12 +756,12 @@ public class AuthenticationAPIClient {
                 .setClientId(getClientId())
                 .setGrantType(ParameterBuilder.GRANT_TYPE_JWT)
                 .asDictionary();
-        return factory.rawPOST(url, client, mapper)
+        return factory.rawPOST(url, transport, mapper)
                 .addParameters(parameters);
     }
 
     protected <T> ParameterizableRequest<T> delegation(Class<T> clazz) {
-        HttpUrl url = HttpUrl.parse(auth0.getDomainUrl()).newBuilder()
+        HttpUrl url = baseUrl.newBuilder()
                 .addPathSegment(DELEGATION_PATH)
                 .build();
 
@@ -626,17 +770,18 @@ public class AuthenticationAPIClient {
                 .setGrantType(ParameterBuilder.GRANT_TYPE_JWT)
                 .asDictionary();
 
-        return factory.POST(url, client, mapper, clazz)
+        return factory.POST(url, transport, mapper, clazz)
                 .addParameters(parameters);
     }
 
     /**
-     * Start a custom passwordless flow
+     * Start a custom passwordless flow. Like the other passwordless requests, it has {@link Priority#BACKGROUND} priority,
+     * since it only sends an email or SMS.
      *
      * @return a request to configure and start
      */
     public ParameterizableRequest<Void> passwordless() {
-        HttpUrl url = HttpUrl.parse(auth0.getDomainUrl()).newBuilder()
+        HttpUrl url = baseUrl.newBuilder()
                 .addPathSegment(PASSWORDLESS_PATH)
                 .addPathSegment(START_PATH)
                 .build();
@@ -644,8 +789,9 @@ public class AuthenticationAPIClient {
         final Map<String, Object> parameters = ParameterBuilder.newBuilder()
                 .setClientId(getClientId())
                 .asDictionary();
-        return factory.POST(url, client, mapper)
-                .addParameters(parameters);
+        return factory.POST(url, transport, mapper)
+                .addParameters(parameters)
+                .setPriority(Priority.BACKGROUND);
     }
 
     /**
@@ -657,11 +803,11 @@ public class AuthenticationAPIClient {
      */
     public ProfileRequest getProfileAfter(AuthenticationRequest authenticationRequest) {
         final ParameterizableRequest<UserProfile> profileRequest = profileRequest();
-        return new ProfileRequest(authenticationRequest, profileRequest);
+        return new ProfileRequest(authenticationRequest, profileRequest, profileCache);
     }
 
     private AuthenticationRequest loginWithResourceOwner(Map<String, Object> parameters) {
-        HttpUrl url = HttpUrl.parse(auth0.getDomainUrl()).newBuilder()
+        HttpUrl url = baseUrl.newBuilder()
                 .addPathSegment(OAUTH_PATH)
                 .addPathSegment(RESOURCE_OWNER_PATH)
                 .build();
@@ -671,16 +817,16 @@ public class AuthenticationAPIClient {
                 .setConnection(defaultDatabaseConnection)
                 .addAll(parameters)
                 .asDictionary();
-        return factory.authenticationPOST(url, client, mapper)
+        return factory.authenticationPOST(url, transport, mapper)
                 .addAuthenticationParameters(requestParameters);
     }
 
     private ParameterizableRequest<UserProfile> profileRequest() {
-        HttpUrl url = HttpUrl.parse(auth0.getDomainUrl()).newBuilder()
+        HttpUrl url = baseUrl.newBuilder()
                 .addPathSegment(TOKEN_INFO_PATH)
                 .build();
 
-        return factory.POST(url, client, mapper, UserProfile.class);
+        return factory.POST(url, transport, mapper, UserProfile.class);
     }
 
     /**
@@ -700,12 +846,12 @@ public class AuthenticationAPIClient {
                 .set(REDIRECT_URI_KEY, redirectUri)
                 .asDictionary();
 
-        HttpUrl url = HttpUrl.parse(auth0.getDomainUrl()).newBuilder()
+        HttpUrl url = baseUrl.newBuilder()
                 .addPathSegment(OAUTH_PATH)
                 .addPathSegment(TOKEN_PATH)
                 .build();
 
-        return factory.authenticationPOST(url, client, mapper)
+        return factory.authenticationPOST(url, transport, mapper)
                 .addAuthenticationParameters(parameters);
     }
 }
@@ -0,0 +1,108 @@
+/*
+ * CachedProfileRequest.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.authentication;
+
+import com.auth0.Auth0Exception;
+import com.auth0.authentication.cache.ProfileCache;
+import com.auth0.authentication.cache.TokenExpiration;
+import com.auth0.authentication.result.UserProfile;
+import com.auth0.callback.BaseCallback;
+import com.auth0.request.ParameterizableRequest;
+import com.auth0.request.Request;
+import com.auth0.request.internal.CacheableRequest;
+
+/**
+ * Request that fetches a user's profile from a {@link ProfileCache} and only calls Auth0 '/tokeninfo' endpoint on a miss.
+ * Expired tokens, or tokens without an 'exp' claim, skip the cache so Auth0 always validates them. Profiles found in
+ * the cache complete the '/tokeninfo' request without sending it, so they are reported and delivered like fetched ones.
+ */
+class CachedProfileRequest implements Request<UserProfile> {
+
+    private final ProfileCache cache;
+    private final String idToken;
+    private final ParameterizableRequest<UserProfile> tokenInfoRequest;
+
+    CachedProfileRequest(ProfileCache cache, String idToken, ParameterizableRequest<UserProfile> tokenInfoRequest) {
+        this.cache = cache;
+        this.idToken = idToken;
+        this.tokenInfoRequest = tokenInfoRequest;
+    }
+
+    @Override
+    public void start(final BaseCallback<UserProfile> callback) {
+        final boolean cacheable = isCacheable();
+        final UserProfile cached = cacheable ? cache.get(idToken) : null;
+        tokenInfoRequest.addParameter(ParameterBuilder.ID_TOKEN_KEY, idToken);
+        if (cached != null) {
+            if (tokenInfoRequest instanceof CacheableRequest) {
+                ((CacheableRequest<UserProfile>) tokenInfoRequest).startCached(cached, callback);
+            } else {
+                callback.onSuccess(cached);
+            }
+            return;
+        }
+        tokenInfoRequest.start(new BaseCallback<UserProfile>() {
+            @Override
+            public void onSuccess(UserProfile profile) {
+                if (cacheable) {
+                    cache.put(idToken, profile);
+                }
+                callback.onSuccess(profile);
+            }
+
+            @Override
+            public void onFailure(Auth0Exception error) {
+                callback.onFailure(error);
+            }
+        });
+    }
+
+    @Override
+    public UserProfile execute() throws Auth0Exception {
+        final boolean cacheable = isCacheable();
+        final UserProfile cached = cacheable ? cache.get(idToken) : null;
+        tokenInfoRequest.addParameter(ParameterBuilder.ID_TOKEN_KEY, idToken);
+        if (cached != null) {
+            if (tokenInfoRequest instanceof CacheableRequest) {
+                return ((CacheableRequest<UserProfile>) tokenInfoRequest).executeCached(cached);
+            }
+            return cached;
+        }
+        final UserProfile profile = tokenInfoRequest.execute();
+        if (cacheable) {
+            cache.put(idToken, profile);
+        }
+        return profile;
+    }
+
+    private boolean isCacheable() {
+        return TokenExpiration.expiresAtMillis(idToken) > System.currentTimeMillis();
+    }
+
+    @Override
+    public void cancel() {
+        tokenInfoRequest.cancel();
+    }
+}
@@ -3,8 +3,10 @@ package com.auth0.authentication;
 import com.auth0.Auth0Exception;
 import com.auth0.callback.BaseCallback;
 import com.auth0.request.ParameterizableRequest;
+import com.auth0.request.Priority;
 
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * Request to perform a non-authentication related action
@@ -50,6 +52,26 @@ public class DatabaseConnectionRequest<T> {
         return this;
     }
 
+    /**
+     * Set the priority of the request when it has to wait to be sent
+     * @param priority of the request
+     * @return itself
+     */
+    public DatabaseConnectionRequest<T> setPriority(Priority priority) {
+        request.setPriority(priority);
+        return this;
+    }
+
+    /**
+     * Set the executor that runs the callback of the request
+     * @param executor of the callback
+     * @return itself
+     */
+    public DatabaseConnectionRequest<T> setCallbackExecutor(Executor executor) {
+        request.setCallbackExecutor(executor);
+        return this;
+    }
+
     /**
      * Set the Auth0 Database Connection used for this request using its name.
      * @param connection name
@@ -68,6 +90,13 @@ public class DatabaseConnectionRequest<T> {
         request.start(callback);
     }
 
+    /**
+     * Cancels the request, see {@link com.auth0.request.Request#cancel()}
+     */
+    public void cancel() {
+        request.cancel();
+    }
+
     /**
      * Executes the request synchronously
      * @return the request result
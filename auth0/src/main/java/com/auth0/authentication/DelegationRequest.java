@@ -117,4 +117,9 @@ public class DelegationRequest<T> implements Request<T> {
     public T execute() throws Auth0Exception {
         return request.execute();
     }
+
+    @Override
+    public void cancel() {
+        request.cancel();
+    }
 }
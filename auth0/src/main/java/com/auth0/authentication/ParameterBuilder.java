@@ -26,9 +26,12 @@ package com.auth0.authentication;
 
 import com.auth0.util.CheckHelper;
 
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Builder for Auth0 Authentication API parameters
@@ -64,11 +67,27 @@ public class ParameterBuilder {
     public static final String GRANT_TYPE_KEY = "grant_type";
     public static final String DEVICE_KEY = "device";
 
-    private Map<String, Object> parameters;
+    public static final String REDACTED = "<redacted>";
+
+    private static final int DEFAULT_CAPACITY = 8;
+    // parameters that hold credentials and must never be logged
+    private static final Set<String> SECRET_KEYS = new HashSet<>(Arrays.asList(
+            "password", ID_TOKEN_KEY, REFRESH_TOKEN_KEY, ACCESS_TOKEN_KEY, "code", "code_verifier", "client_secret", "id_token_hint"));
+
+    private String[] keys;
+    private Object[] values;
+    private int size;
+    /**
+     * Whether the arrays are shared with a {@link ParameterMap}, and must be copied before being modified
+     */
+    private boolean shared;
 
     private ParameterBuilder(Map<String, Object> parameters) {
         CheckHelper.checkArgument(parameters != null, "Must provide non-null parameters");
-        this.parameters = new HashMap<>(parameters);
+        final int capacity = Math.max(DEFAULT_CAPACITY, parameters.size());
+        this.keys = new String[capacity];
+        this.values = new Object[capacity];
+        addAll(parameters);
     }
 
     /**
@@ -149,7 +168,16 @@ public class ParameterBuilder {
      * @return itself
      */
     public ParameterBuilder set(String key, Object value) {
-        this.parameters.put(key, value);
+        final int index = ParameterMap.indexOf(keys, size, key);
+        if (index >= 0) {
+            ensureCapacity(size);
+            values[index] = value;
+            return this;
+        }
+        ensureCapacity(size + 1);
+        keys[size] = key;
+        values[size] = value;
+        size++;
         return this;
     }
 
@@ -160,8 +188,26 @@ public class ParameterBuilder {
      * @return itself
      */
     public ParameterBuilder addAll(Map<String, Object> parameters) {
-        if (parameters != null) {
-            this.parameters.putAll(parameters);
+        if (parameters == null) {
+            return this;
+        }
+        if (parameters instanceof ParameterMap) {
+            final ParameterMap map = (ParameterMap) parameters;
+            if (size == 0) {
+                //The map is immutable, so its arrays can be adopted until this builder changes
+                keys = map.keys;
+                values = map.values;
+                size = map.size;
+                shared = true;
+                return this;
+            }
+            for (int i = 0; i < map.size; i++) {
+                set(map.keys[i], map.values[i]);
+            }
+            return this;
+        }
+        for (Map.Entry<String, Object> entry : parameters.entrySet()) {
+            set(entry.getKey(), entry.getValue());
         }
         return this;
     }
@@ -172,17 +218,53 @@ public class ParameterBuilder {
      * @return itself
      */
     public ParameterBuilder clearAll() {
-        parameters.clear();
+        if (shared) {
+            keys = new String[DEFAULT_CAPACITY];
+            values = new Object[DEFAULT_CAPACITY];
+            shared = false;
+        } else {
+            Arrays.fill(keys, 0, size, null);
+            Arrays.fill(values, 0, size, null);
+        }
+        size = 0;
         return this;
     }
 
     /**
-     * Create a {@link Map} with all the parameters
+     * Create a {@link Map} with all the parameters.
+     * The map is immutable and it's not affected by later changes to this builder.
      *
      * @return all parameters added previously as a {@link Map}
      */
     public Map<String, Object> asDictionary() {
-        return Collections.unmodifiableMap(new HashMap<>(this.parameters));
+        shared = true;
+        return new ParameterMap(keys, values, size);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (!shared && capacity <= keys.length) {
+            return;
+        }
+        final int length = capacity <= keys.length ? keys.length : Math.max(capacity, keys.length * 2);
+        keys = Arrays.copyOf(keys, length);
+        values = Arrays.copyOf(values, length);
+        shared = false;
+    }
+
+    /**
+     * Copies parameters replacing the values of the ones that hold credentials, like passwords and tokens, with
+     * {@link #REDACTED}, so they can be logged.
+     *
+     * @param parameters to copy
+     * @return a new map with the same parameters in the same order
+     */
+    public static Map<String, Object> redact(Map<String, Object> parameters) {
+        final Map<String, Object> redacted = new LinkedHashMap<>(parameters.size() * 2);
+        for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+            final boolean secret = SECRET_KEYS.contains(parameter.getKey()) && parameter.getValue() != null;
+            redacted.put(parameter.getKey(), secret ? REDACTED : parameter.getValue());
+        }
+        return redacted;
     }
 
     /**
@@ -202,7 +284,7 @@ public class ParameterBuilder {
      * @return a new builder
      */
     public static ParameterBuilder newBuilder() {
-        return newBuilder(new HashMap<String, Object>());
+        return newBuilder(Collections.<String, Object>emptyMap());
     }
 
     /**
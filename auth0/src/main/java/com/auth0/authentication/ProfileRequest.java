@@ -25,6 +25,8 @@
 package com.auth0.authentication;
 
 import com.auth0.Auth0Exception;
+import com.auth0.RequestCanceledException;
+import com.auth0.authentication.cache.ProfileCache;
 import com.auth0.authentication.result.Authentication;
 import com.auth0.authentication.result.Credentials;
 import com.auth0.authentication.result.UserProfile;
@@ -44,10 +46,17 @@ public class ProfileRequest implements Request<Authentication> {
 
     private final AuthenticationRequest credentialsRequest;
     private final ParameterizableRequest<UserProfile> tokenInfoRequest;
+    private final ProfileCache profileCache;
+    private volatile boolean canceled;
 
     ProfileRequest(AuthenticationRequest credentialsRequest, ParameterizableRequest<UserProfile> tokenInfoRequest) {
+        this(credentialsRequest, tokenInfoRequest, null);
+    }
+
+    ProfileRequest(AuthenticationRequest credentialsRequest, ParameterizableRequest<UserProfile> tokenInfoRequest, ProfileCache profileCache) {
         this.credentialsRequest = credentialsRequest;
         this.tokenInfoRequest = tokenInfoRequest;
+        this.profileCache = profileCache;
     }
 
     /**
@@ -93,8 +102,11 @@ public class ProfileRequest implements Request<Authentication> {
         credentialsRequest.start(new BaseCallback<Credentials>() {
             @Override
             public void onSuccess(final Credentials credentials) {
-                tokenInfoRequest
-                        .addParameter(ID_TOKEN_KEY, credentials.getIdToken())
+                if (canceled) {
+                    callback.onFailure(canceledBeforeProfile());
+                    return;
+                }
+                profileRequest(credentials.getIdToken())
                         .start(new BaseCallback<UserProfile>() {
                             @Override
                             public void onSuccess(UserProfile profile) {
@@ -124,9 +136,34 @@ public class ProfileRequest implements Request<Authentication> {
     @Override
     public Authentication execute() throws Auth0Exception {
         Credentials credentials = credentialsRequest.execute();
-        UserProfile profile = tokenInfoRequest
-                .addParameter(ID_TOKEN_KEY, credentials.getIdToken())
+        if (canceled) {
+            throw canceledBeforeProfile();
+        }
+        UserProfile profile = profileRequest(credentials.getIdToken())
                 .execute();
         return new Authentication(profile, credentials);
     }
+
+    /**
+     * Cancels the log in request, or the profile request if the user was already logged in. The profile is not fetched
+     * after the log in request is cancelled.
+     */
+    @Override
+    public void cancel() {
+        canceled = true;
+        credentialsRequest.cancel();
+        tokenInfoRequest.cancel();
+    }
+
+    private static RequestCanceledException canceledBeforeProfile() {
+        return new RequestCanceledException("Request was canceled before fetching the profile");
+    }
+
+    private Request<UserProfile> profileRequest(String idToken) {
+        if (profileCache != null) {
+            return new CachedProfileRequest(profileCache, idToken, tokenInfoRequest);
+        }
+        return tokenInfoRequest
+                .addParameter(ID_TOKEN_KEY, idToken);
+    }
 }
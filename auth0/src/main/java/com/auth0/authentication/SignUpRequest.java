@@ -25,6 +25,7 @@
 package com.auth0.authentication;
 
 import com.auth0.Auth0Exception;
+import com.auth0.RequestCanceledException;
 import com.auth0.authentication.result.Credentials;
 import com.auth0.authentication.result.DatabaseUser;
 import com.auth0.callback.BaseCallback;
@@ -40,6 +41,7 @@ public class SignUpRequest implements Request<Credentials>, AuthenticationReques
 
     private final DatabaseConnectionRequest<DatabaseUser> signUpRequest;
     private final AuthenticationRequest authenticationRequest;
+    private volatile boolean canceled;
 
     SignUpRequest(DatabaseConnectionRequest<DatabaseUser> signUpRequest, AuthenticationRequest authenticationRequest) {
         this.signUpRequest = signUpRequest;
@@ -115,6 +117,10 @@ public class SignUpRequest implements Request<Credentials>, AuthenticationReques
         signUpRequest.start(new BaseCallback<DatabaseUser>() {
             @Override
             public void onSuccess(final DatabaseUser user) {
+                if (canceled) {
+                    callback.onFailure(canceledBeforeLogin());
+                    return;
+                }
                 authenticationRequest.start(callback);
             }
 
@@ -133,6 +139,24 @@ public class SignUpRequest implements Request<Credentials>, AuthenticationReques
     @Override
     public Credentials execute() throws Auth0Exception {
         signUpRequest.execute();
+        if (canceled) {
+            throw canceledBeforeLogin();
+        }
         return authenticationRequest.execute();
     }
+
+    /**
+     * Cancels the sign up request, or the log in request if the user was already created. The user is not logged in
+     * after the sign up request is cancelled.
+     */
+    @Override
+    public void cancel() {
+        canceled = true;
+        signUpRequest.cancel();
+        authenticationRequest.cancel();
+    }
+
+    private static RequestCanceledException canceledBeforeLogin() {
+        return new RequestCanceledException("Request was canceled before logging in the new user");
+    }
 }
@@ -0,0 +1,225 @@
+/*
+ * TenantRegistry.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.authentication;
+
+import com.auth0.Auth0;
+import com.auth0.metrics.MetricsRegistry;
+import com.auth0.request.internal.BulkheadTransport;
+import com.auth0.request.internal.ClientResources;
+import com.auth0.request.internal.FairQueueTransport;
+import com.auth0.request.transport.Bulkhead;
+import com.auth0.request.transport.Transport;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.auth0.util.CheckHelper.checkArgument;
+
+/**
+ * Keeps an {@link AuthenticationAPIClient} for each Auth0 tenant used by a multi-tenant process, created on demand.
+ * All the clients share the same HTTP client, JSON mapper and {@link MetricsRegistry}, and each one sends its requests
+ * through its own {@link Bulkhead}, so a tenant with many slow requests can't take all the shared connections.
+ * Tenants not used for a while, or the least recently used ones once the registry is full, are evicted.
+ * Eviction runs when a client is requested with {@link #get(String, String, String)}, there is no background thread,
+ * so idle tenants of a registry that is no longer used stay in memory until it's closed.
+ * <pre><code>
+ * TenantRegistry tenants = new TenantRegistry(1000, 30, TimeUnit.MINUTES);
+ * tenants.setMetricsRegistry(metrics);
+ * tenants.enableFairQueuing(64);
+ * tenants.get("{client id}", "{domain}")
+ *      .login("{username or email}", "{password}")
+ *      .start(callback);
+ * </code></pre>
+ */
+public class TenantRegistry implements Closeable {
+
+    private static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 8;
+
+    private final int maxTenants;
+    private final long idleTimeoutNanos;
+    private final ClientResources resources;
+    private final LinkedHashMap<String, Tenant> tenants = new LinkedHashMap<>(16, 0.75f, true);
+    private Transport transport;
+    private int maxConcurrentRequests = DEFAULT_MAX_CONCURRENT_REQUESTS;
+    private MetricsRegistry metrics;
+    private long evictionCount;
+    private boolean closed;
+
+    /**
+     * @param maxTenants  number of tenants kept, the least recently used one is evicted when one more is needed.
+     *                    Must be greater than 0
+     * @param idleTimeout time after which a tenant not used is evicted, checked on the next call to
+     *                    {@link #get(String, String, String)}
+     * @param unit        of the idle timeout
+     */
+    public TenantRegistry(int maxTenants, long idleTimeout, TimeUnit unit) {
+        checkArgument(maxTenants > 0, "maxTenants must be greater than 0");
+        this.maxTenants = maxTenants;
+        this.idleTimeoutNanos = unit.toNanos(idleTimeout);
+        this.resources = ClientResources.acquire();
+        this.transport = resources.getTransport();
+    }
+
+    /**
+     * Limits the requests in flight of all the tenants added afterwards, sharing them fairly between the tenants
+     * when they have to wait. See {@link FairQueueTransport}.
+     *
+     * @param maxConcurrentRequests of all the tenants
+     * @return the fair queue, to set the weight of the tenants
+     */
+    public synchronized FairQueueTransport enableFairQueuing(int maxConcurrentRequests) {
+        final FairQueueTransport fairQueue = new FairQueueTransport(resources.getTransport(), maxConcurrentRequests);
+        this.transport = fairQueue;
+        return fairQueue;
+    }
+
+    /**
+     * Set the maximum number of requests of a single tenant in flight at the same time. It applies to the tenants
+     * added afterwards. By default is 8.
+     *
+     * @param maxConcurrentRequests of each tenant
+     */
+    public synchronized void setMaxConcurrentRequestsPerTenant(int maxConcurrentRequests) {
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    /**
+     * Set the registry where the clients of the tenants added afterwards record their requests
+     *
+     * @param metrics shared by all the tenants, which are recorded separately by host up to
+     *                {@link MetricsRegistry#setMaxHosts(int)}, or null to not record them
+     */
+    public synchronized void setMetricsRegistry(MetricsRegistry metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * @param clientId of the Auth0 application
+     * @param domain   of the Auth0 tenant
+     * @return the client of the tenant, created if it was not in the registry
+     * @see #get(String, String, String)
+     */
+    public AuthenticationAPIClient get(String clientId, String domain) {
+        return get(clientId, null, domain);
+    }
+
+    /**
+     * Returns the client of a tenant, creating it if it was not in the registry.
+     * Tenants are identified by their domain and client id, the client secret is only used when the client is created.
+     *
+     * @param clientId     of the Auth0 application
+     * @param clientSecret of the Auth0 application, it can be null
+     * @param domain       of the Auth0 tenant
+     * @return the client of the tenant
+     */
+    public synchronized AuthenticationAPIClient get(String clientId, String clientSecret, String domain) {
+        if (closed) {
+            throw new IllegalStateException("The registry is closed");
+        }
+        final long now = System.nanoTime();
+        evictIdle(now);
+        final String key = key(clientId, domain);
+        Tenant tenant = tenants.get(key);
+        if (tenant == null) {
+            tenant = new Tenant(new Auth0(clientId, clientSecret, domain), domain, maxConcurrentRequests);
+            tenants.put(key, tenant);
+            if (tenants.size() > maxTenants) {
+                final Iterator<Tenant> eldest = tenants.values().iterator();
+                eldest.next();
+                eldest.remove();
+                evictionCount++;
+            }
+        }
+        tenant.lastUsedNanos = now;
+        return tenant.client;
+    }
+
+    /**
+     * @param clientId of the Auth0 application
+     * @param domain   of the Auth0 tenant
+     * @return the bulkhead of the tenant requests, or null if the tenant is not in the registry
+     */
+    public synchronized Bulkhead getBulkhead(String clientId, String domain) {
+        final Tenant tenant = tenants.get(key(clientId, domain));
+        return tenant == null ? null : tenant.bulkhead;
+    }
+
+    /**
+     * @return the number of tenants in the registry
+     */
+    public synchronized int size() {
+        return tenants.size();
+    }
+
+    /**
+     * @return the number of tenants evicted because they were idle or the registry was full
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Removes all the tenants and releases the shared HTTP client. Requests can't be started afterwards
+     * with the clients returned by the registry.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            tenants.clear();
+        }
+        resources.release();
+    }
+
+    synchronized void evictIdle(long nanoTime) {
+        // tenants are iterated from the least recently used, so the first one still in use ends the scan
+        final Iterator<Tenant> iterator = tenants.values().iterator();
+        while (iterator.hasNext() && nanoTime - iterator.next().lastUsedNanos >= idleTimeoutNanos) {
+            iterator.remove();
+            evictionCount++;
+        }
+    }
+
+    private static String key(String clientId, String domain) {
+        return domain + ' ' + clientId;
+    }
+
+    private class Tenant {
+        final Bulkhead bulkhead;
+        final AuthenticationAPIClient client;
+        long lastUsedNanos;
+
+        Tenant(Auth0 auth0, String domain, int maxConcurrentRequests) {
+            this.bulkhead = new Bulkhead(domain, maxConcurrentRequests);
+            this.client = new AuthenticationAPIClient(auth0, new BulkheadTransport(transport, bulkhead));
+            client.setMetricsRegistry(metrics);
+        }
+    }
+}
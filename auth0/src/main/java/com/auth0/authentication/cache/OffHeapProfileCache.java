@@ -0,0 +1,567 @@
+/*
+ * OffHeapProfileCache.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.authentication.cache;
+
+import com.auth0.authentication.result.UserProfile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import static com.auth0.util.CheckHelper.checkArgument;
+
+/**
+ * {@link ProfileCache} that keeps the profiles outside of the Java heap, so holding millions of them
+ * doesn't increase GC pause times.
+ * <p/>
+ * Profiles are stored using a compact binary encoding in fixed size slots of direct {@link ByteBuffer} slabs.
+ * Profiles are keyed by the SHA-256 digest of their token, so tokens are never kept.
+ * The only on-heap structures are primitive arrays: an open-addressing index keyed by the hash of the digest,
+ * and the bookkeeping used by the clock (second chance) eviction algorithm.
+ * <pre><code>
+ * ProfileCache cache = new OffHeapProfileCache(1000000, 2048, TimeUnit.MINUTES.toMillis(10));
+ * client.setProfileCache(cache);
+ * </code></pre>
+ * Profiles that don't fit in a slot once encoded are not cached. A profile is kept until the 'exp' claim of its token
+ * at most, and tokens that are not JWTs with an 'exp' claim are not cached.
+ * <p/>
+ * The content of the cache can be saved to a file with {@link #snapshot(File)} and loaded back after a restart with
+ * {@link #restore(File)}, see {@link ProfileCacheSnapshotter} to do it periodically. The snapshot file is only readable
+ * by its owner on POSIX file systems, since the profiles include the access tokens of the identities.
+ */
+public class OffHeapProfileCache implements ProfileCache {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int MAX_SLAB_SIZE = 1 << 30;
+
+    private static final int KEY_LENGTH_OFFSET = 0;
+    private static final int VALUE_LENGTH_OFFSET = 4;
+    private static final int EXPIRES_AT_OFFSET = 8;
+    static final int SLOT_HEADER_SIZE = 16;
+
+    private static final int SNAPSHOT_MAGIC = 0x41304350;
+    private static final int SNAPSHOT_VERSION = 2;
+    private static final Set<PosixFilePermission> SNAPSHOT_PERMISSIONS = PosixFilePermissions.fromString("rw-------");
+    private static final int SNAPSHOT_HEADER_SIZE = 28;
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = new ThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+    };
+    private static final ThreadLocal<ProfileCodec> CODEC = new ThreadLocal<ProfileCodec>() {
+        @Override
+        protected ProfileCodec initialValue() {
+            return new ProfileCodec();
+        }
+    };
+
+    private final int capacity;
+    private final int slotSize;
+    private final int slotsPerSlab;
+    private final long ttlMillis;
+    private final ByteBuffer[] slabs;
+
+    private final int[] index;
+    private final int indexMask;
+    private final long[] slotHashes;
+    private final boolean[] used;
+    private final boolean[] referenced;
+    private final int[] freeSlots;
+    private int freeCount;
+    private int hand;
+    private int size;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long rejectedCount;
+
+    private volatile boolean compressExtraInfo;
+
+    /**
+     * Creates a new cache backed by direct buffers.
+     *
+     * @param maxEntries   maximum number of profiles to keep
+     * @param maxEntrySize size in bytes of each slot. Must fit the 32 bytes key and the encoded profile
+     * @param ttlMillis    time in milliseconds a profile is considered valid after it was stored, if its token
+     *                     doesn't expire before
+     */
+    public OffHeapProfileCache(int maxEntries, int maxEntrySize, long ttlMillis) {
+        checkArgument(maxEntries > 0, "maxEntries must be greater than 0");
+        checkArgument(maxEntrySize > SLOT_HEADER_SIZE, "maxEntrySize must be greater than " + SLOT_HEADER_SIZE);
+        checkArgument(ttlMillis > 0, "ttlMillis must be greater than 0");
+        this.capacity = maxEntries;
+        this.slotSize = maxEntrySize;
+        this.ttlMillis = ttlMillis;
+        this.slotsPerSlab = Math.max(1, MAX_SLAB_SIZE / maxEntrySize);
+        final int slabCount = (maxEntries + slotsPerSlab - 1) / slotsPerSlab;
+        this.slabs = new ByteBuffer[slabCount];
+        for (int i = 0; i < slabCount; i++) {
+            final int slots = Math.min(slotsPerSlab, maxEntries - i * slotsPerSlab);
+            slabs[i] = ByteBuffer.allocateDirect(slots * maxEntrySize);
+        }
+        int indexSize = Integer.highestOneBit(maxEntries) << 2;
+        this.index = new int[indexSize];
+        this.indexMask = indexSize - 1;
+        this.slotHashes = new long[maxEntries];
+        this.used = new boolean[maxEntries];
+        this.referenced = new boolean[maxEntries];
+        this.freeSlots = new int[maxEntries];
+        for (int i = 0; i < maxEntries; i++) {
+            freeSlots[i] = maxEntries - 1 - i;
+        }
+        this.freeCount = maxEntries;
+    }
+
+    /**
+     * Whether the extra info of the profiles should be compressed before storing them.
+     * It's disabled by default and it trades CPU time for a smaller encoded size.
+     *
+     * @param compressExtraInfo if the extra info should be compressed
+     */
+    public void setCompressExtraInfo(boolean compressExtraInfo) {
+        this.compressExtraInfo = compressExtraInfo;
+    }
+
+    @Override
+    public UserProfile get(String idToken) {
+        if (idToken == null) {
+            return null;
+        }
+        final byte[] key = keyOf(idToken);
+        final long hash = hash(key);
+        byte[] value;
+        synchronized (this) {
+            final int slot = find(hash, key);
+            if (slot < 0) {
+                missCount++;
+                return null;
+            }
+            if (isExpired(slot, System.currentTimeMillis())) {
+                release(slot);
+                missCount++;
+                return null;
+            }
+            referenced[slot] = true;
+            value = readValue(slot);
+            hitCount++;
+        }
+        try {
+            return CODEC.get().decode(value);
+        } catch (IOException | RuntimeException e) {
+            remove(idToken);
+            return null;
+        }
+    }
+
+    @Override
+    public void put(String idToken, UserProfile profile) {
+        if (idToken == null || profile == null) {
+            return;
+        }
+        // the profile is never kept after the token expires, and tokens without expiration are not cached at all
+        final long now = System.currentTimeMillis();
+        final long tokenExpiresAt = TokenExpiration.expiresAtMillis(idToken);
+        if (tokenExpiresAt <= now) {
+            return;
+        }
+        final byte[] key = keyOf(idToken);
+        byte[] value;
+        try {
+            value = CODEC.get().encode(profile, compressExtraInfo);
+        } catch (IOException e) {
+            return;
+        }
+        put(key, value, Math.min(now + ttlMillis, tokenExpiresAt));
+    }
+
+    @Override
+    public void remove(String idToken) {
+        if (idToken == null) {
+            return;
+        }
+        final byte[] key = keyOf(idToken);
+        final long hash = hash(key);
+        synchronized (this) {
+            final int slot = find(hash, key);
+            if (slot >= 0) {
+                release(slot);
+            }
+        }
+    }
+
+    /**
+     * Removes all the cached profiles
+     */
+    public synchronized void clear() {
+        for (int slot = 0; slot < capacity; slot++) {
+            if (used[slot]) {
+                release(slot);
+            }
+        }
+    }
+
+    /**
+     * @return the number of profiles currently stored, including the ones already expired but not yet evicted
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of lookups that found a valid profile
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return the number of lookups that didn't find a valid profile
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return the number of profiles evicted to make room for new ones
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * @return the number of profiles not cached because they didn't fit in a slot
+     */
+    public synchronized long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /**
+     * Writes all the profiles that are not expired to a file, replacing it if it already exists.
+     * The file is written using a memory mapped buffer and it's protected with a checksum. The cache is only locked
+     * while the profiles are copied to a direct buffer, which needs as much memory as the profiles being saved.
+     *
+     * @param file where the snapshot is saved
+     * @return the number of profiles saved
+     * @throws IOException if the snapshot could not be written
+     */
+    public int snapshot(File file) throws IOException {
+        // only the copy of the entries blocks the cache, the file is written and synced to the disk afterwards
+        final ByteBuffer entries;
+        int count = 0;
+        synchronized (this) {
+            final long now = System.currentTimeMillis();
+            long payloadSize = 0;
+            for (int slot = 0; slot < capacity; slot++) {
+                if (used[slot] && !isExpired(slot, now)) {
+                    payloadSize += entrySize(slot);
+                }
+            }
+            checkArgument(SNAPSHOT_HEADER_SIZE + payloadSize <= Integer.MAX_VALUE, "Snapshot is too big");
+            entries = ByteBuffer.allocateDirect((int) payloadSize);
+            for (int slot = 0; slot < capacity; slot++) {
+                if (used[slot] && !isExpired(slot, now)) {
+                    final ByteBuffer entry = slabOf(slot).duplicate();
+                    final int base = offsetOf(slot);
+                    entry.limit(base + entrySize(slot));
+                    entry.position(base);
+                    entries.put(entry);
+                    count++;
+                }
+            }
+        }
+        entries.flip();
+
+        final File temp = new File(file.getPath() + ".tmp");
+        createOwnerOnly(temp.toPath());
+        try (RandomAccessFile raf = new RandomAccessFile(temp, "rw"); FileChannel channel = raf.getChannel()) {
+            raf.setLength(0);
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, SNAPSHOT_HEADER_SIZE + entries.remaining());
+            final CRC32 crc = new CRC32();
+            crc.update(entries.duplicate());
+            buffer.putInt(0, SNAPSHOT_MAGIC);
+            buffer.putInt(4, SNAPSHOT_VERSION);
+            buffer.putInt(8, count);
+            buffer.putLong(12, entries.remaining());
+            buffer.putLong(20, crc.getValue());
+            buffer.position(SNAPSHOT_HEADER_SIZE);
+            buffer.put(entries);
+            buffer.force();
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count;
+    }
+
+    /**
+     * Loads the profiles saved with {@link #snapshot(File)}. Profiles that expired since the snapshot was taken are skipped.
+     *
+     * @param file where the snapshot was saved
+     * @return the number of profiles loaded
+     * @throws IOException if the snapshot could not be read or it's corrupted
+     */
+    public int restore(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            if (channel.size() < SNAPSHOT_HEADER_SIZE) {
+                throw new IOException("Invalid snapshot " + file + ": file is too small");
+            }
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != SNAPSHOT_MAGIC || buffer.getInt(4) != SNAPSHOT_VERSION) {
+                throw new IOException("Invalid snapshot " + file + ": unknown format");
+            }
+            final int count = buffer.getInt(8);
+            final long payloadSize = buffer.getLong(12);
+            if (payloadSize != channel.size() - SNAPSHOT_HEADER_SIZE) {
+                throw new IOException("Invalid snapshot " + file + ": expected " + payloadSize + " bytes of entries");
+            }
+            final CRC32 crc = new CRC32();
+            final ByteBuffer payload = buffer.duplicate();
+            payload.position(SNAPSHOT_HEADER_SIZE);
+            crc.update(payload);
+            if (crc.getValue() != buffer.getLong(20)) {
+                throw new IOException("Invalid snapshot " + file + ": checksum mismatch");
+            }
+
+            final long now = System.currentTimeMillis();
+            int restored = 0;
+            buffer.position(SNAPSHOT_HEADER_SIZE);
+            for (int i = 0; i < count; i++) {
+                final byte[] key = new byte[buffer.getInt()];
+                final byte[] value = new byte[buffer.getInt()];
+                final long expiresAt = buffer.getLong();
+                buffer.get(key);
+                buffer.get(value);
+                if (expiresAt > now && put(key, value, expiresAt)) {
+                    restored++;
+                }
+            }
+            return restored;
+        }
+    }
+
+    /**
+     * @param idToken used to fetch a profile
+     * @return the key of the profile: a SHA-256 digest of the token, so tokens are never stored in memory or snapshots
+     */
+    static byte[] keyOf(String idToken) {
+        return SHA_256.get().digest(idToken.getBytes(UTF_8));
+    }
+
+    private static void createOwnerOnly(Path path) throws IOException {
+        // the profiles include the access tokens of the identities, only the owner of the process may read them
+        Files.deleteIfExists(path);
+        if (path.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            Files.createFile(path, PosixFilePermissions.asFileAttribute(SNAPSHOT_PERMISSIONS));
+        } else {
+            Files.createFile(path);
+        }
+    }
+
+    boolean put(byte[] key, byte[] value, long expiresAt) {
+        if (SLOT_HEADER_SIZE + key.length + value.length > slotSize) {
+            synchronized (this) {
+                rejectedCount++;
+            }
+            return false;
+        }
+        final long hash = hash(key);
+        synchronized (this) {
+            int slot = find(hash, key);
+            if (slot < 0) {
+                slot = allocate();
+                slotHashes[slot] = hash;
+                used[slot] = true;
+                insert(slot, hash);
+                size++;
+            }
+            referenced[slot] = false;
+            write(slot, key, value, expiresAt);
+        }
+        return true;
+    }
+
+    private int find(long hash, byte[] key) {
+        int i = home(hash);
+        int entry;
+        while ((entry = index[i]) != 0) {
+            final int slot = entry - 1;
+            if (slotHashes[slot] == hash && keyEquals(slot, key)) {
+                return slot;
+            }
+            i = (i + 1) & indexMask;
+        }
+        return -1;
+    }
+
+    private void insert(int slot, long hash) {
+        int i = home(hash);
+        while (index[i] != 0) {
+            i = (i + 1) & indexMask;
+        }
+        index[i] = slot + 1;
+    }
+
+    private void unindex(int slot) {
+        int i = home(slotHashes[slot]);
+        while (index[i] != slot + 1) {
+            i = (i + 1) & indexMask;
+        }
+        //Backward shift deletion keeps probe sequences intact without tombstones
+        int j = i;
+        while (true) {
+            j = (j + 1) & indexMask;
+            final int entry = index[j];
+            if (entry == 0) {
+                break;
+            }
+            final int k = home(slotHashes[entry - 1]);
+            final boolean reachable = i <= j ? (i < k && k <= j) : (i < k || k <= j);
+            if (reachable) {
+                continue;
+            }
+            index[i] = entry;
+            i = j;
+        }
+        index[i] = 0;
+    }
+
+    private int allocate() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        final long now = System.currentTimeMillis();
+        while (true) {
+            final int slot = hand;
+            hand = (hand + 1) % capacity;
+            if (referenced[slot] && !isExpired(slot, now)) {
+                referenced[slot] = false;
+                continue;
+            }
+            evictionCount++;
+            unindex(slot);
+            size--;
+            return slot;
+        }
+    }
+
+    private void release(int slot) {
+        unindex(slot);
+        used[slot] = false;
+        referenced[slot] = false;
+        freeSlots[freeCount++] = slot;
+        size--;
+    }
+
+    private void write(int slot, byte[] key, byte[] value, long expiresAt) {
+        final ByteBuffer slab = slabOf(slot);
+        final int base = offsetOf(slot);
+        slab.putInt(base + KEY_LENGTH_OFFSET, key.length);
+        slab.putInt(base + VALUE_LENGTH_OFFSET, value.length);
+        slab.putLong(base + EXPIRES_AT_OFFSET, expiresAt);
+        slab.position(base + SLOT_HEADER_SIZE);
+        slab.put(key);
+        slab.put(value);
+    }
+
+    private byte[] readValue(int slot) {
+        final ByteBuffer slab = slabOf(slot);
+        final int base = offsetOf(slot);
+        final int keyLength = slab.getInt(base + KEY_LENGTH_OFFSET);
+        final byte[] value = new byte[slab.getInt(base + VALUE_LENGTH_OFFSET)];
+        slab.position(base + SLOT_HEADER_SIZE + keyLength);
+        slab.get(value);
+        return value;
+    }
+
+    private int entrySize(int slot) {
+        final ByteBuffer slab = slabOf(slot);
+        final int base = offsetOf(slot);
+        return SLOT_HEADER_SIZE + slab.getInt(base + KEY_LENGTH_OFFSET) + slab.getInt(base + VALUE_LENGTH_OFFSET);
+    }
+
+    private boolean keyEquals(int slot, byte[] key) {
+        final ByteBuffer slab = slabOf(slot);
+        final int base = offsetOf(slot);
+        if (slab.getInt(base + KEY_LENGTH_OFFSET) != key.length) {
+            return false;
+        }
+        final int start = base + SLOT_HEADER_SIZE;
+        for (int i = 0; i < key.length; i++) {
+            if (slab.get(start + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isExpired(int slot, long now) {
+        return slabOf(slot).getLong(offsetOf(slot) + EXPIRES_AT_OFFSET) <= now;
+    }
+
+    private ByteBuffer slabOf(int slot) {
+        return slabs[slot / slotsPerSlab];
+    }
+
+    private int offsetOf(int slot) {
+        return (slot % slotsPerSlab) * slotSize;
+    }
+
+    private int home(long hash) {
+        return (int) (hash ^ (hash >>> 32)) & indexMask;
+    }
+
+    static long hash(byte[] key) {
+        //FNV-1a followed by a murmur3 finalizer to spread the bits
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * ProfileCache.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.authentication.cache;
+
+import com.auth0.authentication.result.UserProfile;
+
+/**
+ * Cache of {@link UserProfile} obtained from Auth0 '/tokeninfo' endpoint, keyed by the 'id_token' used to fetch them.
+ *
+ * @see com.auth0.authentication.AuthenticationAPIClient#setProfileCache(ProfileCache)
+ */
+public interface ProfileCache {
+
+    /**
+     * Returns the profile cached for the given token
+     *
+     * @param idToken used to fetch the profile
+     * @return the cached profile or null if there is none or it expired
+     */
+    UserProfile get(String idToken);
+
+    /**
+     * Stores a profile for the given token
+     *
+     * @param idToken used to fetch the profile
+     * @param profile to cache
+     */
+    void put(String idToken, UserProfile profile);
+
+    /**
+     * Removes the profile cached for the given token, if any
+     *
+     * @param idToken used to fetch the profile
+     */
+    void remove(String idToken);
+}
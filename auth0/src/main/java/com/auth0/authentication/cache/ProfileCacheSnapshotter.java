@@ -0,0 +1,126 @@
+/*
+ * ProfileCacheSnapshotter.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.authentication.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Periodically saves the content of an {@link OffHeapProfileCache} to a file in a background thread,
+ * so a restarted process can restore it and avoid starting with a cold cache.
+ * <pre><code>
+ * OffHeapProfileCache cache = new OffHeapProfileCache(1000000, 2048, TimeUnit.MINUTES.toMillis(10));
+ * ProfileCacheSnapshotter snapshotter = new ProfileCacheSnapshotter(cache, new File("/var/cache/auth0/profiles"));
+ * snapshotter.restore();
+ * snapshotter.start(1, TimeUnit.MINUTES);
+ * </code></pre>
+ */
+public class ProfileCacheSnapshotter {
+
+    private static final Logger LOGGER = Logger.getLogger(ProfileCacheSnapshotter.class.getName());
+
+    private final OffHeapProfileCache cache;
+    private final File file;
+    private ScheduledExecutorService executor;
+
+    public ProfileCacheSnapshotter(OffHeapProfileCache cache, File file) {
+        this.cache = cache;
+        this.file = file;
+    }
+
+    /**
+     * Loads the last snapshot into the cache. A missing or invalid snapshot is ignored, since the cache can always
+     * be filled again from Auth0.
+     *
+     * @return the number of profiles loaded
+     */
+    public int restore() {
+        if (!file.exists()) {
+            return 0;
+        }
+        try {
+            return cache.restore(file);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to restore profile cache from " + file, e);
+            return 0;
+        }
+    }
+
+    /**
+     * Saves a snapshot of the cache right away in the calling thread
+     *
+     * @return the number of profiles saved
+     * @throws IOException if the snapshot could not be written
+     */
+    public int snapshot() throws IOException {
+        return cache.snapshot(file);
+    }
+
+    /**
+     * Starts saving snapshots periodically in a daemon thread
+     *
+     * @param period time between snapshots
+     * @param unit   of the period
+     */
+    public synchronized void start(long period, TimeUnit unit) {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                final Thread thread = new Thread(runnable, "auth0-profile-cache-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    snapshot();
+                } catch (IOException | RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Failed to save profile cache to " + file, e);
+                }
+            }
+        }, period, period, unit);
+    }
+
+    /**
+     * Stops saving snapshots periodically. It doesn't save a last snapshot, call {@link #snapshot()} for that.
+     */
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * ProfileCodec.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.authentication.cache;
+
+import com.auth0.authentication.result.UserIdentity;
+import com.auth0.authentication.result.UserProfile;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compact binary encoding of a {@link UserProfile}.
+ * The normalized attributes are stored as length prefixed UTF-8 strings, while identities and extra info
+ * are stored as JSON. The extra info blob can be optionally deflated since it's usually the biggest part of a profile.
+ * Instances are not thread safe.
+ */
+class ProfileCodec {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final ObjectWriter WRITER = MAPPER.writer();
+    private static final ObjectReader MAP_READER = MAPPER.reader(new TypeReference<Map<String, Object>>() {});
+    private static final ObjectReader LIST_READER = MAPPER.reader(new TypeReference<List<Map<String, Object>>>() {});
+
+    private static final int FLAG_CREATED_AT = 1;
+    private static final int FLAG_DEFLATED = 1 << 1;
+
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final Inflater inflater = new Inflater();
+    private final byte[] chunk = new byte[4096];
+
+    byte[] encode(UserProfile profile, boolean compress) throws IOException {
+        final byte[] extraInfo = WRITER.writeValueAsBytes(profile.getExtraInfo());
+        final byte[] deflated = compress ? deflate(extraInfo) : null;
+        final boolean useDeflated = deflated != null && deflated.length < extraInfo.length;
+
+        int flags = 0;
+        if (profile.getCreatedAt() != null) {
+            flags |= FLAG_CREATED_AT;
+        }
+        if (useDeflated) {
+            flags |= FLAG_DEFLATED;
+        }
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 + extraInfo.length);
+        final DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(flags);
+        writeString(out, profile.getId());
+        writeString(out, profile.getName());
+        writeString(out, profile.getNickname());
+        writeString(out, profile.getEmail());
+        writeString(out, profile.getPictureURL());
+        if (profile.getCreatedAt() != null) {
+            out.writeLong(profile.getCreatedAt().getTime());
+        }
+        writeBytes(out, WRITER.writeValueAsBytes(identitiesAsList(profile.getIdentities())));
+        if (useDeflated) {
+            out.writeInt(extraInfo.length);
+            writeBytes(out, deflated);
+        } else {
+            writeBytes(out, extraInfo);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    UserProfile decode(byte[] data) throws IOException {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        final int flags = in.readUnsignedByte();
+        final Map<String, Object> values = new HashMap<>();
+        values.put("user_id", readString(in));
+        values.put("name", readString(in));
+        values.put("nickname", readString(in));
+        values.put("email", readString(in));
+        values.put("picture", readString(in));
+        if ((flags & FLAG_CREATED_AT) != 0) {
+            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+            sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
+            values.put("created_at", sdf.format(in.readLong()));
+        }
+        final List<Map<String, Object>> identities = LIST_READER.readValue(readBytes(in));
+        byte[] extraInfo;
+        if ((flags & FLAG_DEFLATED) != 0) {
+            final int length = in.readInt();
+            extraInfo = inflate(readBytes(in), length);
+        } else {
+            extraInfo = readBytes(in);
+        }
+        final Map<String, Object> extra = MAP_READER.readValue(extraInfo);
+        values.putAll(extra);
+        values.put("identities", identities);
+        return new UserProfile(values);
+    }
+
+    private List<Map<String, Object>> identitiesAsList(List<UserIdentity> identities) {
+        if (identities == null) {
+            return new ArrayList<>();
+        }
+        final List<Map<String, Object>> values = new ArrayList<>(identities.size());
+        for (UserIdentity identity : identities) {
+            final Map<String, Object> value = new HashMap<>();
+            value.put("user_id", identity.getId());
+            value.put("connection", identity.getConnection());
+            value.put("provider", identity.getProvider());
+            value.put("isSocial", identity.isSocial());
+            value.put("access_token", identity.getAccessToken());
+            value.put("access_token_secret", identity.getAccessTokenSecret());
+            value.put("profileData", identity.getProfileInfo());
+            values.add(value);
+        }
+        return values;
+    }
+
+    private byte[] deflate(byte[] data) {
+        deflater.reset();
+        deflater.setInput(data);
+        deflater.finish();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 16);
+        while (!deflater.finished()) {
+            int count = deflater.deflate(chunk);
+            out.write(chunk, 0, count);
+        }
+        return out.toByteArray();
+    }
+
+    private byte[] inflate(byte[] data, int length) throws IOException {
+        inflater.reset();
+        inflater.setInput(data);
+        final byte[] out = new byte[length];
+        try {
+            int offset = 0;
+            while (offset < length && !inflater.finished()) {
+                int count = inflater.inflate(out, offset, length - offset);
+                if (count == 0 && inflater.needsInput()) {
+                    break;
+                }
+                offset += count;
+            }
+            if (offset != length) {
+                throw new IOException("Truncated extra info, expected " + length + " bytes but got " + offset);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Invalid compressed extra info", e);
+        }
+        return out;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        writeBytes(out, value.getBytes(UTF_8));
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] value = new byte[length];
+        in.readFully(value);
+        return new String(value, UTF_8);
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] value) throws IOException {
+        out.writeInt(value.length);
+        out.write(value);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Invalid length " + length);
+        }
+        final byte[] value = new byte[length];
+        in.readFully(value);
+        return value;
+    }
+}
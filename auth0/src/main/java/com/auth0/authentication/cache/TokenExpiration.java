@@ -0,0 +1,80 @@
+/*
+ * TokenExpiration.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.authentication.cache;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the 'exp' claim of an 'id_token', so a profile is never cached longer than the token it was fetched with
+ * is valid. The signature is not verified: the token was already validated by Auth0 when the profile was fetched,
+ * and the claim is only used to shorten the time the profile is cached.
+ */
+public final class TokenExpiration {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private TokenExpiration() {
+    }
+
+    /**
+     * @param idToken a JWT
+     * @return the time in milliseconds since the epoch when the token expires, or 0 if it's not a JWT or has no 'exp'
+     */
+    public static long expiresAtMillis(String idToken) {
+        if (idToken == null) {
+            return 0;
+        }
+        final int start = idToken.indexOf('.');
+        final int end = idToken.indexOf('.', start + 1);
+        if (start < 0 || end < 0) {
+            return 0;
+        }
+        try {
+            final byte[] payload = Base64.getUrlDecoder().decode(idToken.substring(start + 1, end));
+            try (JsonParser parser = JSON.createParser(payload)) {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    return 0;
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    final String name = parser.getCurrentName();
+                    final JsonToken value = parser.nextToken();
+                    if ("exp".equals(name)) {
+                        return value.isNumeric() ? TimeUnit.SECONDS.toMillis(parser.getLongValue()) : 0;
+                    }
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            return 0;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * CallbackExecutors.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.callback;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for the callbacks of requests. By default callbacks run in the thread that completed the request, which
+ * for async requests is an OkHttp dispatcher thread, so a slow callback delays every other request of the client.
+ * <pre><code>
+ * ExecutorService callbacks = CallbackExecutors.boundedPool("auth0-callbacks", 4, 1000);
+ * client.setCallbackExecutor(callbacks);
+ * </code></pre>
+ */
+public final class CallbackExecutors {
+
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private CallbackExecutors() {
+    }
+
+    /**
+     * @return the executor that runs callbacks in the thread that completed the request, the default one
+     */
+    public static Executor direct() {
+        return DIRECT;
+    }
+
+    /**
+     * Creates a pool of daemon threads with a bounded queue of callbacks. When the queue is full, or the pool was
+     * shut down, the callback runs in the thread that completed the request, so callbacks are never lost and a slow
+     * pool slows down new requests. The pool is owned by the caller, who should shut it down when it's no longer used.
+     *
+     * @param name      prefix of the names of the threads
+     * @param threads   number of threads of the pool
+     * @param queueSize maximum number of callbacks waiting for a thread
+     * @return the pool
+     */
+    public static ExecutorService boundedPool(final String name, int threads, int queueSize) {
+        final ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(queueSize), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                final Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        }, new RejectedExecutionHandler() {
+            @Override
+            public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+                // unlike CallerRunsPolicy it also runs callbacks rejected after shutdown, they must not be lost
+                runnable.run();
+            }
+        });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+}
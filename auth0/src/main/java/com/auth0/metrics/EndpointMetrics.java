@@ -0,0 +1,111 @@
+/*
+ * EndpointMetrics.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of the requests to a single endpoint of a tenant: requests in flight, and the count and latency of the finished ones
+ * by outcome. Requests call {@link #started()} and then {@link #finished(String, long)} exactly once.
+ */
+public final class EndpointMetrics {
+
+    private final String host;
+    private final String endpoint;
+    private final LongAdder inFlight = new LongAdder();
+    private final ConcurrentMap<String, LatencyHistogram> outcomes = new ConcurrentHashMap<>();
+    private volatile LatencyHistogram directCallbacks;
+
+    EndpointMetrics(String host, String endpoint) {
+        this.host = host;
+        this.endpoint = endpoint;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * A request to the endpoint was sent
+     */
+    public void started() {
+        inFlight.increment();
+    }
+
+    /**
+     * A request to the endpoint finished
+     *
+     * @param outcome of the request, see {@link MetricsRegistry#OUTCOME_SUCCESS} and the other outcomes
+     * @param nanos   since the request was started
+     */
+    public void finished(String outcome, long nanos) {
+        inFlight.decrement();
+        LatencyHistogram histogram = outcomes.get(outcome);
+        if (histogram == null) {
+            final LatencyHistogram created = new LatencyHistogram();
+            histogram = outcomes.putIfAbsent(outcome, created);
+            if (histogram == null) {
+                histogram = created;
+            }
+        }
+        histogram.record(nanos);
+    }
+
+    /**
+     * A callback of a request to the endpoint ran in the thread that completed the request, usually an I/O thread
+     *
+     * @param nanos spent in the callback
+     */
+    public void callbackFinished(long nanos) {
+        LatencyHistogram histogram = directCallbacks;
+        if (histogram == null) {
+            synchronized (this) {
+                histogram = directCallbacks;
+                if (histogram == null) {
+                    histogram = new LatencyHistogram();
+                    directCallbacks = histogram;
+                }
+            }
+        }
+        histogram.record(nanos);
+    }
+
+    EndpointSnapshot snapshot() {
+        final Map<String, HistogramSnapshot> latencies = new TreeMap<>();
+        for (Map.Entry<String, LatencyHistogram> outcome : outcomes.entrySet()) {
+            latencies.put(outcome.getKey(), outcome.getValue().snapshot());
+        }
+        final LatencyHistogram callbacks = directCallbacks;
+        return new EndpointSnapshot(host, endpoint, inFlight.sum(), latencies, callbacks != null ? callbacks.snapshot() : null);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * EndpointSnapshot.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable copy of the metrics of an endpoint of a tenant, or of all the tenants when returned by
+ * {@link MetricsSnapshot#getEndpoint(String)}
+ */
+public final class EndpointSnapshot {
+
+    private final String host;
+    private final String endpoint;
+    private final long inFlight;
+    private final Map<String, HistogramSnapshot> latencies;
+    private final HistogramSnapshot directCallbacks;
+
+    EndpointSnapshot(String host, String endpoint, long inFlight, Map<String, HistogramSnapshot> latencies, HistogramSnapshot directCallbacks) {
+        this.host = host;
+        this.endpoint = endpoint;
+        this.inFlight = inFlight;
+        this.latencies = Collections.unmodifiableMap(latencies);
+        this.directCallbacks = directCallbacks;
+    }
+
+    /**
+     * @return the host of the tenant the requests were sent to, e.g. 'samples.auth0.com', or null if the snapshot
+     * merges the requests to several tenants
+     */
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * @return the path of the endpoint, e.g. '/oauth/ro'
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return the number of requests sent that didn't finish yet
+     */
+    public long getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * @return the latency histograms of the finished requests by outcome, sorted by outcome
+     */
+    public Map<String, HistogramSnapshot> getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * @param outcome of the requests
+     * @return their latency histogram or null if no request finished with that outcome
+     */
+    public HistogramSnapshot getLatency(String outcome) {
+        return latencies.get(outcome);
+    }
+
+    /**
+     * @return the time spent by callbacks run in the thread that completed the request, instead of in a callback
+     * executor, or null if no callback ran that way
+     */
+    public HistogramSnapshot getDirectCallbackTime() {
+        return directCallbacks;
+    }
+
+    /**
+     * @return the number of finished requests
+     */
+    public long getRequestCount() {
+        long count = 0;
+        for (HistogramSnapshot histogram : latencies.values()) {
+            count += histogram.getCount();
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of finished requests that didn't succeed
+     */
+    public long getErrorCount() {
+        final HistogramSnapshot success = latencies.get(MetricsRegistry.OUTCOME_SUCCESS);
+        final HistogramSnapshot cached = latencies.get(MetricsRegistry.OUTCOME_CACHED);
+        return getRequestCount() - (success != null ? success.getCount() : 0) - (cached != null ? cached.getCount() : 0);
+    }
+
+    EndpointSnapshot merge(EndpointSnapshot other) {
+        final Map<String, HistogramSnapshot> merged = new TreeMap<>(latencies);
+        for (Map.Entry<String, HistogramSnapshot> outcome : other.latencies.entrySet()) {
+            final HistogramSnapshot histogram = merged.get(outcome.getKey());
+            merged.put(outcome.getKey(), histogram != null ? histogram.merge(outcome.getValue()) : outcome.getValue());
+        }
+        final HistogramSnapshot callbacks = directCallbacks == null ? other.directCallbacks
+                : other.directCallbacks == null ? directCallbacks : directCallbacks.merge(other.directCallbacks);
+        final String mergedHost = host != null && host.equals(other.host) ? host : null;
+        return new EndpointSnapshot(mergedHost, endpoint, inFlight + other.inFlight, merged, callbacks);
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * MetricsRegistry.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.metrics;
+
+import com.auth0.APIException;
+import com.auth0.Auth0Exception;
+import com.auth0.RequestCanceledException;
+import com.auth0.RequestRejectedException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.auth0.util.CheckHelper.checkArgument;
+
+/**
+ * Collects the metrics of the requests sent by one or more clients, by tenant host, endpoint path and outcome: request
+ * and error counts, requests in flight and latency histograms. Clients of different tenants can share a registry, their
+ * requests are recorded separately. Recording is lock-free and doesn't depend on any monitoring
+ * library, read the metrics with {@link #snapshot()} to export them.
+ * <pre><code>
+ * MetricsRegistry metrics = new MetricsRegistry();
+ * client.setMetricsRegistry(metrics);
+ * ...
+ * HistogramSnapshot logins = metrics.snapshot().getEndpoint("/oauth/ro").getLatency(MetricsRegistry.OUTCOME_SUCCESS);
+ * </code></pre>
+ * The outcome of a request is {@link #OUTCOME_SUCCESS}, the HTTP status code of an error response like '401',
+ * {@link #OUTCOME_IO_ERROR} when the response wasn't received, {@link #OUTCOME_REJECTED} when the request was not sent
+ * because too many were waiting, {@link #OUTCOME_CANCELED} when it was cancelled, or {@link #OUTCOME_ERROR} for any
+ * other failure. Requests whose result was found in a cache instead of being sent have the {@link #OUTCOME_CACHED}
+ * outcome.
+ * <p>
+ * Each tenant host adds its own series, so a registry shared by many tenants records at most
+ * {@link #DEFAULT_MAX_HOSTS} hosts separately and the requests to any other host under {@link #OTHER_HOST}. Change the
+ * limit with {@link #setMaxHosts(int)}, or set it to 0 to record the requests of all tenants together.
+ */
+public class MetricsRegistry {
+
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_IO_ERROR = "io_error";
+    public static final String OUTCOME_REJECTED = "rejected";
+    public static final String OUTCOME_CANCELED = "canceled";
+    public static final String OUTCOME_ERROR = "error";
+    public static final String OUTCOME_CACHED = "cached";
+
+    public static final String OTHER_HOST = "other";
+    public static final int DEFAULT_MAX_HOSTS = 100;
+
+    private final ConcurrentMap<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+    private final Set<String> hosts = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private volatile int maxHosts = DEFAULT_MAX_HOSTS;
+
+    /**
+     * Set how many tenant hosts are recorded separately, the requests to any other host are recorded under
+     * {@link #OTHER_HOST}. Hosts already recorded keep their own series. By default it's {@link #DEFAULT_MAX_HOSTS}.
+     *
+     * @param maxHosts recorded separately, or 0 to record the requests of all hosts together
+     */
+    public void setMaxHosts(int maxHosts) {
+        checkArgument(maxHosts >= 0, "maxHosts must not be negative");
+        this.maxHosts = maxHosts;
+    }
+
+    /**
+     * @param host     of the tenant, e.g. 'samples.auth0.com'
+     * @param endpoint path, e.g. '/oauth/ro'
+     * @return the metrics of the endpoint of the tenant, created on first use
+     */
+    public EndpointMetrics endpoint(String host, String endpoint) {
+        host = recordedHost(host);
+        final String key = key(host, endpoint);
+        EndpointMetrics metrics = endpoints.get(key);
+        if (metrics == null) {
+            final EndpointMetrics created = new EndpointMetrics(host, endpoint);
+            metrics = endpoints.putIfAbsent(key, created);
+            if (metrics == null) {
+                metrics = created;
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * @return a copy of the current metrics
+     */
+    public MetricsSnapshot snapshot() {
+        final Map<String, EndpointSnapshot> snapshots = new TreeMap<>();
+        for (EndpointMetrics metrics : endpoints.values()) {
+            snapshots.put(key(metrics.getHost(), metrics.getEndpoint()), metrics.snapshot());
+        }
+        return new MetricsSnapshot(System.currentTimeMillis(), snapshots);
+    }
+
+    private String recordedHost(String host) {
+        if (hosts.contains(host)) {
+            return host;
+        }
+        synchronized (hosts) {
+            if (hosts.contains(host)) {
+                return host;
+            }
+            if (hosts.size() >= maxHosts) {
+                return OTHER_HOST;
+            }
+            hosts.add(host);
+            return host;
+        }
+    }
+
+    static String key(String host, String endpoint) {
+        return host + ' ' + endpoint;
+    }
+
+    /**
+     * @param error that made a request fail
+     * @return the outcome to record for the request
+     */
+    public static String outcomeOf(Auth0Exception error) {
+        if (error instanceof APIException && ((APIException) error).getStatusCode() > 0) {
+            return String.valueOf(((APIException) error).getStatusCode());
+        }
+        if (error instanceof RequestRejectedException) {
+            return OUTCOME_REJECTED;
+        }
+        if (error instanceof RequestCanceledException) {
+            return OUTCOME_CANCELED;
+        }
+        final Throwable cause = error.getCause();
+        if (cause instanceof IOException && !(cause instanceof JsonProcessingException)) {
+            return OUTCOME_IO_ERROR;
+        }
+        return OUTCOME_ERROR;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * MetricsSnapshot.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Immutable copy of the metrics of a {@link MetricsRegistry}, to export them to a monitoring system
+ */
+public final class MetricsSnapshot {
+
+    private final long timestamp;
+    private final Map<String, EndpointSnapshot> endpoints;
+
+    MetricsSnapshot(long timestamp, Map<String, EndpointSnapshot> endpoints) {
+        this.timestamp = timestamp;
+        this.endpoints = Collections.unmodifiableMap(endpoints);
+    }
+
+    /**
+     * @return when the snapshot was taken, in milliseconds since the epoch
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return the metrics of each endpoint of each tenant, sorted by tenant host and then by path
+     */
+    public Map<String, EndpointSnapshot> getEndpoints() {
+        return endpoints;
+    }
+
+    /**
+     * @param host     of the tenant, e.g. 'samples.auth0.com'
+     * @param endpoint path, e.g. '/oauth/ro'
+     * @return its metrics, or null if no request was sent to it
+     */
+    public EndpointSnapshot getEndpoint(String host, String endpoint) {
+        return endpoints.get(MetricsRegistry.key(host, endpoint));
+    }
+
+    /**
+     * @param endpoint path, e.g. '/oauth/ro'
+     * @return its metrics merged across all the tenants, or null if no request was sent to it
+     */
+    public EndpointSnapshot getEndpoint(String endpoint) {
+        EndpointSnapshot merged = null;
+        for (EndpointSnapshot snapshot : endpoints.values()) {
+            if (snapshot.getEndpoint().equals(endpoint)) {
+                merged = merged == null ? snapshot : merged.merge(snapshot);
+            }
+        }
+        return merged;
+    }
+}
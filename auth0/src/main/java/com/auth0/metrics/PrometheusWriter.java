@@ -0,0 +1,347 @@
+/*
+ * PrometheusWriter.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.metrics;
+
+import com.auth0.authentication.cache.OffHeapProfileCache;
+import com.auth0.request.transport.Bulkhead;
+import com.squareup.okhttp.ConnectionPool;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renders the metrics of the SDK in the Prometheus text exposition format, without depending on any Prometheus
+ * library. It writes the request metrics of one or more {@link MetricsRegistry}, labeled with the tenant host, the
+ * statistics of {@link OffHeapProfileCache} instances, the connections of OkHttp {@link ConnectionPool}s and the
+ * saturation of {@link Bulkhead}s.
+ * <pre><code>
+ * PrometheusWriter prometheus = new PrometheusWriter()
+ *         .registerMetrics(metrics)
+ *         .registerProfileCache("samples.auth0.com", cache)
+ *         .registerConnectionPool("default", ConnectionPool.getDefault());
+ * // in the handler of the scrape endpoint
+ * prometheus.write(response.getWriter());
+ * </code></pre>
+ * A scrape only allocates the snapshots of the histograms, so it can run every few seconds on a busy node.
+ * Latency buckets are computed from the histograms of the registry, whose buckets don't align with the Prometheus ones,
+ * so a bucket may miss values that are up to 1/16 below its bound.
+ */
+public class PrometheusWriter {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final long[] BUCKET_MICROS = {5000, 10000, 25000, 50000, 100000, 250000, 500000, 1000000, 2500000, 5000000, 10000000};
+    private static final String[] BUCKET_LABELS = {"0.005", "0.01", "0.025", "0.05", "0.1", "0.25", "0.5", "1", "2.5", "5", "10"};
+    private static final double MICROS_PER_SECOND = 1000000d;
+
+    private final List<MetricsRegistry> registries = new ArrayList<>();
+    private final List<Source<OffHeapProfileCache>> caches = new ArrayList<>();
+    private final List<Source<ConnectionPool>> pools = new ArrayList<>();
+    private final List<Bulkhead> bulkheads = new ArrayList<>();
+    private final char[] digits = new char[20];
+
+    /**
+     * @param metrics of the requests, labeled with the host they were sent to so a registry can be shared by the
+     *                clients of several tenants
+     * @return this writer
+     */
+    public synchronized PrometheusWriter registerMetrics(MetricsRegistry metrics) {
+        registries.add(metrics);
+        return this;
+    }
+
+    /**
+     * @param tenant domain of the tenant whose profiles are cached
+     * @param cache  of the profiles
+     * @return this writer
+     */
+    public synchronized PrometheusWriter registerProfileCache(String tenant, OffHeapProfileCache cache) {
+        caches.add(new Source<>(tenant, cache));
+        return this;
+    }
+
+    /**
+     * @param name of the pool, used as the 'pool' label since a pool can be shared by several tenants
+     * @param pool of the OkHttp client used by the SDK
+     * @return this writer
+     */
+    public synchronized PrometheusWriter registerConnectionPool(String name, ConnectionPool pool) {
+        pools.add(new Source<>(name, pool));
+        return this;
+    }
+
+    /**
+     * @param bulkhead whose name is used as the 'bulkhead' label
+     * @return this writer
+     */
+    public synchronized PrometheusWriter registerBulkhead(Bulkhead bulkhead) {
+        bulkheads.add(bulkhead);
+        return this;
+    }
+
+    /**
+     * Writes the current value of all the registered metrics
+     *
+     * @param out where the metrics are written, it's not flushed nor closed
+     * @throws IOException if the metrics could not be written
+     */
+    public synchronized void write(Writer out) throws IOException {
+        if (!registries.isEmpty()) {
+            writeRequests(out);
+        }
+        if (!caches.isEmpty()) {
+            writeCaches(out);
+        }
+        if (!pools.isEmpty()) {
+            writePools(out);
+        }
+        if (!bulkheads.isEmpty()) {
+            writeBulkheads(out);
+        }
+    }
+
+    private void writeRequests(Writer out) throws IOException {
+        final List<MetricsSnapshot> snapshots = new ArrayList<>(registries.size());
+        for (MetricsRegistry registry : registries) {
+            snapshots.add(registry.snapshot());
+        }
+
+        header(out, "auth0_requests_in_flight", "gauge", "Requests sent that didn't finish yet");
+        for (MetricsSnapshot snapshot : snapshots) {
+            for (EndpointSnapshot endpoint : snapshot.getEndpoints().values()) {
+                out.write("auth0_requests_in_flight");
+                labels(out, endpoint.getHost(), endpoint.getEndpoint(), null, null);
+                value(out, endpoint.getInFlight());
+            }
+        }
+
+        header(out, "auth0_requests_total", "counter", "Requests finished by endpoint and outcome");
+        for (MetricsSnapshot snapshot : snapshots) {
+            for (EndpointSnapshot endpoint : snapshot.getEndpoints().values()) {
+                for (Map.Entry<String, HistogramSnapshot> outcome : endpoint.getLatencies().entrySet()) {
+                    out.write("auth0_requests_total");
+                    labels(out, endpoint.getHost(), endpoint.getEndpoint(), outcome.getKey(), null);
+                    value(out, outcome.getValue().getCount());
+                }
+            }
+        }
+
+        header(out, "auth0_request_duration_seconds", "histogram", "Latency of the finished requests by endpoint and outcome");
+        for (MetricsSnapshot snapshot : snapshots) {
+            for (EndpointSnapshot endpoint : snapshot.getEndpoints().values()) {
+                for (Map.Entry<String, HistogramSnapshot> outcome : endpoint.getLatencies().entrySet()) {
+                    final HistogramSnapshot histogram = outcome.getValue();
+                    for (int i = 0; i < BUCKET_MICROS.length; i++) {
+                        out.write("auth0_request_duration_seconds_bucket");
+                        labels(out, endpoint.getHost(), endpoint.getEndpoint(), outcome.getKey(), BUCKET_LABELS[i]);
+                        value(out, histogram.getCountAtOrBelow(BUCKET_MICROS[i]));
+                    }
+                    out.write("auth0_request_duration_seconds_bucket");
+                    labels(out, endpoint.getHost(), endpoint.getEndpoint(), outcome.getKey(), "+Inf");
+                    value(out, histogram.getCount());
+                    out.write("auth0_request_duration_seconds_sum");
+                    labels(out, endpoint.getHost(), endpoint.getEndpoint(), outcome.getKey(), null);
+                    out.write(' ');
+                    out.write(Double.toString(histogram.getSum() / MICROS_PER_SECOND));
+                    out.write('\n');
+                    out.write("auth0_request_duration_seconds_count");
+                    labels(out, endpoint.getHost(), endpoint.getEndpoint(), outcome.getKey(), null);
+                    value(out, histogram.getCount());
+                }
+            }
+        }
+
+        header(out, "auth0_direct_callback_seconds", "summary", "Time spent by callbacks in the thread that completed the request");
+        for (MetricsSnapshot snapshot : snapshots) {
+            for (EndpointSnapshot endpoint : snapshot.getEndpoints().values()) {
+                final HistogramSnapshot callbacks = endpoint.getDirectCallbackTime();
+                if (callbacks == null) {
+                    continue;
+                }
+                out.write("auth0_direct_callback_seconds_sum");
+                labels(out, endpoint.getHost(), endpoint.getEndpoint(), null, null);
+                out.write(' ');
+                out.write(Double.toString(callbacks.getSum() / MICROS_PER_SECOND));
+                out.write('\n');
+                out.write("auth0_direct_callback_seconds_count");
+                labels(out, endpoint.getHost(), endpoint.getEndpoint(), null, null);
+                value(out, callbacks.getCount());
+            }
+        }
+    }
+
+    private void writeCaches(Writer out) throws IOException {
+        header(out, "auth0_profile_cache_size", "gauge", "Profiles stored in the cache");
+        for (Source<OffHeapProfileCache> cache : caches) {
+            out.write("auth0_profile_cache_size");
+            labels(out, cache.label, null, null, null);
+            value(out, cache.value.size());
+        }
+        header(out, "auth0_profile_cache_hits_total", "counter", "Profiles found in the cache");
+        for (Source<OffHeapProfileCache> cache : caches) {
+            out.write("auth0_profile_cache_hits_total");
+            labels(out, cache.label, null, null, null);
+            value(out, cache.value.getHitCount());
+        }
+        header(out, "auth0_profile_cache_misses_total", "counter", "Profiles not found in the cache");
+        for (Source<OffHeapProfileCache> cache : caches) {
+            out.write("auth0_profile_cache_misses_total");
+            labels(out, cache.label, null, null, null);
+            value(out, cache.value.getMissCount());
+        }
+        header(out, "auth0_profile_cache_evictions_total", "counter", "Profiles evicted to make room for new ones");
+        for (Source<OffHeapProfileCache> cache : caches) {
+            out.write("auth0_profile_cache_evictions_total");
+            labels(out, cache.label, null, null, null);
+            value(out, cache.value.getEvictionCount());
+        }
+        header(out, "auth0_profile_cache_rejected_total", "counter", "Profiles too big to be cached");
+        for (Source<OffHeapProfileCache> cache : caches) {
+            out.write("auth0_profile_cache_rejected_total");
+            labels(out, cache.label, null, null, null);
+            value(out, cache.value.getRejectedCount());
+        }
+    }
+
+    private void writePools(Writer out) throws IOException {
+        header(out, "auth0_connection_pool_connections", "gauge", "Connections in the pool by protocol");
+        for (Source<ConnectionPool> pool : pools) {
+            final int multiplexed = pool.value.getMultiplexedConnectionCount();
+            final int http = pool.value.getHttpConnectionCount();
+            out.write("auth0_connection_pool_connections{pool=\"");
+            escaped(out, pool.label);
+            out.write("\",protocol=\"http/1.1\"}");
+            value(out, http);
+            out.write("auth0_connection_pool_connections{pool=\"");
+            escaped(out, pool.label);
+            out.write("\",protocol=\"multiplexed\"}");
+            value(out, multiplexed);
+        }
+    }
+
+    private void writeBulkheads(Writer out) throws IOException {
+        header(out, "auth0_bulkhead_max_concurrent", "gauge", "Calls allowed in flight through the bulkhead");
+        for (Bulkhead bulkhead : bulkheads) {
+            bulkheadSample(out, "auth0_bulkhead_max_concurrent", bulkhead, bulkhead.getMaxConcurrent());
+        }
+        header(out, "auth0_bulkhead_active", "gauge", "Calls in flight through the bulkhead");
+        for (Bulkhead bulkhead : bulkheads) {
+            bulkheadSample(out, "auth0_bulkhead_active", bulkhead, bulkhead.getActiveCount());
+        }
+        header(out, "auth0_bulkhead_queued", "gauge", "Calls waiting for a place in the bulkhead");
+        for (Bulkhead bulkhead : bulkheads) {
+            bulkheadSample(out, "auth0_bulkhead_queued", bulkhead, bulkhead.getQueuedCount());
+        }
+        header(out, "auth0_bulkhead_rejected_total", "counter", "Calls rejected because the bulkhead queue was full");
+        for (Bulkhead bulkhead : bulkheads) {
+            bulkheadSample(out, "auth0_bulkhead_rejected_total", bulkhead, bulkhead.getRejectedCount());
+        }
+        header(out, "auth0_bulkhead_shed_total", "counter", "Queued calls dropped after waiting too long");
+        for (Bulkhead bulkhead : bulkheads) {
+            bulkheadSample(out, "auth0_bulkhead_shed_total", bulkhead, bulkhead.getShedCount());
+        }
+    }
+
+    private void bulkheadSample(Writer out, String name, Bulkhead bulkhead, long value) throws IOException {
+        out.write(name);
+        out.write("{bulkhead=\"");
+        escaped(out, bulkhead.getName());
+        out.write("\"}");
+        value(out, value);
+    }
+
+    private static void header(Writer out, String name, String type, String help) throws IOException {
+        out.write("# HELP ");
+        out.write(name);
+        out.write(' ');
+        out.write(help);
+        out.write("\n# TYPE ");
+        out.write(name);
+        out.write(' ');
+        out.write(type);
+        out.write('\n');
+    }
+
+    private static void labels(Writer out, String tenant, String endpoint, String outcome, String le) throws IOException {
+        out.write("{tenant=\"");
+        escaped(out, tenant);
+        if (endpoint != null) {
+            out.write("\",endpoint=\"");
+            escaped(out, endpoint);
+        }
+        if (outcome != null) {
+            out.write("\",outcome=\"");
+            escaped(out, outcome);
+        }
+        if (le != null) {
+            out.write("\",le=\"");
+            out.write(le);
+        }
+        out.write("\"}");
+    }
+
+    private static void escaped(Writer out, String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '\\' || c == '"') {
+                out.write('\\');
+                out.write(c);
+            } else if (c == '\n') {
+                out.write("\\n");
+            } else {
+                out.write(c);
+            }
+        }
+    }
+
+    private void value(Writer out, long value) throws IOException {
+        // formats the number in a reused buffer instead of allocating a String for each sample
+        out.write(' ');
+        if (value < 0) {
+            out.write('-');
+            value = -value;
+        }
+        int start = digits.length;
+        do {
+            digits[--start] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        out.write(digits, start, digits.length - start);
+        out.write('\n');
+    }
+
+    private static class Source<T> {
+        final String label;
+        final T value;
+
+        Source(String label, T value) {
+            this.label = label;
+            this.value = value;
+        }
+    }
+}
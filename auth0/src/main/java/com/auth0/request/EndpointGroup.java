@@ -0,0 +1,77 @@
+/*
+ * EndpointGroup.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.request;
+
+/**
+ * Groups of Auth0 Authentication API endpoints that can be isolated from each other, so a slow endpoint
+ * can't take the threads and connections needed by the others.
+ */
+public enum EndpointGroup {
+    /**
+     * Logins and token exchanges under '/oauth', like '/oauth/ro' and '/oauth/token'
+     */
+    AUTHENTICATION("oauth"),
+    /**
+     * '/tokeninfo'
+     */
+    TOKEN_INFO("tokeninfo"),
+    /**
+     * '/delegation'
+     */
+    DELEGATION("delegation"),
+    /**
+     * Sign ups and password changes under '/dbconnections'
+     */
+    DATABASE_CONNECTIONS("dbconnections"),
+    /**
+     * '/passwordless/start'
+     */
+    PASSWORDLESS("passwordless"),
+    /**
+     * Any other endpoint, like '/unlink'
+     */
+    OTHER(null);
+
+    private static final EndpointGroup[] VALUES = values();
+
+    private final String pathSegment;
+
+    EndpointGroup(String pathSegment) {
+        this.pathSegment = pathSegment;
+    }
+
+    /**
+     * @param pathSegment first segment of the path of the endpoint, e.g. 'oauth' for '/oauth/ro'
+     * @return the group of the endpoint
+     */
+    public static EndpointGroup of(String pathSegment) {
+        for (EndpointGroup group : VALUES) {
+            if (group.pathSegment != null && group.pathSegment.equals(pathSegment)) {
+                return group;
+            }
+        }
+        return OTHER;
+    }
+}
@@ -24,7 +24,10 @@
 
 package com.auth0.request;
 
+import com.auth0.callback.CallbackExecutors;
+
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * Defines a request that can be configured (payload and headers)
@@ -57,4 +60,39 @@ public interface ParameterizableRequest<T> extends Request<T> {
      */
     ParameterizableRequest<T> addHeader(String name, String value);
 
+    /**
+     * Sets the priority of the request when it has to wait to be sent. By default is {@link Priority#INTERACTIVE}.
+     * Requests that are never queued by priority ignore it.
+     *
+     * @param priority of the request
+     * @return itself
+     */
+    default ParameterizableRequest<T> setPriority(Priority priority) {
+        return this;
+    }
+
+    /**
+     * Sets the executor that runs the callback given to {@link #start(com.auth0.callback.BaseCallback)}.
+     * By default, or with {@link CallbackExecutors#direct()}, it runs in the thread that completed the request.
+     * Requests that don't support callback executors ignore it and keep running the callback in that thread.
+     *
+     * @param executor of the callback
+     * @return itself
+     */
+    default ParameterizableRequest<T> setCallbackExecutor(Executor executor) {
+        return this;
+    }
+
+    /**
+     * Computes a stable key for this request using its HTTP method, url, parameters (sorted by name) and the value
+     * of the given headers. Requests with the same fingerprint send the same payload to the same endpoint.
+     *
+     * @param headerNames of the headers that should be part of the fingerprint, e.g. "Authorization"
+     * @return the fingerprint of the request as it's configured when this method is called
+     * @throws UnsupportedOperationException if the request can't compute its fingerprint, the default
+     */
+    default RequestFingerprint fingerprint(String... headerNames) {
+        throw new UnsupportedOperationException("This request doesn't support fingerprints");
+    }
+
 }
@@ -45,4 +45,16 @@ public interface Request<T> {
      * @throws Auth0Exception on failure
      */
     T execute() throws Auth0Exception;
+
+    /**
+     * Cancels the request, e.g. when the caller that needs its result has gone. If it's waiting to be sent it's never
+     * sent, and if it's in flight its connection is released right away. Requests made of several calls to Auth0
+     * don't start the next one. Unless it already completed, the request fails with a
+     * {@link com.auth0.RequestCanceledException}, passed to the callback or thrown by {@link #execute()}.
+     * A cancelled request can't be started again.
+     * <p>
+     * By default it does nothing, for requests that can't be cancelled.
+     */
+    default void cancel() {
+    }
 }
@@ -0,0 +1,178 @@
+/*
+ * RequestEvent.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.request;
+
+import com.auth0.authentication.ParameterBuilder;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Event delivered to a {@link RequestListener} when a request reaches a new phase.
+ * Timestamps come from {@link System#nanoTime()}, so they can only be compared with the ones of other events.
+ */
+public final class RequestEvent {
+
+    /**
+     * Phases of a request, in the order they are reached. Only the phases that apply to a request are reported:
+     * requests run with {@link Request#execute()} have no callback, requests that fail skip the remaining phases and
+     * {@link #DISPATCHED}, {@link #CONNECTION_ACQUIRED} and {@link #REQUEST_SENT} are only reported by the transports
+     * that can observe them.
+     */
+    public enum Phase {
+        /**
+         * The request was started or executed by the caller
+         */
+        QUEUED,
+        /**
+         * The transport took the request out of its queue and began to send it
+         */
+        DISPATCHED,
+        /**
+         * A connection to the server was opened or taken from the pool
+         */
+        CONNECTION_ACQUIRED,
+        /**
+         * The request headers and body were written to the connection
+         */
+        REQUEST_SENT,
+        /**
+         * The status and headers of the response were received
+         */
+        HEADERS_RECEIVED,
+        /**
+         * The body of a successful response was read and parsed, or the result was found in a cache, with the
+         * status code 0
+         */
+        BODY_PARSED,
+        /**
+         * The request failed, with the error and the status code of the response if there was one
+         */
+        FAILED,
+        /**
+         * The callback given to {@link Request#start(com.auth0.callback.BaseCallback)} returned
+         */
+        CALLBACK_DELIVERED
+    }
+
+    private final long requestId;
+    private final Phase phase;
+    private final String method;
+    private final String endpoint;
+    private final int statusCode;
+    private final long nanoTime;
+    private final long requestBytes;
+    private final long responseBytes;
+    private final Map<String, Object> parameters;
+    private final Throwable error;
+
+    public RequestEvent(long requestId, Phase phase, String method, String endpoint, int statusCode, long nanoTime, long requestBytes, long responseBytes, Map<String, Object> parameters, Throwable error) {
+        this.requestId = requestId;
+        this.phase = phase;
+        this.method = method;
+        this.endpoint = endpoint;
+        this.statusCode = statusCode;
+        this.nanoTime = nanoTime;
+        this.requestBytes = requestBytes;
+        this.responseBytes = responseBytes;
+        this.parameters = parameters != null ? parameters : Collections.<String, Object>emptyMap();
+        this.error = error;
+    }
+
+    /**
+     * @return id shared by all the events of the same request
+     */
+    public long getRequestId() {
+        return requestId;
+    }
+
+    public Phase getPhase() {
+        return phase;
+    }
+
+    /**
+     * @return the HTTP method of the request
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * @return the path of the request, e.g. '/oauth/ro'
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return the status code of the response, or 0 if it wasn't received yet
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * @return when the phase was reached, in {@link System#nanoTime()} units
+     */
+    public long getNanoTime() {
+        return nanoTime;
+    }
+
+    /**
+     * @return the size of the request body, or 0 if it has none
+     */
+    public long getRequestBytes() {
+        return requestBytes;
+    }
+
+    /**
+     * @return the bytes of the response body read so far, all of them from {@link Phase#BODY_PARSED} on
+     */
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+    /**
+     * @return a copy of the parameters of the request, with the values of passwords and tokens redacted
+     * @see ParameterBuilder#redact(Map)
+     */
+    public Map<String, Object> getParameters() {
+        return ParameterBuilder.redact(parameters);
+    }
+
+    /**
+     * @return the cause of a {@link Phase#FAILED} request, null in the other phases
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "RequestEvent{id=%d, phase=%s, %s %s, status=%d, nanoTime=%d, bytesOut=%d, bytesIn=%d}",
+                requestId, phase, method, endpoint, statusCode, nanoTime, requestBytes, responseBytes);
+    }
+}
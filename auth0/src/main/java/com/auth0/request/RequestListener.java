@@ -0,0 +1,49 @@
+/*
+ * RequestListener.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.request;
+
+/**
+ * Receives the lifecycle events of the requests sent by a client, to find out where the time of a slow request went.
+ * Events of a request are delivered in order, from the thread that reached each phase, so implementations must be
+ * thread-safe and fast. Exceptions thrown by the listener are logged and don't affect the request.
+ * <pre><code>
+ * client.setRequestListener(new RequestListener() {
+ *     public void onEvent(RequestEvent event) {
+ *         System.out.println(event);
+ *     }
+ * });
+ * </code></pre>
+ *
+ * @see com.auth0.authentication.AuthenticationAPIClient#setRequestListener(RequestListener)
+ */
+public interface RequestListener {
+
+    /**
+     * Called when a request reaches a new phase
+     *
+     * @param event with the phase and its timestamp
+     */
+    void onEvent(RequestEvent event);
+}
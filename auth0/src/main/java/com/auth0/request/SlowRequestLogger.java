@@ -0,0 +1,225 @@
+/*
+ * SlowRequestLogger.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.request;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * {@link RequestListener} that logs a single record for each request slower than a threshold, with the time spent
+ * in each phase, the status, the bytes sent and received and the parameters with passwords and tokens redacted.
+ * Records are sampled and rate limited, so a slow Auth0 tenant doesn't flood the logs. Requests are only tracked
+ * while they are in flight, which makes it cheap enough to keep on in production, unlike full HTTP logging. At most
+ * 10000 requests are tracked at the same time: once there are that many, the ones queued more than 10 minutes ago
+ * are dropped, since their last event is never coming, and new requests aren't tracked until there is room.
+ * <pre><code>
+ * SlowRequestLogger slowRequests = new SlowRequestLogger(500, TimeUnit.MILLISECONDS);
+ * slowRequests.setThreshold("/tokeninfo", 200, TimeUnit.MILLISECONDS);
+ * client.setRequestListener(slowRequests);
+ * </code></pre>
+ * Records are logged at {@link Level#WARNING} to the 'com.auth0.SlowRequest' logger, as 'key=value' pairs:
+ * <pre><code>
+ * slow_request method=POST endpoint=/oauth/ro status=200 total_ms=812.4 dispatched_ms=0.2 connection_acquired_ms=0.1
+ * request_sent_ms=0.3 headers_received_ms=810.9 body_parsed_ms=0.9 bytes_out=143 bytes_in=1822 suppressed=0
+ * parameters={username=support@auth0.com, password=&lt;redacted&gt;, ...}
+ * </code></pre>
+ * Each phase is timed from the previous phase reported by the transport. 'suppressed' counts the slow requests
+ * that were not logged since the previous record because of sampling or rate limiting.
+ */
+public class SlowRequestLogger implements RequestListener {
+
+    private static final RequestEvent.Phase[] PHASES = RequestEvent.Phase.values();
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+    static final int MAX_TRACKED_REQUESTS = 10000;
+    private static final long STALE_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    private final long defaultThresholdNanos;
+    private final RequestListener next;
+    private final ConcurrentMap<String, Long> thresholds = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, AtomicLongArray> requests = new ConcurrentHashMap<>();
+    private final AtomicLong currentSecond = new AtomicLong();
+    private final AtomicInteger recordsInSecond = new AtomicInteger();
+    private final AtomicLong suppressed = new AtomicLong();
+    private volatile Logger logger = Logger.getLogger("com.auth0.SlowRequest");
+    private volatile double sampleRate = 1;
+    private volatile int maxRecordsPerSecond = 10;
+
+    /**
+     * @param threshold of all the endpoints, unless overridden with {@link #setThreshold(String, long, TimeUnit)}
+     * @param unit      of the threshold
+     */
+    public SlowRequestLogger(long threshold, TimeUnit unit) {
+        this(threshold, unit, null);
+    }
+
+    /**
+     * @param threshold of all the endpoints, unless overridden with {@link #setThreshold(String, long, TimeUnit)}
+     * @param unit      of the threshold
+     * @param next      listener that also receives all the events, since a client has a single listener
+     */
+    public SlowRequestLogger(long threshold, TimeUnit unit, RequestListener next) {
+        this.defaultThresholdNanos = unit.toNanos(threshold);
+        this.next = next;
+    }
+
+    /**
+     * @param endpoint  path, e.g. '/oauth/ro'
+     * @param threshold over which requests to the endpoint are logged
+     * @param unit      of the threshold
+     */
+    public void setThreshold(String endpoint, long threshold, TimeUnit unit) {
+        thresholds.put(endpoint, unit.toNanos(threshold));
+    }
+
+    /**
+     * @param sampleRate fraction of the slow requests that are logged, 1 by default
+     */
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * @param maxRecordsPerSecond maximum number of records logged each second, 10 by default
+     */
+    public void setMaxRecordsPerSecond(int maxRecordsPerSecond) {
+        this.maxRecordsPerSecond = maxRecordsPerSecond;
+    }
+
+    /**
+     * @param logger where the records are logged
+     */
+    public void setLogger(Logger logger) {
+        this.logger = logger;
+    }
+
+    @Override
+    public void onEvent(RequestEvent event) {
+        final RequestEvent.Phase phase = event.getPhase();
+        if (phase == RequestEvent.Phase.QUEUED) {
+            if (requests.size() >= MAX_TRACKED_REQUESTS) {
+                evictStale(event.getNanoTime());
+            }
+            if (requests.size() < MAX_TRACKED_REQUESTS) {
+                final AtomicLongArray timestamps = new AtomicLongArray(PHASES.length);
+                timestamps.set(phase.ordinal(), event.getNanoTime());
+                requests.put(event.getRequestId(), timestamps);
+            }
+        } else if (phase == RequestEvent.Phase.BODY_PARSED || phase == RequestEvent.Phase.FAILED) {
+            final AtomicLongArray timestamps = requests.remove(event.getRequestId());
+            if (timestamps != null) {
+                timestamps.set(phase.ordinal(), event.getNanoTime());
+                finished(event, timestamps);
+            }
+        } else if (phase == RequestEvent.Phase.CALLBACK_DELIVERED) {
+            // the request is over even if it didn't report how it ended
+            requests.remove(event.getRequestId());
+        } else {
+            final AtomicLongArray timestamps = requests.get(event.getRequestId());
+            if (timestamps != null) {
+                timestamps.compareAndSet(phase.ordinal(), 0, event.getNanoTime());
+            }
+        }
+        if (next != null) {
+            next.onEvent(event);
+        }
+    }
+
+    /**
+     * @return the number of requests in flight being tracked
+     */
+    int getTrackedCount() {
+        return requests.size();
+    }
+
+    private void evictStale(long now) {
+        for (Map.Entry<Long, AtomicLongArray> request : requests.entrySet()) {
+            if (now - request.getValue().get(RequestEvent.Phase.QUEUED.ordinal()) > STALE_NANOS) {
+                requests.remove(request.getKey(), request.getValue());
+            }
+        }
+    }
+
+    private void finished(RequestEvent event, AtomicLongArray timestamps) {
+        final long total = event.getNanoTime() - timestamps.get(RequestEvent.Phase.QUEUED.ordinal());
+        final Long threshold = thresholds.get(event.getEndpoint());
+        if (total < (threshold != null ? threshold : defaultThresholdNanos) || !logger.isLoggable(Level.WARNING)) {
+            return;
+        }
+        if (ThreadLocalRandom.current().nextDouble() >= sampleRate || !acquireRecord(event.getNanoTime())) {
+            suppressed.incrementAndGet();
+            return;
+        }
+        logger.log(Level.WARNING, format(event, timestamps, total, suppressed.getAndSet(0)));
+    }
+
+    private boolean acquireRecord(long nanoTime) {
+        final long second = TimeUnit.NANOSECONDS.toSeconds(nanoTime);
+        final long current = currentSecond.get();
+        if (current != second && currentSecond.compareAndSet(current, second)) {
+            recordsInSecond.set(0);
+        }
+        return recordsInSecond.incrementAndGet() <= maxRecordsPerSecond;
+    }
+
+    private static String format(RequestEvent event, AtomicLongArray timestamps, long total, long suppressed) {
+        final StringBuilder record = new StringBuilder(256)
+                .append("slow_request method=").append(event.getMethod())
+                .append(" endpoint=").append(event.getEndpoint())
+                .append(" status=").append(event.getStatusCode());
+        appendMillis(record, "total", total);
+        long previous = timestamps.get(RequestEvent.Phase.QUEUED.ordinal());
+        for (int i = RequestEvent.Phase.QUEUED.ordinal() + 1; i < PHASES.length; i++) {
+            final long timestamp = timestamps.get(i);
+            if (timestamp != 0) {
+                appendMillis(record, PHASES[i].name().toLowerCase(Locale.US), timestamp - previous);
+                previous = timestamp;
+            }
+        }
+        record.append(" bytes_out=").append(event.getRequestBytes())
+                .append(" bytes_in=").append(event.getResponseBytes());
+        if (event.getError() != null) {
+            record.append(" error=\"").append(event.getError()).append('"');
+        }
+        record.append(" suppressed=").append(suppressed);
+        final Map<String, Object> parameters = event.getParameters();
+        if (!parameters.isEmpty()) {
+            record.append(" parameters=").append(parameters);
+        }
+        return record.toString();
+    }
+
+    private static void appendMillis(StringBuilder record, String name, long nanos) {
+        record.append(' ').append(name).append("_ms=").append(Math.round(nanos / NANOS_PER_MILLI * 10) / 10d);
+    }
+}
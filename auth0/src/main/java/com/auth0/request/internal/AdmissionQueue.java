@@ -0,0 +1,346 @@
+/*
+ * AdmissionQueue.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.request.internal;
+
+import com.auth0.request.transport.RejectedCallException;
+import com.auth0.request.transport.TransportCall;
+import com.auth0.request.transport.TransportCallback;
+import com.auth0.request.transport.TransportResponse;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Limits the calls in flight, making the others wait until a place is released, which happens when the body of the
+ * response is closed or the call fails. It's the base of the queueing policies of the SDK: subclasses decide when a
+ * call can take a place and which waiting call takes a released one, while this class wraps the calls, makes them wait
+ * and hands over the places. {@link TransportCall#execute()} blocks the caller until the call has a place and
+ * {@link TransportCall#enqueue(TransportCallback)} queues it without blocking, but both wait in the same queues.
+ * A waiting call that is cancelled leaves its queue right away.
+ * <p>
+ * The policy methods are called holding the lock of this object, which subclasses also use to guard their state.
+ * Calls are sent, or failed, once the lock is released.
+ *
+ * @param <K> of the calls, used by the policy to choose where they wait
+ */
+public abstract class AdmissionQueue<K> {
+
+    private static final int NEW = 0;
+    private static final int WAITING = 1;
+    private static final int ADMITTED = 2;
+    private static final int FAILED = 3;
+
+    // admitted or failed calls to send once the lock is released
+    private List<Entry> pending = new ArrayList<>();
+
+    /**
+     * Wraps a call so it's only sent once it has a place
+     *
+     * @param call to limit
+     * @param key  of the call, see {@link Entry#getKey()}
+     * @return a call that takes a place before sending the request
+     */
+    protected TransportCall admit(TransportCall call, K key) {
+        return new AdmittedCall(new Entry(call, key));
+    }
+
+    /**
+     * @param entry that wants to be sent
+     * @return true if it took a place and can be sent right away, false if it has to wait
+     */
+    protected abstract boolean tryAdmit(Entry entry);
+
+    /**
+     * Adds a call that couldn't take a place to the waiting ones
+     *
+     * @param entry that has to wait
+     * @throws IOException to fail the call instead, e.g. a {@link RejectedCallException} if there is no room for it
+     */
+    protected abstract void add(Entry entry) throws IOException;
+
+    /**
+     * @param entry that is no longer waiting, because it was cancelled
+     * @return true if it was removed, false if it wasn't waiting
+     */
+    protected abstract boolean remove(Entry entry);
+
+    /**
+     * @return the next waiting call that can be sent now, removed from the waiting ones and with a place taken for it,
+     * or null if none can be sent
+     */
+    protected abstract Entry poll();
+
+    /**
+     * Gives back the place taken by a call
+     *
+     * @param entry that finished
+     */
+    protected abstract void released(Entry entry);
+
+    /**
+     * Called with each response before it's returned to the caller
+     *
+     * @param response received
+     * @return the response to return
+     */
+    protected TransportResponse received(TransportResponse response) {
+        return response;
+    }
+
+    /**
+     * Fails a waiting call, already removed by the policy, once the lock is released
+     *
+     * @param entry to fail
+     * @param error passed to its callback or thrown to its caller
+     */
+    protected final void shed(Entry entry, IOException error) {
+        entry.state = FAILED;
+        entry.failure = error;
+        pending.add(entry);
+    }
+
+    /**
+     * Sends the waiting calls that can take a place, e.g. once a condition of the policy has changed
+     */
+    protected final void drain() {
+        final List<Entry> ready;
+        synchronized (this) {
+            ready = pollAll();
+        }
+        run(ready);
+    }
+
+    private void submit(Entry entry) {
+        final List<Entry> ready;
+        synchronized (this) {
+            entry.queuedNanos = System.nanoTime();
+            if (tryAdmit(entry)) {
+                entry.state = ADMITTED;
+                pending.add(entry);
+            } else {
+                try {
+                    add(entry);
+                    entry.state = WAITING;
+                } catch (IOException e) {
+                    shed(entry, e);
+                }
+            }
+            ready = pollAll();
+        }
+        run(ready);
+    }
+
+    private void release(Entry entry) {
+        final List<Entry> ready;
+        synchronized (this) {
+            released(entry);
+            ready = pollAll();
+        }
+        run(ready);
+    }
+
+    private void cancel(Entry entry) {
+        final List<Entry> ready;
+        synchronized (this) {
+            entry.canceled = true;
+            if (entry.state == WAITING && remove(entry)) {
+                shed(entry, new IOException("Canceled"));
+            }
+            // wakes up a caller that the policy blocks until there is room for its call
+            notifyAll();
+            ready = pollAll();
+        }
+        run(ready);
+    }
+
+    private void await(Entry entry) throws IOException {
+        try {
+            synchronized (entry) {
+                while (!entry.signaled) {
+                    entry.wait();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            final boolean admitted;
+            synchronized (this) {
+                if (entry.state == WAITING && remove(entry)) {
+                    entry.state = FAILED;
+                }
+                admitted = entry.state == ADMITTED;
+            }
+            if (admitted) {
+                // it was given a place meanwhile, that has to be released
+                release(entry);
+            }
+            throw new InterruptedIOException("Interrupted while waiting to send a call");
+        }
+        if (entry.failure != null) {
+            throw entry.failure;
+        }
+    }
+
+    private List<Entry> pollAll() {
+        Entry next;
+        while ((next = poll()) != null) {
+            next.state = ADMITTED;
+            pending.add(next);
+        }
+        if (pending.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final List<Entry> ready = pending;
+        pending = new ArrayList<>();
+        return ready;
+    }
+
+    private void run(List<Entry> ready) {
+        for (Entry entry : ready) {
+            if (entry.state == ADMITTED) {
+                entry.start();
+            } else {
+                entry.fail();
+            }
+        }
+    }
+
+    /**
+     * A call wrapped by the queue
+     */
+    protected final class Entry {
+        private final TransportCall call;
+        private final K key;
+        private final Runnable release = new Runnable() {
+            @Override
+            public void run() {
+                release(Entry.this);
+            }
+        };
+        // null when the call is executed
+        private TransportCallback callback;
+        // guarded by the queue
+        private long queuedNanos;
+        private int state = NEW;
+        private boolean canceled;
+        private IOException failure;
+        // guarded by the entry
+        private boolean signaled;
+
+        Entry(TransportCall call, K key) {
+            this.call = call;
+            this.key = key;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        /**
+         * @return when the call asked for a place, as given by {@link System#nanoTime()}
+         */
+        public long getQueuedNanos() {
+            return queuedNanos;
+        }
+
+        public boolean isCanceled() {
+            return canceled;
+        }
+
+        private void start() {
+            if (callback == null) {
+                signal();
+                return;
+            }
+            final TransportCallback callback = this.callback;
+            try {
+                call.enqueue(new TransportCallback() {
+                    @Override
+                    public void onResponse(TransportResponse response) {
+                        callback.onResponse(received(response).onClose(release));
+                    }
+
+                    @Override
+                    public void onFailure(IOException e) {
+                        release.run();
+                        callback.onFailure(e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // the HTTP client was shut down while the call waited, its place goes to the next one
+                release.run();
+                callback.onFailure(new IOException("The HTTP client is shut down", e));
+            }
+        }
+
+        private void fail() {
+            if (callback == null) {
+                signal();
+            } else {
+                callback.onFailure(failure);
+            }
+        }
+
+        private synchronized void signal() {
+            signaled = true;
+            notifyAll();
+        }
+    }
+
+    private final class AdmittedCall implements TransportCall {
+        private final Entry entry;
+
+        AdmittedCall(Entry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public TransportResponse execute() throws IOException {
+            submit(entry);
+            await(entry);
+            try {
+                return received(entry.call.execute()).onClose(entry.release);
+            } catch (IOException | RuntimeException e) {
+                release(entry);
+                throw e;
+            }
+        }
+
+        @Override
+        public void enqueue(TransportCallback callback) {
+            entry.callback = callback;
+            submit(entry);
+        }
+
+        @Override
+        public void cancel() {
+            AdmissionQueue.this.cancel(entry);
+            entry.call.cancel();
+        }
+    }
+}
@@ -27,43 +27,70 @@ package com.auth0.request.internal;
 import com.auth0.APIException;
 import com.auth0.Auth0Exception;
 import com.auth0.RequestBodyBuildException;
+import com.auth0.RequestCanceledException;
+import com.auth0.RequestRejectedException;
 import com.auth0.authentication.ParameterBuilder;
 import com.auth0.callback.BaseCallback;
+import com.auth0.callback.CallbackExecutors;
+import com.auth0.metrics.EndpointMetrics;
+import com.auth0.metrics.MetricsRegistry;
 import com.auth0.request.AuthorizableRequest;
 import com.auth0.request.ParameterizableRequest;
+import com.auth0.request.Priority;
+import com.auth0.request.RequestEvent;
+import com.auth0.request.RequestFingerprint;
+import com.auth0.request.RequestListener;
+import com.auth0.request.transport.RejectedCallException;
+import com.auth0.request.transport.Transport;
+import com.auth0.request.transport.TransportCall;
+import com.auth0.request.transport.TransportCallback;
+import com.auth0.request.transport.TransportRequest;
+import com.auth0.request.transport.TransportResponse;
 import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.ObjectWriter;
-import com.squareup.okhttp.Callback;
 import com.squareup.okhttp.HttpUrl;
-import com.squareup.okhttp.OkHttpClient;
-import com.squareup.okhttp.Request;
-import com.squareup.okhttp.RequestBody;
-import com.squareup.okhttp.Response;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
-abstract class BaseRequest<T> implements ParameterizableRequest<T>, AuthorizableRequest<T>, Callback {
+abstract class BaseRequest<T> implements ParameterizableRequest<T>, AuthorizableRequest<T>, CacheableRequest<T>, TransportCallback {
+
+    private static final Logger LOGGER = Logger.getLogger(BaseRequest.class.getName());
 
     private final Map<String, String> headers;
     protected final HttpUrl url;
-    protected final OkHttpClient client;
+    protected final Transport transport;
     private final ObjectReader reader;
     private final ObjectReader errorReader;
     private final ObjectWriter writer;
     private final ParameterBuilder builder;
 
+    private Priority priority = Priority.INTERACTIVE;
+    private Executor callbackExecutor;
     private BaseCallback<T> callback;
+    private RequestListener listener;
+    private RequestTrace trace;
+    private MetricsRegistry metrics;
+    private EndpointMetrics endpointMetrics;
+    private long startNanos;
+    // whether the current execution was completed or failed, confined to the thread that runs it
+    private boolean finished;
+    private volatile boolean canceled;
+    private volatile TransportCall call;
 
-    protected BaseRequest(HttpUrl url, OkHttpClient client, ObjectReader reader, ObjectReader errorReader, ObjectWriter writer) {
-        this(url, client, reader, errorReader, writer, null);
+    protected BaseRequest(HttpUrl url, Transport transport, ObjectReader reader, ObjectReader errorReader, ObjectWriter writer) {
+        this(url, transport, reader, errorReader, writer, null);
     }
 
-    public BaseRequest(HttpUrl url, OkHttpClient client, ObjectReader reader, ObjectReader errorReader, ObjectWriter writer, BaseCallback<T> callback) {
+    public BaseRequest(HttpUrl url, Transport transport, ObjectReader reader, ObjectReader errorReader, ObjectWriter writer, BaseCallback<T> callback) {
         this.url = url;
-        this.client = client;
+        this.transport = transport;
         this.reader = reader;
         this.errorReader = errorReader;
         this.writer = writer;
@@ -76,44 +103,241 @@ abstract class BaseRequest<T> implements ParameterizableRequest<T>, Authorizable
         this.callback = callback;
     }
 
+    void setListener(RequestListener listener) {
+        this.listener = listener;
+    }
+
+    void setMetrics(MetricsRegistry metrics) {
+        this.metrics = metrics;
+    }
+
     protected void postOnSuccess(final T payload) {
-        this.callback.onSuccess(payload);
+        final BaseCallback<T> callback = this.callback;
+        deliver(new Runnable() {
+            @Override
+            public void run() {
+                callback.onSuccess(payload);
+            }
+        });
     }
 
-    protected final void postOnFailure(final Auth0Exception error) {
-        this.callback.onFailure(error);
+    protected final void postOnFailure(Auth0Exception error) {
+        final Auth0Exception failure = canceledOr(error);
+        traceFailure(failure);
+        final BaseCallback<T> callback = this.callback;
+        deliver(new Runnable() {
+            @Override
+            public void run() {
+                callback.onFailure(failure);
+            }
+        });
     }
 
-    protected Request.Builder newBuilder() {
-        final Request.Builder builder = new Request.Builder()
-                .url(url);
-        for (Map.Entry<String, String> entry : headers.entrySet()) {
-            builder.addHeader(entry.getKey(), entry.getValue());
+    private void deliver(final Runnable delivery) {
+        if (callbackExecutor != null) {
+            final Thread caller = Thread.currentThread();
+            try {
+                callbackExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        // a saturated or shut down executor can run the callback in the caller thread instead
+                        if (Thread.currentThread() == caller) {
+                            runTimed(delivery);
+                        } else {
+                            delivery.run();
+                        }
+                        traceEvent(RequestEvent.Phase.CALLBACK_DELIVERED, 0);
+                    }
+                });
+                return;
+            } catch (RejectedExecutionException e) {
+                LOGGER.log(Level.WARNING, "Callback executor rejected the callback of request to " + url + ", running it in the current thread", e);
+            }
         }
-        return builder;
+        runTimed(delivery);
+        traceEvent(RequestEvent.Phase.CALLBACK_DELIVERED, 0);
+    }
+
+    private void runTimed(Runnable delivery) {
+        // the callback runs in the thread that completed the request, so the time it holds it is recorded
+        final EndpointMetrics endpointMetrics = this.endpointMetrics;
+        final long callbackStart = endpointMetrics != null ? System.nanoTime() : 0;
+        try {
+            delivery.run();
+        } finally {
+            if (endpointMetrics != null) {
+                endpointMetrics.callbackFinished(System.nanoTime() - callbackStart);
+            }
+        }
+    }
+
+    protected TransportRequest newRequest(byte[] body) {
+        if (trace != null && body != null) {
+            trace.requestBytes = body.length;
+        }
+        return new TransportRequest(getHttpMethod(), url, new HashMap<>(headers), body != null ? JsonRequestBodyBuilder.CONTENT_TYPE : null, body, trace, priority);
+    }
+
+    /**
+     * Creates the call that sends the request, unless the request was cancelled
+     *
+     * @param request to send
+     * @return the call, that is cancelled with this request
+     * @throws RequestCanceledException if the request was cancelled before
+     */
+    protected final TransportCall newCall(TransportRequest request) throws RequestCanceledException {
+        if (canceled) {
+            throw new RequestCanceledException("Request to " + url + " was canceled");
+        }
+        final TransportCall call = transport.newCall(request);
+        this.call = call;
+        if (canceled) {
+            // cancelled while the call was created
+            call.cancel();
+        }
+        return call;
+    }
+
+    /**
+     * @param error the request failed with
+     * @return a {@link RequestCanceledException} if the request was cancelled, since any failure is then caused by it,
+     * otherwise the given error
+     */
+    protected final Auth0Exception canceledOr(Auth0Exception error) {
+        if (!canceled || error instanceof RequestCanceledException) {
+            return error;
+        }
+        return new RequestCanceledException("Request to " + url + " was canceled", error);
+    }
+
+    /**
+     * Starts the trace and metrics of a new execution of this request, if a listener or a registry is set
+     */
+    protected final void traceStart() {
+        finished = false;
+        if (metrics != null) {
+            endpointMetrics = metrics.endpoint(url.host(), url.encodedPath());
+            endpointMetrics.started();
+            startNanos = System.nanoTime();
+        }
+        if (listener != null) {
+            trace = new RequestTrace(listener, getHttpMethod(), url.encodedPath(), builder.asDictionary());
+            trace.event(RequestEvent.Phase.QUEUED, 0, null);
+        }
+    }
+
+    /**
+     * The response was received and parsed successfully
+     *
+     * @param statusCode of the response
+     */
+    protected final void traceCompleted(int statusCode) {
+        finished = true;
+        if (endpointMetrics != null) {
+            endpointMetrics.finished(MetricsRegistry.OUTCOME_SUCCESS, System.nanoTime() - startNanos);
+        }
+        traceEvent(RequestEvent.Phase.BODY_PARSED, statusCode);
+    }
+
+    /**
+     * The headers of the response were received
+     *
+     * @param response received
+     * @return the response to read, which counts the bytes of its body if the request is traced
+     */
+    protected final TransportResponse traceResponse(TransportResponse response) {
+        if (trace == null) {
+            return response;
+        }
+        trace.event(RequestEvent.Phase.HEADERS_RECEIVED, response.getCode(), null);
+        return new TransportResponse(response.getCode(), response.getHeaders(), trace.countResponseBytes(response.getBody()));
+    }
+
+    protected final void traceEvent(RequestEvent.Phase phase, int statusCode) {
+        if (trace != null) {
+            trace.event(phase, statusCode, null);
+        }
+    }
+
+    protected final void traceFailure(Auth0Exception error) {
+        finished = true;
+        if (endpointMetrics != null) {
+            endpointMetrics.finished(MetricsRegistry.outcomeOf(error), System.nanoTime() - startNanos);
+        }
+        if (trace != null) {
+            trace.event(RequestEvent.Phase.FAILED, error instanceof APIException ? ((APIException) error).getStatusCode() : 0, error);
+        }
+    }
+
+    /**
+     * Records a runtime exception that interrupted the current execution, e.g. thrown while parsing the response,
+     * so its metrics and trace are completed with an error outcome. Does nothing if the execution already finished,
+     * like when the exception was thrown by the callback.
+     *
+     * @param e thrown
+     * @return true if the exception failed the execution, false if it already finished
+     */
+    protected final boolean traceUnexpectedFailure(RuntimeException e) {
+        if (finished) {
+            return false;
+        }
+        traceFailure(new Auth0Exception("Request to " + url + " failed unexpectedly", e));
+        return true;
     }
 
     protected ObjectReader getReader() {
         return reader;
     }
 
-    protected RequestBody buildBody() throws RequestBodyBuildException {
+    protected byte[] buildBody() throws RequestBodyBuildException {
         return JsonRequestBodyBuilder.createBody(builder.asDictionary(), writer);
     }
 
-    protected APIException parseUnsuccessfulResponse(Response response) {
+    protected APIException parseUnsuccessfulResponse(TransportResponse response) {
         try {
-            final InputStream byteStream = response.body().byteStream();
+            final InputStream byteStream = response.getBody();
             Map<String, Object> payload = errorReader.readValue(byteStream);
-            return new APIException("Request to " + url + " failed with response " + payload, response.code(), payload);
+            return new APIException("Request to " + url + " failed with response " + payload, response.getCode(), payload);
         } catch (Exception e) {
-            return new APIException("Request to " + url + " failed", response.code(), null);
+            return new APIException("Request to " + url + " failed", response.getCode(), null);
+        } finally {
+            closeQuietly(response);
+        }
+    }
+
+    protected static void closeQuietly(TransportResponse response) {
+        try {
+            response.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * @param e the cause of the failure to send the request or receive its response
+     * @return the exception to report, a {@link RequestRejectedException} if the transport didn't even send it
+     */
+    protected Auth0Exception executionFailure(IOException e) {
+        if (e instanceof RejectedCallException) {
+            return new RequestRejectedException("Request to " + url + " was rejected: " + e.getMessage(), e);
+        }
+        return new Auth0Exception("Failed to execute request to " + url, e);
+    }
+
+    @Override
+    public final void onResponse(TransportResponse response) {
+        try {
+            handleResponse(response);
+        } catch (RuntimeException e) {
+            if (finished) {
+                throw e;
+            }
+            postOnFailure(new Auth0Exception("Failed to handle the response to request to " + url, e));
         }
     }
 
     @Override
-    public void onFailure(Request request, IOException e) {
-        postOnFailure(new Auth0Exception("Failed to execute request to " + url.toString(), e));
+    public void onFailure(IOException e) {
+        postOnFailure(executionFailure(e));
     }
 
     @Override
@@ -122,6 +346,18 @@ abstract class BaseRequest<T> implements ParameterizableRequest<T>, Authorizable
         return this;
     }
 
+    @Override
+    public ParameterizableRequest<T> setPriority(Priority priority) {
+        this.priority = priority;
+        return this;
+    }
+
+    @Override
+    public ParameterizableRequest<T> setCallbackExecutor(Executor executor) {
+        this.callbackExecutor = executor == CallbackExecutors.direct() ? null : executor;
+        return this;
+    }
+
     @Override
     public AuthorizableRequest<T> setBearer(String jwt) {
         addHeader("Authorization", "Bearer " + jwt);
@@ -140,16 +376,87 @@ abstract class BaseRequest<T> implements ParameterizableRequest<T>, Authorizable
         return this;
     }
 
+    @Override
+    public RequestFingerprint fingerprint(String... headerNames) {
+        final FingerprintHasher hasher = new FingerprintHasher()
+                .putString(getHttpMethod())
+                .putString(url.toString())
+                .putMap(builder.asDictionary());
+        hasher.putInt(headerNames.length);
+        for (String name : headerNames) {
+            hasher.putString(name)
+                    .putString(headers.get(name));
+        }
+        return hasher.finish();
+    }
+
     @Override
     public void start(BaseCallback<T> callback) {
         setCallback(callback);
+        traceStart();
         try {
-            Request request = doBuildRequest(newBuilder());
-            client.newCall(request).enqueue(this);
-        } catch (RequestBodyBuildException e) {
-            callback.onFailure(e);
+            TransportRequest request = doBuildRequest();
+            newCall(request).enqueue(this);
+        } catch (RequestBodyBuildException | RequestCanceledException e) {
+            postOnFailure(e);
+        } catch (RejectedExecutionException e) {
+            // the HTTP client was shut down, e.g. its dispatcher by ClientResources#release()
+            postOnFailure(new Auth0Exception("Failed to execute request to " + url + ", the HTTP client is shut down", e));
+        } catch (RuntimeException e) {
+            traceUnexpectedFailure(e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void startCached(T result, BaseCallback<T> callback) {
+        setCallback(callback);
+        traceStart();
+        if (canceled) {
+            postOnFailure(new RequestCanceledException("Request to " + url + " was canceled"));
+            return;
+        }
+        traceCached();
+        postOnSuccess(result);
+    }
+
+    @Override
+    public T executeCached(T result) throws Auth0Exception {
+        traceStart();
+        if (canceled) {
+            final RequestCanceledException error = new RequestCanceledException("Request to " + url + " was canceled");
+            traceFailure(error);
+            throw error;
+        }
+        traceCached();
+        return result;
+    }
+
+    private void traceCached() {
+        finished = true;
+        if (endpointMetrics != null) {
+            endpointMetrics.finished(MetricsRegistry.OUTCOME_CACHED, System.nanoTime() - startNanos);
+        }
+        traceEvent(RequestEvent.Phase.BODY_PARSED, 0);
+    }
+
+    @Override
+    public void cancel() {
+        canceled = true;
+        final TransportCall call = this.call;
+        if (call != null) {
+            call.cancel();
         }
     }
 
-    protected abstract Request doBuildRequest(Request.Builder builder) throws RequestBodyBuildException;
+    protected abstract String getHttpMethod();
+
+    protected abstract TransportRequest doBuildRequest() throws RequestBodyBuildException;
+
+    /**
+     * Parses the response of a started request and posts its result
+     *
+     * @param response received, that must be closed
+     */
+    protected abstract void handleResponse(TransportResponse response);
 }
@@ -0,0 +1,53 @@
+/*
+ * BulkheadTransport.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.request.internal;
+
+import com.auth0.request.transport.Bulkhead;
+import com.auth0.request.transport.Transport;
+import com.auth0.request.transport.TransportCall;
+import com.auth0.request.transport.TransportRequest;
+
+/**
+ * {@link Transport} that sends all its calls through a {@link Bulkhead}, limiting how many of them are in flight.
+ */
+public class BulkheadTransport implements Transport {
+
+    private final Transport transport;
+    private final Bulkhead bulkhead;
+
+    public BulkheadTransport(Transport transport, Bulkhead bulkhead) {
+        this.transport = transport;
+        this.bulkhead = bulkhead;
+    }
+
+    public Bulkhead getBulkhead() {
+        return bulkhead;
+    }
+
+    @Override
+    public TransportCall newCall(TransportRequest request) {
+        return bulkhead.wrap(transport.newCall(request));
+    }
+}
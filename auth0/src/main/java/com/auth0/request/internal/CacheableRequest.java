@@ -0,0 +1,54 @@
+/*
+ * CacheableRequest.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.request.internal;
+
+import com.auth0.Auth0Exception;
+import com.auth0.callback.BaseCallback;
+
+/**
+ * Request whose result can be found in a cache instead of being sent. A cached result is reported to the listener and
+ * the metrics of the request, and delivered through its callback executor, like a received one.
+ *
+ * @param <T> the result of the request
+ */
+public interface CacheableRequest<T> {
+
+    /**
+     * Completes the request with a cached result, without sending it
+     *
+     * @param result   found in the cache
+     * @param callback called with the result, or the failure if the request was cancelled
+     */
+    void startCached(T result, BaseCallback<T> callback);
+
+    /**
+     * Completes the request with a cached result, without sending it
+     *
+     * @param result found in the cache
+     * @return the result
+     * @throws Auth0Exception if the request was cancelled
+     */
+    T executeCached(T result) throws Auth0Exception;
+}
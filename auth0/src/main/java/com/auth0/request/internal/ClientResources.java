@@ -0,0 +1,114 @@
+/*
+ * ClientResources.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.request.internal;
+
+import com.auth0.request.transport.Transport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.squareup.okhttp.OkHttpClient;
+
+/**
+ * Heavy resources shared by every API client created without an explicit {@link Transport}: an {@link OkHttpClient}
+ * with its dispatcher and connection pool, and an {@link ObjectMapper} with its serializer caches.
+ * The shared instance is reference counted, each client acquires it when created and releases it when closed.
+ * Once the last client releases it the dispatcher threads are stopped and the next client creates a new instance.
+ */
+public final class ClientResources {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static ClientResources shared;
+
+    private final OkHttpClient client;
+    private final Transport transport;
+    private int references;
+
+    ClientResources(OkHttpClient client) {
+        this.client = client;
+        this.transport = new OkHttpTransport(client);
+    }
+
+    /**
+     * Acquires a reference to the shared resources, creating them if no client holds them.
+     * Every call must be followed by a call to {@link #release()} once the resources are no longer used.
+     *
+     * @return the shared resources
+     */
+    public static synchronized ClientResources acquire() {
+        if (shared == null) {
+            shared = new ClientResources(new OkHttpClient());
+        }
+        return shared.retain();
+    }
+
+    /**
+     * @return the number of references currently held to the shared resources
+     */
+    public static synchronized int getReferenceCount() {
+        return shared == null ? 0 : shared.references;
+    }
+
+    /**
+     * The {@link ObjectMapper} used by every client. It's never released since it only holds memory.
+     *
+     * @return the shared mapper
+     */
+    public static ObjectMapper mapper() {
+        return MAPPER;
+    }
+
+    public OkHttpClient getClient() {
+        return client;
+    }
+
+    public Transport getTransport() {
+        return transport;
+    }
+
+    ClientResources retain() {
+        synchronized (ClientResources.class) {
+            references++;
+        }
+        return this;
+    }
+
+    /**
+     * Releases a reference acquired with {@link #acquire()}. Releasing the last one stops the dispatcher threads,
+     * so requests started afterwards with this instance will fail.
+     */
+    public void release() {
+        synchronized (ClientResources.class) {
+            if (references == 0) {
+                return;
+            }
+            if (--references > 0) {
+                return;
+            }
+            if (shared == this) {
+                shared = null;
+            }
+        }
+        client.getDispatcher().getExecutorService().shutdown();
+    }
+}
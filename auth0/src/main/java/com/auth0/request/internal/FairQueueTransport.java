@@ -0,0 +1,207 @@
+/*
+ * FairQueueTransport.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.request.internal;
+
+import com.auth0.request.transport.RejectedCallException;
+import com.auth0.request.transport.Transport;
+import com.auth0.request.transport.TransportCall;
+import com.auth0.request.transport.TransportRequest;
+import com.squareup.okhttp.HttpUrl;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link Transport} that limits the calls in flight and shares them fairly between the Auth0 tenants, so a tenant
+ * sending many requests only delays its own ones. Calls over the limit wait in a queue per tenant, identified by the
+ * domain url of the request (see {@link com.auth0.Auth0#getDomainUrl()}), and the queues are served with deficit
+ * round robin: on each turn a tenant sends as many calls as its weight, 1 by default, before the next one.
+ * A call that finds the queue of its tenant full fails right away with a {@link RejectedCallException}.
+ * <pre><code>
+ * FairQueueTransport transport = new FairQueueTransport(ClientResources.acquire().getTransport(), 64);
+ * transport.setWeight("https://big-tenant.auth0.com", 4);
+ * AuthenticationAPIClient client = new AuthenticationAPIClient(auth0, transport);
+ * </code></pre>
+ */
+public class FairQueueTransport extends AdmissionQueue<String> implements Transport {
+
+    private static final int DEFAULT_MAX_QUEUE_DEPTH = 1000;
+
+    private final Transport transport;
+    private final int maxConcurrent;
+    private final Map<String, Integer> weights = new HashMap<>();
+    // only the tenants with waiting calls have a queue, in the order they are served
+    private final Map<String, TenantQueue> queues = new HashMap<>();
+    private final ArrayDeque<TenantQueue> turns = new ArrayDeque<>();
+    private int maxTenantQueueDepth = DEFAULT_MAX_QUEUE_DEPTH;
+    private int active;
+    private long rejectedCount;
+
+    /**
+     * @param transport     used to send the calls
+     * @param maxConcurrent calls in flight at the same time, of all the tenants
+     */
+    public FairQueueTransport(Transport transport, int maxConcurrent) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("maxConcurrent must be positive");
+        }
+        this.transport = transport;
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    /**
+     * Set the share of a tenant relative to the others when calls have to wait. By default is 1.
+     *
+     * @param domainUrl of the tenant, e.g. 'https://samples.auth0.com'
+     * @param weight    number of calls sent on each turn of the tenant
+     */
+    public synchronized void setWeight(String domainUrl, int weight) {
+        if (weight < 1) {
+            throw new IllegalArgumentException("weight must be positive");
+        }
+        weights.put(keyOf(HttpUrl.parse(domainUrl)), weight);
+    }
+
+    /**
+     * Set the maximum number of calls of a single tenant that can wait. The limit applies to the queue of each tenant
+     * on its own, so a tenant that fills its queue doesn't make the calls of the others be rejected. By default is 1000.
+     *
+     * @param maxQueueDepth of each tenant queue
+     */
+    public synchronized void setMaxQueueDepth(int maxQueueDepth) {
+        this.maxTenantQueueDepth = maxQueueDepth;
+    }
+
+    /**
+     * @return the number of calls in flight
+     */
+    public synchronized int getActiveCount() {
+        return active;
+    }
+
+    /**
+     * @param domainUrl of the tenant, e.g. 'https://samples.auth0.com'
+     * @return the number of calls of the tenant waiting to be sent
+     */
+    public synchronized int getQueueDepth(String domainUrl) {
+        final TenantQueue queue = queues.get(keyOf(HttpUrl.parse(domainUrl)));
+        return queue == null ? 0 : queue.calls.size();
+    }
+
+    /**
+     * @return the number of calls rejected because the queue of their tenant was full
+     */
+    public synchronized long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    @Override
+    public TransportCall newCall(TransportRequest request) {
+        return admit(transport.newCall(request), keyOf(request.getUrl()));
+    }
+
+    @Override
+    protected boolean tryAdmit(Entry entry) {
+        if (active >= maxConcurrent) {
+            return false;
+        }
+        active++;
+        return true;
+    }
+
+    @Override
+    protected void add(Entry entry) throws IOException {
+        final String key = entry.getKey();
+        TenantQueue queue = queues.get(key);
+        if ((queue == null ? 0 : queue.calls.size()) >= maxTenantQueueDepth) {
+            rejectedCount++;
+            throw new RejectedCallException("The queue of " + key + " is full");
+        }
+        if (queue == null) {
+            final Integer weight = weights.get(key);
+            queue = new TenantQueue(key, weight == null ? 1 : weight);
+            queues.put(key, queue);
+            turns.add(queue);
+        }
+        queue.calls.add(entry);
+    }
+
+    @Override
+    protected boolean remove(Entry entry) {
+        final TenantQueue queue = queues.get(entry.getKey());
+        if (queue == null || !queue.calls.remove(entry)) {
+            return false;
+        }
+        if (queue.calls.isEmpty()) {
+            queues.remove(queue.key);
+            turns.remove(queue);
+        }
+        return true;
+    }
+
+    @Override
+    protected Entry poll() {
+        final TenantQueue queue = turns.peekFirst();
+        if (queue == null || active >= maxConcurrent) {
+            return null;
+        }
+        if (queue.deficit == 0) {
+            queue.deficit = queue.weight;
+        }
+        final Entry next = queue.calls.poll();
+        queue.deficit--;
+        if (queue.calls.isEmpty()) {
+            queues.remove(queue.key);
+            turns.pollFirst();
+        } else if (queue.deficit == 0) {
+            turns.addLast(turns.pollFirst());
+        }
+        active++;
+        return next;
+    }
+
+    @Override
+    protected void released(Entry entry) {
+        active--;
+    }
+
+    private static String keyOf(HttpUrl url) {
+        return url.scheme() + "://" + url.host() + ":" + url.port();
+    }
+
+    private static final class TenantQueue {
+        final String key;
+        final int weight;
+        final ArrayDeque<Entry> calls = new ArrayDeque<>();
+        int deficit;
+
+        TenantQueue(String key, int weight) {
+            this.key = key;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * FingerprintHasher.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.request.internal;
+
+import com.auth0.request.RequestFingerprint;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Incremental implementation of MurmurHash3 (x64, 128-bit) used to compute a {@link RequestFingerprint}.
+ * Values are fed directly (strings char by char) so no intermediate String or byte array is built.
+ * Every value is prefixed with a type marker and strings with their length, so different sequences of values
+ * don't produce the same stream of bytes.
+ */
+class FingerprintHasher {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private static final int NULL = 0;
+    private static final int STRING = 1;
+    private static final int LONG = 2;
+    private static final int BOOLEAN = 3;
+    private static final int MAP = 4;
+    private static final int COLLECTION = 5;
+    private static final int OTHER = 6;
+
+    private long h1;
+    private long h2;
+    private long k1;
+    private long k2;
+    private int blockLength;
+    private long length;
+
+    FingerprintHasher putByte(int value) {
+        final long b = value & 0xffL;
+        if (blockLength < 8) {
+            k1 |= b << (blockLength << 3);
+        } else {
+            k2 |= b << ((blockLength - 8) << 3);
+        }
+        length++;
+        if (++blockLength == 16) {
+            mixBlock();
+        }
+        return this;
+    }
+
+    FingerprintHasher putInt(int value) {
+        for (int i = 0; i < 32; i += 8) {
+            putByte(value >>> i);
+        }
+        return this;
+    }
+
+    FingerprintHasher putLong(long value) {
+        for (int i = 0; i < 64; i += 8) {
+            putByte((int) (value >>> i));
+        }
+        return this;
+    }
+
+    FingerprintHasher putString(CharSequence value) {
+        if (value == null) {
+            return putByte(NULL);
+        }
+        putByte(STRING);
+        final int count = value.length();
+        putInt(count);
+        for (int i = 0; i < count; i++) {
+            final char c = value.charAt(i);
+            putByte(c);
+            putByte(c >>> 8);
+        }
+        return this;
+    }
+
+    FingerprintHasher putValue(Object value) {
+        if (value == null) {
+            return putByte(NULL);
+        }
+        if (value instanceof CharSequence) {
+            return putString((CharSequence) value);
+        }
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return putByte(LONG).putLong(((Number) value).longValue());
+        }
+        if (value instanceof Boolean) {
+            return putByte(BOOLEAN).putByte((Boolean) value ? 1 : 0);
+        }
+        if (value instanceof Map) {
+            return putByte(MAP).putMap((Map<?, ?>) value);
+        }
+        if (value instanceof Collection) {
+            final Collection<?> values = (Collection<?>) value;
+            putByte(COLLECTION).putInt(values.size());
+            for (Object item : values) {
+                putValue(item);
+            }
+            return this;
+        }
+        return putByte(OTHER).putString(String.valueOf(value));
+    }
+
+    /**
+     * Feeds the map entries sorted by key, so the result doesn't depend on the map iteration order. Keys that aren't
+     * strings, e.g. in nested maps, are fed and sorted as their string value.
+     */
+    FingerprintHasher putMap(Map<?, ?> values) {
+        final List<Map.Entry<String, Object>> entries = new ArrayList<>(values.size());
+        for (Map.Entry<?, ?> entry : values.entrySet()) {
+            final String name = entry.getKey() != null ? String.valueOf(entry.getKey()) : null;
+            entries.add(new AbstractMap.SimpleImmutableEntry<String, Object>(name, entry.getValue()));
+        }
+        Collections.sort(entries, NullsFirst.INSTANCE);
+        putInt(entries.size());
+        for (Map.Entry<String, Object> entry : entries) {
+            putString(entry.getKey());
+            putValue(entry.getValue());
+        }
+        return this;
+    }
+
+    RequestFingerprint finish() {
+        if (blockLength > 0) {
+            k1 *= C1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= C2;
+            h1 ^= k1;
+            k2 *= C2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= C1;
+            h2 ^= k2;
+        }
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+        return new RequestFingerprint(h1, h2);
+    }
+
+    private void mixBlock() {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        k1 *= C2;
+        h1 ^= k1;
+        h1 = Long.rotateLeft(h1, 27);
+        h1 += h2;
+        h1 = h1 * 5 + 0x52dce729;
+
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        k2 *= C1;
+        h2 ^= k2;
+        h2 = Long.rotateLeft(h2, 31);
+        h2 += h1;
+        h2 = h2 * 5 + 0x38495ab5;
+
+        k1 = 0;
+        k2 = 0;
+        blockLength = 0;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    private enum NullsFirst implements Comparator<Map.Entry<String, Object>> {
+        INSTANCE;
+
+        @Override
+        public int compare(Map.Entry<String, Object> first, Map.Entry<String, Object> second) {
+            final String a = first.getKey();
+            final String b = second.getKey();
+            if (a == null) {
+                return b == null ? 0 : -1;
+            }
+            return b == null ? 1 : a.compareTo(b);
+        }
+    }
+}
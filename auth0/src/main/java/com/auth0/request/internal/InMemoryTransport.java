@@ -0,0 +1,142 @@
+/*
+ * InMemoryTransport.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.request.internal;
+
+import com.auth0.request.transport.Transport;
+import com.auth0.request.transport.TransportCall;
+import com.auth0.request.transport.TransportCallback;
+import com.auth0.request.transport.TransportRequest;
+import com.auth0.request.transport.TransportResponse;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * {@link Transport} that answers the requests with handlers in the same process, without any socket.
+ * Requests bodies are still serialized and responses parsed from bytes like with a real transport, so it can be used
+ * to measure the SDK own costs: building requests, JSON and callback dispatch.
+ * <pre><code>
+ * InMemoryTransport transport = new InMemoryTransport(Executors.newFixedThreadPool(4));
+ * transport.register("/tokeninfo", new InMemoryTransport.Handler() {
+ *     public TransportResponse handle(TransportRequest request) {
+ *         return TransportResponse.create(200, "application/json", profileJson);
+ *     }
+ * });
+ * AuthenticationAPIClient client = new AuthenticationAPIClient(auth0, transport);
+ * </code></pre>
+ */
+public class InMemoryTransport implements Transport {
+
+    private static final byte[] NOT_FOUND = "{\"error\":\"not_found\",\"error_description\":\"Not found\"}".getBytes(Charset.forName("UTF-8"));
+
+    /**
+     * Answers the requests sent to a path
+     */
+    public interface Handler {
+
+        /**
+         * @param request received
+         * @return the response to the request
+         * @throws IOException to fail the request as if the connection was lost
+         */
+        TransportResponse handle(TransportRequest request) throws IOException;
+    }
+
+    private final Map<String, Handler> handlers = new ConcurrentHashMap<>();
+    private final Executor executor;
+
+    /**
+     * Creates a new transport
+     *
+     * @param executor where the handlers of calls sent in the background are run
+     */
+    public InMemoryTransport(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Registers the handler of a path. Requests to a path without handler are answered with 404.
+     *
+     * @param path    of the requests, e.g. '/oauth/ro'
+     * @param handler of the requests
+     * @return this transport
+     */
+    public InMemoryTransport register(String path, Handler handler) {
+        handlers.put(path, handler);
+        return this;
+    }
+
+    @Override
+    public TransportCall newCall(final TransportRequest request) {
+        return new TransportCall() {
+            private volatile boolean canceled;
+
+            @Override
+            public TransportResponse execute() throws IOException {
+                if (canceled) {
+                    throw new IOException("Canceled");
+                }
+                if (request.getTrace() != null) {
+                    request.getTrace().dispatched();
+                }
+                final Handler handler = handlers.get(request.getUrl().encodedPath());
+                if (handler == null) {
+                    return TransportResponse.create(404, JsonRequestBodyBuilder.CONTENT_TYPE, NOT_FOUND);
+                }
+                return handler.handle(request);
+            }
+
+            @Override
+            public void enqueue(final TransportCallback callback) {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        final TransportResponse response;
+                        try {
+                            response = execute();
+                        } catch (IOException e) {
+                            callback.onFailure(e);
+                            return;
+                        } catch (RuntimeException e) {
+                            // a failing handler must not leave the caller waiting for its callback
+                            callback.onFailure(new IOException("Handler of " + request.getUrl().encodedPath() + " failed", e));
+                            return;
+                        }
+                        callback.onResponse(response);
+                    }
+                });
+            }
+
+            @Override
+            public void cancel() {
+                // a handler that is running can't be stopped, only calls not executed yet are
+                canceled = true;
+            }
+        };
+    }
+}
@@ -25,21 +25,20 @@
 package com.auth0.request.internal;
 
 import com.auth0.RequestBodyBuildException;
+import com.auth0.request.transport.TransportRequest;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectWriter;
-import com.squareup.okhttp.MediaType;
-import com.squareup.okhttp.RequestBody;
 
 /**
- * Converts a POJO to JSON stored in a {@link RequestBody}
+ * Converts a POJO to the JSON body of a {@link TransportRequest}
  */
 abstract class JsonRequestBodyBuilder {
 
-    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+    static final String CONTENT_TYPE = "application/json; charset=utf-8";
 
-    public static RequestBody createBody(Object pojo, ObjectWriter writer) throws RequestBodyBuildException {
+    public static byte[] createBody(Object pojo, ObjectWriter writer) throws RequestBodyBuildException {
         try {
-            return RequestBody.create(JSON, writer.writeValueAsBytes(pojo));
+            return writer.writeValueAsBytes(pojo);
         } catch (JsonProcessingException e) {
             throw new RequestBodyBuildException("Failed to convert " + pojo.getClass().getName() + " to JSON", e);
         }
@@ -0,0 +1,182 @@
+/*
+ * OkHttpTransport.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.request.internal;
+
+import com.auth0.request.transport.Transport;
+import com.auth0.request.transport.TransportCall;
+import com.auth0.request.transport.TransportCallback;
+import com.auth0.request.transport.TransportRequest;
+import com.auth0.request.transport.TransportResponse;
+import com.squareup.okhttp.Call;
+import com.squareup.okhttp.Callback;
+import com.squareup.okhttp.Headers;
+import com.squareup.okhttp.Interceptor;
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.RequestBody;
+import com.squareup.okhttp.Response;
+
+import okio.BufferedSink;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * {@link Transport} that sends the requests with an {@link OkHttpClient}.
+ * It works on a copy of the given client with interceptors that report the dispatch, connection and write of the
+ * traced requests, sharing its dispatcher and connection pool.
+ */
+public class OkHttpTransport implements Transport {
+
+    private static final MediaType JSON = MediaType.parse(JsonRequestBodyBuilder.CONTENT_TYPE);
+
+    // runs when the dispatcher starts the call
+    private static final Interceptor DISPATCH_TRACER = new Interceptor() {
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            final Object tag = chain.request().tag();
+            if (tag instanceof RequestTrace) {
+                ((RequestTrace) tag).dispatched();
+            }
+            return chain.proceed(chain.request());
+        }
+    };
+
+    // runs once a connection is acquired, before the request is written
+    private static final Interceptor CONNECTION_TRACER = new Interceptor() {
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            final Object tag = chain.request().tag();
+            if (tag instanceof RequestTrace) {
+                ((RequestTrace) tag).connectionAcquired();
+                if (chain.request().body() == null) {
+                    ((RequestTrace) tag).requestSent();
+                }
+            }
+            return chain.proceed(chain.request());
+        }
+    };
+
+    private final OkHttpClient client;
+
+    public OkHttpTransport(OkHttpClient client) {
+        this.client = client.clone();
+        this.client.interceptors().add(DISPATCH_TRACER);
+        this.client.networkInterceptors().add(CONNECTION_TRACER);
+    }
+
+    public OkHttpClient getClient() {
+        return client;
+    }
+
+    @Override
+    public TransportCall newCall(TransportRequest request) {
+        final Request.Builder builder = new Request.Builder()
+                .url(request.getUrl());
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            builder.addHeader(header.getKey(), header.getValue());
+        }
+        RequestBody body = request.getBody() == null ? null : RequestBody.create(mediaType(request.getContentType()), request.getBody());
+        if (request.getTrace() != null) {
+            builder.tag(request.getTrace());
+            if (body != null) {
+                body = new TracedRequestBody(body, request.getTrace());
+            }
+        }
+        final Call call = client.newCall(builder.method(request.getMethod(), body).build());
+        return new TransportCall() {
+            @Override
+            public TransportResponse execute() throws IOException {
+                return toTransportResponse(call.execute());
+            }
+
+            @Override
+            public void enqueue(final TransportCallback callback) {
+                call.enqueue(new Callback() {
+                    @Override
+                    public void onFailure(Request request, IOException e) {
+                        callback.onFailure(e);
+                    }
+
+                    @Override
+                    public void onResponse(Response response) throws IOException {
+                        callback.onResponse(toTransportResponse(response));
+                    }
+                });
+            }
+
+            @Override
+            public void cancel() {
+                call.cancel();
+            }
+        };
+    }
+
+    private static MediaType mediaType(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        return JsonRequestBodyBuilder.CONTENT_TYPE.equals(contentType) ? JSON : MediaType.parse(contentType);
+    }
+
+    private static TransportResponse toTransportResponse(Response response) throws IOException {
+        final Headers headers = response.headers();
+        final TreeMap<String, String> values = TransportResponse.newHeaders();
+        for (int i = 0; i < headers.size(); i++) {
+            values.put(headers.name(i), headers.value(i));
+        }
+        return new TransportResponse(response.code(), values, response.body().byteStream());
+    }
+
+    private static class TracedRequestBody extends RequestBody {
+
+        private final RequestBody body;
+        private final RequestTrace trace;
+
+        TracedRequestBody(RequestBody body, RequestTrace trace) {
+            this.body = body;
+            this.trace = trace;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return body.contentType();
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            return body.contentLength();
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            body.writeTo(sink);
+            sink.flush();
+            trace.requestSent();
+        }
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * PriorityTransport.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.request.internal;
+
+import com.auth0.request.Priority;
+import com.auth0.request.transport.Transport;
+import com.auth0.request.transport.TransportCall;
+import com.auth0.request.transport.TransportRequest;
+import com.auth0.request.transport.TransportResponse;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Transport} that limits the calls in flight and sends the waiting {@link Priority#INTERACTIVE} calls before
+ * any {@link Priority#BACKGROUND} one, so a batch job doesn't delay the logins of the users.
+ * Background calls are also throttled: they can only take part of the places, and they are held while the
+ * Auth0 rate limit budget is low, that is while the last 'X-RateLimit-Remaining' received is under a threshold and
+ * the time of its 'X-RateLimit-Reset' hasn't been reached.
+ * <pre><code>
+ * PriorityTransport transport = new PriorityTransport(ClientResources.acquire().getTransport(), 32);
+ * AuthenticationAPIClient client = new AuthenticationAPIClient(auth0, transport);
+ * client.requestChangePassword("{email}").start(callback); // background by default
+ * ...
+ * transport.close();
+ * </code></pre>
+ * The transport starts a thread the first time background calls are held by the rate limit, which is stopped by
+ * {@link #close()}.
+ */
+public class PriorityTransport extends AdmissionQueue<Priority> implements Transport {
+
+    static final String RATE_LIMIT_REMAINING_HEADER = "X-RateLimit-Remaining";
+    static final String RATE_LIMIT_RESET_HEADER = "X-RateLimit-Reset";
+    private static final int DEFAULT_MIN_RATE_LIMIT_REMAINING = 10;
+
+    private final Transport transport;
+    private final int maxConcurrent;
+    private final ArrayDeque<Entry> interactive = new ArrayDeque<>();
+    private final ArrayDeque<Entry> background = new ArrayDeque<>();
+    private int maxBackgroundConcurrent;
+    private int minRateLimitRemaining = DEFAULT_MIN_RATE_LIMIT_REMAINING;
+    private int active;
+    private int activeBackground;
+    private long rateLimitRemaining = -1;
+    private long rateLimitResetMillis;
+    private long throttledCount;
+    private ScheduledExecutorService timer;
+    private boolean drainScheduled;
+    private boolean closed;
+
+    /**
+     * @param transport     used to send the calls
+     * @param maxConcurrent calls in flight at the same time, half of them can be background calls
+     */
+    public PriorityTransport(Transport transport, int maxConcurrent) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("maxConcurrent must be positive");
+        }
+        this.transport = transport;
+        this.maxConcurrent = maxConcurrent;
+        this.maxBackgroundConcurrent = Math.max(1, maxConcurrent / 2);
+    }
+
+    /**
+     * Set the maximum number of background calls in flight, the rest of the places are kept for interactive calls.
+     * By default is half of the maximum of calls in flight.
+     *
+     * @param maxBackgroundConcurrent background calls in flight at the same time
+     */
+    public synchronized void setMaxBackgroundConcurrent(int maxBackgroundConcurrent) {
+        this.maxBackgroundConcurrent = maxBackgroundConcurrent;
+    }
+
+    /**
+     * Set the rate limit budget under which background calls are held until the rate limit is reset. By default is 10.
+     *
+     * @param minRateLimitRemaining requests that must remain in the budget to send background calls
+     */
+    public synchronized void setMinRateLimitRemaining(int minRateLimitRemaining) {
+        this.minRateLimitRemaining = minRateLimitRemaining;
+    }
+
+    /**
+     * @return the number of calls in flight
+     */
+    public synchronized int getActiveCount() {
+        return active;
+    }
+
+    /**
+     * @param priority of the calls
+     * @return the number of calls with the given priority waiting to be sent
+     */
+    public synchronized int getQueuedCount(Priority priority) {
+        return priority == Priority.BACKGROUND ? background.size() : interactive.size();
+    }
+
+    /**
+     * @return the last 'X-RateLimit-Remaining' received, or -1 if none was received yet
+     */
+    public synchronized long getRateLimitRemaining() {
+        return rateLimitRemaining;
+    }
+
+    /**
+     * @return the number of background calls that had to wait because the rate limit budget was low
+     */
+    public synchronized long getThrottledCount() {
+        return throttledCount;
+    }
+
+    /**
+     * Stops the timer that sends the background calls held by the rate limit once it's reset, and fails the calls
+     * waiting to be sent with an {@link IOException}, as well as the ones that have to wait afterwards.
+     * The calls in flight are not affected.
+     */
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            if (timer != null) {
+                timer.shutdownNow();
+            }
+            for (Entry entry : interactive) {
+                shed(entry, new IOException("The transport is closed"));
+            }
+            for (Entry entry : background) {
+                shed(entry, new IOException("The transport is closed"));
+            }
+            interactive.clear();
+            background.clear();
+        }
+        drain();
+    }
+
+    @Override
+    public TransportCall newCall(TransportRequest request) {
+        return admit(transport.newCall(request), request.getPriority());
+    }
+
+    @Override
+    protected boolean tryAdmit(Entry entry) {
+        if (closed) {
+            return false;
+        }
+        if (entry.getKey() == Priority.BACKGROUND) {
+            if (!background.isEmpty() || !interactive.isEmpty() || !canStartBackground(System.currentTimeMillis())) {
+                return false;
+            }
+            started(true);
+            return true;
+        }
+        if (active >= maxConcurrent) {
+            return false;
+        }
+        started(false);
+        return true;
+    }
+
+    @Override
+    protected void add(Entry entry) throws IOException {
+        if (closed) {
+            throw new IOException("The transport is closed");
+        }
+        if (entry.getKey() == Priority.BACKGROUND) {
+            final long now = System.currentTimeMillis();
+            if (isRateLimited(now)) {
+                throttledCount++;
+                scheduleDrain(now);
+            }
+            background.add(entry);
+        } else {
+            interactive.add(entry);
+        }
+    }
+
+    @Override
+    protected boolean remove(Entry entry) {
+        return (entry.getKey() == Priority.BACKGROUND ? background : interactive).remove(entry);
+    }
+
+    @Override
+    protected Entry poll() {
+        if (active < maxConcurrent && !interactive.isEmpty()) {
+            started(false);
+            return interactive.poll();
+        }
+        if (background.isEmpty()) {
+            return null;
+        }
+        final long now = System.currentTimeMillis();
+        if (canStartBackground(now)) {
+            started(true);
+            return background.poll();
+        }
+        if (isRateLimited(now)) {
+            scheduleDrain(now);
+        }
+        return null;
+    }
+
+    @Override
+    protected void released(Entry entry) {
+        active--;
+        if (entry.getKey() == Priority.BACKGROUND) {
+            activeBackground--;
+        }
+    }
+
+    private boolean canStartBackground(long now) {
+        return active < maxConcurrent && activeBackground < maxBackgroundConcurrent && !isRateLimited(now);
+    }
+
+    private boolean isRateLimited(long now) {
+        return rateLimitRemaining >= 0 && rateLimitRemaining < minRateLimitRemaining && now < rateLimitResetMillis;
+    }
+
+    private void scheduleDrain(long now) {
+        // the calls held by the rate limit are sent once it's reset, even if no other call finishes meanwhile
+        if (drainScheduled || closed) {
+            return;
+        }
+        drainScheduled = true;
+        if (timer == null) {
+            timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "auth0-background-throttle");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        timer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (PriorityTransport.this) {
+                    drainScheduled = false;
+                }
+                drain();
+            }
+        }, rateLimitResetMillis - now, TimeUnit.MILLISECONDS);
+    }
+
+    private void started(boolean isBackground) {
+        active++;
+        if (isBackground) {
+            activeBackground++;
+        }
+    }
+
+    @Override
+    protected TransportResponse received(TransportResponse response) {
+        final String remaining = response.getHeader(RATE_LIMIT_REMAINING_HEADER);
+        if (remaining == null) {
+            return response;
+        }
+        final String reset = response.getHeader(RATE_LIMIT_RESET_HEADER);
+        try {
+            final long remainingValue = Long.parseLong(remaining.trim());
+            // the reset is a time in seconds since the epoch
+            final long resetMillis = reset == null ? 0 : TimeUnit.SECONDS.toMillis(Long.parseLong(reset.trim()));
+            synchronized (this) {
+                rateLimitRemaining = remainingValue;
+                rateLimitResetMillis = resetMillis;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        return response;
+    }
+}
@@ -25,20 +25,30 @@
 package com.auth0.request.internal;
 
 import com.auth0.authentication.result.Credentials;
+import com.auth0.metrics.MetricsRegistry;
 import com.auth0.request.AuthenticationRequest;
-import com.auth0.request.AuthorizableRequest;
+import com.auth0.request.EndpointGroup;
 import com.auth0.request.ParameterizableRequest;
+import com.auth0.request.RequestListener;
+import com.auth0.request.transport.Bulkhead;
+import com.auth0.request.transport.Transport;
 import com.auth0.util.Telemetry;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.squareup.okhttp.HttpUrl;
-import com.squareup.okhttp.OkHttpClient;
 
+import java.util.EnumMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 public class RequestFactory {
 
+    private final EnumMap<EndpointGroup, Bulkhead> groupBulkheads = new EnumMap<>(EndpointGroup.class);
     private String clientInfo;
     private String userAgent;
+    private RequestListener listener;
+    private MetricsRegistry metrics;
+    private Bulkhead bulkhead;
+    private Executor callbackExecutor;
 
     public void setClientInfo(String clientInfo) {
         this.clientInfo = clientInfo;
@@ -48,62 +58,107 @@ public class RequestFactory {
         this.userAgent = userAgent;
     }
 
-    public <T> ParameterizableRequest<T> GET(HttpUrl url, OkHttpClient client, ObjectMapper mapper, Class<T> clazz) {
-        final SimpleRequest<T> request = new SimpleRequest<>(url, client, mapper, "GET", clazz);
+    public void setListener(RequestListener listener) {
+        this.listener = listener;
+    }
+
+    public void setMetrics(MetricsRegistry metrics) {
+        this.metrics = metrics;
+    }
+
+    public void setCallbackExecutor(Executor callbackExecutor) {
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    public void setBulkhead(Bulkhead bulkhead) {
+        this.bulkhead = bulkhead;
+    }
+
+    public void setBulkhead(EndpointGroup group, Bulkhead bulkhead) {
+        if (bulkhead == null) {
+            groupBulkheads.remove(group);
+        } else {
+            groupBulkheads.put(group, bulkhead);
+        }
+    }
+
+    public Bulkhead getBulkhead(EndpointGroup group) {
+        return groupBulkheads.get(group);
+    }
+
+    public <T> ParameterizableRequest<T> GET(HttpUrl url, Transport transport, ObjectMapper mapper, Class<T> clazz) {
+        final SimpleRequest<T> request = new SimpleRequest<>(url, limit(url, transport), mapper, "GET", clazz);
         addMetrics(request);
         return request;
     }
 
-    public AuthenticationRequest authenticationPOST(HttpUrl url, OkHttpClient client, ObjectMapper mapper) {
-        final BaseAuthenticationRequest request = new BaseAuthenticationRequest(url, client, mapper, "POST", Credentials.class);
+    public AuthenticationRequest authenticationPOST(HttpUrl url, Transport transport, ObjectMapper mapper) {
+        final BaseAuthenticationRequest request = new BaseAuthenticationRequest(url, limit(url, transport), mapper, "POST", Credentials.class);
         addMetrics(request);
         return request;
     }
 
-    public <T> ParameterizableRequest<T> POST(HttpUrl url, OkHttpClient client, ObjectMapper mapper, Class<T> clazz) {
-        final SimpleRequest<T> request = new SimpleRequest<>(url, client, mapper, "POST", clazz);
+    public <T> ParameterizableRequest<T> POST(HttpUrl url, Transport transport, ObjectMapper mapper, Class<T> clazz) {
+        final SimpleRequest<T> request = new SimpleRequest<>(url, limit(url, transport), mapper, "POST", clazz);
         addMetrics(request);
         return request;
     }
 
-    public ParameterizableRequest<Map<String, Object>> rawPOST(HttpUrl url, OkHttpClient client, ObjectMapper mapper) {
-        final SimpleRequest<Map<String, Object>> request = new SimpleRequest<>(url, client, mapper, "POST");
+    public ParameterizableRequest<Map<String, Object>> rawPOST(HttpUrl url, Transport transport, ObjectMapper mapper) {
+        final SimpleRequest<Map<String, Object>> request = new SimpleRequest<>(url, limit(url, transport), mapper, "POST");
         addMetrics(request);
         return request;
     }
 
-    public ParameterizableRequest<Void> POST(HttpUrl url, OkHttpClient client, ObjectMapper mapper) {
-        final VoidRequest request = new VoidRequest(url, client, mapper, "POST");
+    public ParameterizableRequest<Void> POST(HttpUrl url, Transport transport, ObjectMapper mapper) {
+        final VoidRequest request = new VoidRequest(url, limit(url, transport), mapper, "POST");
         addMetrics(request);
         return request;
     }
 
-    public ParameterizableRequest<Void> POST(HttpUrl url, OkHttpClient client, ObjectMapper mapper, String jwt) {
-        final AuthorizableRequest<Void> request = new VoidRequest(url, client, mapper, "POST")
-                .setBearer(jwt);
+    public ParameterizableRequest<Void> POST(HttpUrl url, Transport transport, ObjectMapper mapper, String jwt) {
+        final VoidRequest request = new VoidRequest(url, limit(url, transport), mapper, "POST");
+        request.setBearer(jwt);
         addMetrics(request);
         return request;
     }
 
-    public <T> ParameterizableRequest<T> PUT(HttpUrl url, OkHttpClient client, ObjectMapper mapper, Class<T> clazz) {
-        final SimpleRequest<T> request = new SimpleRequest<>(url, client, mapper, "PUT", clazz);
+    public <T> ParameterizableRequest<T> PUT(HttpUrl url, Transport transport, ObjectMapper mapper, Class<T> clazz) {
+        final SimpleRequest<T> request = new SimpleRequest<>(url, limit(url, transport), mapper, "PUT", clazz);
         addMetrics(request);
         return request;
     }
 
-    public <T> ParameterizableRequest<T> PATCH(HttpUrl url, OkHttpClient client, ObjectMapper mapper, Class<T> clazz) {
-        final SimpleRequest<T> request = new SimpleRequest<>(url, client, mapper, "GET", clazz);
+    public <T> ParameterizableRequest<T> PATCH(HttpUrl url, Transport transport, ObjectMapper mapper, Class<T> clazz) {
+        final SimpleRequest<T> request = new SimpleRequest<>(url, limit(url, transport), mapper, "GET", clazz);
         addMetrics(request);
         return request;
     }
 
-    public <T> ParameterizableRequest<T> DELETE(HttpUrl url, OkHttpClient client, ObjectMapper mapper, Class<T> clazz) {
-        final SimpleRequest<T> request = new SimpleRequest<>(url, client, mapper, "DELETE", clazz);
+    public <T> ParameterizableRequest<T> DELETE(HttpUrl url, Transport transport, ObjectMapper mapper, Class<T> clazz) {
+        final SimpleRequest<T> request = new SimpleRequest<>(url, limit(url, transport), mapper, "DELETE", clazz);
         addMetrics(request);
         return request;
     }
 
-    private <T> void addMetrics(ParameterizableRequest<T> request) {
+    private Transport limit(HttpUrl url, Transport transport) {
+        // the bulkhead of the endpoint group is acquired first, so a saturated group doesn't hold places of the shared one
+        if (bulkhead != null) {
+            transport = new BulkheadTransport(transport, bulkhead);
+        }
+        if (!groupBulkheads.isEmpty()) {
+            final Bulkhead groupBulkhead = groupBulkheads.get(EndpointGroup.of(url.pathSegments().get(0)));
+            if (groupBulkhead != null) {
+                transport = new BulkheadTransport(transport, groupBulkhead);
+            }
+        }
+        return transport;
+    }
+
+    private <T> void addMetrics(BaseRequest<T> request) {
+        request.setListener(listener);
+        request.setMetrics(metrics);
+        request.setCallbackExecutor(callbackExecutor);
         if (this.clientInfo != null) {
             request.addHeader(Telemetry.HEADER_NAME, this.clientInfo);
         }
@@ -0,0 +1,115 @@
+/*
+ * RequestTrace.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.request.internal;
+
+import com.auth0.request.RequestEvent;
+import com.auth0.request.RequestListener;
+import com.auth0.request.transport.TransportRequest;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reports the phases of a single request to a {@link RequestListener}. It's only created when a listener is
+ * registered, so requests without one don't pay for the events. Transports get it from
+ * {@link TransportRequest#getTrace()} to report the phases only they can observe.
+ */
+public final class RequestTrace {
+
+    private static final Logger LOGGER = Logger.getLogger(RequestTrace.class.getName());
+    private static final AtomicLong IDS = new AtomicLong();
+
+    private final RequestListener listener;
+    private final long id;
+    private final String method;
+    private final String endpoint;
+    private final Map<String, Object> parameters;
+    long requestBytes;
+    volatile long responseBytes;
+
+    RequestTrace(RequestListener listener, String method, String endpoint, Map<String, Object> parameters) {
+        this.listener = listener;
+        this.id = IDS.incrementAndGet();
+        this.method = method;
+        this.endpoint = endpoint;
+        this.parameters = parameters;
+    }
+
+    /**
+     * The transport began to send the request
+     */
+    public void dispatched() {
+        event(RequestEvent.Phase.DISPATCHED, 0, null);
+    }
+
+    /**
+     * The transport opened a connection or took one from its pool
+     */
+    public void connectionAcquired() {
+        event(RequestEvent.Phase.CONNECTION_ACQUIRED, 0, null);
+    }
+
+    /**
+     * The transport wrote the whole request
+     */
+    public void requestSent() {
+        event(RequestEvent.Phase.REQUEST_SENT, 0, null);
+    }
+
+    void event(RequestEvent.Phase phase, int statusCode, Throwable error) {
+        try {
+            listener.onEvent(new RequestEvent(id, phase, method, endpoint, statusCode, System.nanoTime(), requestBytes, responseBytes, parameters, error));
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Request listener failed to handle phase " + phase + " of " + method + " " + endpoint, e);
+        }
+    }
+
+    InputStream countResponseBytes(InputStream body) {
+        return new FilterInputStream(body) {
+            @Override
+            public int read() throws IOException {
+                final int read = super.read();
+                if (read != -1) {
+                    responseBytes++;
+                }
+                return read;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                final int read = super.read(buffer, offset, length);
+                if (read > 0) {
+                    responseBytes += read;
+                }
+                return read;
+            }
+        };
+    }
+}
@@ -24,82 +24,109 @@
 
 package com.auth0.request.internal;
 
-import com.auth0.Auth0Exception;
 import com.auth0.APIException;
-import com.auth0.request.ParameterizableRequest;
+import com.auth0.Auth0Exception;
 import com.auth0.RequestBodyBuildException;
+import com.auth0.request.ParameterizableRequest;
+import com.auth0.request.transport.Transport;
+import com.auth0.request.transport.TransportRequest;
+import com.auth0.request.transport.TransportResponse;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.squareup.okhttp.Callback;
 import com.squareup.okhttp.HttpUrl;
-import com.squareup.okhttp.OkHttpClient;
-import com.squareup.okhttp.Request;
-import com.squareup.okhttp.RequestBody;
-import com.squareup.okhttp.Response;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Map;
 
-class SimpleRequest<T> extends BaseRequest<T> implements ParameterizableRequest<T>, Callback {
+class SimpleRequest<T> extends BaseRequest<T> implements ParameterizableRequest<T> {
 
     private final String method;
 
-    public SimpleRequest(HttpUrl url, OkHttpClient client, ObjectMapper mapper, String httpMethod, Class<T> clazz) {
-        super(url, client, mapper.reader(clazz), mapper.reader(new TypeReference<Map<String, Object>>() {}), mapper.writer());
+    public SimpleRequest(HttpUrl url, Transport transport, ObjectMapper mapper, String httpMethod, Class<T> clazz) {
+        super(url, transport, mapper.reader(clazz), mapper.reader(new TypeReference<Map<String, Object>>() {}), mapper.writer());
         this.method = httpMethod;
     }
 
-    public SimpleRequest(HttpUrl url, OkHttpClient client, ObjectMapper mapper, String httpMethod) {
-        super(url, client, mapper.reader(new TypeReference<Map<String, Object>>() {}), mapper.reader(new TypeReference<Map<String, Object>>() {}), mapper.writer());
+    public SimpleRequest(HttpUrl url, Transport transport, ObjectMapper mapper, String httpMethod) {
+        super(url, transport, mapper.reader(new TypeReference<Map<String, Object>>() {}), mapper.reader(new TypeReference<Map<String, Object>>() {}), mapper.writer());
         this.method = httpMethod;
     }
 
     @Override
-    public void onResponse(Response response) throws IOException {
+    protected void handleResponse(TransportResponse response) {
+        response = traceResponse(response);
         if (!response.isSuccessful()) {
             APIException exception = parseUnsuccessfulResponse(response);
             postOnFailure(exception);
             return;
         }
 
+        final T payload;
         try {
-            final InputStream byteStream = response.body().byteStream();
-            T payload = getReader().readValue(byteStream);
-            postOnSuccess(payload);
+            final InputStream byteStream = response.getBody();
+            payload = getReader().readValue(byteStream);
         } catch (IOException e) {
             postOnFailure(new Auth0Exception("Failed to parse response to request to " + url, e));
+            return;
+        } finally {
+            closeQuietly(response);
         }
+        traceCompleted(response.getCode());
+        postOnSuccess(payload);
+    }
+
+    @Override
+    protected String getHttpMethod() {
+        return method;
     }
 
     @Override
-    protected Request doBuildRequest(Request.Builder builder) throws RequestBodyBuildException {
-        RequestBody body = buildBody();
-        return newBuilder()
-                .method(method, body)
-                .build();
+    protected TransportRequest doBuildRequest() throws RequestBodyBuildException {
+        byte[] body = "GET".equals(method) ? null : buildBody();
+        return newRequest(body);
     }
 
     @Override
     public T execute() throws Auth0Exception {
-        Request request = doBuildRequest(newBuilder());
+        traceStart();
+        try {
+            return doExecute();
+        } catch (Auth0Exception e) {
+            final Auth0Exception failure = canceledOr(e);
+            traceFailure(failure);
+            throw failure;
+        } catch (RuntimeException e) {
+            traceUnexpectedFailure(e);
+            throw e;
+        }
+    }
+
+    private T doExecute() throws Auth0Exception {
+        TransportRequest request = doBuildRequest();
 
-        Response response;
+        TransportResponse response;
         try {
-            response = client.newCall(request).execute();
+            response = newCall(request).execute();
         } catch (IOException e) {
-            throw new Auth0Exception("Failed to execute request to " + url, e);
+            throw executionFailure(e);
         }
 
+        response = traceResponse(response);
         if (!response.isSuccessful()) {
             throw parseUnsuccessfulResponse(response);
         }
 
+        final T payload;
         try {
-            final InputStream byteStream = response.body().byteStream();
-            return getReader().readValue(byteStream);
+            final InputStream byteStream = response.getBody();
+            payload = getReader().readValue(byteStream);
         } catch (IOException e) {
             throw new Auth0Exception("Failed to parse response to request to " + url, e);
+        } finally {
+            closeQuietly(response);
         }
+        traceCompleted(response.getCode());
+        return payload;
     }
 }
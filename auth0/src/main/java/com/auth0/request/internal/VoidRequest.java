@@ -24,62 +24,83 @@
 
 package com.auth0.request.internal;
 
-import com.auth0.Auth0Exception;
 import com.auth0.APIException;
+import com.auth0.Auth0Exception;
+import com.auth0.request.transport.Transport;
+import com.auth0.request.transport.TransportRequest;
+import com.auth0.request.transport.TransportResponse;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.squareup.okhttp.Callback;
 import com.squareup.okhttp.HttpUrl;
-import com.squareup.okhttp.OkHttpClient;
-import com.squareup.okhttp.Request;
-import com.squareup.okhttp.RequestBody;
-import com.squareup.okhttp.Response;
 
 import java.io.IOException;
 import java.util.Map;
 
-class VoidRequest extends BaseRequest<Void> implements Callback {
+class VoidRequest extends BaseRequest<Void> {
 
     private final String httpMethod;
 
-    public VoidRequest(HttpUrl url, OkHttpClient client, ObjectMapper mapper, String httpMethod) {
-        super(url, client, null, mapper.reader(new TypeReference<Map<String, Object>>() {}), mapper.writer());
+    public VoidRequest(HttpUrl url, Transport transport, ObjectMapper mapper, String httpMethod) {
+        super(url, transport, null, mapper.reader(new TypeReference<Map<String, Object>>() {}), mapper.writer());
         this.httpMethod = httpMethod;
     }
 
     @Override
-    public void onResponse(Response response) throws IOException {
+    protected void handleResponse(TransportResponse response) {
+        response = traceResponse(response);
         if (!response.isSuccessful()) {
             APIException exception = parseUnsuccessfulResponse(response);
             postOnFailure(exception);
             return;
         }
 
+        closeQuietly(response);
+        traceCompleted(response.getCode());
         postOnSuccess(null);
     }
 
     @Override
-    protected Request doBuildRequest(Request.Builder builder) {
-        RequestBody body = buildBody();
-        return newBuilder()
-                .method(httpMethod, body)
-                .build();
+    protected String getHttpMethod() {
+        return httpMethod;
+    }
+
+    @Override
+    protected TransportRequest doBuildRequest() {
+        byte[] body = buildBody();
+        return newRequest(body);
     }
 
     @Override
     public Void execute() throws Auth0Exception {
-        Request request = doBuildRequest(newBuilder());
+        traceStart();
+        try {
+            return doExecute();
+        } catch (Auth0Exception e) {
+            final Auth0Exception failure = canceledOr(e);
+            traceFailure(failure);
+            throw failure;
+        } catch (RuntimeException e) {
+            traceUnexpectedFailure(e);
+            throw e;
+        }
+    }
+
+    private Void doExecute() throws Auth0Exception {
+        TransportRequest request = doBuildRequest();
 
-        Response response;
+        TransportResponse response;
         try {
-            response = client.newCall(request).execute();
+            response = newCall(request).execute();
         } catch (IOException e) {
-            throw new Auth0Exception("Failed to execute request to " + url.toString(), e);
+            throw executionFailure(e);
         }
 
+        response = traceResponse(response);
         if (!response.isSuccessful()) {
             throw parseUnsuccessfulResponse(response);
         }
+        closeQuietly(response);
+        traceCompleted(response.getCode());
         return null;
     }
 }
@@ -0,0 +1,267 @@
+/*
+ * Bulkhead.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.request.transport;
+
+import com.auth0.request.internal.AdmissionQueue;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the number of calls in flight at the same time, so a group of requests can't take all the threads
+ * and connections shared with others. Calls over the limit wait in order until another one finishes, which happens
+ * when the body of its response is closed or the call fails: {@link TransportCall#execute()} blocks the caller,
+ * while {@link TransportCall#enqueue(TransportCallback)} queues the call without blocking, but both wait in the same
+ * queue and take the freed places in the order they arrived.
+ * <p>
+ * The queue of waiting calls can be bounded, and the {@link RejectionPolicy} decides what happens when it's full.
+ * With a queue timeout, calls that waited longer are shed: they fail with a {@link RejectedCallException}
+ * instead of being sent, since their caller has most likely given up. A queued call that is cancelled leaves the
+ * queue right away.
+ */
+public class Bulkhead {
+
+    private static final long MAX_BLOCK_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final String name;
+    private final int maxConcurrent;
+    // all the state is guarded by the queue
+    private final Queue queue = new Queue();
+
+    /**
+     * @param name          to identify the bulkhead in metrics
+     * @param maxConcurrent calls in flight at the same time
+     */
+    public Bulkhead(String name, int maxConcurrent) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("maxConcurrent must be positive");
+        }
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    /**
+     * Bounds the queue of calls waiting for a place. By default it's not bounded.
+     *
+     * @param maxQueued       calls waiting at the same time
+     * @param rejectionPolicy what to do with a call that finds the queue full
+     */
+    public void setMaxQueued(int maxQueued, RejectionPolicy rejectionPolicy) {
+        synchronized (queue) {
+            queue.maxQueued = maxQueued;
+            queue.rejectionPolicy = rejectionPolicy;
+            queue.notifyAll();
+        }
+    }
+
+    /**
+     * Set the time after which a queued call is shed instead of sent. By default calls wait as long as needed.
+     *
+     * @param timeout of the queued calls, or 0 to not shed them
+     * @param unit    of the timeout
+     */
+    public void setQueueTimeout(long timeout, TimeUnit unit) {
+        synchronized (queue) {
+            queue.queueTimeoutNanos = unit.toNanos(timeout);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * @return the number of calls in flight
+     */
+    public int getActiveCount() {
+        synchronized (queue) {
+            return queue.active;
+        }
+    }
+
+    /**
+     * @return the number of calls waiting for another one to finish
+     */
+    public int getQueuedCount() {
+        synchronized (queue) {
+            return queue.queued.size();
+        }
+    }
+
+    /**
+     * @return the maximum number of calls that were in flight at the same time
+     */
+    public int getPeakCount() {
+        synchronized (queue) {
+            return queue.peak;
+        }
+    }
+
+    /**
+     * @return the number of calls started so far
+     */
+    public long getCallCount() {
+        synchronized (queue) {
+            return queue.callCount;
+        }
+    }
+
+    /**
+     * @return the number of calls that failed because the queue was full when they had to wait
+     */
+    public long getRejectedCount() {
+        synchronized (queue) {
+            return queue.rejectedCount;
+        }
+    }
+
+    /**
+     * @return the number of queued calls that failed because they waited longer than the queue timeout,
+     * or were dropped to make room for a newer one
+     */
+    public long getShedCount() {
+        synchronized (queue) {
+            return queue.shedCount;
+        }
+    }
+
+    /**
+     * Wraps a call so it's only sent once there is room in the bulkhead
+     *
+     * @param call to limit
+     * @return a call that acquires a place in the bulkhead before sending the request
+     */
+    public TransportCall wrap(TransportCall call) {
+        return queue.wrap(call);
+    }
+
+    private final class Queue extends AdmissionQueue<Void> {
+        private final ArrayDeque<Entry> queued = new ArrayDeque<>();
+        private int maxQueued = Integer.MAX_VALUE;
+        private RejectionPolicy rejectionPolicy = RejectionPolicy.FAIL_FAST;
+        private long queueTimeoutNanos;
+        private int active;
+        private int peak;
+        private long callCount;
+        private long rejectedCount;
+        private long shedCount;
+
+        private TransportCall wrap(TransportCall call) {
+            return admit(call, null);
+        }
+
+        @Override
+        protected boolean tryAdmit(Entry entry) {
+            if (active >= maxConcurrent) {
+                return false;
+            }
+            started();
+            return true;
+        }
+
+        @Override
+        protected void add(Entry entry) throws IOException {
+            while (queued.size() >= maxQueued && rejectionPolicy == RejectionPolicy.BLOCK) {
+                if (entry.isCanceled()) {
+                    throw new IOException("Canceled");
+                }
+                // a caller can be a thread of the HTTP client, so it's never blocked for long
+                final long blockNanos = queueTimeoutNanos > 0 ? queueTimeoutNanos : MAX_BLOCK_NANOS;
+                final long remainingNanos = entry.getQueuedNanos() + blockNanos - System.nanoTime();
+                if (remainingNanos <= 0) {
+                    rejectedCount++;
+                    throw new RejectedCallException("Waited too long for room in the queue of bulkhead " + name);
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for room in bulkhead " + name);
+                }
+            }
+            if (!queued.isEmpty() && queued.size() >= maxQueued && rejectionPolicy == RejectionPolicy.DROP_OLDEST
+                    && isExpired(queued.peek(), System.nanoTime())) {
+                shedCount++;
+                shed(queued.poll(), new RejectedCallException("Dropped from the full queue of bulkhead " + name));
+            }
+            if (queued.size() >= maxQueued) {
+                rejectedCount++;
+                throw new RejectedCallException("The queue of bulkhead " + name + " is full");
+            }
+            queued.add(entry);
+        }
+
+        @Override
+        protected boolean remove(Entry entry) {
+            if (!queued.remove(entry)) {
+                return false;
+            }
+            // makes room for a caller blocked by a full queue
+            notifyAll();
+            return true;
+        }
+
+        @Override
+        protected Entry poll() {
+            if (active >= maxConcurrent || queued.isEmpty()) {
+                return null;
+            }
+            final long now = System.nanoTime();
+            Entry next = queued.poll();
+            while (next != null && isExpired(next, now)) {
+                shedCount++;
+                shed(next, new RejectedCallException("Waited longer than the queue timeout of bulkhead " + name));
+                next = queued.poll();
+            }
+            // makes room for a caller blocked by a full queue
+            notifyAll();
+            if (next != null) {
+                started();
+            }
+            return next;
+        }
+
+        @Override
+        protected void released(Entry entry) {
+            active--;
+        }
+
+        private boolean isExpired(Entry entry, long now) {
+            return queueTimeoutNanos > 0 && now - entry.getQueuedNanos() >= queueTimeoutNanos;
+        }
+
+        private void started() {
+            active++;
+            callCount++;
+            peak = Math.max(peak, active);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * RejectionPolicy.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.request.transport;
+
+/**
+ * What a {@link Bulkhead} does with a call enqueued when its queue is full
+ */
+public enum RejectionPolicy {
+    /**
+     * The new call fails right away with a {@link RejectedCallException}
+     */
+    FAIL_FAST,
+    /**
+     * The thread that sends the new call waits until there is room in the queue, for at most the queue timeout of the
+     * bulkhead, or 10 seconds without one. Then the new call fails with a {@link RejectedCallException}.
+     */
+    BLOCK,
+    /**
+     * The oldest queued call fails with a {@link RejectedCallException} to make room for the new one, as long as it
+     * has waited longer than the queue timeout. Otherwise, or without queue timeout, the new call fails.
+     */
+    DROP_OLDEST
+}
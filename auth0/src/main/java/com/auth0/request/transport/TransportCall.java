@@ -0,0 +1,55 @@
+/*
+ * TransportCall.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.request.transport;
+
+import java.io.IOException;
+
+/**
+ * A request ready to be executed by a {@link Transport}
+ */
+public interface TransportCall {
+
+    /**
+     * Sends the request and waits for its response in the calling thread
+     *
+     * @return the response, that must be closed once consumed
+     * @throws IOException if the request could not be sent or the response could not be received
+     */
+    TransportResponse execute() throws IOException;
+
+    /**
+     * Sends the request in the background
+     *
+     * @param callback notified with the response or the failure
+     */
+    void enqueue(TransportCallback callback);
+
+    /**
+     * Cancels the call: if it's waiting to be sent it's never sent, and if it's in flight its connection is released.
+     * A call that was executed or enqueued fails with an {@link IOException}, unless it already completed.
+     * Cancelling a completed call does nothing.
+     */
+    void cancel();
+}
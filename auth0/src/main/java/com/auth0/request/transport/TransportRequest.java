@@ -0,0 +1,119 @@
+/*
+ * TransportRequest.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.request.transport;
+
+import com.auth0.request.Priority;
+import com.auth0.request.internal.RequestTrace;
+import com.squareup.okhttp.HttpUrl;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * HTTP request sent by a {@link Transport}
+ */
+public final class TransportRequest {
+
+    private final String method;
+    private final HttpUrl url;
+    private final Map<String, String> headers;
+    private final String contentType;
+    private final byte[] body;
+    private final RequestTrace trace;
+    private final Priority priority;
+
+    /**
+     * @param method      HTTP method
+     * @param url         to send the request to
+     * @param headers     of the request
+     * @param contentType of the body or null if it has no body
+     * @param body        of the request or null if it has none
+     */
+    public TransportRequest(String method, HttpUrl url, Map<String, String> headers, String contentType, byte[] body) {
+        this(method, url, headers, contentType, body, null);
+    }
+
+    /**
+     * @param method      HTTP method
+     * @param url         to send the request to
+     * @param headers     of the request
+     * @param contentType of the body or null if it has no body
+     * @param body        of the request or null if it has none
+     * @param trace       of the request or null if no listener is registered
+     */
+    public TransportRequest(String method, HttpUrl url, Map<String, String> headers, String contentType, byte[] body, RequestTrace trace) {
+        this(method, url, headers, contentType, body, trace, Priority.INTERACTIVE);
+    }
+
+    /**
+     * @param method      HTTP method
+     * @param url         to send the request to
+     * @param headers     of the request
+     * @param contentType of the body or null if it has no body
+     * @param body        of the request or null if it has none
+     * @param trace       of the request or null if no listener is registered
+     * @param priority    of the request when it has to wait to be sent
+     */
+    public TransportRequest(String method, HttpUrl url, Map<String, String> headers, String contentType, byte[] body, RequestTrace trace, Priority priority) {
+        this.method = method;
+        this.url = url;
+        this.headers = Collections.unmodifiableMap(headers);
+        this.contentType = contentType;
+        this.body = body;
+        this.trace = trace;
+        this.priority = priority;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public HttpUrl getUrl() {
+        return url;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    /**
+     * @return the trace where the transport reports the phases it observes, or null if nobody listens to them
+     */
+    public RequestTrace getTrace() {
+        return trace;
+    }
+
+    public Priority getPriority() {
+        return priority;
+    }
+}
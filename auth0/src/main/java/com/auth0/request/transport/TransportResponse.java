@@ -0,0 +1,145 @@
+/*
+ * TransportResponse.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.request.transport;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * HTTP response received by a {@link Transport}. Its body is streamed and must be closed once consumed.
+ */
+public final class TransportResponse implements Closeable {
+
+    private final int code;
+    private final Map<String, String> headers;
+    private final InputStream body;
+
+    /**
+     * @param code    HTTP status code
+     * @param headers of the response, looked up ignoring case
+     * @param body    of the response
+     */
+    public TransportResponse(int code, Map<String, String> headers, InputStream body) {
+        this.code = code;
+        this.headers = Collections.unmodifiableMap(caseInsensitive(headers));
+        this.body = body;
+    }
+
+    private TransportResponse(TransportResponse response, InputStream body) {
+        this.code = response.code;
+        this.headers = response.headers;
+        this.body = body;
+    }
+
+    /**
+     * Creates a response with a body already in memory
+     *
+     * @param code        HTTP status code
+     * @param contentType of the body
+     * @param body        of the response
+     * @return a new response
+     */
+    public static TransportResponse create(int code, String contentType, byte[] body) {
+        return new TransportResponse(code, Collections.singletonMap("Content-Type", contentType), new ByteArrayInputStream(body));
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * @return true if the status code is in the 2xx range
+     */
+    public boolean isSuccessful() {
+        return code >= 200 && code < 300;
+    }
+
+    /**
+     * @param name of the header, ignoring case
+     * @return its value or null if the response doesn't have it
+     */
+    public String getHeader(String name) {
+        return headers.get(name);
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public InputStream getBody() {
+        return body;
+    }
+
+    /**
+     * Returns the same response with an action to run the first time its body is closed,
+     * e.g. to release the resources held while the body is read
+     *
+     * @param action to run once
+     * @return a response with the same status, headers and body
+     */
+    public TransportResponse onClose(final Runnable action) {
+        final AtomicBoolean closed = new AtomicBoolean();
+        return new TransportResponse(this, new FilterInputStream(body) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    if (closed.compareAndSet(false, true)) {
+                        action.run();
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * @return an empty map of headers that ignores the case of their names
+     */
+    public static TreeMap<String, String> newHeaders() {
+        return new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    }
+
+    private static Map<String, String> caseInsensitive(Map<String, String> headers) {
+        if (headers instanceof TreeMap && ((TreeMap<String, String>) headers).comparator() == String.CASE_INSENSITIVE_ORDER) {
+            return headers;
+        }
+        final Map<String, String> copy = newHeaders();
+        copy.putAll(headers);
+        return copy;
+    }
+
+    @Override
+    public void close() throws IOException {
+        body.close();
+    }
+}
@@ -1,12 +1,10 @@
 package com.auth0.util;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-
-import java.util.HashMap;
-import java.util.Map;
-
-public class Telemetry {
+/**
+ * Immutable information about the SDK sent to Auth0 in the 'Auth0-Client' header of every request.
+ * The header value is encoded once, when the instance is created, so it can be shared by any number of clients.
+ */
+public final class Telemetry {
     public static final String HEADER_NAME = "Auth0-Client";
 
     private static final String NAME_KEY = "name";
@@ -16,6 +14,7 @@ public class Telemetry {
     private final String name;
     private final String version;
     private final String libraryVersion;
+    private final String value;
 
     public Telemetry(String name, String version) {
         this(name, version, null);
@@ -25,27 +24,64 @@ public class Telemetry {
         this.name = name;
         this.version = version;
         this.libraryVersion = libraryVersion;
+        this.value = encode(name, version, libraryVersion);
     }
 
+    public String getName() {
+        return name;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public String getLibraryVersion() {
+        return libraryVersion;
+    }
+
+    /**
+     * @return the value of the 'Auth0-Client' header, or null if there is no information to send
+     */
     public String getValue() {
-        Map<String, String> values = new HashMap<>();
-        if (name != null) {
-            values.put(NAME_KEY, name);
-        }
-        if (version != null) {
-            values.put(VERSION_KEY, version);
+        return value;
+    }
+
+    private static String encode(String name, String version, String libraryVersion) {
+        // a flat object of three strings doesn't need Jackson, which is costly to bootstrap per client
+        final StringBuilder json = new StringBuilder(64).append('{');
+        appendField(json, NAME_KEY, name);
+        appendField(json, VERSION_KEY, version);
+        appendField(json, LIB_VERSION_KEY, libraryVersion);
+        if (json.length() == 1) {
+            return null;
         }
-        if (libraryVersion != null) {
-            values.put(LIB_VERSION_KEY, libraryVersion);
+        return Base64.encodeUrlSafe(json.append('}').toString());
+    }
+
+    private static void appendField(StringBuilder json, String key, String value) {
+        if (value == null) {
+            return;
         }
-        if (values.isEmpty()) {
-            return null;
+        if (json.length() > 1) {
+            json.append(',');
         }
-        try {
-            String json = new ObjectMapper().writeValueAsString(values);
-            return Base64.encodeUrlSafe(json);
-        } catch (JsonProcessingException e) {
-            return null;
+        appendString(json, key);
+        json.append(':');
+        appendString(json, value);
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
         }
+        json.append('"');
     }
 }
@@ -26,11 +26,19 @@ package com.auth0.authentication;
 
 
 import com.auth0.Auth0;
+import com.auth0.RequestCanceledException;
+import com.auth0.authentication.cache.OffHeapProfileCache;
 import com.auth0.authentication.result.Authentication;
 import com.auth0.authentication.result.Credentials;
 import com.auth0.authentication.result.DatabaseUser;
 import com.auth0.authentication.result.Delegation;
 import com.auth0.authentication.result.UserProfile;
+import com.auth0.metrics.EndpointSnapshot;
+import com.auth0.metrics.MetricsRegistry;
+import com.auth0.request.Request;
+import com.auth0.request.RequestEvent;
+import com.auth0.request.RequestListener;
+import com.auth0.request.internal.ClientResources;
 import com.auth0.util.AuthenticationAPI;
 import com.auth0.util.MockBaseCallback;
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -41,8 +49,16 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Base64;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static com.auth0.util.AuthenticationAPI.GENERIC_TOKEN;
 import static com.auth0.util.AuthenticationAPI.ID_TOKEN;
@@ -50,13 +66,18 @@ import static com.auth0.util.AuthenticationAPI.REFRESH_TOKEN;
 import static com.auth0.util.CallbackMatcher.hasNoError;
 import static com.auth0.util.CallbackMatcher.hasPayload;
 import static com.auth0.util.CallbackMatcher.hasPayloadOfType;
+import static com.jayway.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasEntry;
 import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 
 public class AuthenticationAPIClientTest {
 
@@ -86,6 +107,7 @@ public class AuthenticationAPIClientTest {
 
     @After
     public void tearDown() throws Exception {
+        client.close();
         mockAPI.shutdown();
     }
 
@@ -97,6 +119,17 @@ public class AuthenticationAPIClientTest {
         assertThat(client.getBaseURL(), equalTo("https://samples.auth0.com"));
     }
 
+    @Test
+    public void shouldReleaseSharedResourcesOnClose() throws Exception {
+        final int count = ClientResources.getReferenceCount();
+        AuthenticationAPIClient client = new AuthenticationAPIClient(new Auth0(CLIENT_ID, DOMAIN));
+        assertThat(ClientResources.getReferenceCount(), is(count + 1));
+
+        client.close();
+        client.close();
+        assertThat(ClientResources.getReferenceCount(), is(count));
+    }
+
     @Test
     public void shouldLoginWithUserAndPassword() throws Exception {
         mockAPI
@@ -151,6 +184,89 @@ public class AuthenticationAPIClientTest {
         assertThat(request.getPath(), equalTo("/tokeninfo"));
     }
 
+    @Test
+    public void shouldFetchTokenInfoFromCache() throws Exception {
+        mockAPI.willReturnTokenInfo();
+        client.setProfileCache(new OffHeapProfileCache(10, 4096, 60000));
+        final String idToken = idTokenExpiringAt(System.currentTimeMillis() / 1000 + 3600);
+
+        final UserProfile profile = client
+                .tokenInfo(idToken)
+                .execute();
+        final UserProfile cached = client
+                .tokenInfo(idToken)
+                .execute();
+
+        assertThat(cached.getId(), equalTo(profile.getId()));
+        assertThat(cached.getEmail(), equalTo(profile.getEmail()));
+        assertThat(mockAPI.takeRequest().getPath(), equalTo("/tokeninfo"));
+        assertThat(mockAPI.getRequestCount(), is(1));
+    }
+
+    @Test
+    public void shouldDeliverTokenInfoFromCacheThroughCallbackExecutor() throws Exception {
+        mockAPI.willReturnTokenInfo();
+        client.setProfileCache(new OffHeapProfileCache(10, 4096, 60000));
+        final MetricsRegistry metrics = new MetricsRegistry();
+        client.setMetricsRegistry(metrics);
+        final List<RequestEvent.Phase> phases = new CopyOnWriteArrayList<>();
+        client.setRequestListener(new RequestListener() {
+            @Override
+            public void onEvent(RequestEvent event) {
+                phases.add(event.getPhase());
+            }
+        });
+        final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                return new Thread(runnable, "auth0-callbacks");
+            }
+        });
+        client.setCallbackExecutor(executor);
+        final String idToken = idTokenExpiringAt(System.currentTimeMillis() / 1000 + 3600);
+        client.tokenInfo(idToken).execute();
+        phases.clear();
+
+        final AtomicReference<String> callbackThread = new AtomicReference<>();
+        final MockBaseCallback<UserProfile> callback = new MockBaseCallback<UserProfile>() {
+            @Override
+            public void onSuccess(UserProfile payload) {
+                callbackThread.set(Thread.currentThread().getName());
+                super.onSuccess(payload);
+            }
+        };
+        client.tokenInfo(idToken).start(callback);
+
+        await().until(callback.payload(), is(notNullValue()));
+        executor.shutdown();
+        assertThat(callbackThread.get(), equalTo("auth0-callbacks"));
+        assertThat(mockAPI.getRequestCount(), is(1));
+        await().until(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                return phases.size();
+            }
+        }, is(3));
+        assertThat(phases, contains(RequestEvent.Phase.QUEUED, RequestEvent.Phase.BODY_PARSED, RequestEvent.Phase.CALLBACK_DELIVERED));
+        final EndpointSnapshot snapshot = metrics.snapshot().getEndpoint("/tokeninfo");
+        assertThat(snapshot.getLatency(MetricsRegistry.OUTCOME_CACHED).getCount(), is(1L));
+        assertThat(snapshot.getErrorCount(), is(0L));
+        assertThat(snapshot.getInFlight(), is(0L));
+    }
+
+    @Test
+    public void shouldNotFetchTokenInfoOfExpiredTokenFromCache() throws Exception {
+        mockAPI.willReturnTokenInfo()
+                .willReturnTokenInfo();
+        client.setProfileCache(new OffHeapProfileCache(10, 4096, 60000));
+        final String idToken = idTokenExpiringAt(System.currentTimeMillis() / 1000 - 60);
+
+        client.tokenInfo(idToken).execute();
+        client.tokenInfo(idToken).execute();
+
+        assertThat(mockAPI.getRequestCount(), is(2));
+    }
+
     @Test
     public void shouldLoginWithOAuthAccessToken() throws Exception {
         mockAPI
@@ -1172,6 +1288,82 @@ public class AuthenticationAPIClientTest {
         assertThat(callback, hasPayloadOfType(Authentication.class));
     }
 
+    @Test
+    public void shouldNotFetchProfileWhenCanceledAfterLogin() throws Exception {
+        mockAPI
+                .willReturnSuccessfulLogin()
+                .willReturnTokenInfo();
+        final AtomicReference<Request<?>> canceled = new AtomicReference<>();
+        cancelOnceParsed("/oauth/ro", canceled);
+
+        final ProfileRequest request = client.getProfileAfter(client.login(SUPPORT_AUTH0_COM, "voidpassword"));
+        canceled.set(request);
+        final MockBaseCallback<Authentication> callback = new MockBaseCallback<>();
+        request.start(callback);
+
+        await().until(callback.error(), is(instanceOf(RequestCanceledException.class)));
+        assertThat(callback.payload().call(), is(nullValue()));
+        assertThat(mockAPI.takeRequest().getPath(), equalTo("/oauth/ro"));
+        assertThat(mockAPI.getRequestCount(), is(1));
+    }
+
+    @Test
+    public void shouldNotFetchProfileWhenCanceledAfterLoginSync() throws Exception {
+        mockAPI
+                .willReturnSuccessfulLogin()
+                .willReturnTokenInfo();
+        final AtomicReference<Request<?>> canceled = new AtomicReference<>();
+        cancelOnceParsed("/oauth/ro", canceled);
+
+        final ProfileRequest request = client.getProfileAfter(client.login(SUPPORT_AUTH0_COM, "voidpassword"));
+        canceled.set(request);
+        try {
+            request.execute();
+            fail("Expected the request to be canceled");
+        } catch (RequestCanceledException expected) {
+        }
+
+        assertThat(mockAPI.takeRequest().getPath(), equalTo("/oauth/ro"));
+        assertThat(mockAPI.getRequestCount(), is(1));
+    }
+
+    @Test
+    public void shouldNotLogInWhenCanceledAfterSignUp() throws Exception {
+        mockAPI.willReturnSuccessfulSignUp()
+                .willReturnSuccessfulLogin();
+        final AtomicReference<Request<?>> canceled = new AtomicReference<>();
+        cancelOnceParsed("/dbconnections/signup", canceled);
+
+        final SignUpRequest request = client.signUp(SUPPORT_AUTH0_COM, PASSWORD, SUPPORT);
+        canceled.set(request);
+        final MockBaseCallback<Credentials> callback = new MockBaseCallback<>();
+        request.start(callback);
+
+        await().until(callback.error(), is(instanceOf(RequestCanceledException.class)));
+        assertThat(callback.payload().call(), is(nullValue()));
+        assertThat(mockAPI.takeRequest().getPath(), equalTo("/dbconnections/signup"));
+        assertThat(mockAPI.getRequestCount(), is(1));
+    }
+
+    @Test
+    public void shouldNotLogInWhenCanceledAfterSignUpSync() throws Exception {
+        mockAPI.willReturnSuccessfulSignUp()
+                .willReturnSuccessfulLogin();
+        final AtomicReference<Request<?>> canceled = new AtomicReference<>();
+        cancelOnceParsed("/dbconnections/signup", canceled);
+
+        final SignUpRequest request = client.signUp(SUPPORT_AUTH0_COM, PASSWORD, SUPPORT);
+        canceled.set(request);
+        try {
+            request.execute();
+            fail("Expected the request to be canceled");
+        } catch (RequestCanceledException expected) {
+        }
+
+        assertThat(mockAPI.takeRequest().getPath(), equalTo("/dbconnections/signup"));
+        assertThat(mockAPI.getRequestCount(), is(1));
+    }
+
     @Test
     public void shouldGetOAuthTokens() throws Exception {
         mockAPI
@@ -1195,6 +1387,24 @@ public class AuthenticationAPIClientTest {
         assertThat(callback, hasPayloadOfType(Credentials.class));
     }
 
+    private void cancelOnceParsed(final String endpoint, final AtomicReference<Request<?>> request) {
+        // cancels the request between its two hops, once the response of the first one was parsed
+        client.setRequestListener(new RequestListener() {
+            @Override
+            public void onEvent(RequestEvent event) {
+                if (event.getPhase() == RequestEvent.Phase.BODY_PARSED && event.getEndpoint().equals(endpoint)) {
+                    request.get().cancel();
+                }
+            }
+        });
+    }
+
+    private static String idTokenExpiringAt(long exp) throws Exception {
+        final Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString("{\"alg\":\"HS256\"}".getBytes("UTF-8")) + "."
+                + encoder.encodeToString(("{\"sub\":\"auth0|1\",\"exp\":" + exp + "}").getBytes("UTF-8")) + ".signature";
+    }
+
     private Map<String, String> bodyFromRequest(RecordedRequest request) throws java.io.IOException {
         return new ObjectMapper().readValue(request.getBody().inputStream(), new TypeReference<Map<String, String>>() {
         });
@@ -35,6 +35,7 @@ import org.junit.rules.ExpectedException;
 import java.util.HashMap;
 import java.util.Map;
 
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.equalToIgnoringCase;
 import static org.hamcrest.Matchers.is;
@@ -147,6 +148,66 @@ public class ParameterBuilderTest {
         }
     }
 
+    @Test
+    public void shouldReplaceExistingEntry() throws Exception {
+        Map<String, Object> parameters = builder.set("key", "value").set("key", "other").asDictionary();
+        assertThat(parameters, hasEntry("key", "other"));
+        assertThat(parameters.size(), is(2));
+    }
+
+    @Test
+    public void shouldKeepInsertionOrder() throws Exception {
+        Map<String, Object> parameters = builder.set("b", 1).set("a", 2).asDictionary();
+        assertThat(parameters.keySet(), contains("scope", "b", "a"));
+    }
+
+    @Test
+    public void shouldNotChangeDictionaryAddedToAnotherBuilder() throws Exception {
+        Map<String, Object> parameters = builder.setClientId(CLIENT_ID).asDictionary();
+        Map<String, Object> copy = ParameterBuilder.newBuilder()
+                .addAll(parameters)
+                .set("client_id", "other")
+                .set("key", "value")
+                .asDictionary();
+        assertThat(parameters, hasEntry("client_id", CLIENT_ID));
+        assertThat(parameters, not(hasEntry("key", "value")));
+        assertThat(copy, hasEntry("client_id", "other"));
+        assertThat(copy, hasEntry("key", "value"));
+    }
+
+    @Test
+    public void shouldNotChangeDictionaryWhenClearingAll() throws Exception {
+        Map<String, Object> parameters = builder.setClientId(CLIENT_ID).asDictionary();
+        builder.clearAll();
+        assertThat(parameters, hasEntry("client_id", CLIENT_ID));
+        assertThat(builder.asDictionary().isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldGrowBeyondDefaultCapacity() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            builder.set("key" + i, i);
+        }
+        Map<String, Object> parameters = builder.asDictionary();
+        assertThat(parameters.size(), is(21));
+        assertThat(parameters, hasEntry("key19", 19));
+        assertThat(parameters, is(equalTo(new HashMap<>(parameters))));
+    }
+
+    @Test
+    public void shouldRedactCredentials() throws Exception {
+        Map<String, Object> parameters = builder
+                .set("username", "support@auth0.com")
+                .set("password", "secret")
+                .setAccessToken("token")
+                .asDictionary();
+        Map<String, Object> redacted = ParameterBuilder.redact(parameters);
+        assertThat(redacted, hasEntry("username", "support@auth0.com"));
+        assertThat(redacted, hasEntry("password", ParameterBuilder.REDACTED));
+        assertThat(redacted, hasEntry("access_token", ParameterBuilder.REDACTED));
+        assertThat(parameters, hasEntry("password", "secret"));
+    }
+
     private static Matcher<Map<? extends String, ?>> hasEntry(String key, Object value) {
         return Matchers.hasEntry(key, value);
     }
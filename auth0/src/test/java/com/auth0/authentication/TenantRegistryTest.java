@@ -0,0 +1,134 @@
+/*
+ * TenantRegistryTest.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.authentication;
+
+import com.auth0.authentication.result.Credentials;
+import com.auth0.metrics.MetricsRegistry;
+import com.auth0.util.AuthenticationAPI;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class TenantRegistryTest {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    private TenantRegistry registry;
+
+    @Before
+    public void setUp() throws Exception {
+        registry = new TenantRegistry(2, 10, TimeUnit.MINUTES);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        registry.close();
+    }
+
+    @Test
+    public void shouldReturnSameClientForSameTenant() throws Exception {
+        final AuthenticationAPIClient client = registry.get("CLIENTID", "tenant1.auth0.com");
+
+        assertThat(registry.get("CLIENTID", "tenant1.auth0.com"), is(sameInstance(client)));
+        assertThat(registry.get("OTHERID", "tenant1.auth0.com"), is(not(sameInstance(client))));
+        assertThat(client.getBaseURL(), equalTo("https://tenant1.auth0.com"));
+        assertThat(registry.size(), is(2));
+    }
+
+    @Test
+    public void shouldRequireAtLeastOneTenant() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("maxTenants must be greater than 0");
+        new TenantRegistry(0, 10, TimeUnit.MINUTES);
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedTenant() throws Exception {
+        registry.get("CLIENTID", "tenant1.auth0.com");
+        registry.get("CLIENTID", "tenant2.auth0.com");
+        registry.get("CLIENTID", "tenant1.auth0.com");
+
+        registry.get("CLIENTID", "tenant3.auth0.com");
+
+        assertThat(registry.size(), is(2));
+        assertThat(registry.getBulkhead("CLIENTID", "tenant1.auth0.com"), is(notNullValue()));
+        assertThat(registry.getBulkhead("CLIENTID", "tenant2.auth0.com"), is(nullValue()));
+        assertThat(registry.getEvictionCount(), is(1L));
+    }
+
+    @Test
+    public void shouldEvictIdleTenants() throws Exception {
+        registry.get("CLIENTID", "tenant1.auth0.com");
+
+        registry.evictIdle(System.nanoTime() + TimeUnit.MINUTES.toNanos(10));
+
+        assertThat(registry.size(), is(0));
+        assertThat(registry.getEvictionCount(), is(1L));
+    }
+
+    @Test
+    public void shouldSendRequestsThroughTenantBulkhead() throws Exception {
+        final AuthenticationAPI mockAPI = new AuthenticationAPI();
+        try {
+            final MetricsRegistry metrics = new MetricsRegistry();
+            registry.setMetricsRegistry(metrics);
+            registry.setMaxConcurrentRequestsPerTenant(1);
+            mockAPI.willReturnSuccessfulLogin();
+
+            final Credentials credentials = registry.get("CLIENTID", mockAPI.getDomain())
+                    .login("support@auth0.com", "voidpassword")
+                    .execute();
+
+            assertThat(credentials, is(notNullValue()));
+            assertThat(registry.getBulkhead("CLIENTID", mockAPI.getDomain()).getCallCount(), is(1L));
+            assertThat(registry.getBulkhead("CLIENTID", mockAPI.getDomain()).getActiveCount(), is(0));
+            assertThat(metrics.snapshot().getEndpoint("/oauth/ro").getRequestCount(), is(1L));
+        } finally {
+            mockAPI.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldFailWhenClosed() throws Exception {
+        registry.close();
+
+        exception.expect(IllegalStateException.class);
+        registry.get("CLIENTID", "tenant1.auth0.com");
+    }
+}
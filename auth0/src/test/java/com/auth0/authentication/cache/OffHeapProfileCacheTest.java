@@ -0,0 +1,284 @@
+/*
+ * OffHeapProfileCacheTest.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.authentication.cache;
+
+import com.auth0.authentication.result.UserIdentity;
+import com.auth0.authentication.result.UserProfile;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class OffHeapProfileCacheTest {
+
+    private static final long TTL = 60000;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final long EXP = System.currentTimeMillis() / 1000 + 3600;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    private OffHeapProfileCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        cache = new OffHeapProfileCache(16, 2048, TTL);
+    }
+
+    @Test
+    public void shouldReturnStoredProfile() throws Exception {
+        cache.put(token("token"), profile("auth0|1", "value"));
+
+        final UserProfile profile = cache.get(token("token"));
+        assertThat(profile, is(notNullValue()));
+        assertThat(profile.getId(), equalTo("auth0|1"));
+        assertThat(profile.getName(), equalTo("John Doe"));
+        assertThat(profile.getNickname(), is(nullValue()));
+        assertThat(profile.getCreatedAt().getTime(), equalTo(1404671629005L));
+        assertThat(profile.getExtraInfo(), hasEntry("extra", (Object) "value"));
+        assertThat(profile.getIdentities(), hasSize(1));
+        final UserIdentity identity = profile.getIdentities().get(0);
+        assertThat(identity.getProvider(), equalTo("facebook"));
+        assertThat(identity.isSocial(), is(true));
+        assertThat(cache.getHitCount(), is(1L));
+    }
+
+    @Test
+    public void shouldReturnStoredProfileWithCompressedExtraInfo() throws Exception {
+        cache.setCompressExtraInfo(true);
+        final String value = new String(new char[512]).replace('\0', 'a');
+        cache.put(token("token"), profile("auth0|1", value));
+
+        final UserProfile profile = cache.get(token("token"));
+        assertThat(profile.getExtraInfo(), hasEntry("extra", (Object) value));
+    }
+
+    @Test
+    public void shouldReturnNullOnMiss() throws Exception {
+        assertThat(cache.get(token("token")), is(nullValue()));
+        assertThat(cache.getMissCount(), is(1L));
+    }
+
+    @Test
+    public void shouldNotReturnExpiredProfile() throws Exception {
+        cache.put(OffHeapProfileCache.keyOf(token("token")), new ProfileCodec().encode(profile("auth0|1", "value"), false), System.currentTimeMillis() - 1);
+
+        assertThat(cache.get(token("token")), is(nullValue()));
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    public void shouldRemoveProfile() throws Exception {
+        cache.put(token("token"), profile("auth0|1", "value"));
+        cache.remove(token("token"));
+
+        assertThat(cache.get(token("token")), is(nullValue()));
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    public void shouldReplaceProfileWithSameToken() throws Exception {
+        cache.put(token("token"), profile("auth0|1", "value"));
+        cache.put(token("token"), profile("auth0|2", "value"));
+
+        assertThat(cache.get(token("token")).getId(), equalTo("auth0|2"));
+        assertThat(cache.size(), is(1));
+    }
+
+    @Test
+    public void shouldEvictNotReferencedProfilesFirst() throws Exception {
+        cache = new OffHeapProfileCache(2, 2048, TTL);
+        cache.put(token("first"), profile("auth0|1", "value"));
+        cache.put(token("second"), profile("auth0|2", "value"));
+        cache.get(token("first"));
+
+        cache.put(token("third"), profile("auth0|3", "value"));
+
+        assertThat(cache.get(token("first")), is(notNullValue()));
+        assertThat(cache.get(token("second")), is(nullValue()));
+        assertThat(cache.get(token("third")), is(notNullValue()));
+        assertThat(cache.getEvictionCount(), is(1L));
+    }
+
+    @Test
+    public void shouldKeepAllProfilesReachableAfterManyEvictions() throws Exception {
+        for (int i = 0; i < 200; i++) {
+            cache.put(token("token" + i), profile("auth0|" + i, "value"));
+        }
+
+        assertThat(cache.size(), is(16));
+        for (int i = 184; i < 200; i++) {
+            assertThat(cache.get(token("token" + i)).getId(), equalTo("auth0|" + i));
+        }
+    }
+
+    @Test
+    public void shouldNotStoreProfilesBiggerThanSlot() throws Exception {
+        final String value = new String(new char[4096]).replace('\0', 'a');
+        cache.put(token("token"), profile("auth0|1", value));
+
+        assertThat(cache.get(token("token")), is(nullValue()));
+        assertThat(cache.getRejectedCount(), is(1L));
+    }
+
+    @Test
+    public void shouldRestoreSnapshot() throws Exception {
+        final File file = new File(folder.getRoot(), "profiles");
+        cache.setCompressExtraInfo(true);
+        cache.put(token("first"), profile("auth0|1", "value"));
+        cache.put(token("second"), profile("auth0|2", "value"));
+        cache.put(OffHeapProfileCache.keyOf(token("expired")), new ProfileCodec().encode(profile("auth0|3", "value"), false), System.currentTimeMillis() - 1);
+
+        assertThat(cache.snapshot(file), is(2));
+
+        final OffHeapProfileCache restored = new OffHeapProfileCache(16, 2048, TTL);
+        assertThat(restored.restore(file), is(2));
+        assertThat(restored.get(token("first")).getId(), equalTo("auth0|1"));
+        assertThat(restored.get(token("second")).getId(), equalTo("auth0|2"));
+        assertThat(restored.get(token("expired")), is(nullValue()));
+    }
+
+    @Test
+    public void shouldWriteSnapshotOnlyReadableByOwnerWithoutTokens() throws Exception {
+        final File file = new File(folder.getRoot(), "profiles");
+        cache.put(token("first"), profile("auth0|1", "value"));
+
+        cache.snapshot(file);
+
+        assertThat(Files.getPosixFilePermissions(file.toPath()), equalTo(PosixFilePermissions.fromString("rw-------")));
+        final String content = new String(Files.readAllBytes(file.toPath()), UTF_8);
+        assertThat(content, not(containsString(token("first"))));
+    }
+
+    @Test
+    public void shouldFailToRestoreCorruptedSnapshot() throws Exception {
+        final File file = new File(folder.getRoot(), "profiles");
+        cache.put(token("first"), profile("auth0|1", "value"));
+        cache.snapshot(file);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(raf.length() - 1);
+            final int last = raf.read();
+            raf.seek(raf.length() - 1);
+            raf.write(last ^ 0xff);
+        }
+
+        exception.expect(IOException.class);
+        exception.expectMessage("checksum mismatch");
+        new OffHeapProfileCache(16, 2048, TTL).restore(file);
+    }
+
+    @Test
+    public void shouldIgnoreMissingSnapshot() throws Exception {
+        final ProfileCacheSnapshotter snapshotter = new ProfileCacheSnapshotter(cache, new File(folder.getRoot(), "missing"));
+
+        assertThat(snapshotter.restore(), is(0));
+    }
+
+    @Test
+    public void shouldNotKeepProfileAfterTokenExpires() throws Exception {
+        final long exp = System.currentTimeMillis() / 1000 + 2;
+        final String token = token("subject", exp);
+        cache.put(token, profile("auth0|1", "value"));
+        assertThat(cache.get(token), is(notNullValue()));
+
+        Thread.sleep(exp * 1000 - System.currentTimeMillis() + 10);
+
+        assertThat(cache.get(token), is(nullValue()));
+    }
+
+    @Test
+    public void shouldNotCacheExpiredToken() throws Exception {
+        cache.put(token("subject", System.currentTimeMillis() / 1000 - 60), profile("auth0|1", "value"));
+
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    public void shouldNotCacheTokenWithoutExpiration() throws Exception {
+        cache.put("not-a-jwt", profile("auth0|1", "value"));
+        cache.put(jwt("{\"sub\":\"subject\"}"), profile("auth0|1", "value"));
+
+        assertThat(cache.size(), is(0));
+    }
+
+    static String token(String subject) {
+        return token(subject, EXP);
+    }
+
+    static String token(String subject, long exp) {
+        return jwt("{\"sub\":\"" + subject + "\",\"exp\":" + exp + "}");
+    }
+
+    private static String jwt(String payload) {
+        final Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString("{\"alg\":\"HS256\"}".getBytes(UTF_8)) + "."
+                + encoder.encodeToString(payload.getBytes(UTF_8)) + ".signature";
+    }
+
+    private UserProfile profile(String id, String extra) {
+        Map<String, Object> identity = new HashMap<>();
+        identity.put("user_id", "1234");
+        identity.put("provider", "facebook");
+        identity.put("connection", "facebook");
+        identity.put("isSocial", true);
+        List<Map<String, Object>> identities = new ArrayList<>();
+        identities.add(identity);
+        Map<String, Object> values = new HashMap<>();
+        values.put("user_id", id);
+        values.put("name", "John Doe");
+        values.put("created_at", "2014-07-06T18:33:49.005Z");
+        values.put("identities", identities);
+        values.put("extra", extra);
+        values.put("roles", Collections.singletonList("admin"));
+        return new UserProfile(values);
+    }
+}
@@ -0,0 +1,341 @@
+/*
+ * MetricsRegistryTest.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.metrics;
+
+import com.auth0.APIException;
+import com.auth0.Auth0;
+import com.auth0.Auth0Exception;
+import com.auth0.RequestCanceledException;
+import com.auth0.RequestRejectedException;
+import com.auth0.authentication.AuthenticationAPIClient;
+import com.auth0.authentication.result.Credentials;
+import com.auth0.authentication.result.UserProfile;
+import com.auth0.callback.BaseCallback;
+import com.auth0.request.transport.Transport;
+import com.auth0.request.transport.TransportCall;
+import com.auth0.request.transport.TransportCallback;
+import com.auth0.request.transport.TransportRequest;
+import com.auth0.request.transport.TransportResponse;
+import com.auth0.util.AuthenticationAPI;
+import com.auth0.util.MockBaseCallback;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class MetricsRegistryTest {
+
+    private AuthenticationAPI mockAPI;
+    private AuthenticationAPIClient client;
+    private MetricsRegistry metrics;
+
+    @Before
+    public void setUp() throws Exception {
+        mockAPI = new AuthenticationAPI();
+        client = new AuthenticationAPIClient(new Auth0("CLIENTID", mockAPI.getDomain()));
+        metrics = new MetricsRegistry();
+        client.setMetricsRegistry(metrics);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mockAPI.shutdown();
+    }
+
+    @Test
+    public void shouldRecordRequestsByEndpointAndOutcome() throws Exception {
+        mockAPI.willReturnSuccessfulLogin()
+                .willReturnFailedLogin();
+
+        client.login("support@auth0.com", "password").execute();
+        try {
+            client.login("support@auth0.com", "password").execute();
+            fail("Expected the login to fail");
+        } catch (APIException ignored) {
+        }
+
+        final EndpointSnapshot login = metrics.snapshot().getEndpoint("/oauth/ro");
+        assertThat(login.getRequestCount(), is(2L));
+        assertThat(login.getErrorCount(), is(1L));
+        assertThat(login.getInFlight(), is(0L));
+        assertThat(login.getLatency(MetricsRegistry.OUTCOME_SUCCESS).getCount(), is(1L));
+        assertThat(login.getLatency("400").getCount(), is(1L));
+        assertThat(login.getLatency(MetricsRegistry.OUTCOME_SUCCESS).getMax(), is(greaterThan(0L)));
+    }
+
+    @Test
+    public void shouldRecordRuntimeExceptionsOfExecutedRequests() throws Exception {
+        final AuthenticationAPIClient client = failingToParseClient();
+
+        try {
+            client.tokenInfo("ID_TOKEN").execute();
+            fail("Expected the request to fail");
+        } catch (IllegalStateException expected) {
+        }
+
+        final EndpointSnapshot tokenInfo = metrics.snapshot().getEndpoint("/tokeninfo");
+        assertThat(tokenInfo.getInFlight(), is(0L));
+        assertThat(tokenInfo.getLatency(MetricsRegistry.OUTCOME_ERROR).getCount(), is(1L));
+    }
+
+    @Test
+    public void shouldRecordRuntimeExceptionsOfStartedRequests() throws Exception {
+        final AuthenticationAPIClient client = failingToParseClient();
+        final MockBaseCallback<UserProfile> callback = new MockBaseCallback<>();
+
+        client.tokenInfo("ID_TOKEN").start(callback);
+
+        final Auth0Exception error = callback.error().call();
+        assertThat(error, is(notNullValue()));
+        assertThat(error.getCause(), is(instanceOf(IllegalStateException.class)));
+        final EndpointSnapshot tokenInfo = metrics.snapshot().getEndpoint("/tokeninfo");
+        assertThat(tokenInfo.getInFlight(), is(0L));
+        assertThat(tokenInfo.getLatency(MetricsRegistry.OUTCOME_ERROR).getCount(), is(1L));
+    }
+
+    @Test
+    public void shouldRecordTimeOfCallbacksRunInIOThread() throws Exception {
+        mockAPI.willReturnSuccessfulLogin();
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        client.login("support@auth0.com", "password").start(new BaseCallback<Credentials>() {
+            @Override
+            public void onSuccess(Credentials payload) {
+                sleep(20);
+                latch.countDown();
+            }
+
+            @Override
+            public void onFailure(Auth0Exception error) {
+                latch.countDown();
+            }
+        });
+        assertThat(latch.await(5, TimeUnit.SECONDS), is(true));
+
+        // the time is recorded once the callback returns
+        HistogramSnapshot callbacks = null;
+        for (int i = 0; i < 100 && callbacks == null; i++) {
+            callbacks = metrics.snapshot().getEndpoint("/oauth/ro").getDirectCallbackTime();
+            sleep(10);
+        }
+        assertThat(callbacks, is(notNullValue()));
+        assertThat(callbacks.getCount(), is(1L));
+        assertThat(callbacks.getMax(), is(greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toMicros(20))));
+    }
+
+    @Test
+    public void shouldClassifyFailures() throws Exception {
+        assertThat(MetricsRegistry.outcomeOf(new APIException("Unauthorized", 401, null)), equalTo("401"));
+        assertThat(MetricsRegistry.outcomeOf(new Auth0Exception("Failed", new IOException())), equalTo(MetricsRegistry.OUTCOME_IO_ERROR));
+        assertThat(MetricsRegistry.outcomeOf(new Auth0Exception("Failed")), equalTo(MetricsRegistry.OUTCOME_ERROR));
+        assertThat(MetricsRegistry.outcomeOf(new RequestRejectedException("Rejected", new IOException())), equalTo(MetricsRegistry.OUTCOME_REJECTED));
+        assertThat(MetricsRegistry.outcomeOf(new RequestCanceledException("Canceled", new IOException())), equalTo(MetricsRegistry.OUTCOME_CANCELED));
+    }
+
+    @Test
+    public void shouldApproximatePercentiles() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 10000; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+
+        final HistogramSnapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.getCount(), is(10000L));
+        assertThat(snapshot.getMax(), is(10000L));
+        assertThat(snapshot.getMean(), is(closeTo(5000.5, 0.001)));
+        assertThat((double) snapshot.getValueAtPercentile(50), is(closeTo(5000, 5000 / 16.0)));
+        assertThat((double) snapshot.getValueAtPercentile(99), is(closeTo(9900, 9900 / 16.0)));
+        assertThat(snapshot.getValueAtPercentile(100), is(10000L));
+        assertThat(snapshot.getCountAtOrBelow(15), is(15L));
+        assertThat(snapshot.getCountAtOrBelow(Long.MAX_VALUE), is(10000L));
+    }
+
+    @Test
+    public void shouldMapValuesToBucketsContainingThem() throws Exception {
+        for (long value = 0; value < 1L << 20; value = value * 3 / 2 + 1) {
+            final int bucket = LatencyHistogram.bucketOf(value);
+            assertThat(LatencyHistogram.upperBoundOf(bucket), is(greaterThanOrEqualTo(value)));
+            assertThat(LatencyHistogram.upperBoundOf(bucket), is(lessThanOrEqualTo(value + value / 16)));
+            if (bucket > 0) {
+                assertThat(LatencyHistogram.upperBoundOf(bucket - 1), is(lessThan(value)));
+            }
+        }
+        assertThat(LatencyHistogram.bucketOf(Long.MAX_VALUE), is(LatencyHistogram.BUCKETS - 1));
+    }
+
+    @Test
+    public void shouldRecordConcurrently() throws Exception {
+        final EndpointMetrics endpoint = metrics.endpoint("samples.auth0.com", "/tokeninfo");
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        endpoint.started();
+                        endpoint.finished(MetricsRegistry.OUTCOME_SUCCESS, j);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        final EndpointSnapshot snapshot = metrics.snapshot().getEndpoint("/tokeninfo");
+        assertThat(snapshot.getRequestCount(), is(40000L));
+        assertThat(snapshot.getInFlight(), is(0L));
+    }
+
+    @Test
+    public void shouldRecordTenantsSeparately() throws Exception {
+        final EndpointMetrics tenant1 = metrics.endpoint("tenant1.auth0.com", "/oauth/ro");
+        final EndpointMetrics tenant2 = metrics.endpoint("tenant2.auth0.com", "/oauth/ro");
+        tenant1.started();
+        tenant1.finished(MetricsRegistry.OUTCOME_SUCCESS, TimeUnit.MILLISECONDS.toNanos(10));
+        tenant2.started();
+        tenant2.finished("401", TimeUnit.MILLISECONDS.toNanos(30));
+        tenant2.started();
+
+        final MetricsSnapshot snapshot = metrics.snapshot();
+        assertThat(snapshot.getEndpoints().size(), is(2));
+        assertThat(snapshot.getEndpoint("tenant1.auth0.com", "/oauth/ro").getRequestCount(), is(1L));
+        assertThat(snapshot.getEndpoint("tenant1.auth0.com", "/oauth/ro").getInFlight(), is(0L));
+        assertThat(snapshot.getEndpoint("tenant2.auth0.com", "/oauth/ro").getErrorCount(), is(1L));
+        assertThat(snapshot.getEndpoint("tenant2.auth0.com", "/oauth/ro").getInFlight(), is(1L));
+
+        final EndpointSnapshot merged = snapshot.getEndpoint("/oauth/ro");
+        assertThat(merged.getHost(), is(nullValue()));
+        assertThat(merged.getRequestCount(), is(2L));
+        assertThat(merged.getErrorCount(), is(1L));
+        assertThat(merged.getInFlight(), is(1L));
+        assertThat(merged.getLatency("401").getMax(), is(greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toMicros(30))));
+    }
+
+    @Test
+    public void shouldRecordHostsOverTheLimitTogether() throws Exception {
+        metrics.setMaxHosts(1);
+        metrics.endpoint("tenant1.auth0.com", "/oauth/ro").started();
+        metrics.endpoint("tenant2.auth0.com", "/oauth/ro").started();
+        metrics.endpoint("tenant3.auth0.com", "/oauth/ro").started();
+        metrics.endpoint("tenant1.auth0.com", "/oauth/ro").started();
+
+        final MetricsSnapshot snapshot = metrics.snapshot();
+        assertThat(snapshot.getEndpoints().size(), is(2));
+        assertThat(snapshot.getEndpoint("tenant1.auth0.com", "/oauth/ro").getInFlight(), is(2L));
+        assertThat(snapshot.getEndpoint(MetricsRegistry.OTHER_HOST, "/oauth/ro").getInFlight(), is(2L));
+    }
+
+    @Test
+    public void shouldRecordAllHostsTogetherWithoutHostLimit() throws Exception {
+        metrics.setMaxHosts(0);
+        metrics.endpoint("tenant1.auth0.com", "/oauth/ro").started();
+        metrics.endpoint("tenant2.auth0.com", "/oauth/ro").started();
+
+        final MetricsSnapshot snapshot = metrics.snapshot();
+        assertThat(snapshot.getEndpoints().size(), is(1));
+        assertThat(snapshot.getEndpoint(MetricsRegistry.OTHER_HOST, "/oauth/ro").getInFlight(), is(2L));
+    }
+
+    @Test
+    public void shouldAllocateHistogramStripesOnFirstWrite() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        assertThat(histogram.getStripeCount(), is(0));
+        assertThat(histogram.snapshot().getCount(), is(0L));
+
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(1));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(2));
+
+        assertThat(histogram.getStripeCount(), is(1));
+        assertThat(histogram.snapshot().getCount(), is(2L));
+    }
+
+    private AuthenticationAPIClient failingToParseClient() {
+        final AuthenticationAPIClient client = new AuthenticationAPIClient(new Auth0("CLIENTID", "samples.auth0.com"), new Transport() {
+            @Override
+            public TransportCall newCall(TransportRequest request) {
+                return new TransportCall() {
+                    @Override
+                    public TransportResponse execute() throws IOException {
+                        // the body fails with an exception the JSON parser doesn't wrap
+                        return new TransportResponse(200, Collections.singletonMap("Content-Type", "application/json"), new InputStream() {
+                            @Override
+                            public int read() {
+                                throw new IllegalStateException("Broken body");
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void enqueue(TransportCallback callback) {
+                        try {
+                            callback.onResponse(execute());
+                        } catch (IOException e) {
+                            callback.onFailure(e);
+                        }
+                    }
+
+                    @Override
+                    public void cancel() {
+                    }
+                };
+            }
+        });
+        client.setMetricsRegistry(metrics);
+        return client;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
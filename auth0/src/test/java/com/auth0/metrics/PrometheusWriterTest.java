@@ -0,0 +1,128 @@
+/*
+ * PrometheusWriterTest.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.metrics;
+
+import com.auth0.authentication.cache.OffHeapProfileCache;
+import com.auth0.request.transport.Bulkhead;
+import com.squareup.okhttp.ConnectionPool;
+
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.isEmptyString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+public class PrometheusWriterTest {
+
+    @Test
+    public void shouldWriteRequestMetrics() throws Exception {
+        final MetricsRegistry metrics = new MetricsRegistry();
+        final EndpointMetrics login = metrics.endpoint("samples.auth0.com", "/oauth/ro");
+        login.started();
+        login.finished(MetricsRegistry.OUTCOME_SUCCESS, TimeUnit.MILLISECONDS.toNanos(20));
+        login.started();
+        login.finished("401", TimeUnit.MILLISECONDS.toNanos(300));
+        login.callbackFinished(TimeUnit.MILLISECONDS.toNanos(5));
+        login.started();
+
+        final String text = write(new PrometheusWriter().registerMetrics(metrics));
+
+        assertThat(text, containsString("# TYPE auth0_requests_total counter\n"));
+        assertThat(text, containsString("auth0_requests_in_flight{tenant=\"samples.auth0.com\",endpoint=\"/oauth/ro\"} 1\n"));
+        assertThat(text, containsString("auth0_requests_total{tenant=\"samples.auth0.com\",endpoint=\"/oauth/ro\",outcome=\"success\"} 1\n"));
+        assertThat(text, containsString("auth0_requests_total{tenant=\"samples.auth0.com\",endpoint=\"/oauth/ro\",outcome=\"401\"} 1\n"));
+        assertThat(text, containsString("# TYPE auth0_request_duration_seconds histogram\n"));
+        assertThat(text, containsString("auth0_request_duration_seconds_bucket{tenant=\"samples.auth0.com\",endpoint=\"/oauth/ro\",outcome=\"401\",le=\"0.25\"} 0\n"));
+        assertThat(text, containsString("auth0_request_duration_seconds_bucket{tenant=\"samples.auth0.com\",endpoint=\"/oauth/ro\",outcome=\"401\",le=\"0.5\"} 1\n"));
+        assertThat(text, containsString("auth0_request_duration_seconds_bucket{tenant=\"samples.auth0.com\",endpoint=\"/oauth/ro\",outcome=\"success\",le=\"+Inf\"} 1\n"));
+        assertThat(text, containsString("auth0_request_duration_seconds_sum{tenant=\"samples.auth0.com\",endpoint=\"/oauth/ro\",outcome=\"success\"} 0.02\n"));
+        assertThat(text, containsString("auth0_request_duration_seconds_count{tenant=\"samples.auth0.com\",endpoint=\"/oauth/ro\",outcome=\"success\"} 1\n"));
+        assertThat(text, containsString("auth0_direct_callback_seconds_sum{tenant=\"samples.auth0.com\",endpoint=\"/oauth/ro\"} 0.005\n"));
+        assertThat(text, containsString("auth0_direct_callback_seconds_count{tenant=\"samples.auth0.com\",endpoint=\"/oauth/ro\"} 1\n"));
+    }
+
+    @Test
+    public void shouldWriteSeparateSeriesForTenantsSharingRegistry() throws Exception {
+        final MetricsRegistry metrics = new MetricsRegistry();
+        metrics.endpoint("tenant1.auth0.com", "/oauth/ro").started();
+        metrics.endpoint("tenant2.auth0.com", "/oauth/ro").started();
+        metrics.endpoint("tenant2.auth0.com", "/oauth/ro").started();
+
+        final String text = write(new PrometheusWriter().registerMetrics(metrics));
+
+        assertThat(text, containsString("auth0_requests_in_flight{tenant=\"tenant1.auth0.com\",endpoint=\"/oauth/ro\"} 1\n"));
+        assertThat(text, containsString("auth0_requests_in_flight{tenant=\"tenant2.auth0.com\",endpoint=\"/oauth/ro\"} 2\n"));
+    }
+
+    @Test
+    public void shouldWriteBulkheadMetrics() throws Exception {
+        final String text = write(new PrometheusWriter().registerBulkhead(new Bulkhead("delegation", 4)));
+
+        assertThat(text, containsString("# TYPE auth0_bulkhead_queued gauge\n"));
+        assertThat(text, containsString("auth0_bulkhead_active{bulkhead=\"delegation\"} 0\n"));
+        assertThat(text, containsString("auth0_bulkhead_shed_total{bulkhead=\"delegation\"} 0\n"));
+    }
+
+    @Test
+    public void shouldWriteCacheAndConnectionPoolMetrics() throws Exception {
+        final OffHeapProfileCache cache = new OffHeapProfileCache(16, 2048, 60000);
+        cache.get("missing");
+
+        final String text = write(new PrometheusWriter()
+                .registerProfileCache("samples.auth0.com", cache)
+                .registerConnectionPool("default", new ConnectionPool(5, 60000)));
+
+        assertThat(text, containsString("auth0_profile_cache_size{tenant=\"samples.auth0.com\"} 0\n"));
+        assertThat(text, containsString("auth0_profile_cache_misses_total{tenant=\"samples.auth0.com\"} 1\n"));
+        assertThat(text, containsString("auth0_connection_pool_connections{pool=\"default\",protocol=\"http/1.1\"} 0\n"));
+        assertThat(text, not(containsString("auth0_requests_total")));
+    }
+
+    @Test
+    public void shouldEscapeLabelValues() throws Exception {
+        final MetricsRegistry metrics = new MetricsRegistry();
+        metrics.endpoint("tenant\n", "/a\"b\\c").started();
+
+        final String text = write(new PrometheusWriter().registerMetrics(metrics));
+
+        assertThat(text, containsString("auth0_requests_in_flight{tenant=\"tenant\\n\",endpoint=\"/a\\\"b\\\\c\"} 1\n"));
+    }
+
+    @Test
+    public void shouldWriteNothingWithoutSources() throws Exception {
+        assertThat(write(new PrometheusWriter()), is(isEmptyString()));
+    }
+
+    private static String write(PrometheusWriter writer) throws Exception {
+        final StringWriter out = new StringWriter();
+        writer.write(out);
+        return out.toString();
+    }
+}
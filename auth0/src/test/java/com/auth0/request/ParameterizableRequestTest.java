@@ -0,0 +1,87 @@
+/*
+ * ParameterizableRequestTest.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.request;
+
+import com.auth0.Auth0Exception;
+import com.auth0.callback.BaseCallback;
+import com.auth0.callback.CallbackExecutors;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class ParameterizableRequestTest {
+
+    @Test
+    public void shouldKeepRequestsWrittenBeforeNewMethodsWorking() throws Exception {
+        final LegacyRequest request = new LegacyRequest();
+
+        assertThat(request.setPriority(Priority.BACKGROUND), is(sameInstance((ParameterizableRequest<String>) request)));
+        assertThat(request.setCallbackExecutor(CallbackExecutors.direct()), is(sameInstance((ParameterizableRequest<String>) request)));
+        request.cancel();
+        assertThat(request.execute(), is("result"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldNotComputeFingerprintByDefault() throws Exception {
+        new LegacyRequest().fingerprint();
+    }
+
+    /**
+     * Implements only the methods the interfaces had before cancellation, priorities, callback executors and
+     * fingerprints were added
+     */
+    private static class LegacyRequest implements ParameterizableRequest<String> {
+
+        @Override
+        public ParameterizableRequest<String> addParameters(Map<String, Object> parameters) {
+            return this;
+        }
+
+        @Override
+        public ParameterizableRequest<String> addParameter(String name, Object value) {
+            return this;
+        }
+
+        @Override
+        public ParameterizableRequest<String> addHeader(String name, String value) {
+            return this;
+        }
+
+        @Override
+        public void start(BaseCallback<String> callback) {
+            callback.onSuccess("result");
+        }
+
+        @Override
+        public String execute() throws Auth0Exception {
+            return "result";
+        }
+    }
+}
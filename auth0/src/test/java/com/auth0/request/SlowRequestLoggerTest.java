@@ -0,0 +1,179 @@
+/*
+ * SlowRequestLoggerTest.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.request;
+
+import com.auth0.APIException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+public class SlowRequestLoggerTest {
+
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private SlowRequestLogger slowRequests;
+    private List<String> records;
+    private long nextId;
+    private long clock = TimeUnit.SECONDS.toNanos(1000);
+
+    @Before
+    public void setUp() throws Exception {
+        records = new ArrayList<>();
+        final Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        logger.addHandler(new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                records.add(record.getMessage());
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        slowRequests = new SlowRequestLogger(500, TimeUnit.MILLISECONDS);
+        slowRequests.setLogger(logger);
+    }
+
+    @Test
+    public void shouldLogSlowRequestWithPhaseTimingsAndRedactedParameters() throws Exception {
+        final Map<String, Object> parameters = new HashMap<>();
+        parameters.put("username", "support@auth0.com");
+        parameters.put("password", "secret");
+        request("/oauth/ro", 200, 800, parameters, null);
+
+        assertThat(records, hasSize(1));
+        final String record = records.get(0);
+        assertThat(record, containsString("slow_request method=POST endpoint=/oauth/ro status=200 total_ms=800.0"));
+        assertThat(record, containsString(" dispatched_ms=10.0 connection_acquired_ms=20.0 request_sent_ms=30.0 headers_received_ms=700.0 body_parsed_ms=40.0"));
+        assertThat(record, containsString(" bytes_out=100 bytes_in=200"));
+        assertThat(record, containsString("username=support@auth0.com"));
+        assertThat(record, containsString("password=<redacted>"));
+        assertThat(record, not(containsString("secret")));
+    }
+
+    @Test
+    public void shouldNotLogFastRequests() throws Exception {
+        request("/oauth/ro", 200, 400, new HashMap<String, Object>(), null);
+
+        assertThat(records, hasSize(0));
+    }
+
+    @Test
+    public void shouldUseEndpointThreshold() throws Exception {
+        slowRequests.setThreshold("/tokeninfo", 100, TimeUnit.MILLISECONDS);
+        request("/tokeninfo", 401, 200, new HashMap<String, Object>(), new APIException("Unauthorized", 401, null));
+
+        assertThat(records, hasSize(1));
+        assertThat(records.get(0), containsString("status=401"));
+        assertThat(records.get(0), containsString("failed_ms="));
+        assertThat(records.get(0), containsString("error="));
+    }
+
+    @Test
+    public void shouldRateLimitRecords() throws Exception {
+        slowRequests.setMaxRecordsPerSecond(2);
+        for (int i = 0; i < 5; i++) {
+            request("/oauth/ro", 200, 800, new HashMap<String, Object>(), null);
+        }
+        assertThat(records, hasSize(2));
+
+        clock += TimeUnit.SECONDS.toNanos(1);
+        request("/oauth/ro", 200, 800, new HashMap<String, Object>(), null);
+        assertThat(records, hasSize(3));
+        assertThat(records.get(2), containsString("suppressed=3"));
+    }
+
+    @Test
+    public void shouldNotLogWhenNotSampled() throws Exception {
+        slowRequests.setSampleRate(0);
+        request("/oauth/ro", 200, 800, new HashMap<String, Object>(), null);
+
+        assertThat(records, hasSize(0));
+    }
+
+    @Test
+    public void shouldForgetRequestsOnceCallbackIsDelivered() throws Exception {
+        event(1, RequestEvent.Phase.QUEUED, "/oauth/ro", 0, clock, new HashMap<String, Object>(), null);
+        event(1, RequestEvent.Phase.HEADERS_RECEIVED, "/oauth/ro", 200, clock + MILLI, new HashMap<String, Object>(), null);
+        event(1, RequestEvent.Phase.CALLBACK_DELIVERED, "/oauth/ro", 0, clock + 2 * MILLI, new HashMap<String, Object>(), null);
+
+        assertThat(slowRequests.getTrackedCount(), is(0));
+    }
+
+    @Test
+    public void shouldDropStaleRequestsWhenTrackingTooMany() throws Exception {
+        for (int i = 0; i < SlowRequestLogger.MAX_TRACKED_REQUESTS; i++) {
+            event(++nextId, RequestEvent.Phase.QUEUED, "/oauth/ro", 0, clock, new HashMap<String, Object>(), null);
+        }
+        event(++nextId, RequestEvent.Phase.QUEUED, "/oauth/ro", 0, clock, new HashMap<String, Object>(), null);
+        assertThat(slowRequests.getTrackedCount(), is(SlowRequestLogger.MAX_TRACKED_REQUESTS));
+
+        clock += TimeUnit.MINUTES.toNanos(11);
+        request("/oauth/ro", 200, 800, new HashMap<String, Object>(), null);
+
+        assertThat(records, hasSize(1));
+        assertThat(slowRequests.getTrackedCount(), is(0));
+    }
+
+    private void request(String endpoint, int status, long totalMillis, Map<String, Object> parameters, Throwable error) {
+        final long id = ++nextId;
+        final long start = clock;
+        event(id, RequestEvent.Phase.QUEUED, endpoint, 0, start, parameters, null);
+        if (error != null) {
+            event(id, RequestEvent.Phase.HEADERS_RECEIVED, endpoint, status, start + MILLI, parameters, null);
+            event(id, RequestEvent.Phase.FAILED, endpoint, status, start + totalMillis * MILLI, parameters, error);
+            return;
+        }
+        event(id, RequestEvent.Phase.DISPATCHED, endpoint, 0, start + 10 * MILLI, parameters, null);
+        event(id, RequestEvent.Phase.CONNECTION_ACQUIRED, endpoint, 0, start + 30 * MILLI, parameters, null);
+        event(id, RequestEvent.Phase.REQUEST_SENT, endpoint, 0, start + 60 * MILLI, parameters, null);
+        event(id, RequestEvent.Phase.HEADERS_RECEIVED, endpoint, status, start + (totalMillis - 40) * MILLI, parameters, null);
+        event(id, RequestEvent.Phase.BODY_PARSED, endpoint, status, start + totalMillis * MILLI, parameters, null);
+    }
+
+    private void event(long id, RequestEvent.Phase phase, String endpoint, int status, long nanoTime, Map<String, Object> parameters, Throwable error) {
+        slowRequests.onEvent(new RequestEvent(id, phase, "POST", endpoint, status, nanoTime, 100, 200, parameters, error));
+    }
+}
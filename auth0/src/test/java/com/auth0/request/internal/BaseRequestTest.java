@@ -28,12 +28,13 @@ package com.auth0.request.internal;
 import com.auth0.Auth0Exception;
 import com.auth0.RequestBodyBuildException;
 import com.auth0.callback.BaseCallback;
+import com.auth0.request.transport.Transport;
+import com.auth0.request.transport.TransportRequest;
+import com.auth0.request.transport.TransportResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import com.squareup.okhttp.HttpUrl;
-import com.squareup.okhttp.OkHttpClient;
-import com.squareup.okhttp.Request;
-import com.squareup.okhttp.Response;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -42,8 +43,15 @@ import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
-import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
 
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -57,7 +65,7 @@ public class BaseRequestTest {
     @Mock
     private Auth0Exception throwable;
     @Mock
-    private OkHttpClient client;
+    private Transport transport;
     @Mock
     private ObjectReader reader;
     @Mock
@@ -71,19 +79,24 @@ public class BaseRequestTest {
     public void setUp() throws Exception {
         MockitoAnnotations.initMocks(this);
         HttpUrl url = HttpUrl.parse("https://auth0.com");
-        baseRequest = new BaseRequest<String>(url, client, reader, errorReader, writer, callback) {
+        baseRequest = new BaseRequest<String>(url, transport, reader, errorReader, writer, callback) {
             @Override
             public String execute() throws Auth0Exception {
                 return null;
             }
 
             @Override
-            public void onResponse(Response response) throws IOException {
+            protected void handleResponse(TransportResponse response) {
 
             }
 
             @Override
-            protected Request doBuildRequest(Request.Builder builder) throws RequestBodyBuildException {
+            protected String getHttpMethod() {
+                return "POST";
+            }
+
+            @Override
+            protected TransportRequest doBuildRequest() throws RequestBodyBuildException {
                 return null;
             }
         };
@@ -102,4 +115,72 @@ public class BaseRequestTest {
         verify(callback).onFailure(eq(throwable));
         verifyNoMoreInteractions(callback);
     }
+
+    @Test
+    public void shouldHaveSameFingerprintRegardlessOfParameterOrder() throws Exception {
+        final SimpleRequest<String> first = newRequest("POST");
+        first.addParameter("a", "1").addParameter("b", 2);
+        final SimpleRequest<String> second = newRequest("POST");
+        second.addParameter("b", 2).addParameter("a", "1");
+
+        assertThat(first.fingerprint(), is(equalTo(second.fingerprint())));
+        assertThat(first.fingerprint().toString().length(), is(32));
+    }
+
+    @Test
+    public void shouldHaveDifferentFingerprintWhenParametersChange() throws Exception {
+        final SimpleRequest<String> first = newRequest("POST");
+        first.addParameter("a", "1");
+        final SimpleRequest<String> second = newRequest("POST");
+        second.addParameter("a", "2");
+        final SimpleRequest<String> third = newRequest("POST");
+        third.addParameter("a1", "");
+
+        assertThat(first.fingerprint(), is(not(equalTo(second.fingerprint()))));
+        assertThat(first.fingerprint(), is(not(equalTo(third.fingerprint()))));
+    }
+
+    @Test
+    public void shouldHaveDifferentFingerprintWhenMethodChanges() throws Exception {
+        assertThat(newRequest("POST").fingerprint(), is(not(equalTo(newRequest("GET").fingerprint()))));
+    }
+
+    @Test
+    public void shouldOnlyUseSelectedHeadersInFingerprint() throws Exception {
+        final SimpleRequest<String> first = newRequest("POST");
+        first.setBearer("token");
+        first.addHeader("User-Agent", "first");
+        final SimpleRequest<String> second = newRequest("POST");
+        second.setBearer("token");
+        second.addHeader("User-Agent", "second");
+
+        assertThat(first.fingerprint("Authorization"), is(equalTo(second.fingerprint("Authorization"))));
+        assertThat(first.fingerprint("User-Agent"), is(not(equalTo(second.fingerprint("User-Agent")))));
+    }
+
+    @Test
+    public void shouldFingerprintNestedMapsWithNonStringKeys() throws Exception {
+        final Map<Integer, Object> scores = new HashMap<>();
+        scores.put(10, "ten");
+        scores.put(2, "two");
+        final Map<Integer, Object> sameScores = new TreeMap<>(Collections.<Integer>reverseOrder());
+        sameScores.putAll(scores);
+        final Map<Integer, Object> otherScores = new HashMap<>();
+        otherScores.put(10, "ten");
+        otherScores.put(3, "two");
+
+        final SimpleRequest<String> first = newRequest("POST");
+        first.addParameter("scores", scores);
+        final SimpleRequest<String> second = newRequest("POST");
+        second.addParameter("scores", sameScores);
+        final SimpleRequest<String> third = newRequest("POST");
+        third.addParameter("scores", otherScores);
+
+        assertThat(first.fingerprint(), is(equalTo(second.fingerprint())));
+        assertThat(first.fingerprint(), is(not(equalTo(third.fingerprint()))));
+    }
+
+    private SimpleRequest<String> newRequest(String method) {
+        return new SimpleRequest<>(HttpUrl.parse("https://auth0.com/oauth/ro"), transport, new ObjectMapper(), method, String.class);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,203 @@
+/*
+ * CallbackExecutorsTest.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.request.internal;
+
+import com.auth0.Auth0;
+import com.auth0.Auth0Exception;
+import com.auth0.authentication.AuthenticationAPIClient;
+import com.auth0.authentication.result.Credentials;
+import com.auth0.callback.BaseCallback;
+import com.auth0.callback.CallbackExecutors;
+import com.auth0.metrics.HistogramSnapshot;
+import com.auth0.metrics.MetricsRegistry;
+import com.auth0.util.AuthenticationAPI;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
+
+public class CallbackExecutorsTest {
+
+    private AuthenticationAPI mockAPI;
+    private AuthenticationAPIClient client;
+    private MetricsRegistry metrics;
+    private ExecutorService callbacks;
+
+    @Before
+    public void setUp() throws Exception {
+        mockAPI = new AuthenticationAPI();
+        client = new AuthenticationAPIClient(new Auth0("CLIENTID", mockAPI.getDomain()));
+        metrics = new MetricsRegistry();
+        client.setMetricsRegistry(metrics);
+        callbacks = CallbackExecutors.boundedPool("auth0-callbacks", 1, 1);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        callbacks.shutdownNow();
+        mockAPI.shutdown();
+    }
+
+    @Test
+    public void shouldRunCallbacksInCallbackExecutor() throws Exception {
+        mockAPI.willReturnSuccessfulLogin();
+        client.setCallbackExecutor(callbacks);
+
+        final AtomicReference<Thread> thread = login(0);
+
+        assertThat(thread.get().getName(), startsWith("auth0-callbacks-"));
+        assertThat(metrics.snapshot().getEndpoint("/oauth/ro").getDirectCallbackTime(), is(nullValue()));
+    }
+
+    @Test
+    public void shouldRunInCallerThreadWhenPoolIsSaturated() throws Exception {
+        final CountDownLatch busy = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        callbacks.execute(new Runnable() {
+            @Override
+            public void run() {
+                busy.countDown();
+                await(release);
+            }
+        });
+        assertThat(busy.await(5, TimeUnit.SECONDS), is(true));
+        // fills the queue
+        callbacks.execute(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+
+        final AtomicReference<Thread> thread = new AtomicReference<>();
+        callbacks.execute(new Runnable() {
+            @Override
+            public void run() {
+                thread.set(Thread.currentThread());
+            }
+        });
+        release.countDown();
+
+        assertThat(thread.get(), is(sameInstance(Thread.currentThread())));
+    }
+
+    @Test
+    public void shouldRunInCallerThreadOnceShutDown() throws Exception {
+        callbacks.shutdown();
+
+        final AtomicReference<Thread> thread = new AtomicReference<>();
+        callbacks.execute(new Runnable() {
+            @Override
+            public void run() {
+                thread.set(Thread.currentThread());
+            }
+        });
+
+        assertThat(thread.get(), is(sameInstance(Thread.currentThread())));
+    }
+
+    @Test
+    public void shouldRecordTimeOfCallbacksRunInCallerThreadByShutDownPool() throws Exception {
+        mockAPI.willReturnSuccessfulLogin();
+        callbacks.shutdown();
+        client.setCallbackExecutor(callbacks);
+
+        final AtomicReference<Thread> thread = login(20);
+
+        assertThat(thread.get().getName(), is(not(startsWith("auth0-callbacks-"))));
+        // the time is recorded once the callback returns
+        HistogramSnapshot direct = null;
+        for (int i = 0; i < 100 && direct == null; i++) {
+            direct = metrics.snapshot().getEndpoint("/oauth/ro").getDirectCallbackTime();
+            Thread.sleep(10);
+        }
+        assertThat(direct, is(notNullValue()));
+        assertThat(direct.getCount(), is(1L));
+        assertThat(direct.getMax(), is(greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toMicros(20))));
+    }
+
+    @Test
+    public void shouldRunDirectlyInCallerThread() throws Exception {
+        final AtomicReference<Thread> thread = new AtomicReference<>();
+        CallbackExecutors.direct().execute(new Runnable() {
+            @Override
+            public void run() {
+                thread.set(Thread.currentThread());
+            }
+        });
+
+        assertThat(thread.get(), is(equalTo(Thread.currentThread())));
+    }
+
+    private AtomicReference<Thread> login(final long callbackMillis) throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<Thread> thread = new AtomicReference<>();
+        client.login("support@auth0.com", "password").start(new BaseCallback<Credentials>() {
+            @Override
+            public void onSuccess(Credentials payload) {
+                thread.set(Thread.currentThread());
+                sleep(callbackMillis);
+                latch.countDown();
+            }
+
+            @Override
+            public void onFailure(Auth0Exception error) {
+                latch.countDown();
+            }
+        });
+        assertThat(latch.await(5, TimeUnit.SECONDS), is(true));
+        return thread;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
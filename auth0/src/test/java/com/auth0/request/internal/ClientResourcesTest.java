@@ -0,0 +1,87 @@
+/*
+ * ClientResourcesTest.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.request.internal;
+
+import com.auth0.Auth0;
+import com.auth0.Auth0Exception;
+import com.auth0.authentication.AuthenticationAPIClient;
+import com.auth0.authentication.result.UserProfile;
+import com.auth0.util.MockBaseCallback;
+import com.squareup.okhttp.OkHttpClient;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class ClientResourcesTest {
+
+    @Test
+    public void shouldShareResourcesUntilReleased() throws Exception {
+        final ClientResources first = ClientResources.acquire();
+        final ClientResources second = ClientResources.acquire();
+        try {
+            assertThat(second, is(sameInstance(first)));
+            assertThat(second.getTransport(), is(sameInstance(first.getTransport())));
+        } finally {
+            first.release();
+            second.release();
+        }
+    }
+
+    @Test
+    public void shouldCountReferences() throws Exception {
+        final int count = ClientResources.getReferenceCount();
+        final ClientResources resources = ClientResources.acquire();
+        assertThat(ClientResources.getReferenceCount(), is(count + 1));
+
+        resources.release();
+        assertThat(ClientResources.getReferenceCount(), is(count));
+    }
+
+    @Test
+    public void shouldStopDispatcherWhenLastReferenceIsReleased() throws Exception {
+        final ClientResources resources = new ClientResources(new OkHttpClient()).retain().retain();
+
+        resources.release();
+        assertThat(resources.getClient().getDispatcher().getExecutorService().isShutdown(), is(false));
+        resources.release();
+        assertThat(resources.getClient().getDispatcher().getExecutorService().isShutdown(), is(true));
+    }
+
+    @Test
+    public void shouldFailRequestsStartedAfterRelease() throws Exception {
+        final ClientResources resources = new ClientResources(new OkHttpClient()).retain();
+        resources.release();
+        final AuthenticationAPIClient client = new AuthenticationAPIClient(new Auth0("CLIENTID", "samples.auth0.com"), resources.getTransport());
+        final MockBaseCallback<UserProfile> callback = new MockBaseCallback<>();
+
+        client.tokenInfo("ID_TOKEN").start(callback);
+
+        assertThat(callback.error().call(), is(instanceOf(Auth0Exception.class)));
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * FairQueueTransportTest.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.request.internal;
+
+import com.auth0.request.transport.RejectedCallException;
+import com.auth0.request.transport.Transport;
+import com.auth0.request.transport.TransportCall;
+import com.auth0.request.transport.TransportCallback;
+import com.auth0.request.transport.TransportRequest;
+import com.auth0.request.transport.TransportResponse;
+import com.squareup.okhttp.HttpUrl;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class FairQueueTransportTest {
+
+    private static final String TENANT_A = "https://a.auth0.com";
+    private static final String TENANT_B = "https://b.auth0.com";
+
+    private FairQueueTransport transport;
+    private List<String> sentHosts;
+    private List<TransportCallback> sent;
+    private List<IOException> failures;
+    private TransportCallback callback;
+
+    @Before
+    public void setUp() throws Exception {
+        sentHosts = new ArrayList<>();
+        sent = new ArrayList<>();
+        failures = new ArrayList<>();
+        transport = new FairQueueTransport(new Transport() {
+            @Override
+            public TransportCall newCall(final TransportRequest request) {
+                return new TransportCall() {
+                    @Override
+                    public TransportResponse execute() throws IOException {
+                        return TransportResponse.create(200, "application/json", new byte[0]);
+                    }
+
+                    @Override
+                    public void enqueue(TransportCallback callback) {
+                        sentHosts.add(request.getUrl().host());
+                        sent.add(callback);
+                    }
+
+                    @Override
+                    public void cancel() {
+                    }
+                };
+            }
+        }, 1);
+        callback = new TransportCallback() {
+            @Override
+            public void onResponse(TransportResponse response) {
+                try {
+                    response.close();
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+
+            @Override
+            public void onFailure(IOException e) {
+                failures.add(e);
+            }
+        };
+    }
+
+    @Test
+    public void shouldServeTenantsByWeight() throws Exception {
+        transport.setWeight(TENANT_A, 2);
+        enqueue(TENANT_A, 5);
+        enqueue(TENANT_B, 2);
+        assertThat(transport.getQueueDepth(TENANT_A), is(4));
+        assertThat(transport.getQueueDepth(TENANT_B), is(2));
+
+        for (int i = 0; i < 6; i++) {
+            respond(i);
+        }
+
+        assertThat(sentHosts, contains("a.auth0.com", "a.auth0.com", "a.auth0.com", "b.auth0.com", "a.auth0.com", "a.auth0.com", "b.auth0.com"));
+        assertThat(transport.getQueueDepth(TENANT_A), is(0));
+        assertThat(transport.getActiveCount(), is(1));
+    }
+
+    @Test
+    public void shouldNotDelayTenantBehindBusyOne() throws Exception {
+        enqueue(TENANT_A, 10);
+        enqueue(TENANT_B, 1);
+
+        respond(0);
+        respond(1);
+
+        assertThat(sentHosts.get(2), is("b.auth0.com"));
+    }
+
+    @Test
+    public void shouldRejectCallsOverQueueDepth() throws Exception {
+        transport.setMaxQueueDepth(2);
+        enqueue(TENANT_A, 4);
+        enqueue(TENANT_B, 1);
+
+        assertThat(failures, hasSize(1));
+        assertThat(failures.get(0), is(instanceOf(RejectedCallException.class)));
+        assertThat(transport.getRejectedCount(), is(1L));
+        assertThat(transport.getQueueDepth(TENANT_B), is(1));
+    }
+
+    @Test
+    public void shouldLimitQueueDepthOfEachTenantOnItsOwn() throws Exception {
+        transport.setMaxQueueDepth(2);
+        enqueue(TENANT_A, 10);
+        final int rejectedOfA = failures.size();
+        enqueue(TENANT_B, 2);
+
+        assertThat(transport.getQueueDepth(TENANT_A), is(2));
+        assertThat(transport.getQueueDepth(TENANT_B), is(2));
+        assertThat(failures, hasSize(rejectedOfA));
+        enqueue(TENANT_B, 1);
+        assertThat(failures, hasSize(rejectedOfA + 1));
+    }
+
+    @Test
+    public void shouldReleaseOnFailure() throws Exception {
+        enqueue(TENANT_A, 2);
+
+        sent.get(0).onFailure(new IOException("failed"));
+        sent.get(1).onFailure(new IOException("failed"));
+
+        assertThat(sent, hasSize(2));
+        assertThat(transport.getActiveCount(), is(0));
+    }
+
+    private void enqueue(String domainUrl, int count) {
+        final TransportRequest request = new TransportRequest("GET", HttpUrl.parse(domainUrl + "/tokeninfo"),
+                Collections.<String, String>emptyMap(), null, null);
+        for (int i = 0; i < count; i++) {
+            transport.newCall(request).enqueue(callback);
+        }
+    }
+
+    private void respond(int index) {
+        sent.get(index).onResponse(TransportResponse.create(200, "application/json", new byte[0]));
+    }
+}
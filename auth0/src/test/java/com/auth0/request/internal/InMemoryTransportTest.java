@@ -0,0 +1,174 @@
+/*
+ * InMemoryTransportTest.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.request.internal;
+
+import com.auth0.APIException;
+import com.auth0.Auth0;
+import com.auth0.Auth0Exception;
+import com.auth0.RequestCanceledException;
+import com.auth0.authentication.AuthenticationAPIClient;
+import com.auth0.authentication.ProfileRequest;
+import com.auth0.authentication.result.Authentication;
+import com.auth0.authentication.result.Credentials;
+import com.auth0.authentication.result.UserProfile;
+import com.auth0.request.AuthenticationRequest;
+import com.auth0.request.transport.TransportRequest;
+import com.auth0.request.transport.TransportResponse;
+import com.auth0.util.MockBaseCallback;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import static com.auth0.util.CallbackMatcher.hasPayloadOfType;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.hasProperty;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class InMemoryTransportTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String CREDENTIALS = "{\"id_token\":\"ID_TOKEN\",\"access_token\":\"ACCESS_TOKEN\",\"token_type\":\"bearer\"}";
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    private InMemoryTransport transport;
+    private AuthenticationAPIClient client;
+    private TransportRequest received;
+    private ProfileRequest canceledDuringLogin;
+
+    @Before
+    public void setUp() throws Exception {
+        transport = new InMemoryTransport(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+        transport.register("/oauth/ro", new InMemoryTransport.Handler() {
+            @Override
+            public TransportResponse handle(TransportRequest request) throws IOException {
+                received = request;
+                if (canceledDuringLogin != null) {
+                    canceledDuringLogin.cancel();
+                }
+                return TransportResponse.create(200, "application/json", CREDENTIALS.getBytes(UTF_8));
+            }
+        });
+        client = new AuthenticationAPIClient(new Auth0("CLIENTID", "samples.auth0.com"), transport);
+    }
+
+    @Test
+    public void shouldSerializeRequestAndParseResponse() throws Exception {
+        final Credentials credentials = client.login("support@auth0.com", "voidpassword").execute();
+
+        assertThat(credentials.getIdToken(), equalTo("ID_TOKEN"));
+        assertThat(received.getMethod(), equalTo("POST"));
+        assertThat(received.getContentType(), equalTo("application/json; charset=utf-8"));
+        final Map<String, Object> body = new ObjectMapper().readValue(received.getBody(), new TypeReference<Map<String, Object>>() {});
+        assertThat(body, hasEntry("username", (Object) "support@auth0.com"));
+        assertThat(body, hasEntry("client_id", (Object) "CLIENTID"));
+    }
+
+    @Test
+    public void shouldDeliverResponseToCallback() throws Exception {
+        final MockBaseCallback<Credentials> callback = new MockBaseCallback<>();
+
+        client.login("support@auth0.com", "voidpassword").start(callback);
+
+        assertThat(callback, hasPayloadOfType(Credentials.class));
+    }
+
+    @Test
+    public void shouldAnswerNotFoundWithoutHandler() throws Exception {
+        exception.expect(APIException.class);
+        exception.expect(hasProperty("statusCode", is(404)));
+        client.tokenInfo("ID_TOKEN").execute();
+    }
+
+    @Test
+    public void shouldReportFailingHandlerToCallback() throws Exception {
+        transport.register("/tokeninfo", new InMemoryTransport.Handler() {
+            @Override
+            public TransportResponse handle(TransportRequest request) throws IOException {
+                throw new IllegalStateException("broken handler");
+            }
+        });
+        final MockBaseCallback<UserProfile> callback = new MockBaseCallback<>();
+
+        client.tokenInfo("ID_TOKEN").start(callback);
+
+        final Auth0Exception error = callback.error().call();
+        assertThat(error, is(notNullValue()));
+        assertThat(error.getCause().getCause(), is(instanceOf(IllegalStateException.class)));
+    }
+
+    @Test
+    public void shouldNotSendCanceledRequest() throws Exception {
+        final MockBaseCallback<Credentials> callback = new MockBaseCallback<>();
+        final AuthenticationRequest request = client.login("support@auth0.com", "voidpassword");
+
+        request.cancel();
+        request.start(callback);
+
+        assertThat(callback.error().call(), is(instanceOf(RequestCanceledException.class)));
+        assertThat(callback.payload().call(), is(nullValue()));
+        assertThat(received, is(nullValue()));
+    }
+
+    @Test
+    public void shouldNotFetchProfileAfterCanceledLogin() throws Exception {
+        final TransportRequest[] tokenInfo = new TransportRequest[1];
+        transport.register("/tokeninfo", new InMemoryTransport.Handler() {
+            @Override
+            public TransportResponse handle(TransportRequest request) throws IOException {
+                tokenInfo[0] = request;
+                return TransportResponse.create(200, "application/json", "{}".getBytes(UTF_8));
+            }
+        });
+        final MockBaseCallback<Authentication> callback = new MockBaseCallback<>();
+        canceledDuringLogin = client.getProfileAfter(client.login("support@auth0.com", "voidpassword"));
+
+        canceledDuringLogin.start(callback);
+
+        assertThat(received, is(notNullValue()));
+        assertThat(tokenInfo[0], is(nullValue()));
+        assertThat(callback.error().call(), is(instanceOf(RequestCanceledException.class)));
+    }
+}
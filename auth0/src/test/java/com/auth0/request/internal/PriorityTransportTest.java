@@ -0,0 +1,194 @@
+/*
+ * PriorityTransportTest.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.request.internal;
+
+import com.auth0.request.Priority;
+import com.auth0.request.transport.Transport;
+import com.auth0.request.transport.TransportCall;
+import com.auth0.request.transport.TransportCallback;
+import com.auth0.request.transport.TransportRequest;
+import com.auth0.request.transport.TransportResponse;
+import com.squareup.okhttp.HttpUrl;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class PriorityTransportTest {
+
+    private PriorityTransport transport;
+    private List<String> sentPaths;
+    private List<TransportCallback> sent;
+    private List<IOException> failures;
+    private TransportCallback callback;
+
+    @Before
+    public void setUp() throws Exception {
+        sentPaths = Collections.synchronizedList(new ArrayList<String>());
+        sent = new ArrayList<>();
+        failures = new ArrayList<>();
+        transport = new PriorityTransport(new Transport() {
+            @Override
+            public TransportCall newCall(final TransportRequest request) {
+                return new TransportCall() {
+                    @Override
+                    public TransportResponse execute() throws IOException {
+                        throw new UnsupportedOperationException();
+                    }
+
+                    @Override
+                    public void enqueue(TransportCallback callback) {
+                        sentPaths.add(request.getUrl().encodedPath());
+                        sent.add(callback);
+                    }
+
+                    @Override
+                    public void cancel() {
+                    }
+                };
+            }
+        }, 4);
+        callback = new TransportCallback() {
+            @Override
+            public void onResponse(TransportResponse response) {
+                try {
+                    response.close();
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+
+            @Override
+            public void onFailure(IOException e) {
+                failures.add(e);
+            }
+        };
+    }
+
+    @Test
+    public void shouldSendInteractiveCallsFirst() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            enqueue("/oauth/ro", Priority.INTERACTIVE);
+        }
+        enqueue("/passwordless/start", Priority.BACKGROUND);
+        enqueue("/oauth/token", Priority.INTERACTIVE);
+        assertThat(transport.getQueuedCount(Priority.BACKGROUND), is(1));
+        assertThat(transport.getQueuedCount(Priority.INTERACTIVE), is(1));
+
+        respond(0, Collections.<String, String>emptyMap());
+        respond(1, Collections.<String, String>emptyMap());
+
+        assertThat(sentPaths.subList(4, 6), contains("/oauth/token", "/passwordless/start"));
+    }
+
+    @Test
+    public void shouldKeepPlacesForInteractiveCalls() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            enqueue("/passwordless/start", Priority.BACKGROUND);
+        }
+        enqueue("/oauth/ro", Priority.INTERACTIVE);
+        enqueue("/oauth/ro", Priority.INTERACTIVE);
+
+        assertThat(sentPaths, contains("/passwordless/start", "/passwordless/start", "/oauth/ro", "/oauth/ro"));
+        assertThat(transport.getQueuedCount(Priority.BACKGROUND), is(1));
+        assertThat(transport.getActiveCount(), is(4));
+    }
+
+    @Test
+    public void shouldHoldBackgroundCallsWhileRateLimitIsLow() throws Exception {
+        enqueue("/oauth/ro", Priority.INTERACTIVE);
+        final Map<String, String> headers = new HashMap<>();
+        headers.put("X-RateLimit-Remaining", "2");
+        headers.put("X-RateLimit-Reset", String.valueOf(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) + 3600));
+        respond(0, headers);
+
+        enqueue("/passwordless/start", Priority.BACKGROUND);
+        enqueue("/oauth/ro", Priority.INTERACTIVE);
+
+        assertThat(sentPaths, hasSize(2));
+        assertThat(sentPaths.get(1), is("/oauth/ro"));
+        assertThat(transport.getRateLimitRemaining(), is(2L));
+        assertThat(transport.getThrottledCount(), is(1L));
+        assertThat(transport.getQueuedCount(Priority.BACKGROUND), is(1));
+    }
+
+    @Test
+    public void shouldSendBackgroundCallsOnceRateLimitIsReset() throws Exception {
+        enqueue("/oauth/ro", Priority.INTERACTIVE);
+        final Map<String, String> headers = new HashMap<>();
+        headers.put("X-RateLimit-Remaining", "0");
+        headers.put("X-RateLimit-Reset", String.valueOf(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) + 1));
+        respond(0, headers);
+
+        enqueue("/passwordless/start", Priority.BACKGROUND);
+
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (transport.getQueuedCount(Priority.BACKGROUND) > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(transport.getQueuedCount(Priority.BACKGROUND), is(0));
+        assertThat(sentPaths.get(1), is("/passwordless/start"));
+    }
+
+    @Test
+    public void shouldFailWaitingCallsWhenClosed() throws Exception {
+        enqueue("/oauth/ro", Priority.INTERACTIVE);
+        final Map<String, String> headers = new HashMap<>();
+        headers.put("X-RateLimit-Remaining", "0");
+        headers.put("X-RateLimit-Reset", String.valueOf(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) + 3600));
+        respond(0, headers);
+        enqueue("/passwordless/start", Priority.BACKGROUND);
+
+        transport.close();
+        enqueue("/passwordless/start", Priority.BACKGROUND);
+
+        assertThat(sentPaths, hasSize(1));
+        assertThat(failures, hasSize(2));
+        assertThat(transport.getQueuedCount(Priority.BACKGROUND), is(0));
+    }
+
+    private void enqueue(String path, Priority priority) {
+        final TransportRequest request = new TransportRequest("POST", HttpUrl.parse("https://samples.auth0.com" + path),
+                Collections.<String, String>emptyMap(), null, null, null, priority);
+        transport.newCall(request).enqueue(callback);
+    }
+
+    private void respond(int index, Map<String, String> headers) {
+        sent.get(index).onResponse(new TransportResponse(200, headers, new ByteArrayInputStream(new byte[0])));
+    }
+}
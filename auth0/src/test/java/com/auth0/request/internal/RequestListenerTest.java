@@ -0,0 +1,175 @@
+/*
+ * RequestListenerTest.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.request.internal;
+
+import com.auth0.APIException;
+import com.auth0.Auth0;
+import com.auth0.authentication.AuthenticationAPIClient;
+import com.auth0.authentication.result.Credentials;
+import com.auth0.request.RequestEvent;
+import com.auth0.request.RequestListener;
+import com.auth0.request.transport.TransportRequest;
+import com.auth0.request.transport.TransportResponse;
+import com.auth0.util.AuthenticationAPI;
+import com.auth0.util.MockBaseCallback;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class RequestListenerTest {
+
+    private AuthenticationAPI mockAPI;
+    private AuthenticationAPIClient client;
+    private RecordingListener listener;
+
+    @Before
+    public void setUp() throws Exception {
+        mockAPI = new AuthenticationAPI();
+        client = new AuthenticationAPIClient(new Auth0("CLIENTID", mockAPI.getDomain()));
+        listener = new RecordingListener();
+        client.setRequestListener(listener);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mockAPI.shutdown();
+    }
+
+    @Test
+    public void shouldReportPhasesOfExecutedRequest() throws Exception {
+        mockAPI.willReturnSuccessfulLogin();
+
+        client.login("support@auth0.com", "password").execute();
+
+        assertThat(listener.phases(), contains(
+                RequestEvent.Phase.QUEUED,
+                RequestEvent.Phase.DISPATCHED,
+                RequestEvent.Phase.CONNECTION_ACQUIRED,
+                RequestEvent.Phase.REQUEST_SENT,
+                RequestEvent.Phase.HEADERS_RECEIVED,
+                RequestEvent.Phase.BODY_PARSED));
+        final List<RequestEvent> events = listener.events;
+        for (int i = 1; i < events.size(); i++) {
+            assertThat(events.get(i).getRequestId(), equalTo(events.get(0).getRequestId()));
+            assertThat(events.get(i).getNanoTime(), greaterThanOrEqualTo(events.get(i - 1).getNanoTime()));
+        }
+        assertThat(events.get(0).getEndpoint(), equalTo("/oauth/ro"));
+        assertThat(events.get(0).getMethod(), equalTo("POST"));
+        assertThat(events.get(5).getStatusCode(), is(200));
+    }
+
+    @Test
+    public void shouldReportFailureAndCallbackOfStartedRequest() throws Exception {
+        mockAPI.willReturnFailedLogin();
+        final CountDownLatch delivered = listener.awaitPhase(RequestEvent.Phase.CALLBACK_DELIVERED);
+
+        client.login("support@auth0.com", "password").start(new MockBaseCallback<Credentials>());
+
+        assertThat(delivered.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(listener.phases(), contains(
+                RequestEvent.Phase.QUEUED,
+                RequestEvent.Phase.DISPATCHED,
+                RequestEvent.Phase.CONNECTION_ACQUIRED,
+                RequestEvent.Phase.REQUEST_SENT,
+                RequestEvent.Phase.HEADERS_RECEIVED,
+                RequestEvent.Phase.FAILED,
+                RequestEvent.Phase.CALLBACK_DELIVERED));
+        final RequestEvent failed = listener.events.get(5);
+        assertThat(failed.getStatusCode(), is(400));
+        assertThat(failed.getError(), is(instanceOf(APIException.class)));
+    }
+
+    @Test
+    public void shouldNotTraceRequestsWithoutListener() throws Exception {
+        final List<TransportRequest> requests = new ArrayList<>();
+        final InMemoryTransport transport = new InMemoryTransport(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+        transport.register("/oauth/ro", new InMemoryTransport.Handler() {
+            @Override
+            public TransportResponse handle(TransportRequest request) {
+                requests.add(request);
+                return TransportResponse.create(500, "application/json", "{}".getBytes());
+            }
+        });
+        final AuthenticationAPIClient client = new AuthenticationAPIClient(new Auth0("CLIENTID", "https://samples.auth0.com"), transport);
+
+        try {
+            client.login("support@auth0.com", "password").execute();
+            fail("Expected the request to fail");
+        } catch (APIException e) {
+            assertThat(requests.get(0).getTrace(), is(nullValue()));
+        }
+    }
+
+    private static class RecordingListener implements RequestListener {
+
+        final List<RequestEvent> events = Collections.synchronizedList(new ArrayList<RequestEvent>());
+        private RequestEvent.Phase awaitedPhase;
+        private CountDownLatch latch;
+
+        @Override
+        public void onEvent(RequestEvent event) {
+            events.add(event);
+            if (event.getPhase() == awaitedPhase) {
+                latch.countDown();
+            }
+        }
+
+        CountDownLatch awaitPhase(RequestEvent.Phase phase) {
+            awaitedPhase = phase;
+            latch = new CountDownLatch(1);
+            return latch;
+        }
+
+        List<RequestEvent.Phase> phases() {
+            final List<RequestEvent.Phase> phases = new ArrayList<>();
+            for (RequestEvent event : events) {
+                phases.add(event.getPhase());
+            }
+            return phases;
+        }
+    }
+}
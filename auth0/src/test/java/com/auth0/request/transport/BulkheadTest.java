@@ -0,0 +1,413 @@
+/*
+ * BulkheadTest.java
+ *
+ * Copyright (c) 2016 Auth0 (http://auth0.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.auth0.request.transport;
+
+import com.auth0.Auth0;
+import com.auth0.RequestRejectedException;
+import com.auth0.authentication.AuthenticationAPIClient;
+import com.auth0.authentication.result.UserProfile;
+import com.auth0.request.EndpointGroup;
+import com.auth0.request.internal.OkHttpTransport;
+import com.auth0.util.MockBaseCallback;
+import com.squareup.okhttp.HttpUrl;
+import com.squareup.okhttp.OkHttpClient;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class BulkheadTest {
+
+    private Bulkhead bulkhead;
+    private List<TransportCallback> sent;
+    private List<IOException> failures;
+    private TransportCallback ignored;
+
+    @Before
+    public void setUp() throws Exception {
+        bulkhead = new Bulkhead("test", 2);
+        sent = new ArrayList<>();
+        failures = new ArrayList<>();
+        ignored = new TransportCallback() {
+            @Override
+            public void onResponse(TransportResponse response) {
+                try {
+                    response.close();
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+
+            @Override
+            public void onFailure(IOException e) {
+                failures.add(e);
+            }
+        };
+    }
+
+    @Test
+    public void shouldQueueCallsOverTheLimit() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            bulkhead.wrap(newCall()).enqueue(ignored);
+        }
+
+        assertThat(sent, hasSize(2));
+        assertThat(bulkhead.getActiveCount(), is(2));
+        assertThat(bulkhead.getQueuedCount(), is(1));
+
+        sent.get(0).onResponse(TransportResponse.create(200, "application/json", new byte[0]));
+
+        assertThat(sent, hasSize(3));
+        assertThat(bulkhead.getActiveCount(), is(2));
+        assertThat(bulkhead.getQueuedCount(), is(0));
+        assertThat(bulkhead.getPeakCount(), is(2));
+        assertThat(bulkhead.getCallCount(), is(3L));
+    }
+
+    @Test
+    public void shouldRemoveCanceledCallFromQueue() throws Exception {
+        bulkhead.wrap(newCall()).enqueue(ignored);
+        bulkhead.wrap(newCall()).enqueue(ignored);
+        final TransportCall queued = bulkhead.wrap(newCall());
+        queued.enqueue(ignored);
+
+        queued.cancel();
+
+        assertThat(bulkhead.getQueuedCount(), is(0));
+        assertThat(failures, hasSize(1));
+        sent.get(0).onResponse(TransportResponse.create(200, "application/json", new byte[0]));
+        assertThat(sent, hasSize(2));
+        assertThat(bulkhead.getActiveCount(), is(1));
+    }
+
+    @Test
+    public void shouldReleaseOnFailure() throws Exception {
+        bulkhead.wrap(newCall()).enqueue(ignored);
+        sent.get(0).onFailure(new IOException("failed"));
+
+        assertThat(bulkhead.getActiveCount(), is(0));
+    }
+
+    @Test
+    public void shouldReleaseExecutedCallWhenBodyIsClosed() throws Exception {
+        final TransportResponse response = bulkhead.wrap(newCall()).execute();
+        assertThat(bulkhead.getActiveCount(), is(1));
+
+        response.close();
+        response.close();
+        assertThat(bulkhead.getActiveCount(), is(0));
+    }
+
+    @Test
+    public void shouldFailFastWhenQueueIsFull() throws Exception {
+        bulkhead.setMaxQueued(1, RejectionPolicy.FAIL_FAST);
+        for (int i = 0; i < 4; i++) {
+            bulkhead.wrap(newCall()).enqueue(ignored);
+        }
+
+        assertThat(sent, hasSize(2));
+        assertThat(bulkhead.getQueuedCount(), is(1));
+        assertThat(failures, hasSize(1));
+        assertThat(failures.get(0), is(instanceOf(RejectedCallException.class)));
+        assertThat(bulkhead.getRejectedCount(), is(1L));
+    }
+
+    @Test
+    public void shouldDropOldestQueuedCall() throws Exception {
+        bulkhead.setMaxQueued(1, RejectionPolicy.DROP_OLDEST);
+        bulkhead.setQueueTimeout(1, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < 3; i++) {
+            bulkhead.wrap(newCall()).enqueue(ignored);
+        }
+        Thread.sleep(5);
+        bulkhead.wrap(newCall()).enqueue(ignored);
+
+        assertThat(bulkhead.getQueuedCount(), is(1));
+        assertThat(failures, hasSize(1));
+        assertThat(bulkhead.getShedCount(), is(1L));
+        assertThat(bulkhead.getRejectedCount(), is(0L));
+    }
+
+    @Test
+    public void shouldNotDropQueuedCallBeforeItsTimeout() throws Exception {
+        bulkhead.setMaxQueued(1, RejectionPolicy.DROP_OLDEST);
+        bulkhead.setQueueTimeout(1, TimeUnit.HOURS);
+        for (int i = 0; i < 4; i++) {
+            bulkhead.wrap(newCall()).enqueue(ignored);
+        }
+
+        assertThat(bulkhead.getShedCount(), is(0L));
+        assertThat(bulkhead.getRejectedCount(), is(1L));
+    }
+
+    @Test
+    public void shouldNotDropQueuedCallWithoutTimeout() throws Exception {
+        bulkhead.setMaxQueued(1, RejectionPolicy.DROP_OLDEST);
+        for (int i = 0; i < 4; i++) {
+            bulkhead.wrap(newCall()).enqueue(ignored);
+        }
+
+        assertThat(bulkhead.getShedCount(), is(0L));
+        assertThat(bulkhead.getRejectedCount(), is(1L));
+        assertThat(bulkhead.getQueuedCount(), is(1));
+    }
+
+    @Test
+    public void shouldShedCallsThatWaitedLongerThanTimeout() throws Exception {
+        bulkhead.setQueueTimeout(1, TimeUnit.NANOSECONDS);
+        for (int i = 0; i < 4; i++) {
+            bulkhead.wrap(newCall()).enqueue(ignored);
+        }
+        Thread.sleep(1);
+
+        sent.get(0).onFailure(new IOException("failed"));
+
+        assertThat(sent, hasSize(2));
+        assertThat(bulkhead.getShedCount(), is(2L));
+        assertThat(bulkhead.getActiveCount(), is(1));
+    }
+
+    @Test
+    public void shouldBlockCallerUntilQueueHasRoom() throws Exception {
+        bulkhead.setMaxQueued(1, RejectionPolicy.BLOCK);
+        for (int i = 0; i < 3; i++) {
+            bulkhead.wrap(newCall()).enqueue(ignored);
+        }
+        final Thread blocked = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                bulkhead.wrap(newCall()).enqueue(ignored);
+            }
+        });
+        blocked.start();
+        blocked.join(100);
+        assertThat(blocked.isAlive(), is(true));
+
+        sent.get(0).onResponse(TransportResponse.create(200, "application/json", new byte[0]));
+        blocked.join(5000);
+
+        assertThat(blocked.isAlive(), is(false));
+        assertThat(bulkhead.getQueuedCount(), is(1));
+        assertThat(failures, hasSize(0));
+    }
+
+    @Test
+    public void shouldStopBlockingCallerWhenCallIsCanceled() throws Exception {
+        bulkhead.setMaxQueued(1, RejectionPolicy.BLOCK);
+        for (int i = 0; i < 3; i++) {
+            bulkhead.wrap(newCall()).enqueue(ignored);
+        }
+        final TransportCall call = bulkhead.wrap(newCall());
+        final Thread blocked = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                call.enqueue(ignored);
+            }
+        });
+        blocked.start();
+        blocked.join(100);
+        assertThat(blocked.isAlive(), is(true));
+
+        call.cancel();
+        blocked.join(5000);
+
+        assertThat(blocked.isAlive(), is(false));
+        assertThat(failures, hasSize(1));
+        assertThat(failures.get(0).getMessage(), is("Canceled"));
+        assertThat(bulkhead.getQueuedCount(), is(1));
+    }
+
+    @Test
+    public void shouldBlockCallerForAtMostQueueTimeout() throws Exception {
+        bulkhead.setMaxQueued(1, RejectionPolicy.BLOCK);
+        bulkhead.setQueueTimeout(50, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < 3; i++) {
+            bulkhead.wrap(newCall()).enqueue(ignored);
+        }
+
+        final long start = System.nanoTime();
+        bulkhead.wrap(newCall()).enqueue(ignored);
+
+        assertThat(System.nanoTime() - start, is(greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50))));
+        assertThat(failures, hasSize(1));
+        assertThat(failures.get(0), is(instanceOf(RejectedCallException.class)));
+        assertThat(bulkhead.getRejectedCount(), is(1L));
+    }
+
+    @Test
+    public void shouldSendExecutedAndEnqueuedCallsInOrder() throws Exception {
+        bulkhead.wrap(newCall()).enqueue(ignored);
+        bulkhead.wrap(newCall()).enqueue(ignored);
+        final List<TransportResponse> executed = Collections.synchronizedList(new ArrayList<TransportResponse>());
+        final Thread caller = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    executed.add(bulkhead.wrap(newCall()).execute());
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+        caller.start();
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (bulkhead.getQueuedCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        bulkhead.wrap(newCall()).enqueue(ignored);
+
+        sent.get(0).onResponse(TransportResponse.create(200, "application/json", new byte[0]));
+        caller.join(5000);
+
+        assertThat(executed, hasSize(1));
+        assertThat(sent, hasSize(2));
+        assertThat(bulkhead.getQueuedCount(), is(1));
+
+        executed.get(0).close();
+
+        assertThat(sent, hasSize(3));
+        assertThat(bulkhead.getQueuedCount(), is(0));
+    }
+
+    @Test
+    public void shouldBoundExecutedCallsByQueueSize() throws Exception {
+        bulkhead.setMaxQueued(0, RejectionPolicy.FAIL_FAST);
+        bulkhead.wrap(newCall()).enqueue(ignored);
+        bulkhead.wrap(newCall()).enqueue(ignored);
+
+        try {
+            bulkhead.wrap(newCall()).execute();
+            fail("Expected the call to be rejected");
+        } catch (RejectedCallException expected) {
+        }
+        assertThat(bulkhead.getRejectedCount(), is(1L));
+    }
+
+    @Test
+    public void shouldFailQueuedCallsWhenDispatcherIsShutDown() throws Exception {
+        final OkHttpClient client = new OkHttpClient();
+        final Transport transport = new OkHttpTransport(client);
+        final TransportRequest request = new TransportRequest("GET", HttpUrl.parse("https://samples.auth0.com/tokeninfo"),
+                Collections.<String, String>emptyMap(), null, null);
+        bulkhead.wrap(newCall()).enqueue(ignored);
+        bulkhead.wrap(newCall()).enqueue(ignored);
+        bulkhead.wrap(transport.newCall(request)).enqueue(ignored);
+        bulkhead.wrap(transport.newCall(request)).enqueue(ignored);
+
+        client.getDispatcher().getExecutorService().shutdown();
+        sent.get(0).onResponse(TransportResponse.create(200, "application/json", new byte[0]));
+        sent.get(1).onResponse(TransportResponse.create(200, "application/json", new byte[0]));
+
+        assertThat(failures, hasSize(2));
+        assertThat(failures.get(0).getCause(), is(instanceOf(RejectedExecutionException.class)));
+        assertThat(bulkhead.getActiveCount(), is(0));
+        assertThat(bulkhead.getQueuedCount(), is(0));
+    }
+
+    @Test
+    public void shouldFailRejectedRequests() throws Exception {
+        final AuthenticationAPIClient client = new AuthenticationAPIClient(new Auth0("CLIENTID", "samples.auth0.com"), new Transport() {
+            @Override
+            public TransportCall newCall(TransportRequest request) {
+                return BulkheadTest.this.newCall();
+            }
+        });
+        bulkhead = new Bulkhead("test", 1);
+        bulkhead.setMaxQueued(0, RejectionPolicy.FAIL_FAST);
+        client.setBulkhead(bulkhead);
+        final MockBaseCallback<UserProfile> callback = new MockBaseCallback<>();
+
+        client.tokenInfo("ID_TOKEN").start(new MockBaseCallback<UserProfile>());
+        client.tokenInfo("ID_TOKEN").start(callback);
+
+        assertThat(callback.error().call(), is(instanceOf(RequestRejectedException.class)));
+    }
+
+    @Test
+    public void shouldIsolateEndpointGroups() throws Exception {
+        final AuthenticationAPIClient client = new AuthenticationAPIClient(new Auth0("CLIENTID", "samples.auth0.com"), new Transport() {
+            @Override
+            public TransportCall newCall(TransportRequest request) {
+                return BulkheadTest.this.newCall();
+            }
+        });
+        final Bulkhead delegation = new Bulkhead("delegation", 1);
+        delegation.setMaxQueued(0, RejectionPolicy.FAIL_FAST);
+        client.setBulkhead(EndpointGroup.DELEGATION, delegation);
+        client.setBulkhead(EndpointGroup.TOKEN_INFO, bulkhead);
+        final MockBaseCallback<Map<String, Object>> rejected = new MockBaseCallback<>();
+
+        client.delegation().start(new MockBaseCallback<Map<String, Object>>());
+        client.delegation().start(rejected);
+        client.tokenInfo("ID_TOKEN").start(new MockBaseCallback<UserProfile>());
+
+        assertThat(rejected.error().call(), is(instanceOf(RequestRejectedException.class)));
+        assertThat(sent, hasSize(2));
+        assertThat(delegation.getRejectedCount(), is(1L));
+        assertThat(bulkhead.getActiveCount(), is(1));
+        assertThat(client.getBulkhead(EndpointGroup.AUTHENTICATION), is(nullValue()));
+    }
+
+    @Test
+    public void shouldGroupEndpointsByFirstPathSegment() throws Exception {
+        assertThat(EndpointGroup.of("oauth"), is(EndpointGroup.AUTHENTICATION));
+        assertThat(EndpointGroup.of("tokeninfo"), is(EndpointGroup.TOKEN_INFO));
+        assertThat(EndpointGroup.of("dbconnections"), is(EndpointGroup.DATABASE_CONNECTIONS));
+        assertThat(EndpointGroup.of("unlink"), is(EndpointGroup.OTHER));
+    }
+
+    private TransportCall newCall() {
+        return new TransportCall() {
+            @Override
+            public TransportResponse execute() throws IOException {
+                return TransportResponse.create(200, "application/json", new byte[0]);
+            }
+
+            @Override
+            public void enqueue(TransportCallback callback) {
+                sent.add(callback);
+            }
+
+            @Override
+            public void cancel() {
+            }
+        };
+    }
+}
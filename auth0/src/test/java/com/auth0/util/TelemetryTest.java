@@ -1,11 +1,21 @@
 package com.auth0.util;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import org.junit.Before;
 import org.junit.Test;
 
+import java.nio.charset.Charset;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasEntry;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
 public class TelemetryTest {
@@ -27,4 +37,39 @@ public class TelemetryTest {
         telemetry = new Telemetry(null, null);
         assertThat(telemetry.getValue(), is(nullValue()));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldEncodeJson() throws Exception {
+        telemetry = new Telemetry("auth0-java", "1.0.0", "2.0.0");
+
+        final Map<String, Object> values = decode(telemetry.getValue());
+        assertThat(values.size(), is(3));
+        assertThat(values, hasEntry("name", (Object) "auth0-java"));
+        assertThat(values, hasEntry("version", (Object) "1.0.0"));
+        assertThat(values, hasEntry("lib_version", (Object) "2.0.0"));
+    }
+
+    @Test
+    public void shouldOmitMissingInfo() throws Exception {
+        final Map<String, Object> values = decode(telemetry.getValue());
+        assertThat(values.size(), is(2));
+        assertThat(values, not(hasEntry(equalTo("lib_version"), (Object) null)));
+    }
+
+    @Test
+    public void shouldEscapeJsonStrings() throws Exception {
+        telemetry = new Telemetry("auth0 \"java\"\\\n", "1.0.0");
+
+        assertThat(decode(telemetry.getValue()), hasEntry("name", (Object) "auth0 \"java\"\\\n"));
+    }
+
+    @Test
+    public void shouldEncodeValueOnce() throws Exception {
+        assertThat(telemetry.getValue(), is(sameInstance(telemetry.getValue())));
+    }
+
+    private static Map<String, Object> decode(String value) throws Exception {
+        final String json = new String(java.util.Base64.getUrlDecoder().decode(value), Charset.forName("UTF-8"));
+        return new ObjectMapper().readValue(json, new TypeReference<Map<String, Object>>() {});
+    }
+}